@@ -0,0 +1,47 @@
+package UI;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link JWindow#emptyToNA} over a mix of null, empty and ordinary values; one op is one cell.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FormattingBenchmark {
+
+    private static final int CELLS = 4096;
+
+    private final String[] values = new String[CELLS];
+
+    @Setup
+    public void setUp() {
+        for (int i = 0; i < CELLS; i++) {
+            values[i] = i % 8 == 0 ? null : i % 8 == 1 ? "" : "value " + i;
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(CELLS)
+    public void emptyToNA(Blackhole bh) {
+        for (String v : values) {
+            bh.consume(JWindow.emptyToNA(v));
+        }
+    }
+}
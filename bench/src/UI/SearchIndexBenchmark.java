@@ -0,0 +1,92 @@
+package UI;
+
+import model.Animal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.swing.JTable;
+import java.util.BitSet;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The animals tab's search box: each op is one keystroke of typing "species 17", cycling
+ * through its prefixes, so the average covers the short first keystrokes (which check rows
+ * one by one) and the trigram lookups after them.
+ *
+ * keystroke is the index search alone; keystrokeFilter is what the search box does, including
+ * the sorter filtering the table's rows. index builds the index from scratch, as a load does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Djava.awt.headless=true"})
+public class SearchIndexBenchmark {
+
+    private static final String TERM = "species 17";
+
+    @Param({"10000", "100000"})
+    public int rows;
+
+    private String[] texts;
+    private TrigramIndex index;
+    private TableSearch search;
+    private int typed;
+
+    @Setup
+    public void setUp() {
+        Animal[] animals = new Animal[rows];
+        for (int i = 0; i < rows; i++) {
+            animals[i] = new Animal(Integer.toString(i + 1), Integer.toString(1 + i % 50), "Animal " + i,
+                    "Species " + i % 200, "Genus " + i % 40);
+        }
+        Object[][] data = JWindow.animalRows(animals);
+
+        // the text TableSearch indexes for the animals tab: name, species and genus
+        texts = new String[rows];
+        for (int i = 0; i < rows; i++) {
+            texts[i] = data[i][2] + "\n" + data[i][3] + "\n" + data[i][4] + "\n";
+        }
+        index = index();
+
+        JTable table = new JTable();
+        table.addPropertyChangeListener("model", e -> table.setRowSorter(new IndexRowSorter(table.getModel())));
+        search = new TableSearch(table, 2, 3, 4);
+        table.setModel(JWindow.nonEditableModel(data, JWindow.ANIMAL_HEADERS, JWindow.ANIMAL_TYPES));
+    }
+
+    @Benchmark
+    public BitSet keystroke() {
+        return index.search(nextPrefix());
+    }
+
+    @Benchmark
+    public void keystrokeFilter() {
+        search.search(nextPrefix());
+    }
+
+    @Benchmark
+    public TrigramIndex index() {
+        TrigramIndex built = new TrigramIndex();
+        for (String text : texts) {
+            built.add(text);
+        }
+        // the trigram lists are built as rows are added; a search would use them as they are
+        return built;
+    }
+
+    private String nextPrefix() {
+        typed = typed % TERM.length() + 1;
+        return TERM.substring(0, typed);
+    }
+}
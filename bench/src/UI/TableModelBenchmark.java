@@ -0,0 +1,74 @@
+package UI;
+
+import model.Animal;
+import model.RawFoodOrder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.swing.table.DefaultTableModel;
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Building a tab's rows the way {@link JWindow} does: model objects to {@code Object[][]}
+ * (with the N/A formatting), then into a non-editable DefaultTableModel, which copies every
+ * row into a Vector. Models are built off the EDT here; only construction is measured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class TableModelBenchmark {
+
+    @Param({"10000", "100000", "1000000"})
+    public int rows;
+
+    private Animal[] animals;
+    private RawFoodOrder[] orders;
+
+    @Setup
+    public void setUp() {
+        animals = new Animal[rows];
+        orders = new RawFoodOrder[rows];
+        long day = TimeUnit.DAYS.toMillis(1);
+        for (int i = 0; i < rows; i++) {
+            // some animals without a habitat or name, as in real data, so both N/A branches run
+            animals[i] = new Animal(Integer.toString(i + 1), i % 7 == 0 ? null : Integer.toString(1 + i % 50),
+                    i % 11 == 0 ? "" : "Animal " + i, "Species " + i % 200, "Genus " + i % 40);
+            orders[i] = new RawFoodOrder(Integer.toString(i + 1), "Contents " + i % 30, 10 + i % 500,
+                    new Date(i * day), new Date((i + 30) * day));
+        }
+    }
+
+    @Benchmark
+    public Object[][] animalRows() {
+        return JWindow.animalRows(animals);
+    }
+
+    @Benchmark
+    public DefaultTableModel animalModel() {
+        return JWindow.nonEditableModel(JWindow.animalRows(animals), JWindow.ANIMAL_HEADERS, JWindow.ANIMAL_TYPES);
+    }
+
+    @Benchmark
+    public Object[][] rawOrderRows() {
+        return JWindow.rawOrderRows(orders);
+    }
+
+    @Benchmark
+    public DefaultTableModel rawOrderModel() {
+        return JWindow.nonEditableModel(JWindow.rawOrderRows(orders), JWindow.RAW_ORDER_HEADERS,
+                JWindow.RAW_ORDER_TYPES);
+    }
+}
@@ -0,0 +1,138 @@
+package UI;
+
+import model.RawFoodOrder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.swing.JTable;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scrolling the raw orders table: each op scrolls a 720px viewport (30 rows) down by three
+ * rows and paints it into an image, as a repaint does.
+ *
+ * striped is the tab as it is now: display Strings built at load and {@link StripedCellRenderer}.
+ * legacy keeps the Integer and Date cells and the renderer styleTable used to install, which
+ * goes through DefaultTableCellRenderer's lookups and allocates a Color per odd-row cell.
+ * prepareCells is the renderers' part of that alone. Run with -prof gc to see the allocation per op.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xmx2g", "-Djava.awt.headless=true"})
+public class TableRenderBenchmark {
+
+    private static final int WIDTH = 900;
+    private static final int VIEWPORT_HEIGHT = 720;
+    private static final int ROW_HEIGHT = 24;
+    private static final int SCROLL_ROWS = 3;
+
+    @Param({"1000000"})
+    public int rows;
+
+    @Param({"striped", "legacy"})
+    public String renderer;
+
+    private JTable table;
+    private BufferedImage image;
+    private Graphics2D g;
+    private int firstRow;
+
+    @Setup
+    public void setUp() {
+        RawFoodOrder[] orders = new RawFoodOrder[rows];
+        long day = TimeUnit.DAYS.toMillis(1);
+        for (int i = 0; i < rows; i++) {
+            orders[i] = new RawFoodOrder(Integer.toString(i + 1), "Contents " + i % 30, 10 + i % 500,
+                    new java.sql.Date(i * day), new java.sql.Date((i + 30) * day));
+        }
+
+        if ("striped".equals(renderer)) {
+            table = new JTable(JWindow.nonEditableModel(JWindow.rawOrderRows(orders), JWindow.RAW_ORDER_HEADERS,
+                    JWindow.RAW_ORDER_TYPES));
+            table.setDefaultRenderer(Object.class, new StripedCellRenderer());
+        } else {
+            Object[][] data = new Object[rows][];
+            for (int i = 0; i < rows; i++) {
+                RawFoodOrder o = orders[i];
+                data[i] = new Object[] {o.getO_id(), JWindow.emptyToNA(o.getContents()), o.getWeight(),
+                        o.getDate_received(), o.getExpiry_date()};
+            }
+            table = new JTable(JWindow.nonEditableModel(data, JWindow.RAW_ORDER_HEADERS, JWindow.RAW_ORDER_TYPES));
+            table.setDefaultRenderer(Object.class, new LegacyZebraRenderer());
+        }
+        table.setRowHeight(ROW_HEIGHT);
+        table.setSize(WIDTH, rows * ROW_HEIGHT);
+        table.doLayout();
+
+        image = new BufferedImage(WIDTH, VIEWPORT_HEIGHT, BufferedImage.TYPE_INT_RGB);
+        g = image.createGraphics();
+    }
+
+    @TearDown
+    public void tearDown() {
+        g.dispose();
+    }
+
+    @Benchmark
+    public BufferedImage scroll() {
+        firstRow = (firstRow + SCROLL_ROWS) % (rows - VIEWPORT_HEIGHT / ROW_HEIGHT);
+        int y = firstRow * ROW_HEIGHT;
+        Graphics2D view = (Graphics2D) g.create();
+        try {
+            view.translate(0, -y);
+            view.setClip(0, y, WIDTH, VIEWPORT_HEIGHT);
+            table.paint(view);
+        } finally {
+            view.dispose();
+        }
+        return image;
+    }
+
+    // the renderer's share of the same scroll: configuring each visible cell, without drawing it
+    @Benchmark
+    public Component prepareCells() {
+        firstRow = (firstRow + SCROLL_ROWS) % (rows - VIEWPORT_HEIGHT / ROW_HEIGHT);
+        Component last = null;
+        for (int r = firstRow; r < firstRow + VIEWPORT_HEIGHT / ROW_HEIGHT; r++) {
+            for (int c = 0; c < table.getColumnCount(); c++) {
+                last = table.prepareRenderer(table.getCellRenderer(r, c), r, c);
+            }
+        }
+        return last;
+    }
+
+    // the zebra renderer styleTable installed before StripedCellRenderer
+    private static final class LegacyZebraRenderer extends DefaultTableCellRenderer {
+        @Override
+        public Component getTableCellRendererComponent(
+                JTable tbl, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+            Component c = super.getTableCellRendererComponent(tbl, value, isSelected, hasFocus, row, column);
+            if (!isSelected) {
+                if (row % 2 == 0) {
+                    c.setBackground(Color.WHITE);
+                } else {
+                    c.setBackground(new Color(245, 245, 245));
+                }
+            }
+            return c;
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package UI;
+
+import model.Animal;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import javax.swing.event.TableModelEvent;
+import javax.swing.table.DefaultTableModel;
+import javax.swing.table.TableRowSorter;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One click on a column header of the animals rows: {@link IndexRowSorter} over a
+ * {@link TypedTableModel}, against the TableRowSorter that JTable creates by itself, which
+ * collates each cell's toString on every comparison. Each op flips the sort order.
+ *
+ * firstClick drops the column's ranks first, as a reload does, so it includes computing them;
+ * click reuses them. column 0 is the animal ID, 2 the name.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx2g")
+public class TableSortBenchmark {
+
+    @Param({"100000", "1000000"})
+    public int rows;
+
+    @Param({"0", "2"})
+    public int column;
+
+    private TypedTableModel model;
+    private IndexRowSorter indexSorter;
+    private TableRowSorter<DefaultTableModel> tableRowSorter;
+
+    @Setup
+    public void setUp() {
+        Animal[] animals = new Animal[rows];
+        for (int i = 0; i < rows; i++) {
+            // scattered IDs and names, some missing, so neither column starts out sorted
+            int id = (int) ((i * 2654435761L) % rows) + 1;
+            animals[i] = new Animal(Integer.toString(id), i % 7 == 0 ? null : Integer.toString(1 + i % 50),
+                    i % 11 == 0 ? "" : "Animal " + (id * 31 % rows), "Species " + i % 200, "Genus " + i % 40);
+        }
+        Object[][] data = JWindow.animalRows(animals);
+        model = JWindow.nonEditableModel(data, JWindow.ANIMAL_HEADERS, JWindow.ANIMAL_TYPES);
+        indexSorter = new IndexRowSorter(model);
+        tableRowSorter = new TableRowSorter<>(new DefaultTableModel(data, JWindow.ANIMAL_HEADERS));
+    }
+
+    @Benchmark
+    public int click() {
+        indexSorter.toggleSortOrder(column);
+        return indexSorter.convertRowIndexToModel(0);
+    }
+
+    @Benchmark
+    public int firstClick() {
+        // an update event for the column drops its ranks and leaves the order alone
+        model.fireTableChanged(new TableModelEvent(model, 0, 0, column));
+        indexSorter.toggleSortOrder(column);
+        return indexSorter.convertRowIndexToModel(0);
+    }
+
+    @Benchmark
+    public int tableRowSorterClick() {
+        tableRowSorter.toggleSortOrder(column);
+        return tableRowSorter.convertRowIndexToModel(0);
+    }
+}
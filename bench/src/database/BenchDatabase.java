@@ -0,0 +1,52 @@
+package database;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Connection settings for the JMH benchmarks that need PostgreSQL. They run against the same
+ * scratch database as the plan regression suite, but fill it with {@link DatasetGenerator}'s
+ * skewed data at a fixed seed: a report over one huge habitat and many small ones costs what it
+ * does in a real zoo, which PlanDataGenerator's evenly spread rows don't show.
+ *
+ * -Dzoo.bench.url, -Dzoo.bench.user, -Dzoo.bench.password and -Dzoo.bench.init override the defaults.
+ */
+final class BenchDatabase {
+
+    static final String URL = System.getProperty("zoo.bench.url", "jdbc:postgresql://localhost:5432/zoo_plans");
+    static final String USER = System.getProperty("zoo.bench.user", "zoo");
+    static final String PASSWORD = System.getProperty("zoo.bench.password", "zoo");
+    static final Path INIT_SQL = Path.of(System.getProperty("zoo.bench.init", "src/sql/init.sql"));
+
+    // fixed, so every run and every machine measures the same rows
+    static final long SEED = 42;
+
+    private BenchDatabase() {
+    }
+
+    static Connection open() throws SQLException {
+        return DriverManager.getConnection(URL, USER, PASSWORD);
+    }
+
+    // generated data with this many animals; only regenerated when the database holds anything
+    // else (another size, or the plan suite's data)
+    static void ensurePopulated(int animals) throws SQLException, IOException {
+        DatasetGenerator generator = new DatasetGenerator(animals / (double) DatasetGenerator.ANIMALS_PER_SCALE, SEED);
+        try (Connection connection = open()) {
+            PlanDataGenerator.checkScratchDatabase(connection);
+            try (Statement st = connection.createStatement();
+                 ResultSet rs = st.executeQuery("SELECT obj_description(to_regclass('animals1'), 'pg_class')")) {
+                rs.next();
+                if (generator.description().equals(rs.getString(1))) {
+                    return;
+                }
+            }
+            generator.load(connection, INIT_SQL, true);
+        }
+    }
+}
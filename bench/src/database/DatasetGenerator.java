@@ -0,0 +1,606 @@
+package database;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+
+/**
+ * Fills a zoo database with a synthetic, referentially consistent dataset for reproducing
+ * production-sized behaviour. Scale factor 1 is 10,000 animals (about 150k rows in all);
+ * rows grow linearly, so scale 68 is about 10M rows.
+ *
+ * The data is skewed the way a real zoo is: animals go to habitats and species by a Zipf
+ * distribution (a few habitats hold most animals, a few species are most of the collection),
+ * zookeepers feed the animals of the habitats they are assigned to, and a few raw foods and
+ * storage units see most of the orders.
+ *
+ * Every value is a hash of (seed, table, row), not a draw from one shared random stream, so the
+ * same seed and scale give the same rows whatever order the tables are written in.
+ *
+ * Loading: one transaction that drops the foreign keys and disables the user triggers, COPYs
+ * every table, then puts the keys back (validated in one pass per key), rebuilds storage_usage,
+ * and sends one change notification per table. VACUUM ANALYZE runs afterwards. The seed and size
+ * are left in animals1's table comment (see {@link #description()}).
+ *
+ * usage: DatasetGenerator [--url jdbc:postgresql://localhost:5432/zoo] [--user zoo] [--password zoo]
+ *                         [--scale 1] [--seed 42] [--init src/sql/init.sql] [--replace]
+ *
+ * An empty database gets its schema from init.sql first. Refuses to touch a database that
+ * already has animals unless --replace is given.
+ */
+public final class DatasetGenerator {
+
+    static final int ANIMALS_PER_SCALE = 10_000;
+    private static final int COPY_BUFFER_CHARS = 1 << 16;
+
+    // Zipf exponents: habitats and species are steeply skewed, feeding and storage less so
+    private static final double HABITAT_SKEW = 1.2;
+    private static final double SPECIES_SKEW = 1.1;
+    private static final double FOOD_SKEW = 1.0;
+    private static final double STORAGE_SKEW = 0.8;
+    private static final double SHOP_SKEW = 0.9;
+
+    // in foreign key order
+    private static final String[] TABLES = {"computers2", "workers", "computers1", "zookeepers", "vendors",
+            "veterinarians", "habitats2", "habitats1", "shops", "storage_units", "items", "animals2", "animals1",
+            "prepped_food", "raw_food_orders", "works_at", "assigned_to", "feeds", "maintains_health_of",
+            "cohabitates_with", "made_from", "stored_at", "located_at"};
+
+    private static final String[] FIRST_NAMES = {"Ava", "Ben", "Chloe", "Dev", "Elena", "Finn", "Grace", "Hiro",
+            "Isla", "Jonah", "Kira", "Liam", "Maya", "Noah", "Olga", "Priya", "Quinn", "Ravi", "Sofia", "Tariq"};
+    private static final String[] LAST_NAMES = {"Adams", "Baker", "Chen", "Diaz", "Evans", "Fox", "Gupta", "Hall",
+            "Ito", "Jones", "Kim", "Lopez", "Moore", "Nair", "Ortiz", "Patel", "Reyes", "Singh", "Tan", "Wong"};
+    private static final String[] STREETS = {"Main St", "Oak Ave", "Pine Rd", "Cedar Ln", "Elm St", "Birch Way",
+            "Maple Dr", "Harbour Rd", "Park Blvd", "River Rd"};
+    private static final String[] PET_NAMES = {"Luna", "Max", "Kiki", "Bruno", "Nala", "Simba", "Zara", "Coco",
+            "Rocky", "Mango", "Pepper", "Juno", "Otis", "Willow", "Ziggy", "Hazel", "Biscuit", "Koda"};
+    private static final String[] GENERA = {"Panthera", "Ursus", "Canis", "Equus", "Ara", "Python", "Varanus",
+            "Gorilla", "Pan", "Lemur", "Giraffa", "Loxodonta", "Pongo", "Spheniscus", "Delphinus", "Chelonia"};
+    private static final String[] SPECIALIZATIONS = {"Mammals", "Birds", "Reptiles", "Fish", "Primates",
+            "Amphibians", "Exotics", "Dentistry"};
+    private static final String[] MEALS = {"breakfast", "dinner", "treat", "supplement"};
+    private static final String[] FOODS = {"Beef", "Chicken", "Fish", "Krill", "Hay", "Lettuce", "Carrots",
+            "Apples", "Bananas", "Insects", "Mice", "Seeds", "Pellets", "Squid", "Clover", "Bamboo"};
+    private static final String[] SHOP_TYPES = {"Gifts", "Food", "Drinks", "Toys", "Books"};
+    private static final String[][] COMPUTER_MAKERS = {
+            {"Dell", "Latitude", "Laptop"}, {"Dell", "OptiPlex", "Desktop"}, {"Lenovo", "ThinkPad", "Laptop"},
+            {"Lenovo", "ThinkCentre", "Desktop"}, {"HP", "EliteBook", "Laptop"}, {"HP", "ProDesk", "Desktop"},
+            {"Apple", "MacBook", "Laptop"}, {"Apple", "iMac", "Desktop"}, {"Asus", "ZenBook", "Laptop"}};
+    // biome, temperature, humidity
+    private static final Object[][] BIOMES = {
+            {"Savanna", 28, 40}, {"Rainforest", 27, 85}, {"Desert", 35, 15}, {"Tundra", -5, 60},
+            {"Temperate forest", 14, 65}, {"Wetland", 20, 90}, {"Grassland", 18, 45}, {"Alpine", 5, 55},
+            {"Coral reef", 26, 100}, {"Kelp forest", 12, 100}, {"Polar", -15, 70}, {"Mangrove", 26, 80}};
+    private static final LocalDate FIRST_ORDER_DAY = LocalDate.of(2023, 1, 1);
+
+    private final long seed;
+    private final int animals;
+    private final int workers;
+    private final int zookeepers;
+    private final int veterinarians;
+    private final int habitats;
+    private final int species;
+    private final int shops;
+    private final int items;
+    private final int storageUnits;
+    private final int orders;
+    private final int computerModels;
+
+    private final Zipf habitatZipf;
+    private final Zipf speciesZipf;
+    private final Zipf foodZipf;
+    private final Zipf storageZipf;
+    private final Zipf shopZipf;
+
+    DatasetGenerator(double scale, long seed) {
+        if (scale <= 0) {
+            throw new IllegalArgumentException("Scale must be positive: " + scale);
+        }
+        this.seed = seed;
+        animals = (int) Math.max(100, Math.round(scale * ANIMALS_PER_SCALE));
+        workers = Math.max(30, animals / 10);
+        zookeepers = workers * 6 / 10;
+        veterinarians = workers * 15 / 100;
+        habitats = Math.max(10, animals / 200);
+        species = Math.max(50, animals / 100);
+        shops = Math.max(5, animals / 2000);
+        items = animals / 5;
+        storageUnits = Math.max(5, animals / 1000);
+        orders = animals / 2;
+        computerModels = COMPUTER_MAKERS.length * 5;
+
+        // rank -> ID permutations, so the most popular habitat isn't always ID 1
+        habitatZipf = new Zipf(habitats, HABITAT_SKEW, seed ^ 0x4841L);
+        speciesZipf = new Zipf(species, SPECIES_SKEW, seed ^ 0x5350L);
+        foodZipf = new Zipf(FOODS.length, FOOD_SKEW, seed ^ 0x464FL);
+        storageZipf = new Zipf(storageUnits, STORAGE_SKEW, seed ^ 0x5354L);
+        shopZipf = new Zipf(shops, SHOP_SKEW, seed ^ 0x5348L);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = parseArgs(args);
+        String url = opts.getOrDefault("url", "jdbc:postgresql://localhost:5432/zoo");
+        String user = opts.getOrDefault("user", "zoo");
+        String password = opts.getOrDefault("password", "zoo");
+        double scale = Double.parseDouble(opts.getOrDefault("scale", "1"));
+        long seed = Long.parseLong(opts.getOrDefault("seed", "42"));
+        boolean replace = opts.containsKey("replace");
+        Path initSql = Path.of(opts.getOrDefault("init", "src/sql/init.sql"));
+
+        DatasetGenerator generator = new DatasetGenerator(scale, seed);
+        try (Connection connection = DriverManager.getConnection(url, user, password)) {
+            long start = System.nanoTime();
+            Map<String, Long> rows = generator.load(connection, initSql, replace);
+            long total = 0;
+            for (Map.Entry<String, Long> e : rows.entrySet()) {
+                System.out.printf("%-22s %,12d%n", e.getKey(), e.getValue());
+                total += e.getValue();
+            }
+            System.out.printf("%-22s %,12d rows in %.1f s (scale %s, seed %d)%n", "total", total,
+                    (System.nanoTime() - start) / 1e9, scale, seed);
+        }
+    }
+
+    // Returns the rows written per table
+    Map<String, Long> load(Connection connection, Path initSql, boolean replace) throws SQLException, IOException {
+        boolean created;
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT to_regclass('animals1') IS NULL")) {
+            rs.next();
+            created = rs.getBoolean(1);
+        }
+        if (created) {
+            // init.sql's sample rows are replaced below
+            try (Statement st = connection.createStatement()) {
+                st.execute(Files.readString(initSql, StandardCharsets.UTF_8));
+            }
+        }
+        SchemaMigrator.migrate(connection);
+
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT EXISTS (SELECT 1 FROM animals1)")) {
+            rs.next();
+            if (rs.getBoolean(1) && !created && !replace) {
+                throw new IllegalStateException("The database already has animals; use --replace to overwrite them.");
+            }
+        }
+
+        Map<String, Long> rows = new LinkedHashMap<>();
+        boolean oldAutoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+
+        try (Statement st = connection.createStatement()) {
+            st.execute("TRUNCATE " + String.join(", ", TABLES) + " CASCADE");
+
+            List<String[]> foreignKeys = new ArrayList<>();
+            try (ResultSet rs = st.executeQuery("SELECT conrelid::regclass::text, conname, pg_get_constraintdef(oid) "
+                    + "FROM pg_constraint WHERE contype = 'f' AND connamespace = 'public'::regnamespace")) {
+                while (rs.next()) {
+                    foreignKeys.add(new String[] {rs.getString(1), rs.getString(2), rs.getString(3)});
+                }
+            }
+            for (String[] fk : foreignKeys) {
+                st.execute("ALTER TABLE " + fk[0] + " DROP CONSTRAINT " + quote(fk[1]));
+            }
+            for (String table : TABLES) {
+                st.execute("ALTER TABLE " + table + " DISABLE TRIGGER USER");
+            }
+
+            CopyWriter copy = new CopyWriter(connection.unwrap(PGConnection.class));
+            rows.put("computers2", copy.table("computers2 (model, manufacturer, type)", computerModels, this::computer2));
+            rows.put("workers", copy.table("workers (w_id, name, pay_rate, address, email, phone)", workers, this::worker));
+            rows.put("computers1", copy.table("computers1 (c_id, w_id, model)", workers, this::computer1));
+            rows.put("zookeepers", copy.table("zookeepers (w_id)", zookeepers, (i, out) -> out.row(i + 1)));
+            rows.put("vendors", copy.table("vendors (w_id)", workers - zookeepers - veterinarians,
+                    (i, out) -> out.row(zookeepers + veterinarians + i + 1)));
+            rows.put("veterinarians", copy.table("veterinarians (w_id, specialization)", veterinarians, this::veterinarian));
+            rows.put("habitats2", copy.table("habitats2 (biome, temperature, humidity)", BIOMES.length,
+                    (i, out) -> out.row(BIOMES[i][0], BIOMES[i][1], BIOMES[i][2])));
+            rows.put("habitats1", copy.table("habitats1 (p_id, name, biome, area)", habitats, this::habitat));
+            rows.put("shops", copy.table("shops (p_id, name, type)", shops, this::shop));
+            rows.put("storage_units", copy.table("storage_units (p_id, name, temperature)", storageUnits, this::storageUnit));
+            rows.put("items", copy.table("items (i_id, p_id, name, stock, price)", items, this::item));
+            rows.put("animals2", copy.table("animals2 (species, genus)", species, this::species));
+            rows.put("animals1", copy.table("animals1 (a_id, p_id, name, species)", animals, this::animal));
+            rows.put("prepped_food", copy.table("prepped_food (a_id, name, weight)", animals, this::preppedFood));
+            rows.put("raw_food_orders", copy.table("raw_food_orders (o_id, contents, weight, date_received, expiry_date)",
+                    orders, this::rawFoodOrder));
+            rows.put("works_at", copy.table("works_at (w_id, p_id)", workers - zookeepers - veterinarians, this::worksAt));
+            rows.put("assigned_to", copy.table("assigned_to (w_id, p_id)", zookeepers, this::assignedTo));
+            rows.put("feeds", copy.table("feeds (w_id, a_id)", animals, this::feeds));
+            rows.put("maintains_health_of", copy.table("maintains_health_of (w_id, a_id)", animals, this::maintainsHealthOf));
+            rows.put("cohabitates_with", copy.table("cohabitates_with (a_id1, a_id2)", animals, new Cohabitation()));
+            rows.put("made_from", copy.table("made_from (a_id, name, o_id)", animals, this::madeFrom));
+            rows.put("stored_at", copy.table("stored_at (a_id, name, p_id)", animals, this::storedAt));
+            rows.put("located_at", copy.table("located_at (o_id, p_id)", orders, this::locatedAt));
+
+            for (String[] fk : foreignKeys) {
+                st.execute("ALTER TABLE " + fk[0] + " ADD CONSTRAINT " + quote(fk[1]) + " " + fk[2]);
+            }
+            for (String table : TABLES) {
+                st.execute("ALTER TABLE " + table + " ENABLE TRIGGER USER");
+            }
+            st.execute("DELETE FROM storage_usage");
+            st.execute(DatabaseConnectionHandler.STORAGE_USAGE_REBUILD_SQL);
+            st.execute("COMMENT ON TABLE animals1 IS '" + description() + "'");
+            // the row triggers were off; tell open clients once per table instead
+            for (String table : TABLES) {
+                st.execute("SELECT pg_notify('zoo_changes', '" + table + "')");
+            }
+
+            connection.commit();
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(oldAutoCommit);
+        }
+
+        // outside the transaction: sets the visibility map too, so index-only scans work straight away
+        try (Statement st = connection.createStatement()) {
+            st.execute("VACUUM ANALYZE");
+        }
+        return rows;
+    }
+
+    // what load leaves in animals1's comment; the same description means the same rows
+    String description() {
+        return "DatasetGenerator: " + animals + " animals, seed " + seed;
+    }
+
+    // ------------------------------------------------------------
+    // Rows. Each is a function of its index (0-based) and the seed
+    // ------------------------------------------------------------
+
+    private void computer2(int i, CopyWriter out) {
+        String[] maker = COMPUTER_MAKERS[i % COMPUTER_MAKERS.length];
+        out.row(maker[1] + " " + (i / COMPUTER_MAKERS.length + 1) * 100, maker[0], maker[2]);
+    }
+
+    // IDs 1..zookeepers are zookeepers, then veterinarians, then vendors
+    private void worker(int i, CopyWriter out) {
+        int id = i + 1;
+        String name = pick(FIRST_NAMES, hash(1, id, 0)) + " " + pick(LAST_NAMES, hash(1, id, 1));
+        double payRate = 15 + Math.round(unit(1, id, 2) * 2500) / 100.0;
+        String address = (1 + hash(1, id, 3) % 9999) + " " + pick(STREETS, hash(1, id, 4));
+        out.row(id, name, payRate, address, "w" + id + "@zoo.example", String.format("604%07d", id));
+    }
+
+    // about 70% of workers have a computer
+    private void computer1(int i, CopyWriter out) {
+        int worker = i + 1;
+        if (unit(2, worker, 0) < 0.7) {
+            String[] maker = COMPUTER_MAKERS[(int) (hash(2, worker, 1) % COMPUTER_MAKERS.length)];
+            int model = (int) (hash(2, worker, 2) % (computerModels / COMPUTER_MAKERS.length));
+            out.row(worker, worker, maker[1] + " " + (model + 1) * 100);
+        }
+    }
+
+    private void veterinarian(int i, CopyWriter out) {
+        int id = zookeepers + i + 1;
+        out.row(id, pick(SPECIALIZATIONS, hash(3, id, 0)));
+    }
+
+    private void habitat(int i, CopyWriter out) {
+        int id = i + 1;
+        String biome = (String) BIOMES[(int) (hash(4, id, 0) % BIOMES.length)][0];
+        out.row(id, abbreviate(biome, 12) + " " + id, biome, 500 + hash(4, id, 1) % 20_000);
+    }
+
+    // habitats, storage units and shops are all places; number them in one sequence like init.sql
+    private int storageUnitId(int index) {
+        return habitats + index + 1;
+    }
+
+    private int shopId(int index) {
+        return habitats + storageUnits + index + 1;
+    }
+
+    private void shop(int i, CopyWriter out) {
+        int id = shopId(i);
+        String type = pick(SHOP_TYPES, hash(5, id, 0));
+        out.row(id, type + " shop " + (i + 1), type);
+    }
+
+    private void storageUnit(int i, CopyWriter out) {
+        int id = storageUnitId(i);
+        long kind = hash(6, id, 0) % 3;
+        String name = kind == 0 ? "Freezer " : kind == 1 ? "Cooler " : "Dry store ";
+        int temperature = kind == 0 ? -18 : kind == 1 ? 4 : 18;
+        out.row(id, name + (i + 1), temperature);
+    }
+
+    private void item(int i, CopyWriter out) {
+        int id = i + 1;
+        int shop = shopId(shopZipf.sample(unit(7, id, 0)) - 1);
+        out.row(id, shop, pick(FOODS, hash(7, id, 1)) + " item " + id,
+                hash(7, id, 2) % 500, 1 + Math.round(unit(7, id, 3) * 4900) / 100.0);
+    }
+
+    private void species(int i, CopyWriter out) {
+        int id = i + 1;
+        String genus = GENERA[i % GENERA.length];
+        out.row(speciesName(id), genus);
+    }
+
+    private static String speciesName(int id) {
+        return GENERA[(id - 1) % GENERA.length] + " sp" + id;
+    }
+
+    // about 3% of animals are in transit, with no habitat
+    private int habitatOf(int animal) {
+        return unit(8, animal, 0) < 0.03 ? 0 : habitatZipf.sample(unit(8, animal, 1));
+    }
+
+    private void animal(int i, CopyWriter out) {
+        int id = i + 1;
+        int habitat = habitatOf(id);
+        out.row(id, habitat == 0 ? null : habitat, pick(PET_NAMES, hash(8, id, 2)),
+                speciesName(speciesZipf.sample(unit(8, id, 3))));
+    }
+
+    // every animal has breakfast and dinner; some also get a treat or a supplement
+    private int mealsOf(int animal) {
+        double u = unit(9, animal, 0);
+        return u < 0.6 ? 2 : u < 0.9 ? 3 : 4;
+    }
+
+    private void preppedFood(int i, CopyWriter out) {
+        int id = i + 1;
+        for (int m = 0; m < mealsOf(id); m++) {
+            out.row(id, MEALS[m], 0.2 + Math.round(unit(9, id, m + 1) * 800) / 100.0);
+        }
+    }
+
+    private void rawFoodOrder(int i, CopyWriter out) {
+        int id = i + 1;
+        LocalDate received = FIRST_ORDER_DAY.plusDays(hash(10, id, 0) % 730);
+        out.row(id, FOODS[foodZipf.sample(unit(10, id, 1)) - 1], 5 + hash(10, id, 2) % 496,
+                received, received.plusDays(7 + hash(10, id, 3) % 84));
+    }
+
+    private void worksAt(int i, CopyWriter out) {
+        int vendor = zookeepers + veterinarians + i + 1;
+        out.row(vendor, shopId(shopZipf.sample(unit(11, vendor, 0)) - 1));
+    }
+
+    // zookeeper z looks after habitat z % habitats, and one in five also covers the next one
+    private void assignedTo(int i, CopyWriter out) {
+        int zookeeper = i + 1;
+        int home = i % habitats;
+        out.row(zookeeper, home + 1);
+        if (unit(12, zookeeper, 0) < 0.2 && habitats > 1) {
+            out.row(zookeeper, (home + 1) % habitats + 1);
+        }
+    }
+
+    // 1-3 of the zookeepers assigned to the animal's habitat, so big habitats make busy keepers
+    private void feeds(int i, CopyWriter out) {
+        int animal = i + 1;
+        int habitat = habitatOf(animal);
+        if (habitat == 0) {
+            out.row(1 + hash(13, animal, 0) % zookeepers, animal);
+            return;
+        }
+        int home = habitat - 1;
+        if (home >= zookeepers) {
+            out.row(1 + hash(13, animal, 0) % zookeepers, animal);
+            return;
+        }
+        int keepers = (zookeepers - 1 - home) / habitats + 1; // zookeepers z with (z - 1) % habitats == home
+        int wanted = Math.min(keepers, 1 + (int) (hash(13, animal, 1) % 3));
+        int first = (int) (hash(13, animal, 2) % keepers);
+        for (int k = 0; k < wanted; k++) {
+            int slot = (first + k) % keepers;
+            out.row(home + 1 + slot * habitats, animal);
+        }
+    }
+
+    private void maintainsHealthOf(int i, CopyWriter out) {
+        int animal = i + 1;
+        out.row(zookeepers + 1 + hash(14, animal, 0) % veterinarians, animal);
+    }
+
+    // each animal with a habitat shares it with the previous animal placed there
+    private final class Cohabitation implements RowSource {
+        private final int[] lastInHabitat = new int[habitats + 1];
+
+        @Override
+        public void write(int i, CopyWriter out) {
+            int animal = i + 1;
+            int habitat = habitatOf(animal);
+            if (habitat != 0) {
+                if (lastInHabitat[habitat] != 0) {
+                    out.row(lastInHabitat[habitat], animal);
+                }
+                lastInHabitat[habitat] = animal;
+            }
+        }
+    }
+
+    // each meal is made from one or two raw food orders
+    private void madeFrom(int i, CopyWriter out) {
+        int animal = i + 1;
+        for (int m = 0; m < mealsOf(animal); m++) {
+            long first = hash(15, animal, m) % orders;
+            out.row(animal, MEALS[m], first + 1);
+            if (unit(15, animal, m + 8) < 0.3 && orders > 1) {
+                out.row(animal, MEALS[m], (first + 1) % orders + 1);
+            }
+        }
+    }
+
+    private void storedAt(int i, CopyWriter out) {
+        int animal = i + 1;
+        for (int m = 0; m < mealsOf(animal); m++) {
+            out.row(animal, MEALS[m], storageUnitId(storageZipf.sample(unit(16, animal, m)) - 1));
+        }
+    }
+
+    private void locatedAt(int i, CopyWriter out) {
+        int order = i + 1;
+        out.row(order, storageUnitId(storageZipf.sample(unit(17, order, 0)) - 1));
+    }
+
+    // ------------------------------------------------------------
+    // Deterministic randomness
+    // ------------------------------------------------------------
+
+    // SplitMix64 finalizer over (seed, table, row, purpose); non-negative
+    private long hash(int table, long row, int purpose) {
+        long z = seed * 0x9E3779B97F4A7C15L + table * 0xBF58476D1CE4E5B9L + row * 0x94D049BB133111EBL + purpose;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return (z ^ (z >>> 31)) >>> 1;
+    }
+
+    // uniform in [0, 1)
+    private double unit(int table, long row, int purpose) {
+        return (hash(table, row, purpose) >>> 10) * 0x1.0p-53;
+    }
+
+    private static String pick(String[] values, long hash) {
+        return values[(int) (hash % values.length)];
+    }
+
+    private static String abbreviate(String s, int max) {
+        return s.length() <= max ? s : s.substring(0, max).trim();
+    }
+
+    // Zipf over IDs 1..n: sample(u) maps a uniform u to an ID, rank 1 being the most likely.
+    // Ranks are shuffled onto IDs with a seeded permutation.
+    static final class Zipf {
+        private final double[] cdf;
+        private final int[] idByRank;
+
+        Zipf(int n, double exponent, long seed) {
+            cdf = new double[n];
+            double sum = 0;
+            for (int k = 1; k <= n; k++) {
+                sum += 1 / Math.pow(k, exponent);
+                cdf[k - 1] = sum;
+            }
+            for (int k = 0; k < n; k++) {
+                cdf[k] /= sum;
+            }
+
+            idByRank = new int[n];
+            for (int k = 0; k < n; k++) {
+                idByRank[k] = k + 1;
+            }
+            SplittableRandom random = new SplittableRandom(seed);
+            for (int k = n - 1; k > 0; k--) {
+                int j = random.nextInt(k + 1);
+                int t = idByRank[k];
+                idByRank[k] = idByRank[j];
+                idByRank[j] = t;
+            }
+        }
+
+        int sample(double u) {
+            int rank = Arrays.binarySearch(cdf, u);
+            rank = rank >= 0 ? rank : Math.min(-rank - 1, cdf.length - 1);
+            return idByRank[rank];
+        }
+    }
+
+    // ------------------------------------------------------------
+    // COPY
+    // ------------------------------------------------------------
+
+    @FunctionalInterface
+    interface RowSource {
+        // writes zero or more rows for index i
+        void write(int i, CopyWriter out);
+    }
+
+    // Text-format COPY: values are tab separated, null is \N. Generated values never contain
+    // tabs, newlines or backslashes, so nothing needs escaping.
+    static final class CopyWriter {
+        private final PGConnection connection;
+        private final StringBuilder buffer = new StringBuilder(COPY_BUFFER_CHARS + 256);
+        private CopyIn copy;
+        private long rows;
+
+        CopyWriter(PGConnection connection) {
+            this.connection = connection;
+        }
+
+        long table(String target, int count, RowSource source) throws SQLException {
+            copy = connection.getCopyAPI().copyIn("COPY " + target + " FROM STDIN");
+            rows = 0;
+            try {
+                for (int i = 0; i < count; i++) {
+                    source.write(i, this);
+                    if (buffer.length() >= COPY_BUFFER_CHARS) {
+                        flush();
+                    }
+                }
+                flush();
+                copy.endCopy();
+            } finally {
+                if (copy.isActive()) {
+                    copy.cancelCopy();
+                }
+            }
+            return rows;
+        }
+
+        void row(Object... values) {
+            for (int i = 0; i < values.length; i++) {
+                if (i > 0) {
+                    buffer.append('\t');
+                }
+                buffer.append(values[i] == null ? "\\N" : values[i].toString());
+            }
+            buffer.append('\n');
+            rows++;
+        }
+
+        private void flush() throws SQLException {
+            if (buffer.length() > 0) {
+                byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+                copy.writeToCopy(bytes, 0, bytes.length);
+                buffer.setLength(0);
+            }
+        }
+    }
+
+    private static String quote(String identifier) {
+        return '"' + identifier.replace("\"", "\"\"") + '"';
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> opts = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            }
+            String key = args[i].substring(2);
+            if (key.equals("replace")) {
+                opts.put(key, "true");
+            } else if (i + 1 < args.length) {
+                opts.put(key, args[++i]);
+            } else {
+                throw new IllegalArgumentException("Missing value for --" + key);
+            }
+        }
+        return opts;
+    }
+}
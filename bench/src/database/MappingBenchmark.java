@@ -0,0 +1,200 @@
+package database;
+
+import mapping.RowMapper;
+import mapping.RowReader;
+import model.*;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ResultSet-to-model mapping for every generated mapper. Each model's rows are fetched once
+ * (up to {@code rows}, from the same SQL the handler runs where there is one) into a scrollable
+ * ResultSet and replayed, so only mapping is measured. One op maps the whole result.
+ *
+ * mapByName is the baseline: the hand-written rs.getString("a_id")-per-cell mapping the handler
+ * used before the generated mappers, for the models it still has a copy of.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MappingBenchmark {
+
+    // enough for every table to reach `rows`, except the small lookup tables
+    private static final int SCALE = 100_000;
+
+    private static final Map<String, Source> SOURCES = Map.ofEntries(
+            catalog("Animal", "getAnimalInfo", AnimalMapper.INSTANCE),
+            catalog("Habitat", "getHabitatInfo", HabitatMapper.INSTANCE),
+            catalog("Worker", "getWorkerInfo", WorkerMapper.INSTANCE),
+            catalog("Zookeeper", "getSuperZookeepers.zookeepers", ZookeeperMapper.INSTANCE),
+            catalog("Veterinarian", "getVeterinarianInfo", VeterinarianMapper.INSTANCE),
+            catalog("Shop", "getShopInfo", ShopMapper.INSTANCE),
+            catalog("Item", "getItemInfo", ItemMapper.INSTANCE),
+            catalog("StorageUnit", "getStorageUnitInfo", StorageUnitMapper.INSTANCE),
+            catalog("RawFoodOrder", "getRawFoodOrderInfo", RawFoodOrderMapper.INSTANCE),
+            catalog("Computer", "getComputerInfo", ComputerMapper.INSTANCE),
+            catalog("CohabitatesWith", "getCohabitatesWithInfo", CohabitatesWithMapper.INSTANCE),
+            catalog("MaintainsHealthOf", "getMaintainsHealthOfInfo", MaintainsHealthOfMapper.INSTANCE),
+            catalog("Feeds", "getFeedsInfo", FeedsMapper.INSTANCE),
+            catalog("MadeFrom", "getMadeFromInfo", MadeFromMapper.INSTANCE),
+            catalog("SumWeights", "getSumWeights", SumWeightsMapper.INSTANCE),
+            // no handler query reads these; Vendor maps the workers rows of the vendors
+            table("Vendor", "SELECT w.* FROM vendors v JOIN workers w USING (w_id)", VendorMapper.INSTANCE),
+            table("AssignedTo", "SELECT * FROM assigned_to", AssignedToMapper.INSTANCE),
+            table("LocatedAt", "SELECT * FROM located_at", LocatedAtMapper.INSTANCE),
+            table("PreppedFood", "SELECT * FROM prepped_food", PreppedFoodMapper.INSTANCE),
+            table("StoredAt", "SELECT * FROM stored_at", StoredAtMapper.INSTANCE),
+            table("WorksAt", "SELECT * FROM works_at", WorksAtMapper.INSTANCE));
+
+    // a model's rows, fetched once into a scrollable ResultSet so they can be replayed without
+    // another round trip
+    @State(Scope.Benchmark)
+    public abstract static class Fetched {
+        @Param({"10000"})
+        public int rows;
+
+        Connection connection;
+        ResultSet rs;
+        RowMapper<?> mapper;
+
+        void fetch(String model) throws SQLException, IOException {
+            BenchDatabase.ensurePopulated(SCALE);
+            Source source = SOURCES.get(model);
+            mapper = source.mapper;
+
+            connection = BenchDatabase.open();
+            Statement st = connection.createStatement(ResultSet.TYPE_SCROLL_INSENSITIVE, ResultSet.CONCUR_READ_ONLY);
+            st.closeOnCompletion();
+            rs = st.executeQuery(source.sql + " LIMIT " + rows);
+        }
+
+        @TearDown
+        public void tearDown() throws SQLException {
+            rs.close();
+            connection.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class Generated extends Fetched {
+        @Param({"Animal", "Habitat", "Worker", "Zookeeper", "Veterinarian", "Shop", "Item", "StorageUnit",
+                "RawFoodOrder", "Computer", "CohabitatesWith", "MaintainsHealthOf", "Feeds", "MadeFrom",
+                "SumWeights", "Vendor", "AssignedTo", "LocatedAt", "PreppedFood", "StoredAt", "WorksAt"})
+        public String model;
+
+        @Setup
+        public void setUp() throws SQLException, IOException {
+            fetch(model);
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class ByName extends Fetched {
+        @Param({"Animal", "RawFoodOrder"})
+        public String model;
+
+        @Setup
+        public void setUp() throws SQLException, IOException {
+            fetch(model);
+        }
+    }
+
+    @Benchmark
+    public int map(Generated state, Blackhole bh) throws SQLException {
+        ResultSet rs = state.rs;
+        rs.beforeFirst();
+        RowReader<?> reader = state.mapper.bind(rs);
+        int n = 0;
+        while (rs.next()) {
+            bh.consume(reader.read(rs));
+            n++;
+        }
+        return n;
+    }
+
+    @Benchmark
+    public int mapByName(ByName state, Blackhole bh) throws SQLException {
+        ResultSet rs = state.rs;
+        rs.beforeFirst();
+        return state.model.equals("Animal") ? animalsByName(rs, bh) : ordersByName(rs, bh);
+    }
+
+    // the mapping code DatabaseConnectionHandler used before the generated mappers
+    private static int animalsByName(ResultSet rs, Blackhole bh) throws SQLException {
+        int n = 0;
+        while (rs.next()) {
+            String aId = rs.getString("a_id");
+            String pId = rs.getString("p_id");
+            String name = rs.getString("name");
+            String species = rs.getString("species");
+            String genus = rs.getString("genus");
+            bh.consume(new Animal(aId, pId, name, species, genus));
+            n++;
+        }
+        return n;
+    }
+
+    private static int ordersByName(ResultSet rs, Blackhole bh) throws SQLException {
+        int n = 0;
+        while (rs.next()) {
+            String oId = rs.getString("o_id");
+            String contents = rs.getString("contents");
+            int weight = rs.getInt("weight");
+
+            java.sql.Date dr = rs.getDate("date_received");
+            java.sql.Date ed = rs.getDate("expiry_date");
+
+            Date dateReceived = (dr != null) ? new Date(dr.getTime()) : null;
+            Date expiryDate = (ed != null) ? new Date(ed.getTime()) : null;
+
+            bh.consume(new RawFoodOrder(oId, contents, weight, dateReceived, expiryDate));
+            n++;
+        }
+        return n;
+    }
+
+    private static final class Source {
+        final String sql;
+        final RowMapper<?> mapper;
+
+        Source(String sql, RowMapper<?> mapper) {
+            this.sql = sql;
+            this.mapper = mapper;
+        }
+    }
+
+    private static Map.Entry<String, Source> catalog(String model, String query, RowMapper<?> mapper) {
+        for (CatalogQuery q : DatabaseConnectionHandler.sqlCatalog()) {
+            if (q.name().equals(query)) {
+                return Map.entry(model, new Source(q.sql(), mapper));
+            }
+        }
+        throw new IllegalStateException("No catalog query " + query);
+    }
+
+    private static Map.Entry<String, Source> table(String model, String sql, RowMapper<?> mapper) {
+        return Map.entry(model, new Source(sql, mapper));
+    }
+}
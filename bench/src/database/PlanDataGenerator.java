@@ -0,0 +1,127 @@
+package database;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Fills every table with generate_series data for the plan regression suite. {@code scale}
+ * is the number of animals; the other tables are sized from it. Deterministic, so plans
+ * only change when the SQL, the schema or PostgreSQL does.
+ *
+ * Rows the catalog's sample parameters rely on, at every scale: ID 1 in every table,
+ * worker 1 is both a zookeeper and a veterinarian, worker 2 is a zookeeper but not a
+ * veterinarian, and prepped food (1, 'meal') exists.
+ *
+ * The data is deliberately uniform, unlike {@link DatasetGenerator}'s (which the benchmarks use):
+ * a sample parameter then selects the same share of rows whatever row it names, so a plan
+ * change in the baseline means the SQL, schema or planner changed, not that the parameter
+ * happened to land on a popular habitat.
+ *
+ * Only ever run against a scratch database: {@link #resetSchema} drops everything in it.
+ */
+final class PlanDataGenerator {
+
+    private static final String TABLES = "animals1, animals2, habitats1, habitats2, workers, zookeepers, "
+            + "veterinarians, vendors, shops, items, storage_units, raw_food_orders, prepped_food, "
+            + "computers1, computers2, works_at, assigned_to, feeds, maintains_health_of, "
+            + "cohabitates_with, made_from, stored_at, located_at";
+
+    private PlanDataGenerator() {
+    }
+
+    // Drops and recreates the public schema from init.sql, then applies the migrations
+    static void resetSchema(Connection connection, Path initSql) throws SQLException, IOException {
+        checkScratchDatabase(connection);
+        try (Statement st = connection.createStatement()) {
+            st.execute("DROP SCHEMA public CASCADE");
+            st.execute("CREATE SCHEMA public");
+            st.execute(Files.readString(initSql, StandardCharsets.UTF_8));
+        }
+        SchemaMigrator.migrate(connection);
+    }
+
+    static void populate(Connection connection, int scale) throws SQLException {
+        int animals = Math.max(10, scale);
+        int workers = Math.max(20, scale / 10);
+        int zookeepers = workers / 2;
+        int habitats = Math.max(5, scale / 50);
+        int places = Math.max(5, scale / 100);
+
+        String[] statements = {
+                "TRUNCATE " + TABLES + " CASCADE",
+                // not DatasetGenerator's data any more (see BenchDatabase)
+                "COMMENT ON TABLE animals1 IS NULL",
+
+                "INSERT INTO workers SELECT g, 'Worker ' || g, 15 + g % 20, g || ' Generated St', "
+                        + "'w' || g || '@zoo.test', lpad(g::text, 10, '0') FROM generate_series(1, " + workers + ") g",
+                "INSERT INTO zookeepers SELECT g FROM generate_series(1, " + zookeepers + ") g",
+                "INSERT INTO veterinarians SELECT g, (ARRAY['Mammals','Birds','Reptiles','Fish'])[1 + g % 4] "
+                        + "FROM generate_series(" + (zookeepers + 1) + ", " + workers + ") g "
+                        + "UNION ALL SELECT 1, 'Mammals'",
+
+                "INSERT INTO computers2 SELECT 'Model ' || g, (ARRAY['Apple','Dell','Lenovo','HP','Asus'])[1 + g % 5], "
+                        + "(ARRAY['Laptop','Desktop'])[1 + g % 2] FROM generate_series(1, 20) g",
+                "INSERT INTO computers1 SELECT g, g, 'Model ' || (1 + g % 20) FROM generate_series(1, " + workers + ") g",
+
+                "INSERT INTO habitats2 SELECT 'Biome ' || g, g * 3, 10 + g * 8 FROM generate_series(1, 10) g",
+                "INSERT INTO habitats1 SELECT g, 'Habitat ' || g, 'Biome ' || (1 + g % 10), 100 + g % 900 "
+                        + "FROM generate_series(1, " + habitats + ") g",
+
+                "INSERT INTO shops SELECT g, 'Shop ' || g, (ARRAY['Gifts','Food','Drinks'])[1 + g % 3] "
+                        + "FROM generate_series(1, " + places + ") g",
+                "INSERT INTO storage_units SELECT g, 'Storage ' || g, g % 10 - 5 FROM generate_series(1, " + places + ") g",
+                "INSERT INTO items SELECT g, 1 + g % " + places + ", 'Item ' || g, g % 100, 1 + g % 50 "
+                        + "FROM generate_series(1, " + animals + ") g",
+
+                "INSERT INTO animals2 SELECT 'Species ' || g, 'Genus ' || (1 + g % 40) FROM generate_series(1, 200) g",
+                "INSERT INTO animals1 SELECT g, 1 + g % " + habitats + ", 'Animal ' || g, 'Species ' || (1 + g % 200) "
+                        + "FROM generate_series(1, " + animals + ") g",
+                "INSERT INTO prepped_food SELECT g, 'meal', 1 + g % 20 FROM generate_series(1, " + animals + ") g",
+
+                "INSERT INTO raw_food_orders SELECT g, 'Contents ' || (g % 30), 10 + g % 500, "
+                        + "DATE '2024-01-01' + g % 365, DATE '2024-01-01' + g % 365 + 30 "
+                        + "FROM generate_series(1, " + animals + ") g",
+                "INSERT INTO located_at SELECT g, 1 + g % " + places + " FROM generate_series(1, " + animals + ") g",
+                "INSERT INTO made_from SELECT g, 'meal', g FROM generate_series(1, " + animals + ") g",
+                "INSERT INTO stored_at SELECT g, 'meal', 1 + g % " + places + " FROM generate_series(1, " + animals + ") g",
+
+                // worker 1 feeds every animal, so getSuperZookeepers has an answer
+                "INSERT INTO feeds SELECT 1, g FROM generate_series(1, " + animals + ") g "
+                        + "UNION SELECT 2 + g % " + (zookeepers - 1) + ", g FROM generate_series(1, " + animals + ") g",
+                "INSERT INTO maintains_health_of SELECT CASE WHEN g % 10 = 0 THEN 1 ELSE "
+                        + (zookeepers + 1) + " + g % " + (workers - zookeepers) + " END, g "
+                        + "FROM generate_series(1, " + animals + ") g",
+                "INSERT INTO cohabitates_with SELECT g, 1 + g % " + animals + " FROM generate_series(1, " + animals + ") g",
+
+                "INSERT INTO works_at SELECT g, 1 + g % " + places + " FROM generate_series(" + (zookeepers + 1) + ", " + workers + ") g",
+                "INSERT INTO assigned_to SELECT g, 1 + g % " + habitats + " FROM generate_series(1, " + zookeepers + ") g",
+
+                // vacuum too, so index-only scans see a settled visibility map whatever autovacuum did
+                "VACUUM ANALYZE"
+        };
+
+        try (Statement st = connection.createStatement()) {
+            for (String sql : statements) {
+                st.execute(sql);
+            }
+        }
+    }
+
+    static void checkScratchDatabase(Connection connection) throws SQLException {
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT current_database()")) {
+            rs.next();
+            String name = rs.getString(1);
+            if (!name.contains("plan")) {
+                throw new IllegalArgumentException("Refusing to wipe database '" + name
+                        + "'; use a dedicated database whose name contains \"plan\".");
+            }
+        }
+    }
+}
@@ -0,0 +1,254 @@
+package database;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plan regression suite for every statement in {@link DatabaseConnectionHandler#sqlCatalog()}.
+ *
+ * Rebuilds the schema (sql/init.sql plus migrations) in a scratch database, fills it with
+ * generated data at each scale, and runs EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) for every
+ * statement inside a rolled-back transaction. Results are compared with the stored baseline:
+ *
+ *   - a Seq Scan on a large table that the baseline plan didn't have
+ *   - a sort or hash spilling to disk where the baseline didn't
+ *   - shared buffers read growing by more than the allowed fraction
+ *
+ * are regressions (exit code 1). Plan shape changes are reported but not failed.
+ *
+ * usage: PlanRegressionSuite [--url jdbc:postgresql://localhost:5432/zoo_plans] [--user zoo] [--password zoo]
+ *                            [--scales 1000,10000,100000] [--baseline bench/plans] [--init src/sql/init.sql]
+ *                            [--plans build/reports/plans] [--buffer-growth 0.5] [--large-table-rows 10000]
+ *                            [--update-baseline]
+ *
+ * The full EXPLAIN output of every run goes to plans-{scale}.json under --plans, for reading
+ * alongside a regression; only the summaries in baseline.tsv are kept under version control.
+ *
+ * The database is wiped, so it must be a dedicated one (its name has to contain "plan").
+ */
+public final class PlanRegressionSuite {
+
+    // buffer growth below this many blocks is noise, whatever the ratio
+    private static final long MIN_BUFFER_DELTA = 64;
+
+    private static final String STATEMENT_TIMEOUT = "5min";
+
+    private PlanRegressionSuite() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> opts = parseArgs(args);
+        String url = opts.getOrDefault("url", "jdbc:postgresql://localhost:5432/zoo_plans");
+        String user = opts.getOrDefault("user", "zoo");
+        String password = opts.getOrDefault("password", "zoo");
+        Path baselineDir = Path.of(opts.getOrDefault("baseline", "bench/plans"));
+        Path plansDir = Path.of(opts.getOrDefault("plans", "build/reports/plans"));
+        Path initSql = Path.of(opts.getOrDefault("init", "src/sql/init.sql"));
+        double bufferGrowth = Double.parseDouble(opts.getOrDefault("buffer-growth", "0.5"));
+        long largeTableRows = Long.parseLong(opts.getOrDefault("large-table-rows", "10000"));
+        boolean update = opts.containsKey("update-baseline");
+
+        List<Integer> scales = new ArrayList<>();
+        for (String s : opts.getOrDefault("scales", "1000,10000,100000").split(",")) {
+            scales.add(Integer.parseInt(s.trim()));
+        }
+
+        Map<String, PlanSummary> baseline = update ? Map.of() : loadBaseline(baselineDir.resolve("baseline.tsv"));
+        if (!update && baseline.isEmpty()) {
+            System.out.println("No baseline in " + baselineDir + "; run with --update-baseline first.");
+        }
+
+        List<String> tsv = new ArrayList<>();
+        tsv.add(PlanSummary.TSV_HEADER);
+        int regressions = 0;
+
+        try (Connection connection = DriverManager.getConnection(url, user, password)) {
+            try (Statement st = connection.createStatement()) {
+                st.execute("SET statement_timeout = '" + STATEMENT_TIMEOUT + "'");
+            }
+            PlanDataGenerator.resetSchema(connection, initSql);
+
+            for (int scale : scales) {
+                long start = System.nanoTime();
+                PlanDataGenerator.populate(connection, scale);
+                Map<String, Long> tableRows = tableRows(connection);
+                System.out.printf("%n== scale %,d (generated in %.1f s) ==%n", scale, (System.nanoTime() - start) / 1e9);
+
+                StringBuilder plans = new StringBuilder("{\n");
+                for (CatalogQuery q : DatabaseConnectionHandler.sqlCatalog()) {
+                    String json;
+                    try {
+                        json = explain(connection, q);
+                    } catch (SQLException e) {
+                        regressions++;
+                        System.out.printf("%-34s FAILED: %s%n", q.name(), e.getMessage());
+                        continue;
+                    }
+
+                    PlanSummary current = PlanSummary.fromExplain(json);
+                    PlanSummary base = baseline.get(scale + "/" + q.name());
+                    List<String> findings = new ArrayList<>();
+                    regressions += compare(current, base, tableRows, largeTableRows, bufferGrowth, update, findings);
+
+                    System.out.printf("%-34s cost %11.1f  buffers %8d  %9.2f ms  %s%n", q.name(),
+                            current.totalCost, current.buffers, current.executionMs, String.join("; ", findings));
+
+                    tsv.add(current.toTsv(scale, q.name()));
+                    plans.append(plans.length() > 2 ? ",\n" : "").append('"').append(q.name()).append("\": ").append(json.trim());
+                }
+                plans.append("\n}\n");
+
+                Files.createDirectories(plansDir);
+                Files.writeString(plansDir.resolve("plans-" + scale + ".json"), plans, StandardCharsets.UTF_8);
+            }
+        }
+
+        if (update) {
+            Files.createDirectories(baselineDir);
+            Files.writeString(baselineDir.resolve("baseline.tsv"), String.join("\n", tsv) + "\n", StandardCharsets.UTF_8);
+            System.out.println("\nBaseline written to " + baselineDir);
+        } else {
+            System.out.println("\n" + (regressions == 0 ? "No plan regressions." : regressions + " plan regression(s)."));
+        }
+        System.exit(regressions == 0 || update ? 0 : 1);
+    }
+
+    // ------------------------------------------------------------
+    // Comparison
+    // ------------------------------------------------------------
+
+    // adds findings for one statement and returns how many of them are regressions
+    private static int compare(PlanSummary current, PlanSummary base, Map<String, Long> tableRows,
+                               long largeTableRows, double bufferGrowth, boolean update, List<String> findings) {
+        int regressions = 0;
+
+        if (current.spilled) {
+            if (update || (base != null && base.spilled)) {
+                findings.add("sort/hash spills to disk (in baseline)");
+            } else {
+                findings.add("REGRESSION: sort/hash spilled to disk");
+                regressions++;
+            }
+        }
+
+        for (String relation : current.seqScans) {
+            long rows = tableRows.getOrDefault(relation, 0L);
+            if (rows < largeTableRows) {
+                continue;
+            }
+            if (update || (base != null && base.seqScans.contains(relation))) {
+                findings.add("seq scan on " + relation + " (" + rows + " rows, in baseline)");
+            } else {
+                findings.add("REGRESSION: new seq scan on " + relation + " (" + rows + " rows)");
+                regressions++;
+            }
+        }
+
+        if (base != null) {
+            long delta = current.buffers - base.buffers;
+            if (delta >= MIN_BUFFER_DELTA && current.buffers > base.buffers * (1 + bufferGrowth)) {
+                findings.add(String.format("REGRESSION: buffers %d -> %d (+%.0f%%)",
+                        base.buffers, current.buffers, 100.0 * delta / Math.max(1, base.buffers)));
+                regressions++;
+            }
+            if (!current.shape.equals(base.shape)) {
+                findings.add("plan changed, was " + base.shape);
+            }
+        }
+
+        return update ? 0 : regressions;
+    }
+
+    private static Map<String, PlanSummary> loadBaseline(Path file) throws IOException {
+        Map<String, PlanSummary> baseline = new HashMap<>();
+        if (!Files.exists(file)) {
+            return baseline;
+        }
+        List<String> lines = Files.readAllLines(file, StandardCharsets.UTF_8);
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.isBlank()) {
+                continue;
+            }
+            String[] f = line.split("\t", -1);
+            baseline.put(f[0] + "/" + f[1], PlanSummary.fromTsv(f));
+        }
+        return baseline;
+    }
+
+    // ------------------------------------------------------------
+    // Database
+    // ------------------------------------------------------------
+
+    // EXPLAIN ANALYZE executes the statement, so always roll back (the setup too)
+    private static String explain(Connection connection, CatalogQuery q) throws SQLException {
+        connection.setAutoCommit(false);
+        if (q.setup() != null) {
+            try (Statement st = connection.createStatement()) {
+                st.execute(q.setup());
+            } catch (SQLException e) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+                throw e;
+            }
+        }
+        try (PreparedStatement ps = connection.prepareStatement("EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) " + q.sql())) {
+            Object[] params = q.params();
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
+            try (ResultSet rs = ps.executeQuery()) {
+                StringBuilder json = new StringBuilder();
+                while (rs.next()) {
+                    json.append(rs.getString(1));
+                }
+                return json.toString();
+            }
+        } finally {
+            connection.rollback();
+            connection.setAutoCommit(true);
+        }
+    }
+
+    private static Map<String, Long> tableRows(Connection connection) throws SQLException {
+        Map<String, Long> rows = new HashMap<>();
+        try (Statement st = connection.createStatement();
+             ResultSet rs = st.executeQuery("SELECT relname, reltuples::bigint FROM pg_class " +
+                     "WHERE relkind = 'r' AND relnamespace = 'public'::regnamespace")) {
+            while (rs.next()) {
+                rows.put(rs.getString(1), rs.getLong(2));
+            }
+        }
+        return rows;
+    }
+
+    private static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> opts = new LinkedHashMap<>();
+        for (int i = 0; i < args.length; i++) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            }
+            String key = args[i].substring(2);
+            if (key.equals("update-baseline")) {
+                opts.put(key, "true");
+            } else if (i + 1 < args.length) {
+                opts.put(key, args[++i]);
+            } else {
+                throw new IllegalArgumentException("Missing value for --" + key);
+            }
+        }
+        return opts;
+    }
+}
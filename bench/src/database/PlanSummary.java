@@ -0,0 +1,103 @@
+package database;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+/**
+ * The numbers the plan regression suite compares, pulled out of one
+ * EXPLAIN (ANALYZE, BUFFERS, FORMAT JSON) result. Round-trips through one TSV line for the baseline file.
+ */
+final class PlanSummary {
+
+    final double totalCost;
+    final long buffers;          // shared blocks hit + read by the whole plan
+    final double executionMs;    // printed, but not kept in the baseline: it differs every run
+    final Set<String> seqScans;  // relations read with a Seq Scan
+    final boolean spilled;       // a sort or hash went to disk
+    final String shape;          // node types and relations, e.g. Sort(Seq Scan[workers])
+
+    private PlanSummary(double totalCost, long buffers, double executionMs, Set<String> seqScans,
+                        boolean spilled, String shape) {
+        this.totalCost = totalCost;
+        this.buffers = buffers;
+        this.executionMs = executionMs;
+        this.seqScans = seqScans;
+        this.spilled = spilled;
+        this.shape = shape;
+    }
+
+    @SuppressWarnings("unchecked")
+    static PlanSummary fromExplain(String json) {
+        Map<String, Object> root = (Map<String, Object>) ((List<Object>) Json.parse(json)).get(0);
+        Map<String, Object> plan = (Map<String, Object>) root.get("Plan");
+
+        Set<String> seqScans = new TreeSet<>();
+        boolean[] spilled = new boolean[1];
+        StringBuilder shape = new StringBuilder();
+        walk(plan, seqScans, spilled, shape);
+
+        long buffers = (long) (number(plan, "Shared Hit Blocks") + number(plan, "Shared Read Blocks"));
+        return new PlanSummary(number(plan, "Total Cost"), buffers, number(root, "Execution Time"),
+                seqScans, spilled[0], shape.toString());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static void walk(Map<String, Object> node, Set<String> seqScans, boolean[] spilled, StringBuilder shape) {
+        String type = (String) node.get("Node Type");
+        Object relation = node.get("Relation Name");
+
+        if ("Seq Scan".equals(type) && relation != null) {
+            seqScans.add((String) relation);
+        }
+        if ("Disk".equals(node.get("Sort Space Type"))
+                || number(node, "Temp Written Blocks") > 0
+                || number(node, "Hash Batches") > 1) {
+            spilled[0] = true;
+        }
+
+        shape.append(type);
+        if (relation != null) {
+            shape.append('[').append(relation).append(']');
+        }
+        List<Object> children = (List<Object>) node.get("Plans");
+        if (children != null) {
+            shape.append('(');
+            for (int i = 0; i < children.size(); i++) {
+                if (i > 0) {
+                    shape.append(", ");
+                }
+                walk((Map<String, Object>) children.get(i), seqScans, spilled, shape);
+            }
+            shape.append(')');
+        }
+    }
+
+    private static double number(Map<String, Object> node, String key) {
+        Object v = node.get(key);
+        return v instanceof Double ? (Double) v : 0;
+    }
+
+    // ------------------------------------------------------------
+    // Baseline file format
+    // ------------------------------------------------------------
+
+    // only what stays put between runs on the same data, so an unchanged plan rewrites the same file
+    static final String TSV_HEADER = "scale\tquery\ttotal_cost\tbuffers\tseq_scans\tspilled\tshape";
+
+    String toTsv(int scale, String query) {
+        return scale + "\t" + query + "\t" + totalCost + "\t" + buffers + "\t"
+                + String.join(",", seqScans) + "\t" + spilled + "\t" + shape;
+    }
+
+    // fields as split from one line written by toTsv (scale and query first)
+    static PlanSummary fromTsv(String[] f) {
+        Set<String> seqScans = new TreeSet<>();
+        if (!f[4].isEmpty()) {
+            seqScans.addAll(List.of(f[4].split(",")));
+        }
+        return new PlanSummary(Double.parseDouble(f[2]), Long.parseLong(f[3]), Double.NaN,
+                seqScans, Boolean.parseBoolean(f[5]), f[6]);
+    }
+}
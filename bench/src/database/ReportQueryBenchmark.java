@@ -0,0 +1,117 @@
+package database;
+
+import model.SumWeights;
+import model.Veterinarian;
+import model.Zookeeper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The Reports tab's queries against generated data, through {@link DatabaseConnectionHandler}
+ * ("postgres") or an {@link InMemoryZooRepository} copied from the same database ("memory").
+ * For postgres the query cache is cleared before each call, so every op goes to the server (the
+ * feeding index behind the zookeeper reports stays loaded, as it does in the app).
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportQueryBenchmark {
+
+    @Param({"1000", "100000"})
+    public int animals;
+
+    @Param({"postgres", "memory"})
+    public String backend;
+
+    private ZooRepository db;
+    private DatabaseConnectionHandler pg; // null for the memory backend
+
+    @Setup
+    public void setUp() throws SQLException, IOException {
+        BenchDatabase.ensurePopulated(animals);
+
+        if ("memory".equals(backend)) {
+            InMemoryZooRepository memory = new InMemoryZooRepository();
+            try (Connection c = BenchDatabase.open()) {
+                memory.load(c);
+            }
+            memory.login("", "");
+            db = memory;
+            return;
+        }
+
+        // the handler connects wherever zoo.db.url says; make that the benchmark database
+        System.setProperty("zoo.db.url", BenchDatabase.URL);
+        pg = new DatabaseConnectionHandler();
+        pg.setSlowQueryThreshold(0);
+        if (!pg.login("", "")) {
+            throw new IllegalStateException("Could not log in to " + BenchDatabase.URL);
+        }
+        db = pg;
+    }
+
+    @TearDown
+    public void tearDown() {
+        db.close();
+    }
+
+    @Benchmark
+    public Zookeeper[] superZookeepers() throws SQLException {
+        clearQueryCache();
+        return db.getSuperZookeepers();
+    }
+
+    @Benchmark
+    public Zookeeper[] zookeepersFeedingAllInHabitat() throws SQLException {
+        clearQueryCache();
+        return db.getZookeepersFeedingAllIn("1");
+    }
+
+    @Benchmark
+    public Zookeeper[] zookeepersFeedingHalf() throws SQLException {
+        clearQueryCache();
+        return db.getZookeepersFeedingAtLeast(50);
+    }
+
+    @Benchmark
+    public Veterinarian[] cheapVeterinarians() throws SQLException {
+        clearQueryCache();
+        return db.getCheapVeterinarians();
+    }
+
+    @Benchmark
+    public SumWeights[] freeStorage() throws SQLException {
+        clearQueryCache();
+        return db.getFreeStorage(50);
+    }
+
+    @Benchmark
+    public SumWeights[] sumWeights() throws SQLException {
+        clearQueryCache();
+        return db.getSumWeights();
+    }
+
+    private void clearQueryCache() {
+        if (pg != null) {
+            pg.clearQueryCache();
+        }
+    }
+}
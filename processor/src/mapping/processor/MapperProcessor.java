@@ -0,0 +1,214 @@
+package mapping.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.Filer;
+import javax.annotation.processing.Messager;
+import javax.annotation.processing.ProcessingEnvironment;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.PackageElement;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.lang.model.util.ElementFilter;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Generates a {@code <Name>Mapper} for every class annotated with {@code mapping.GenerateMapper}.
+ *
+ * The generated mapper resolves each constructor parameter's column to a position once per
+ * ResultSet and then reads every row by index, with no reflection and no per-cell name lookup.
+ * Columns missing from the ResultSet map to null (or the primitive default), so the same mapper
+ * works for projected queries.
+ *
+ * Annotations are matched by name so this processor has no compile-time dependency on the app.
+ */
+@SupportedAnnotationTypes(MapperProcessor.GENERATE_MAPPER)
+public class MapperProcessor extends AbstractProcessor {
+
+    static final String GENERATE_MAPPER = "mapping.GenerateMapper";
+    private static final String COLUMN = "mapping.Column";
+
+    private Filer filer;
+    private Messager messager;
+
+    @Override
+    public synchronized void init(ProcessingEnvironment env) {
+        super.init(env);
+        filer = env.getFiler();
+        messager = env.getMessager();
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment round) {
+        for (TypeElement annotation : annotations) {
+            for (Element element : round.getElementsAnnotatedWith(annotation)) {
+                if (element.getKind() != ElementKind.CLASS) {
+                    error(element, "@GenerateMapper only applies to classes");
+                    continue;
+                }
+                generate((TypeElement) element);
+            }
+        }
+        return true;
+    }
+
+    // ------------------------------------------------------------
+    // Code generation
+    // ------------------------------------------------------------
+
+    private void generate(TypeElement type) {
+        ExecutableElement constructor = pickConstructor(type);
+        if (constructor == null) {
+            error(type, "@GenerateMapper class needs a public constructor");
+            return;
+        }
+
+        List<String> columns = new ArrayList<>();
+        List<String> reads = new ArrayList<>();
+        List<? extends VariableElement> params = constructor.getParameters();
+        for (int i = 0; i < params.size(); i++) {
+            VariableElement param = params.get(i);
+            String read = readExpression(param.asType().toString(), "c" + i);
+            if (read == null) {
+                error(param, "Unsupported column type for mapper: " + param.asType());
+                return;
+            }
+            columns.add(columnName(param));
+            reads.add(read);
+        }
+
+        String pkg = ((PackageElement) type.getEnclosingElement()).getQualifiedName().toString();
+        String modelName = type.getSimpleName().toString();
+        String mapperName = modelName + "Mapper";
+
+        StringBuilder src = new StringBuilder();
+        src.append("package ").append(pkg).append(";\n\n");
+        src.append("import java.sql.ResultSet;\n");
+        src.append("import java.sql.SQLException;\n\n");
+        src.append("// Generated by ").append(MapperProcessor.class.getName())
+                .append(" from ").append(modelName).append(". Do not edit.\n");
+        src.append("@javax.annotation.processing.Generated(\"").append(MapperProcessor.class.getName()).append("\")\n");
+        src.append("public final class ").append(mapperName)
+                .append(" implements mapping.RowMapper<").append(modelName).append("> {\n\n");
+        src.append("    public static final ").append(mapperName).append(" INSTANCE = new ")
+                .append(mapperName).append("();\n\n");
+        src.append("    private static final String[] COLUMNS = {");
+        for (int i = 0; i < columns.size(); i++) {
+            src.append(i == 0 ? "" : ", ").append('"').append(columns.get(i)).append('"');
+        }
+        src.append("};\n\n");
+        src.append("    private ").append(mapperName).append("() {\n    }\n\n");
+        src.append("    @Override\n");
+        src.append("    public mapping.RowReader<").append(modelName)
+                .append("> bind(ResultSet rs) throws SQLException {\n");
+        src.append("        int[] positions = mapping.MapperSupport.resolve(rs.getMetaData(), COLUMNS);\n");
+        for (int i = 0; i < columns.size(); i++) {
+            src.append("        final int c").append(i).append(" = positions[").append(i).append("];\n");
+        }
+        src.append("        return row -> new ").append(modelName).append("(");
+        for (int i = 0; i < reads.size(); i++) {
+            src.append(i == 0 ? "\n" : ",\n").append("                ").append(reads.get(i));
+        }
+        src.append(");\n");
+        src.append("    }\n");
+        src.append("}\n");
+
+        try {
+            JavaFileObject file = filer.createSourceFile(pkg + "." + mapperName, type);
+            try (Writer w = file.openWriter()) {
+                w.write(src.toString());
+            }
+        } catch (IOException e) {
+            error(type, "Could not write " + mapperName + ": " + e.getMessage());
+        }
+    }
+
+    // the public constructor with the most parameters
+    private ExecutableElement pickConstructor(TypeElement type) {
+        ExecutableElement best = null;
+        for (ExecutableElement c : ElementFilter.constructorsIn(type.getEnclosedElements())) {
+            if (!c.getModifiers().contains(Modifier.PUBLIC)) {
+                continue;
+            }
+            if (best == null || c.getParameters().size() > best.getParameters().size()) {
+                best = c;
+            }
+        }
+        return best;
+    }
+
+    private String columnName(VariableElement param) {
+        for (AnnotationMirror mirror : param.getAnnotationMirrors()) {
+            TypeElement annotation = (TypeElement) mirror.getAnnotationType().asElement();
+            if (!annotation.getQualifiedName().contentEquals(COLUMN)) {
+                continue;
+            }
+            for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> e
+                    : mirror.getElementValues().entrySet()) {
+                if (e.getKey().getSimpleName().contentEquals("value")) {
+                    return e.getValue().getValue().toString();
+                }
+            }
+        }
+        return param.getSimpleName().toString();
+    }
+
+    // expression reading one parameter from "row" at position variable c (0 = absent)
+    private static String readExpression(String type, String c) {
+        switch (type) {
+            case "java.lang.String":
+                return c + " == 0 ? null : row.getString(" + c + ")";
+            case "int":
+                return c + " == 0 ? 0 : row.getInt(" + c + ")";
+            case "long":
+                return c + " == 0 ? 0L : row.getLong(" + c + ")";
+            case "float":
+                return c + " == 0 ? 0f : row.getFloat(" + c + ")";
+            case "double":
+                return c + " == 0 ? 0d : row.getDouble(" + c + ")";
+            case "boolean":
+                return c + " != 0 && row.getBoolean(" + c + ")";
+            case "java.lang.Integer":
+                return c + " == 0 ? null : mapping.MapperSupport.getInteger(row, " + c + ")";
+            case "java.lang.Long":
+                return c + " == 0 ? null : mapping.MapperSupport.getLongObject(row, " + c + ")";
+            case "java.lang.Float":
+                return c + " == 0 ? null : mapping.MapperSupport.getFloatObject(row, " + c + ")";
+            case "java.lang.Double":
+                return c + " == 0 ? null : mapping.MapperSupport.getDoubleObject(row, " + c + ")";
+            case "java.lang.Boolean":
+                return c + " == 0 ? null : mapping.MapperSupport.getBooleanObject(row, " + c + ")";
+            case "java.math.BigDecimal":
+                return c + " == 0 ? null : row.getBigDecimal(" + c + ")";
+            case "java.sql.Date":
+                return c + " == 0 ? null : row.getDate(" + c + ")";
+            case "java.util.Date":
+                return c + " == 0 ? null : mapping.MapperSupport.getUtilDate(row, " + c + ")";
+            default:
+                return null;
+        }
+    }
+
+    private void error(Element element, String message) {
+        messager.printMessage(Diagnostic.Kind.ERROR, message, element);
+    }
+}
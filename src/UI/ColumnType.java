@@ -0,0 +1,191 @@
+package UI;
+
+import javax.swing.table.TableModel;
+import java.text.CollationKey;
+import java.text.Collator;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * What a table column holds, and so how it sorts.
+ *
+ * Sorting compares each row's rank in its column: a dense int, computed once from the cell
+ * values (see {@link #ranks}), so a sort compares ints rather than formatting and collating
+ * cells. IDs and numbers sort by value ("2" before "10"), dates by time and text by the
+ * default locale's collation. Missing values (null, and the "N/A" placeholder) get the rank
+ * after every real value, so they can be kept last whichever way a column sorts.
+ */
+enum ColumnType {
+
+    // integer IDs held as Strings in the model classes
+    ID,
+    // Number cells, or their text
+    NUMBER,
+    // java.util.Date cells, or yyyy-MM-dd text
+    DATE,
+    TEXT;
+
+    // the placeholder JWindow.emptyToNA puts in empty cells
+    static final String MISSING = "N/A";
+
+    private static final long MILLIS_PER_DAY = 24L * 60 * 60 * 1000;
+
+    /**
+     * A column's ranks: equal values share a rank, ranks follow the column's order, and
+     * missing values all have {@code missing}, the largest rank.
+     */
+    static final class Ranks {
+        final int[] ranks;
+        final int missing;
+
+        Ranks(int[] ranks, int missing) {
+            this.ranks = ranks;
+            this.missing = missing;
+        }
+    }
+
+    Ranks ranks(TableModel model, int column) {
+        int rows = model.getRowCount();
+        return this == TEXT ? textRanks(model, column, rows) : numericRanks(model, column, rows);
+    }
+
+    private Ranks numericRanks(TableModel model, int column, int rows) {
+        long[] keys = new long[rows];
+        boolean[] missing = new boolean[rows];
+        int present = 0;
+        for (int r = 0; r < rows; r++) {
+            Object value = model.getValueAt(r, column);
+            Long key = key(value);
+            if (key == null) {
+                missing[r] = true;
+            } else {
+                keys[r] = key;
+                present++;
+            }
+        }
+
+        // the distinct keys in order; a key's rank is its index here
+        long[] distinct = new long[present];
+        int n = 0;
+        for (int r = 0; r < rows; r++) {
+            if (!missing[r]) {
+                distinct[n++] = keys[r];
+            }
+        }
+        Arrays.sort(distinct);
+        int unique = 0;
+        for (int i = 0; i < n; i++) {
+            if (i == 0 || distinct[i] != distinct[unique - 1]) {
+                distinct[unique++] = distinct[i];
+            }
+        }
+
+        int[] ranks = new int[rows];
+        for (int r = 0; r < rows; r++) {
+            ranks[r] = missing[r] ? unique : Arrays.binarySearch(distinct, 0, unique, keys[r]);
+        }
+        return new Ranks(ranks, unique);
+    }
+
+    // a long that orders like the value, or null if the value is missing or not of this type
+    private Long key(Object value) {
+        switch (this) {
+            case ID:
+                if (value instanceof Number) {
+                    return ((Number) value).longValue();
+                }
+                if (value instanceof String && !MISSING.equals(value)) {
+                    try {
+                        return Long.parseLong(((String) value).trim());
+                    } catch (NumberFormatException e) {
+                        return null;
+                    }
+                }
+                return null;
+            case NUMBER:
+                double number;
+                if (value instanceof Number) {
+                    number = ((Number) value).doubleValue();
+                } else if (value instanceof String && !MISSING.equals(value)) {
+                    try {
+                        number = Double.parseDouble((String) value);
+                    } catch (NumberFormatException e) {
+                        return null;
+                    }
+                } else {
+                    return null;
+                }
+                // IEEE bits order like the doubles once the negative ones are flipped
+                long bits = Double.doubleToLongBits(number);
+                return bits ^ ((bits >> 63) & Long.MAX_VALUE);
+            case DATE:
+                if (value instanceof Date) {
+                    return ((Date) value).getTime();
+                }
+                if (value instanceof String && !MISSING.equals(value)) {
+                    // yyyy-MM-dd, as JWindow.dateToNA writes it; midnight UTC, only compared within the column
+                    try {
+                        return LocalDate.parse((String) value).toEpochDay() * MILLIS_PER_DAY;
+                    } catch (DateTimeParseException e) {
+                        return null;
+                    }
+                }
+                return null;
+            default:
+                return null;
+        }
+    }
+
+    // One collation key per distinct value rather than a Collator compare per comparison
+    private static Ranks textRanks(TableModel model, int column, int rows) {
+        Map<String, Integer> index = new HashMap<>();
+        int[] valueOf = new int[rows];
+        for (int r = 0; r < rows; r++) {
+            Object value = model.getValueAt(r, column);
+            String text = value == null ? null : value.toString();
+            if (text == null || text.isEmpty() || MISSING.equals(text)) {
+                valueOf[r] = -1;
+            } else {
+                Integer i = index.get(text);
+                if (i == null) {
+                    i = index.size();
+                    index.put(text, i);
+                }
+                valueOf[r] = i;
+            }
+        }
+
+        Collator collator = Collator.getInstance();
+        CollationKey[] keys = new CollationKey[index.size()];
+        for (Map.Entry<String, Integer> e : index.entrySet()) {
+            keys[e.getValue()] = collator.getCollationKey(e.getKey());
+        }
+        CollationKey[] sorted = keys.clone();
+        Arrays.sort(sorted);
+
+        // values the collator finds equal (e.g. differing only in case, at some strengths) share a rank
+        Map<String, Integer> rankOf = new HashMap<>(sorted.length * 2);
+        int unique = 0;
+        for (int i = 0; i < sorted.length; i++) {
+            if (i > 0 && sorted[i].compareTo(sorted[i - 1]) != 0) {
+                unique++;
+            }
+            rankOf.put(sorted[i].getSourceString(), unique);
+        }
+        int missing = sorted.length == 0 ? 0 : unique + 1;
+
+        int[] valueRank = new int[keys.length];
+        for (int i = 0; i < keys.length; i++) {
+            valueRank[i] = rankOf.get(keys[i].getSourceString());
+        }
+        int[] ranks = new int[rows];
+        for (int r = 0; r < rows; r++) {
+            ranks[r] = valueOf[r] < 0 ? missing : valueRank[valueOf[r]];
+        }
+        return new Ranks(ranks, missing);
+    }
+}
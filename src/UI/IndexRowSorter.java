@@ -0,0 +1,289 @@
+package UI;
+
+import javax.swing.RowFilter;
+import javax.swing.RowSorter;
+import javax.swing.SortOrder;
+import javax.swing.table.TableModel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Sorts a table by reordering an array of row indexes, comparing the column ranks of a
+ * {@link TypedTableModel} (any other model sorts its columns as text).
+ *
+ * Each sort key is one stable counting sort over the rows, least significant key first, so a
+ * sort costs a few passes over int arrays however the cells compare. Rows that tie keep model
+ * order, and missing values stay last in both directions. Like DefaultRowSorter, clicking a
+ * header sorts by it first and keeps up to two earlier columns as tie breakers. Updated rows
+ * stay where they are; inserted and deleted rows re-sort the table.
+ *
+ * A {@link RowFilter} hides the rows it excludes. It is asked again whenever the table re-sorts,
+ * updates included, so with a filter set updated rows move to their sorted places too.
+ * A sorter over rows sorted elsewhere (see {@link #sortedElsewhere}) only shows that order in the
+ * header and filters; header clicks go to whoever sorted the rows.
+ */
+final class IndexRowSorter extends RowSorter<TableModel> {
+
+    private static final int MAX_SORT_KEYS = 3;
+
+    private final TableModel model;
+    private List<SortKey> sortKeys = Collections.emptyList();
+    private RowFilter<? super TableModel, ? super Integer> filter;
+    // set when the model's rows come sorted already
+    private Consumer<? super SortKey> sortHandler;
+    // null while unsorted: view and model order are the same
+    private int[] viewToModel;
+    private int[] modelToView;
+    private int modelRowCount;
+
+    IndexRowSorter(TableModel model) {
+        this.model = model;
+        this.modelRowCount = model.getRowCount();
+    }
+
+    @Override
+    public TableModel getModel() {
+        return model;
+    }
+
+    @Override
+    public void toggleSortOrder(int column) {
+        checkColumn(column);
+        List<SortKey> keys = new ArrayList<>(sortKeys);
+        if (!keys.isEmpty() && keys.get(0).getColumn() == column) {
+            SortOrder flipped = keys.get(0).getSortOrder() == SortOrder.ASCENDING
+                    ? SortOrder.DESCENDING : SortOrder.ASCENDING;
+            keys.set(0, new SortKey(column, flipped));
+        } else {
+            keys.removeIf(k -> k.getColumn() == column);
+            keys.add(0, new SortKey(column, SortOrder.ASCENDING));
+            if (keys.size() > MAX_SORT_KEYS) {
+                keys = keys.subList(0, MAX_SORT_KEYS);
+            }
+        }
+        if (sortHandler != null) {
+            sortHandler.accept(keys.get(0));
+            return;
+        }
+        setSortKeys(keys);
+    }
+
+    @Override
+    public List<? extends SortKey> getSortKeys() {
+        return sortKeys;
+    }
+
+    @Override
+    public void setSortKeys(List<? extends SortKey> keys) {
+        List<SortKey> checked = new ArrayList<>();
+        if (keys != null) {
+            for (SortKey key : keys) {
+                checkColumn(key.getColumn());
+                if (key.getSortOrder() != SortOrder.UNSORTED) {
+                    checked.add(key);
+                }
+            }
+        }
+        if (!checked.equals(sortKeys)) {
+            sortKeys = Collections.unmodifiableList(checked);
+            fireSortOrderChanged();
+            sort();
+        }
+    }
+
+    // The model's rows already come in key's order, as a paged model read sorted does: the key
+    // only shows in the header, and a header click passes the key it would sort by to handler
+    // instead. Rows stay in model order apart from the filter.
+    void sortedElsewhere(SortKey key, Consumer<? super SortKey> handler) {
+        this.sortHandler = handler;
+        setSortKeys(List.of(key));
+    }
+
+    RowFilter<? super TableModel, ? super Integer> getRowFilter() {
+        return filter;
+    }
+
+    // null shows every row
+    void setRowFilter(RowFilter<? super TableModel, ? super Integer> filter) {
+        this.filter = filter;
+        sort();
+    }
+
+    @Override
+    public int convertRowIndexToModel(int index) {
+        checkRow(index, getViewRowCount());
+        return viewToModel == null ? index : viewToModel[index];
+    }
+
+    @Override
+    public int convertRowIndexToView(int index) {
+        checkRow(index, modelRowCount);
+        return modelToView == null ? index : modelToView[index];
+    }
+
+    @Override
+    public int getViewRowCount() {
+        return viewToModel == null ? modelRowCount : viewToModel.length;
+    }
+
+    @Override
+    public int getModelRowCount() {
+        return model.getRowCount();
+    }
+
+    @Override
+    public void modelStructureChanged() {
+        sortKeys = Collections.emptyList();
+        sort();
+    }
+
+    @Override
+    public void allRowsChanged() {
+        sort();
+    }
+
+    @Override
+    public void rowsInserted(int firstRow, int endRow) {
+        sort();
+    }
+
+    @Override
+    public void rowsDeleted(int firstRow, int endRow) {
+        sort();
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow) {
+        // like DefaultRowSorter without sortsOnUpdates: the rows keep their places, unless the
+        // filter has to be asked about them again
+        if (filter != null) {
+            sort();
+        }
+    }
+
+    @Override
+    public void rowsUpdated(int firstRow, int endRow, int column) {
+        rowsUpdated(firstRow, endRow);
+    }
+
+    private void sort() {
+        // JTable reads an empty mapping as "was in model order"
+        int[] previous = viewToModel == null ? new int[0] : viewToModel;
+
+        modelRowCount = model.getRowCount();
+        List<SortKey> keys = new ArrayList<>();
+        for (SortKey key : sortKeys) {
+            if (sortHandler == null && key.getColumn() < model.getColumnCount()) {
+                keys.add(key);
+            }
+        }
+        if (keys.isEmpty() && filter == null) {
+            viewToModel = null;
+            modelToView = null;
+        } else {
+            int[] order = filter == null ? identity(modelRowCount) : included();
+            for (int k = keys.size() - 1; k >= 0; k--) {
+                SortKey key = keys.get(k);
+                order = countingSort(order, ranks(key.getColumn()), key.getSortOrder() == SortOrder.DESCENDING);
+            }
+            viewToModel = order;
+            modelToView = new int[modelRowCount];
+            Arrays.fill(modelToView, -1);
+            for (int v = 0; v < order.length; v++) {
+                modelToView[order[v]] = v;
+            }
+        }
+        fireRowSorterChanged(previous);
+    }
+
+    // the model rows the filter lets through, in model order
+    private int[] included() {
+        Row entry = new Row();
+        int[] rows = new int[modelRowCount];
+        int n = 0;
+        for (int r = 0; r < modelRowCount; r++) {
+            entry.row = r;
+            if (filter.include(entry)) {
+                rows[n++] = r;
+            }
+        }
+        return Arrays.copyOf(rows, n);
+    }
+
+    // the filter's view of a model row; one is reused for every row
+    private final class Row extends RowFilter.Entry<TableModel, Integer> {
+        int row;
+
+        @Override
+        public TableModel getModel() {
+            return model;
+        }
+
+        @Override
+        public int getValueCount() {
+            return model.getColumnCount();
+        }
+
+        @Override
+        public Object getValue(int index) {
+            return model.getValueAt(row, index);
+        }
+
+        @Override
+        public Integer getIdentifier() {
+            return row;
+        }
+    }
+
+    private ColumnType.Ranks ranks(int column) {
+        if (model instanceof TypedTableModel) {
+            return ((TypedTableModel) model).getRanks(column);
+        }
+        return ColumnType.TEXT.ranks(model, column);
+    }
+
+    // stable: rows with equal ranks keep their order from the previous pass
+    private static int[] countingSort(int[] order, ColumnType.Ranks ranks, boolean descending) {
+        int[] start = new int[ranks.missing + 2];
+        for (int row : order) {
+            start[bucket(ranks, row, descending) + 1]++;
+        }
+        for (int b = 1; b < start.length; b++) {
+            start[b] += start[b - 1];
+        }
+        int[] sorted = new int[order.length];
+        for (int row : order) {
+            sorted[start[bucket(ranks, row, descending)]++] = row;
+        }
+        return sorted;
+    }
+
+    // missing values stay in the last bucket either way
+    private static int bucket(ColumnType.Ranks ranks, int row, boolean descending) {
+        int rank = ranks.ranks[row];
+        return descending && rank != ranks.missing ? ranks.missing - 1 - rank : rank;
+    }
+
+    private static int[] identity(int n) {
+        int[] rows = new int[n];
+        for (int i = 0; i < n; i++) {
+            rows[i] = i;
+        }
+        return rows;
+    }
+
+    private void checkColumn(int column) {
+        if (column < 0 || column >= model.getColumnCount()) {
+            throw new IndexOutOfBoundsException("column " + column + " not in model of " + model.getColumnCount());
+        }
+    }
+
+    private static void checkRow(int index, int count) {
+        if (index < 0 || index >= count) {
+            throw new IndexOutOfBoundsException("row " + index + " not in " + count + " rows");
+        }
+    }
+}
@@ -1,6 +1,12 @@
 package UI;
 
+import database.AsyncDatabaseHandler;
 import database.DatabaseConnectionHandler;
+import database.InMemoryZooRepository;
+import database.PageView;
+import database.PagedTable;
+import database.TableChangeListener;
+import database.ZooRepository;
 import exceptions.NotExists;
 import model.*;
 
@@ -8,13 +14,23 @@ import javax.swing.*;
 import javax.swing.table.DefaultTableModel;
 import java.awt.*;
 import java.awt.event.ActionEvent;
-import java.sql.SQLException;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Consumer;
+import java.util.function.Function;
 
 
 public class JWindow extends JFrame {
 
-    private final DatabaseConnectionHandler db;
+    private final ZooRepository db;
+
+    // database work runs on these threads, off the EDT
+    private AsyncDatabaseHandler async;
+    private UiTasks tasks;
 
     // core entity tables
     private JTable animalsTable;
@@ -33,12 +49,36 @@ public class JWindow extends JFrame {
     private JTable feedsTable;
     private JTable madeFromTable;
 
+    // tabs that load on first view
+    private LazyTab animalsTab;
+    private LazyTab habitatsTab;
+    private LazyTab workersTab;
+    private LazyTab vetsTab;
+    private LazyTab shopsItemsTab;
+    private LazyTab storageTab;
+    private LazyTab rawOrdersTab;
+    private LazyTab computersTab;
+    private LazyTab cohabTab;
+    private LazyTab maintainsTab;
+    private LazyTab feedsTab;
+    private LazyTab madeFromTab;
+    private LazyTab reportsTab;
+
     // reports table
     private JTable reportsTable;
     private JComboBox<String> reportSelector;
 
     private JLabel statusLabel;
 
+    // table name -> tab loaders that read it, for reloading after writes from other sessions
+    private final Map<String, List<Runnable>> loadersByTable = new HashMap<>();
+
+    // last user action, for the slow query log; EDT only
+    private String currentAction;
+
+    // bold tab title font, see createStyledTabLabel
+    private java.awt.Font tabLabelFont;
+
     // theme colors
     private static final java.awt.Color BG_COLOR = new java.awt.Color(245, 245, 240); // warm neutral
     private static final java.awt.Color ACCENT_COLOR = new java.awt.Color(85, 125, 90); // muted green
@@ -48,15 +88,56 @@ public class JWindow extends JFrame {
     private static final java.awt.Color REL_TAB_COLOR    = new java.awt.Color(65, 125, 114); // greenish
     private static final java.awt.Color REPORT_TAB_COLOR = new java.awt.Color(65, 91, 125); // bluish
 
+    // table headers for the tabs whose rows are built by a static helper (also used by the benchmarks)
+    static final String[] ANIMAL_HEADERS = {"Animal ID", "Habitat ID", "Name", "Species", "Genus"};
+    static final ColumnType[] ANIMAL_TYPES = {ColumnType.ID, ColumnType.ID, ColumnType.TEXT, ColumnType.TEXT,
+            ColumnType.TEXT};
+    static final String[] RAW_ORDER_HEADERS = {"Order ID", "Contents", "Weight (kg)", "Date received", "Expiry date"};
+    static final ColumnType[] RAW_ORDER_TYPES = {ColumnType.ID, ColumnType.TEXT, ColumnType.NUMBER, ColumnType.DATE,
+            ColumnType.DATE};
+
+    // client properties of a paged table: the PageView it is read in (unset is key order), and
+    // what reads it again in the current view once it has loaded
+    private static final String PAGE_VIEW = "zoo.pageView";
+    private static final String PAGE_RELOAD = "zoo.pageReload";
+    // pause in typing before a paged table is searched in the database
+    private static final int SEARCH_DELAY_MS = 300;
+
+    // "free space" report: storage units holding less than this many kg of raw food
+    private static final int FREE_STORAGE_MAX_KG = 50;
+
+    // paged tabs (animals, raw orders, relationships) hold at most MAX_PAGES pages of PAGE_SIZE rows
+    private static final int PAGE_SIZE = 500;
+    private static final int MAX_PAGES = 20;
+
+    // column sizing (see sizeColumns), in pixels apart from the sample
+    private static final int WIDTH_SAMPLE_ROWS = 200;
+    private static final int COLUMN_PADDING = 16;
+    private static final int MAX_COLUMN_WIDTH = 320;
+
     // master creation method
     public JWindow() {
         super("Zoo Management System");
-        this.db = new DatabaseConnectionHandler();
+        this.db = createRepository();
         initializeDatabase();
         initializeUI();
     }
 
+    // -Dzoo.storage=memory runs without a server, seeded from -Dzoo.storage.seed (default src/sql/init.sql)
+    private static ZooRepository createRepository() {
+        if ("memory".equalsIgnoreCase(System.getProperty("zoo.storage"))) {
+            return new InMemoryZooRepository(java.nio.file.Path.of(System.getProperty("zoo.storage.seed", "src/sql/init.sql")));
+        }
+        return new DatabaseConnectionHandler();
+    }
+
     private void initializeDatabase() {
+        DatabaseConnectionHandler server = db instanceof DatabaseConnectionHandler ? (DatabaseConnectionHandler) db : null;
+        if (server != null) {
+            // queries run in the background for the action that was current when they were started
+            server.setSlowQueryActionContext(() -> SwingUtilities.isEventDispatchThread() ? currentAction : UiTasks.currentAction());
+        }
+
         // Uses the credentials already configured inside DatabaseConnectionHandler
         boolean ok = db.login("", "");
         if (!ok) {
@@ -68,6 +149,22 @@ public class JWindow extends JFrame {
             );
             System.exit(1);
         }
+
+        // the server handler sizes the pool to its connections; in memory, one thread per core
+        async = server != null ? new AsyncDatabaseHandler(server)
+                : new AsyncDatabaseHandler(db, Runtime.getRuntime().availableProcessors());
+        tasks = new UiTasks(async, () -> currentAction);
+
+        // -Dzoo.metrics.port=9404 serves per-query metrics on http://127.0.0.1:9404/metrics
+        Integer metricsPort = Integer.getInteger("zoo.metrics.port");
+        if (metricsPort != null && server != null) {
+            try {
+                int port = server.startMetricsEndpoint(metricsPort);
+                System.out.println("Query metrics on http://127.0.0.1:" + port + "/metrics");
+            } catch (java.io.IOException e) {
+                System.out.println("[EXCEPTION] Could not start metrics endpoint: " + e.getMessage());
+            }
+        }
     }
 
     private void initializeUI() {
@@ -114,17 +211,30 @@ public class JWindow extends JFrame {
         UIManager.put("text", TEXT_COLOR);
         UIManager.put("MenuBar.background", BG_COLOR);
 
-        // tabs
-        rootTabs.addTab("Workers", createWorkersPanel());
-        rootTabs.addTab("Veterinarians", createVetsPanel());
-        rootTabs.addTab("Animals", createAnimalsPanel());
-        rootTabs.addTab("Habitats", createHabitatsPanel());
-        rootTabs.addTab("Raw Food Orders", createRawOrdersPanel());
-        rootTabs.addTab("Computers", createComputersPanel());
-        rootTabs.addTab("Shops & Items", createShopsItemsPanel());
-        rootTabs.addTab("Storage Units", createStoragePanel());
+        // tabs; each loads its data the first time it is shown
+        workersTab = lazyTab("Workers", createWorkersPanel(), this::loadWorkers);
+        vetsTab = lazyTab("Veterinarians", createVetsPanel(), this::loadVets);
+        animalsTab = lazyTab("Animals", createAnimalsPanel(), this::loadAnimals);
+        habitatsTab = lazyTab("Habitats", createHabitatsPanel(), this::loadHabitats);
+        rawOrdersTab = lazyTab("Raw Food Orders", createRawOrdersPanel(), this::loadRawOrders);
+        computersTab = lazyTab("Computers", createComputersPanel(), this::loadComputers);
+        shopsItemsTab = lazyTab("Shops & Items", createShopsItemsPanel(), () -> {
+            loadShops();
+            loadItems();
+        });
+        storageTab = lazyTab("Storage Units", createStoragePanel(), this::loadStorageUnits);
+
+        rootTabs.addTab("Workers", workersTab);
+        rootTabs.addTab("Veterinarians", vetsTab);
+        rootTabs.addTab("Animals", animalsTab);
+        rootTabs.addTab("Habitats", habitatsTab);
+        rootTabs.addTab("Raw Food Orders", rawOrdersTab);
+        rootTabs.addTab("Computers", computersTab);
+        rootTabs.addTab("Shops & Items", shopsItemsTab);
+        rootTabs.addTab("Storage Units", storageTab);
         rootTabs.addTab("Relationships", createRelationshipsPanel());
-        rootTabs.addTab("Reports", createReportsPanel());
+        reportsTab = lazyTab("Reports", createReportsPanel(), this::loadDefaultReport);
+        rootTabs.addTab("Reports", reportsTab);
 
         // status bar on bottom
         statusLabel = new JLabel("Connected.");
@@ -149,22 +259,113 @@ public class JWindow extends JFrame {
         add(rootTabs, BorderLayout.CENTER);
         add(statusLabel, BorderLayout.SOUTH);
 
-        // load all the tabs
-        loadAnimals();
-        loadHabitats();
-        loadWorkers();
-        loadVets();
-        loadShops();
-        loadItems();
-        loadStorageUnits();
-        loadRawOrders();
-        loadComputers();
-        loadRelationships();
-        loadDefaultReport();
+        trackActions(rootTabs);
+
+        watchTableChanges();
 
         setVisible(true);
     }
 
+    // the slow query log sees the first load of a tab as "Open <title>"
+    private LazyTab lazyTab(String title, JComponent content, Runnable loader) {
+        return new LazyTab(title, content, () -> {
+            currentAction = "Open " + title;
+            loader.run();
+        });
+    }
+
+    // ----------------------------------------------------------------------
+    // Slow query context
+    // ----------------------------------------------------------------------
+
+    // Records which button the user pressed, e.g. "Computers > Search by Model", so slow
+    // queries can be traced to it. Buttons notify the most recently added listener first, so this
+    // runs before the button's own action.
+    private void trackActions(Container root) {
+        for (Component c : root.getComponents()) {
+            if (c instanceof AbstractButton) {
+                AbstractButton button = (AbstractButton) c;
+                button.addActionListener(e -> currentAction = describeAction(button));
+            }
+            if (c instanceof Container) {
+                trackActions((Container) c);
+            }
+        }
+    }
+
+    // selected tab titles from the outermost tab pane in, then the button text
+    private static String describeAction(AbstractButton button) {
+        String path = button.getText();
+        for (Container c = button.getParent(); c != null; c = c.getParent()) {
+            if (c instanceof JTabbedPane) {
+                JTabbedPane tabs = (JTabbedPane) c;
+                int selected = tabs.getSelectedIndex();
+                if (selected != -1) {
+                    path = tabs.getTitleAt(selected) + " > " + path;
+                }
+            }
+        }
+        return path;
+    }
+
+    // ----------------------------------------------------------------------
+    // Changes from other sessions
+    // ----------------------------------------------------------------------
+
+    // tabs not opened yet are skipped; they read fresh data when first shown
+    private void watchTableChanges() {
+        Runnable animals = animalsTab.whenOpened(this::loadAnimals);
+        Runnable habitats = habitatsTab.whenOpened(this::loadHabitats);
+        Runnable workers = workersTab.whenOpened(this::loadWorkers);
+        Runnable vets = vetsTab.whenOpened(this::loadVets);
+        Runnable computers = computersTab.whenOpened(this::loadComputers);
+
+        loadersByTable.put("animals1", List.of(animals));
+        loadersByTable.put("animals2", List.of(animals));
+        loadersByTable.put("habitats1", List.of(habitats));
+        loadersByTable.put("habitats2", List.of(habitats));
+        loadersByTable.put("workers", List.of(workers, vets));
+        loadersByTable.put("veterinarians", List.of(vets));
+        loadersByTable.put("shops", List.of(shopsItemsTab.whenOpened(this::loadShops)));
+        loadersByTable.put("items", List.of(shopsItemsTab.whenOpened(this::loadItems)));
+        loadersByTable.put("storage_units", List.of(storageTab.whenOpened(this::loadStorageUnits)));
+        loadersByTable.put("raw_food_orders", List.of(rawOrdersTab.whenOpened(this::loadRawOrders)));
+        loadersByTable.put("computers1", List.of(computers));
+        loadersByTable.put("computers2", List.of(computers));
+        loadersByTable.put("cohabitates_with", List.of(cohabTab.whenOpened(this::loadCohabitations)));
+        loadersByTable.put("maintains_health_of", List.of(maintainsTab.whenOpened(this::loadMaintainsHealth)));
+        loadersByTable.put("feeds", List.of(feedsTab.whenOpened(this::loadFeeds)));
+        loadersByTable.put("made_from", List.of(madeFromTab.whenOpened(this::loadMadeFrom)));
+
+        db.addTableChangeListener(new TableChangeListener() {
+            @Override
+            public void tablesChanged(Set<String> tables) {
+                SwingUtilities.invokeLater(() -> reloadTables(tables));
+            }
+
+            @Override
+            public void resync() {
+                SwingUtilities.invokeLater(() -> reloadTables(loadersByTable.keySet()));
+            }
+        });
+    }
+
+    // runs each affected loader once, even if several of its tables changed
+    private void reloadTables(Set<String> tables) {
+        Set<Runnable> loaders = new LinkedHashSet<>();
+        for (String table : tables) {
+            loaders.addAll(loadersByTable.getOrDefault(table, List.of()));
+        }
+        currentAction = "Reload after changes to " + String.join(", ", tables);
+        tasks.dataChanged();
+        for (Runnable loader : loaders) {
+            loader.run();
+        }
+        if (!loaders.isEmpty()) {
+            setStatus("Reloaded after changes to " + String.join(", ", tables) + " in another session.");
+        }
+    }
+
     // ----------------------------------------------------------------------
     // Animals
     // ----------------------------------------------------------------------
@@ -193,6 +394,7 @@ public class JWindow extends JFrame {
         controls.add(deleteLabel);
         controls.add(deleteField);
         controls.add(deleteBtn);
+        addPagedSearch(controls, animalsTable);
 
         panel.add(controls, BorderLayout.NORTH);
         panel.add(scrollPane, BorderLayout.CENTER);
@@ -201,32 +403,22 @@ public class JWindow extends JFrame {
     }
 
     private void loadAnimals() {
-        ArrayList<String> cols = new ArrayList<>();
-        cols.add("a_id");
-        cols.add("p_id");
-        cols.add("name");
-        cols.add("species");
-        cols.add("genus");
+        loadPaged("animals", animalsTab, animalsTable, PagedTable.ANIMALS, ANIMAL_HEADERS, JWindow::animalRow,
+                "animals", "Failed to load animals.");
+    }
 
-        try {
-            Animal[] animals = db.getAnimalInfo(cols);
-            String[] headers = {"Animal ID", "Habitat ID", "Name", "Species", "Genus"};
-            Object[][] data = new Object[animals.length][headers.length];
-
-            for (int i = 0; i < animals.length; i++) {
-                Animal a = animals[i];
-                data[i][0] = a.getA_id();
-                data[i][1] = emptyToNA(a.getP_id());
-                data[i][2] = emptyToNA(a.getName());
-                data[i][3] = emptyToNA(a.getSpecies());
-                data[i][4] = emptyToNA(a.getGenus());
-            }
+    static Object[][] animalRows(Animal[] animals) {
+        Object[][] data = new Object[animals.length][];
 
-            animalsTable.setModel(nonEditableModel(data, headers));
-            setStatus("Loaded " + animals.length + " animals.");
-        } catch (SQLException ex) {
-            showError("Failed to load animals.", ex);
+        for (int i = 0; i < animals.length; i++) {
+            data[i] = animalRow(animals[i]);
         }
+        return data;
+    }
+
+    static Object[] animalRow(Animal a) {
+        return new Object[] {a.getA_id(), emptyToNA(a.getP_id()), emptyToNA(a.getName()),
+                emptyToNA(a.getSpecies()), emptyToNA(a.getGenus())};
     }
 
     private void deleteAnimal(String id) {
@@ -246,16 +438,21 @@ public class JWindow extends JFrame {
         }
 
         // attempt to delete the animal, provide feedback on success or failure
-        try {
-            db.deleteAnimal(id);
+        tasks.write(animalsTab, () -> db.deleteAnimal(id), deleted -> {
+            tasks.dataChanged();
             setStatus("Deleted animal " + id + ".");
-            loadAnimals();
-        } catch (NotExists e) {
-            JOptionPane.showMessageDialog(this, "No animal with ID " + id + " exists.",
-                    "Not found", JOptionPane.INFORMATION_MESSAGE);
-        } catch (SQLException ex) {
-            showError("Failed to delete animal " + id + ".", ex);
-        }
+            // a row whose page isn't held can't be placed, so that case reloads
+            if (!deletePagedRow(animalsTable, deleted)) {
+                loadAnimals();
+            }
+        }, ex -> {
+            if (ex instanceof NotExists) {
+                JOptionPane.showMessageDialog(this, "No animal with ID " + id + " exists.",
+                        "Not found", JOptionPane.INFORMATION_MESSAGE);
+            } else {
+                showError("Failed to delete animal " + id + ".", ex);
+            }
+        });
     }
 
     // ----------------------------------------------------------------------
@@ -274,6 +471,7 @@ public class JWindow extends JFrame {
 
         JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
         controls.add(refreshBtn);
+        addSearch(controls, new TableSearch(habitatsTable));
 
         panel.add(controls, BorderLayout.NORTH);
         panel.add(scrollPane, BorderLayout.CENTER);
@@ -290,9 +488,10 @@ public class JWindow extends JFrame {
         cols.add("temperature");
         cols.add("humidity");
 
-        try {
-            Habitat[] habitats = db.getHabitatInfo(cols);
+        tasks.run("habitats", "load", habitatsTab, () -> db.getHabitatInfo(cols), habitats -> {
             String[] headers = {"Habitat ID", "Name", "Biome", "Area (m²)", "Temp (°C)", "Humidity (%)"};
+            ColumnType[] types = {ColumnType.ID, ColumnType.TEXT, ColumnType.TEXT, ColumnType.NUMBER,
+                    ColumnType.NUMBER, ColumnType.NUMBER};
             Object[][] data = new Object[habitats.length][headers.length];
 
             for (int i = 0; i < habitats.length; i++) {
@@ -300,16 +499,14 @@ public class JWindow extends JFrame {
                 data[i][0] = h.getP_id();
                 data[i][1] = emptyToNA(h.getName());
                 data[i][2] = emptyToNA(h.getBiome());
-                data[i][3] = h.getArea();
-                data[i][4] = h.getTemperature();
-                data[i][5] = h.getHumidity();
+                data[i][3] = String.valueOf(h.getArea());
+                data[i][4] = String.valueOf(h.getTemperature());
+                data[i][5] = String.valueOf(h.getHumidity());
             }
 
-            habitatsTable.setModel(nonEditableModel(data, headers));
+            setRows(habitatsTable, data, headers, types);
             setStatus("Loaded " + habitats.length + " habitats.");
-        } catch (SQLException ex) {
-            showError("Failed to load habitats.", ex);
-        }
+        }, ex -> showError("Failed to load habitats.", ex));
     }
 
     // ----------------------------------------------------------------------
@@ -354,6 +551,7 @@ public class JWindow extends JFrame {
         controls.add(valueLabel);
         controls.add(valueField);
         controls.add(updateBtn);
+        addSearch(controls, new TableSearch(workersTable));
 
         panel.add(controls, BorderLayout.NORTH);
         panel.add(scrollPane, BorderLayout.CENTER);
@@ -370,26 +568,24 @@ public class JWindow extends JFrame {
         cols.add("email");
         cols.add("phone");
 
-        try {
-            Worker[] workers = db.getWorkerInfo(cols);
+        tasks.run("workers", "load", workersTab, () -> db.getWorkerInfo(cols), workers -> {
             String[] headers = {"Worker ID", "Name", "Pay rate", "Address", "Email", "Phone"};
-            Object[][] data = new Object[workers.length][headers.length];
+            ColumnType[] types = {ColumnType.ID, ColumnType.TEXT, ColumnType.NUMBER, ColumnType.TEXT,
+                    ColumnType.TEXT, ColumnType.TEXT};
+            Object[][] data = new Object[workers.length][];
 
             for (int i = 0; i < workers.length; i++) {
-                Worker w = workers[i];
-                data[i][0] = w.getW_id();
-                data[i][1] = emptyToNA(w.getName());
-                data[i][2] = w.getPay_rate();
-                data[i][3] = emptyToNA(w.getAddress());
-                data[i][4] = emptyToNA(w.getEmail());
-                data[i][5] = emptyToNA(w.getPhone());
+                data[i] = workerRow(workers[i]);
             }
 
-            workersTable.setModel(nonEditableModel(data, headers));
+            setRows(workersTable, data, headers, types);
             setStatus("Loaded " + workers.length + " workers.");
-        } catch (SQLException ex) {
-            showError("Failed to load workers.", ex);
-        }
+        }, ex -> showError("Failed to load workers.", ex));
+    }
+
+    static Object[] workerRow(Worker w) {
+        return new Object[] {w.getW_id(), emptyToNA(w.getName()), String.valueOf(w.getPay_rate()),
+                emptyToNA(w.getAddress()), emptyToNA(w.getEmail()), emptyToNA(w.getPhone())};
     }
 
     private void updateWorker(String wId, String fieldLabel, String newValue) {
@@ -439,18 +635,23 @@ public class JWindow extends JFrame {
         }
 
         // try to apply the update, show success or error message
-        try {
-            db.updateWorker(wId, column, value);
+        tasks.write(workersTab, () -> db.updateWorker(wId, column, value), updated -> {
+            tasks.dataChanged();
             setStatus("Updated worker " + wId + " (" + fieldLabel + ").");
-            loadWorkers();
-        } catch (NotExists e) {
-            JOptionPane.showMessageDialog(this,
-                    "No worker with ID " + wId + " exists.",
-                    "Not found",
-                    JOptionPane.INFORMATION_MESSAGE);
-        } catch (SQLException ex) {
-            showError("Failed to update worker " + wId + ".", ex);
-        }
+            // vets show the same workers columns first, followed by their specialization
+            Object[] row = workerRow(updated);
+            patchRow(workersTable, updated.getW_id(), row);
+            patchRow(vetsTable, updated.getW_id(), row);
+        }, ex -> {
+            if (ex instanceof NotExists) {
+                JOptionPane.showMessageDialog(this,
+                        "No worker with ID " + wId + " exists.",
+                        "Not found",
+                        JOptionPane.INFORMATION_MESSAGE);
+            } else {
+                showError("Failed to update worker " + wId + ".", ex);
+            }
+        });
     }
 
     // ----------------------------------------------------------------------
@@ -473,6 +674,7 @@ public class JWindow extends JFrame {
         JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
         controls.add(refreshBtn);
         controls.add(addNewVetBtn);
+        addSearch(controls, new TableSearch(vetsTable));
         
 
         panel.add(controls, BorderLayout.NORTH);
@@ -491,28 +693,25 @@ public class JWindow extends JFrame {
         cols.add("phone");
         cols.add("specialization");
 
-        try {
-            Veterinarian[] vets = db.getVeterinarianInfo(cols);
+        tasks.run("vets", "load", vetsTab, () -> db.getVeterinarianInfo(cols), vets -> {
             String[] headers = {"Vet ID", "Name", "Pay rate", "Address", "Email", "Phone", "Specialization"};
-            Object[][] data = new Object[vets.length][headers.length];
+            ColumnType[] types = {ColumnType.ID, ColumnType.TEXT, ColumnType.NUMBER, ColumnType.TEXT,
+                    ColumnType.TEXT, ColumnType.TEXT, ColumnType.TEXT};
+            Object[][] data = new Object[vets.length][];
 
             // populate the table data, converte nulls to "N/A"
             for (int i = 0; i < vets.length; i++) {
-                Veterinarian v = vets[i];
-                data[i][0] = v.getW_id();
-                data[i][1] = emptyToNA(v.getName());
-                data[i][2] = v.getPay_rate();
-                data[i][3] = emptyToNA(v.getAddress());
-                data[i][4] = emptyToNA(v.getEmail());
-                data[i][5] = emptyToNA(v.getPhone());
-                data[i][6] = emptyToNA(v.getSpecialization());
+                data[i] = vetRow(vets[i]);
             }
 
-            vetsTable.setModel(nonEditableModel(data, headers));
+            setRows(vetsTable, data, headers, types);
             setStatus("Loaded " + vets.length + " veterinarians.");
-        } catch (SQLException ex) {
-            showError("Failed to load veterinarians.", ex);
-        }
+        }, ex -> showError("Failed to load veterinarians.", ex));
+    }
+
+    static Object[] vetRow(Veterinarian v) {
+        return new Object[] {v.getW_id(), emptyToNA(v.getName()), String.valueOf(v.getPay_rate()), emptyToNA(v.getAddress()),
+                emptyToNA(v.getEmail()), emptyToNA(v.getPhone()), emptyToNA(v.getSpecialization())};
     }
 
     private void addNewVet() {
@@ -545,23 +744,35 @@ public class JWindow extends JFrame {
         int result = JOptionPane.showConfirmDialog(this, panel, "Add New Veterinarian",
                 JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
 
-        if (result == JOptionPane.OK_OPTION) {
-            try {
-                db.insertVeterinarian(
-                        idField.getText().trim(),
-                        nameField.getText().trim(),
-                        Float.parseFloat(payRateField.getText().trim()),
-                        addressField.getText().trim(),
-                        emailField.getText().trim(),
-                        phoneField.getText().trim(),
-                        specializationField.getText().trim()
-                );
-                setStatus("Added new veterinarian " + nameField.getText().trim() + ".");
-                loadVets();
-            } catch (SQLException ex) {
-                showError("Failed to add veterinarian.", ex);
-            }
+        if (result != JOptionPane.OK_OPTION) {
+            return;
+        }
+
+        // read the fields here on the EDT; only the insert runs in the background
+        String wId = idField.getText().trim();
+        String name = nameField.getText().trim();
+        String address = addressField.getText().trim();
+        String email = emailField.getText().trim();
+        String phone = phoneField.getText().trim();
+        String specialization = specializationField.getText().trim();
+        float payRate;
+        try {
+            payRate = Float.parseFloat(payRateField.getText().trim());
+        } catch (NumberFormatException ex) {
+            JOptionPane.showMessageDialog(this,
+                    "Pay rate must be a valid number.",
+                    "Input error",
+                    JOptionPane.WARNING_MESSAGE);
+            return;
         }
+
+        tasks.write(vetsTab,
+                () -> db.insertVeterinarian(wId, name, payRate, address, email, phone, specialization), vet -> {
+            tasks.dataChanged();
+            setStatus("Added new veterinarian " + name + ".");
+            insertRow(vetsTable, vetRow(vet));
+            insertRow(workersTable, workerRow(vet));
+        }, ex -> showError("Failed to add veterinarian.", ex));
     }
 
     // ----------------------------------------------------------------------
@@ -588,6 +799,7 @@ public class JWindow extends JFrame {
 
         JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
         controls.add(refreshBtn);
+        addSearch(controls, new TableSearch(shopsTable), new TableSearch(itemsTable));
 
         panel.add(controls, BorderLayout.NORTH);
         panel.add(tables, BorderLayout.CENTER);
@@ -601,9 +813,9 @@ public class JWindow extends JFrame {
         cols.add("name");
         cols.add("type");
 
-        try {
-            Shop[] shops = db.getShopInfo(cols);
+        tasks.run("shops", "load", shopsItemsTab, () -> db.getShopInfo(cols), shops -> {
             String[] headers = {"Shop ID", "Name", "Type"};
+            ColumnType[] types = {ColumnType.ID, ColumnType.TEXT, ColumnType.TEXT};
             Object[][] data = new Object[shops.length][headers.length];
 
             for (int i = 0; i < shops.length; i++) {
@@ -613,11 +825,9 @@ public class JWindow extends JFrame {
                 data[i][2] = emptyToNA(s.getType());
             }
 
-            shopsTable.setModel(nonEditableModel(data, headers));
+            setRows(shopsTable, data, headers, types);
             setStatus("Loaded " + shops.length + " shops.");
-        } catch (SQLException ex) {
-            showError("Failed to load shops.", ex);
-        }
+        }, ex -> showError("Failed to load shops.", ex));
     }
 
     private void loadItems() {
@@ -628,9 +838,10 @@ public class JWindow extends JFrame {
         cols.add("stock");
         cols.add("price");
 
-        try {
-            Item[] items = db.getItemInfo(cols);
+        tasks.run("items", "load", shopsItemsTab, () -> db.getItemInfo(cols), items -> {
             String[] headers = {"Item ID", "Shop ID", "Name", "Stock", "Price"};
+            ColumnType[] types = {ColumnType.ID, ColumnType.ID, ColumnType.TEXT, ColumnType.NUMBER,
+                    ColumnType.NUMBER};
             Object[][] data = new Object[items.length][headers.length];
 
             for (int i = 0; i < items.length; i++) {
@@ -638,15 +849,13 @@ public class JWindow extends JFrame {
                 data[i][0] = it.getI_id();
                 data[i][1] = emptyToNA(it.getP_id());
                 data[i][2] = emptyToNA(it.getName());
-                data[i][3] = it.getStock();
-                data[i][4] = it.getPrice();
+                data[i][3] = String.valueOf(it.getStock());
+                data[i][4] = String.valueOf(it.getPrice());
             }
 
-            itemsTable.setModel(nonEditableModel(data, headers));
+            setRows(itemsTable, data, headers, types);
             setStatus("Loaded " + items.length + " items.");
-        } catch (SQLException ex) {
-            showError("Failed to load items.", ex);
-        }
+        }, ex -> showError("Failed to load items.", ex));
     }
 
     // ----------------------------------------------------------------------
@@ -665,6 +874,7 @@ public class JWindow extends JFrame {
 
         JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
         controls.add(refreshBtn);
+        addSearch(controls, new TableSearch(storageTable));
 
         panel.add(controls, BorderLayout.NORTH);
         panel.add(scrollPane, BorderLayout.CENTER);
@@ -678,23 +888,21 @@ public class JWindow extends JFrame {
         cols.add("name");
         cols.add("temperature");
 
-        try {
-            StorageUnit[] units = db.getStorageUnitInfo(cols);
+        tasks.run("storage", "load", storageTab, () -> db.getStorageUnitInfo(cols), units -> {
             String[] headers = {"Storage ID", "Name", "Temperature (°C)"};
+            ColumnType[] types = {ColumnType.ID, ColumnType.TEXT, ColumnType.NUMBER};
             Object[][] data = new Object[units.length][headers.length];
 
             for (int i = 0; i < units.length; i++) {
                 StorageUnit s = units[i];
                 data[i][0] = s.getP_id();
                 data[i][1] = emptyToNA(s.getName());
-                data[i][2] = s.getTemperature();
+                data[i][2] = String.valueOf(s.getTemperature());
             }
 
-            storageTable.setModel(nonEditableModel(data, headers));
+            setRows(storageTable, data, headers, types);
             setStatus("Loaded " + units.length + " storage units.");
-        } catch (SQLException ex) {
-            showError("Failed to load storage units.", ex);
-        }
+        }, ex -> showError("Failed to load storage units.", ex));
     }
 
     // ----------------------------------------------------------------------
@@ -713,6 +921,7 @@ public class JWindow extends JFrame {
 
         JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
         controls.add(refreshBtn);
+        addPagedSearch(controls, rawOrdersTable);
 
         panel.add(controls, BorderLayout.NORTH);
         panel.add(scrollPane, BorderLayout.CENTER);
@@ -721,32 +930,22 @@ public class JWindow extends JFrame {
     }
 
     private void loadRawOrders() {
-        ArrayList<String> cols = new ArrayList<>();
-        cols.add("o_id");
-        cols.add("contents");
-        cols.add("weight");
-        cols.add("date_received");
-        cols.add("expiry_date");
+        loadPaged("rawOrders", rawOrdersTab, rawOrdersTable, PagedTable.RAW_FOOD_ORDERS, RAW_ORDER_HEADERS,
+                JWindow::rawOrderRow, "raw food orders", "Failed to load raw food orders.");
+    }
 
-        try {
-            RawFoodOrder[] orders = db.getRawFoodOrderInfo(cols);
-            String[] headers = {"Order ID", "Contents", "Weight (kg)", "Date received", "Expiry date"};
-            Object[][] data = new Object[orders.length][headers.length];
-
-            for (int i = 0; i < orders.length; i++) {
-                RawFoodOrder o = orders[i];
-                data[i][0] = o.getO_id();
-                data[i][1] = emptyToNA(o.getContents());
-                data[i][2] = o.getWeight();
-                data[i][3] = o.getDate_received();
-                data[i][4] = o.getExpiry_date();
-            }
+    static Object[][] rawOrderRows(RawFoodOrder[] orders) {
+        Object[][] data = new Object[orders.length][];
 
-            rawOrdersTable.setModel(nonEditableModel(data, headers));
-            setStatus("Loaded " + orders.length + " raw food orders.");
-        } catch (SQLException ex) {
-            showError("Failed to load raw food orders.", ex);
+        for (int i = 0; i < orders.length; i++) {
+            data[i] = rawOrderRow(orders[i]);
         }
+        return data;
+    }
+
+    static Object[] rawOrderRow(RawFoodOrder o) {
+        return new Object[] {o.getO_id(), emptyToNA(o.getContents()), numberToNA(o.getWeight()),
+                dateToNA(o.getDate_received()), dateToNA(o.getExpiry_date())};
     }
 
     // ----------------------------------------------------------------------
@@ -769,6 +968,7 @@ public class JWindow extends JFrame {
         JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
         controls.add(refreshBtn);
         controls.add(searchComputerBtn);
+        addSearch(controls, new TableSearch(computersTable));
 
         panel.add(controls, BorderLayout.NORTH);
         panel.add(scrollPane, BorderLayout.CENTER);
@@ -784,9 +984,10 @@ public class JWindow extends JFrame {
         cols.add("manufacturer");
         cols.add("type");
 
-        try {
-            Computer[] computers = db.getComputerInfo(cols);
+        tasks.run("computers", "load", computersTab, () -> db.getComputerInfo(cols), computers -> {
             String[] headers = {"Computer ID", "Worker ID", "Model", "Manufacturer", "Type"};
+            ColumnType[] types = {ColumnType.ID, ColumnType.ID, ColumnType.TEXT, ColumnType.TEXT,
+                    ColumnType.TEXT};
             Object[][] data = new Object[computers.length][headers.length];
 
             for (int i = 0; i < computers.length; i++) {
@@ -798,11 +999,9 @@ public class JWindow extends JFrame {
                 data[i][4] = emptyToNA(c.getType());
             }
 
-            computersTable.setModel(nonEditableModel(data, headers));
+            setRows(computersTable, data, headers, types);
             setStatus("Loaded " + computers.length + " computers.");
-        } catch (SQLException ex) {
-            showError("Failed to load computers.", ex);
-        }
+        }, ex -> showError("Failed to load computers.", ex));
     }
 
     private void searchComputerManufacturerDialog() {
@@ -811,9 +1010,12 @@ public class JWindow extends JFrame {
         if (manufacturer == null || manufacturer.trim().isEmpty()) {
             return;
         }
-        try {
-            Computer[] computers = db.searchComputersByManufacturer(manufacturer.trim());
+        // a new search replaces a load or an older search still running
+        String term = manufacturer.trim();
+        tasks.run("computers", "search:" + term, computersTab, () -> db.searchComputersByManufacturer(term), computers -> {
             String[] headers = {"Computer ID", "Worker ID", "Model", "Manufacturer", "Type"};
+            ColumnType[] types = {ColumnType.ID, ColumnType.ID, ColumnType.TEXT, ColumnType.TEXT,
+                    ColumnType.TEXT};
             Object[][] data = new Object[computers.length][headers.length];
 
             for (int i = 0; i < computers.length; i++) {
@@ -825,11 +1027,9 @@ public class JWindow extends JFrame {
                 data[i][4] = emptyToNA(c.getType());
             }
 
-            computersTable.setModel(nonEditableModel(data, headers));
-            setStatus("Found " + computers.length + " computers matching model '" + manufacturer.trim() + "'.");
-        } catch (SQLException ex) {
-            showError("Failed to search computers.", ex);
-        }
+            setRows(computersTable, data, headers, types);
+            setStatus("Found " + computers.length + " computers matching model '" + term + "'.");
+        }, ex -> showError("Failed to search computers.", ex));
     }
 
     // ----------------------------------------------------------------------
@@ -851,16 +1051,23 @@ public class JWindow extends JFrame {
         styleTable(feedsTable);
         styleTable(madeFromTable);
 
-        relTabs.addTab("Cohabitations", new JScrollPane(cohabTable));
-        relTabs.addTab("Maintains Health Of", new JScrollPane(maintainsTable));
-        relTabs.addTab("Feeds", new JScrollPane(feedsTable));
-        relTabs.addTab("Prepared Foods for Animals", new JScrollPane(madeFromTable));
+        // each inner tab loads when it is first shown too
+        cohabTab = lazyTab("Cohabitations", new JScrollPane(cohabTable), this::loadCohabitations);
+        maintainsTab = lazyTab("Maintains Health Of", new JScrollPane(maintainsTable), this::loadMaintainsHealth);
+        feedsTab = lazyTab("Feeds", new JScrollPane(feedsTable), this::loadFeeds);
+        madeFromTab = lazyTab("Prepared Foods for Animals", new JScrollPane(madeFromTable), this::loadMadeFrom);
+
+        relTabs.addTab("Cohabitations", cohabTab);
+        relTabs.addTab("Maintains Health Of", maintainsTab);
+        relTabs.addTab("Feeds", feedsTab);
+        relTabs.addTab("Prepared Foods for Animals", madeFromTab);
 
         JButton refreshBtn = new JButton("Refresh all");
         refreshBtn.addActionListener(e -> loadRelationships());
 
         JPanel controls = new JPanel(new FlowLayout(FlowLayout.LEFT));
         controls.add(refreshBtn);
+        addPagedSearch(controls, cohabTable, maintainsTable, feedsTable, madeFromTable);
 
         panel.add(controls, BorderLayout.NORTH);
         panel.add(relTabs, BorderLayout.CENTER);
@@ -868,101 +1075,32 @@ public class JWindow extends JFrame {
         return panel;
     }
 
+    // refreshes the inner tabs already opened; the rest load when first shown
     private void loadRelationships() {
-        loadCohabitations();
-        loadMaintainsHealth();
-        loadFeeds();
-        loadMadeFrom();
+        cohabTab.whenOpened(this::loadCohabitations).run();
+        maintainsTab.whenOpened(this::loadMaintainsHealth).run();
+        feedsTab.whenOpened(this::loadFeeds).run();
+        madeFromTab.whenOpened(this::loadMadeFrom).run();
     }
 
     private void loadCohabitations() {
-        ArrayList<String> cols = new ArrayList<>();
-        cols.add("a_id1");
-        cols.add("a_id2");
-
-        try {
-            CohabitatesWith[] rels = db.getCohabitatesWithInfo(cols);
-            String[] headers = {"Animal ID 1", "Animal ID 2"};
-            Object[][] data = new Object[rels.length][headers.length];
-
-            for (int i = 0; i < rels.length; i++) {
-                CohabitatesWith r = rels[i];
-                data[i][0] = r.getA_id1();
-                data[i][1] = r.getA_id2();
-            }
-
-            cohabTable.setModel(nonEditableModel(data, headers));
-        } catch (SQLException ex) {
-            showError("Failed to load cohabitations.", ex);
-        }
+        loadPaged("cohabitations", cohabTab, cohabTable, PagedTable.COHABITATES_WITH, new String[] {"Animal ID 1", "Animal ID 2"},
+                r -> new Object[] {r.getA_id1(), r.getA_id2()}, null, "Failed to load cohabitations.");
     }
 
     private void loadMaintainsHealth() {
-        ArrayList<String> cols = new ArrayList<>();
-        cols.add("w_id");
-        cols.add("a_id");
-
-        try {
-            MaintainsHealthOf[] rels = db.getMaintainsHealthOfInfo(cols);
-            String[] headers = {"Vet ID", "Animal ID"};
-            Object[][] data = new Object[rels.length][headers.length];
-
-            for (int i = 0; i < rels.length; i++) {
-                MaintainsHealthOf r = rels[i];
-                data[i][0] = r.getW_id();
-                data[i][1] = r.getA_id();
-            }
-
-            maintainsTable.setModel(nonEditableModel(data, headers));
-        } catch (SQLException ex) {
-            showError("Failed to load maintains-health-of.", ex);
-        }
+        loadPaged("maintainsHealth", maintainsTab, maintainsTable, PagedTable.MAINTAINS_HEALTH_OF, new String[] {"Vet ID", "Animal ID"},
+                r -> new Object[] {r.getW_id(), r.getA_id()}, null, "Failed to load maintains-health-of.");
     }
 
     private void loadFeeds() {
-        ArrayList<String> cols = new ArrayList<>();
-        cols.add("w_id");
-        cols.add("a_id");
-
-        try {
-            Feeds[] rels = db.getFeedsInfo(cols);
-            String[] headers = {"Zookeeper ID", "Animal ID"};
-            Object[][] data = new Object[rels.length][headers.length];
-
-            for (int i = 0; i < rels.length; i++) {
-                Feeds r = rels[i];
-                data[i][0] = r.getW_id();
-                data[i][1] = r.getA_id();
-            }
-
-            feedsTable.setModel(nonEditableModel(data, headers));
-        } catch (SQLException ex) {
-            showError("Failed to load feeds relationships.", ex);
-        }
+        loadPaged("feeds", feedsTab, feedsTable, PagedTable.FEEDS, new String[] {"Zookeeper ID", "Animal ID"},
+                r -> new Object[] {r.getW_id(), r.getA_id()}, null, "Failed to load feeds relationships.");
     }
 
     private void loadMadeFrom() {
-        ArrayList<String> cols = new ArrayList<>();
-        cols.add("a_id");
-        cols.add("name");
-        cols.add("o_id");
-
-        try {
-            MadeFrom[] rels = db.getMadeFromInfo(cols);
-            String[] headers = {"Animal ID", "Prepped food", "Raw order ID"};
-            Object[][] data = new Object[rels.length][headers.length];
-
-            for (int i = 0; i < rels.length; i++) {
-                MadeFrom r = rels[i];
-                data[i][0] = r.getA_id();
-                data[i][1] = emptyToNA(r.getName());
-                data[i][2] = r.getO_id();
-            }
-
-            madeFromTable.setModel(nonEditableModel(data, headers));
-        } catch (SQLException ex) {
-            showError("Failed to load made-from relationships.", ex);
-        }
+        loadPaged("madeFrom", madeFromTab, madeFromTable, PagedTable.MADE_FROM, new String[] {"Animal ID", "Prepped food", "Raw order ID"},
+                r -> new Object[] {r.getA_id(), emptyToNA(r.getName()), r.getO_id()}, null, "Failed to load made-from relationships.");
     }
 
     // ----------------------------------------------------------------------
@@ -979,7 +1117,7 @@ public class JWindow extends JFrame {
         reportSelector = new JComboBox<>(new String[]{
                 "Super zookeepers (feed all animals)",
                 "Cheapest veterinarians (per specialization)",
-                "Storage units with free space (< 50kg total)",
+                "Storage units with free space (< " + FREE_STORAGE_MAX_KG + "kg total)",
                 "Total weight stored per storage unit"
         });
 
@@ -994,6 +1132,7 @@ public class JWindow extends JFrame {
         controls.add(reportSelector);
         controls.add(runBtn);
         controls.add(refreshBtn);
+        addSearch(controls, new TableSearch(reportsTable));
 
         panel.add(controls, BorderLayout.NORTH);
         panel.add(scrollPane, BorderLayout.CENTER);
@@ -1016,51 +1155,52 @@ public class JWindow extends JFrame {
 
         // check the prefix of the selected report to determine which one to run. this is a bit hacky but it works for our purposes
         // if you want this to be better, maintain a mapping from report names to functions instead of using if-else statements
-        try {
-            if (selected.startsWith("Super zookeepers")) {
-                runSuperZookeepersReport();
-            } else if (selected.startsWith("Cheapest veterinarians")) {
-                runCheapVetsReport();
-            } else if (selected.startsWith("Storage units with free space")) {
-                runFreeStorageReport();
-            } else if (selected.startsWith("Total weight stored")) {
-                runSumWeightsReport();
-            }
-        } catch (SQLException ex) {
-            showError("Failed to run report.", ex);
+        if (selected.startsWith("Super zookeepers")) {
+            runReport(selected, db::getSuperZookeepers, this::showSuperZookeepersReport);
+        } else if (selected.startsWith("Cheapest veterinarians")) {
+            runReport(selected, db::getCheapVeterinarians, this::showCheapVetsReport);
+        } else if (selected.startsWith("Storage units with free space")) {
+            runReport(selected, () -> db.getFreeStorage(FREE_STORAGE_MAX_KG), this::showFreeStorageReport);
+        } else if (selected.startsWith("Total weight stored")) {
+            runReport(selected, db::getSumWeights, this::showSumWeightsReport);
         }
     }
 
-    private void runSuperZookeepersReport() throws SQLException {
-        Zookeeper[] keepers = db.getSuperZookeepers();
+    // choosing another report while one runs replaces it; running the same one again joins it
+    private <T> void runReport(String report, AsyncDatabaseHandler.DbCall<T> query, java.util.function.Consumer<T> show) {
+        tasks.run("report", report, reportsTab, query, show, ex -> showError("Failed to run report.", ex));
+    }
 
+    private void showSuperZookeepersReport(Zookeeper[] keepers) {
         String[] headers = {"Zookeeper ID", "Name", "Pay rate", "Address", "Email", "Phone"};
+        ColumnType[] types = {ColumnType.ID, ColumnType.TEXT, ColumnType.NUMBER, ColumnType.TEXT,
+                ColumnType.TEXT, ColumnType.TEXT};
         Object[][] data = new Object[keepers.length][headers.length];
 
         for (int i = 0; i < keepers.length; i++) {
             Zookeeper z = keepers[i];
             data[i][0] = z.getW_id();
             data[i][1] = emptyToNA(z.getName());
-            data[i][2] = z.getPay_rate();
+            data[i][2] = String.valueOf(z.getPay_rate());
             data[i][3] = emptyToNA(z.getAddress());
             data[i][4] = emptyToNA(z.getEmail());
             data[i][5] = emptyToNA(z.getPhone());
         }
 
-        reportsTable.setModel(nonEditableModel(data, headers));
+        reportsTable.setModel(nonEditableModel(data, headers, types));
         setStatus("Loaded " + keepers.length + " super zookeepers.");
     }
 
-    private void runCheapVetsReport() throws SQLException {
-        Veterinarian[] vets = db.getCheapVeterinarians();
-
+    private void showCheapVetsReport(Veterinarian[] vets) {
         String[] headers = {"Specialization", "Pay rate", "Vet ID", "Name", "Address", "Email", "Phone"};
+        ColumnType[] types = {ColumnType.TEXT, ColumnType.NUMBER, ColumnType.ID, ColumnType.TEXT,
+                ColumnType.TEXT, ColumnType.TEXT, ColumnType.TEXT};
         Object[][] data = new Object[vets.length][headers.length];
 
         for (int i = 0; i < vets.length; i++) {
             Veterinarian v = vets[i];
             data[i][0] = emptyToNA(v.getSpecialization());
-            data[i][1] = v.getPay_rate();
+            data[i][1] = String.valueOf(v.getPay_rate());
             data[i][2] = v.getW_id();
             data[i][3] = emptyToNA(v.getName());
             data[i][4] = emptyToNA(v.getAddress());
@@ -1069,41 +1209,39 @@ public class JWindow extends JFrame {
             
         }
 
-        reportsTable.setModel(nonEditableModel(data, headers));
+        reportsTable.setModel(nonEditableModel(data, headers, types));
         setStatus("Loaded " + vets.length + " cheap veterinarians.");
     }
 
-    private void runFreeStorageReport() throws SQLException {
-        SumWeights[] rows = db.getFreeStorage();
-
+    private void showFreeStorageReport(SumWeights[] rows) {
         String[] headers = {"Storage ID", "Name", "Total weight (kg)"};
+        ColumnType[] types = {ColumnType.ID, ColumnType.TEXT, ColumnType.NUMBER};
         Object[][] data = new Object[rows.length][headers.length];
 
         for (int i = 0; i < rows.length; i++) {
             SumWeights sw = rows[i];
             data[i][0] = sw.getP_id();
             data[i][1] = emptyToNA(sw.getName());
-            data[i][2] = sw.getSum();
+            data[i][2] = String.valueOf(sw.getSum());
         }
 
-        reportsTable.setModel(nonEditableModel(data, headers));
-        setStatus("Loaded " + rows.length + " storage units with < 50kg.");
+        reportsTable.setModel(nonEditableModel(data, headers, types));
+        setStatus("Loaded " + rows.length + " storage units with < " + FREE_STORAGE_MAX_KG + "kg.");
     }
 
-    private void runSumWeightsReport() throws SQLException {
-        SumWeights[] rows = db.getSumWeights();
-
+    private void showSumWeightsReport(SumWeights[] rows) {
         String[] headers = {"Storage ID", "Name", "Total weight (kg)"};
+        ColumnType[] types = {ColumnType.ID, ColumnType.TEXT, ColumnType.NUMBER};
         Object[][] data = new Object[rows.length][headers.length];
 
         for (int i = 0; i < rows.length; i++) {
             SumWeights sw = rows[i];
             data[i][0] = sw.getP_id();
             data[i][1] = emptyToNA(sw.getName());
-            data[i][2] = sw.getSum();
+            data[i][2] = String.valueOf(sw.getSum());
         }
 
-        reportsTable.setModel(nonEditableModel(data, headers));
+        reportsTable.setModel(nonEditableModel(data, headers, types));
         setStatus("Loaded " + rows.length + " storage weight summaries.");
     }
 
@@ -1111,19 +1249,207 @@ public class JWindow extends JFrame {
     // Helpers
     // ----------------------------------------------------------------------
 
-    private DefaultTableModel nonEditableModel(Object[][] data, String[] headers) {
-        return new DefaultTableModel(data, headers) {
+    // Reads the row count and page starts, then shows the table a page at a time as it is
+    // scrolled, in the table's PageView. noun is for the status bar (null: no status). A newer
+    // model's page requests supersede an older model's, so a refresh stops filling the table it
+    // replaced, and the model cancels those for pages scrolled past. Clicking a header loads the
+    // table again, sorted by that column on the server; see addPagedSearch for searching.
+    private <T> void loadPaged(String key, LazyTab tab, JTable table, PagedTable<T> source, String[] headers,
+                               Function<? super T, Object[]> toRow, String noun, String error) {
+        table.putClientProperty(PAGE_RELOAD, (Runnable) () -> loadPaged(key, tab, table, source, headers, toRow, noun, error));
+        PageView view = pageView(table);
+        tasks.run(key, "load " + view, tab, () -> db.getPageIndex(source, view, PAGE_SIZE), index -> {
+            table.setModel(new PagedTableModel<T>(headers, index, source, MAX_PAGES, toRow, (page, fromKey, limit, model) -> {
+                String pageKey = key + "/page/" + page;
+                String request = "model@" + System.identityHashCode(model);
+                tasks.run(pageKey, request, tab,
+                        () -> db.getPage(source, view, fromKey, limit),
+                        rows -> model.pageLoaded(page, rows),
+                        ex -> setStatus("Error: " + error + " (rows from " + (page * limit + 1) + ")"));
+                return () -> tasks.cancel(pageKey, request);
+            }));
+            // the columns are the source's, in order; key order is the first column ascending
+            List<String> columns = source.columns();
+            if (table.getRowSorter() instanceof IndexRowSorter) {
+                ((IndexRowSorter) table.getRowSorter()).sortedElsewhere(new RowSorter.SortKey(
+                        view.getSortColumn() == null ? 0 : columns.indexOf(view.getSortColumn()),
+                        view.isDescending() ? SortOrder.DESCENDING : SortOrder.ASCENDING), sortKey -> {
+                    table.putClientProperty(PAGE_VIEW, PageView.sortedBy(source, columns.get(sortKey.getColumn()),
+                            sortKey.getSortOrder() == SortOrder.DESCENDING).searching(view.getSearch()));
+                    loadPaged(key, tab, table, source, headers, toRow, noun, error);
+                });
+            }
+            if (noun != null && view.getSearch().isEmpty()) {
+                setStatus("Loaded " + index.getRowCount() + " " + noun + ".");
+            } else if (noun != null) {
+                setStatus("Found " + index.getRowCount() + " " + noun + " containing '" + view.getSearch() + "'.");
+            }
+        }, ex -> showError(error, ex));
+    }
+
+    private static PageView pageView(JTable table) {
+        return table.getClientProperty(PAGE_VIEW) instanceof PageView
+                ? (PageView) table.getClientProperty(PAGE_VIEW) : PageView.KEY_ORDER;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> boolean deletePagedRow(JTable table, T row) {
+        return table.getModel() instanceof PagedTableModel && ((PagedTableModel<T>) table.getModel()).rowDeleted(row);
+    }
+
+    // ----------------------------------------------------------------------
+    // Patching rows after our own writes
+    // ----------------------------------------------------------------------
+
+    // Sets the leading cells of the row whose ID (first column) is id, in a table loaded with
+    // nonEditableModel. A row sorter doesn't re-sort on updates, so the row stays where it is.
+    @SuppressWarnings("unchecked")
+    private static void patchRow(JTable table, String id, Object[] cells) {
+        if (!(table.getModel() instanceof DefaultTableModel)) {
+            return;
+        }
+        DefaultTableModel model = (DefaultTableModel) table.getModel();
+        int r = firstRowFrom(model, Long.parseLong(id.trim()));
+        if (r < model.getRowCount() && id.trim().equals(String.valueOf(model.getValueAt(r, 0)))) {
+            java.util.Vector<Object> row = model.getDataVector().get(r);
+            for (int c = 0; c < cells.length && c < row.size(); c++) {
+                row.set(c, cells[c]);
+            }
+            model.fireTableRowsUpdated(r, r);
+        }
+    }
+
+    // Adds a row in ID order (the order loaders read in) to a table loaded with
+    // nonEditableModel; does nothing if the table hasn't been loaded yet
+    private static void insertRow(JTable table, Object[] cells) {
+        if (!(table.getModel() instanceof DefaultTableModel) || table.getModel().getColumnCount() != cells.length) {
+            return;
+        }
+        DefaultTableModel model = (DefaultTableModel) table.getModel();
+        model.insertRow(firstRowFrom(model, Long.parseLong(String.valueOf(cells[0]))), cells);
+    }
+
+    // The first row whose ID is at least id, by binary search: loaders read in ID order, and
+    // refreshes and the patches above keep it
+    private static int firstRowFrom(DefaultTableModel model, long id) {
+        int low = 0;
+        int high = model.getRowCount();
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (Long.parseLong(String.valueOf(model.getValueAt(mid, 0))) < id) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    // Adds a search box that narrows the searches' tables to matching rows as the user types
+    private static void addSearch(JPanel controls, TableSearch... searches) {
+        addSearch(controls, "Show only the rows containing this text", text -> {
+            for (TableSearch search : searches) {
+                search.search(text);
+            }
+        });
+    }
+
+    // Adds a search box for paged tables, which hold too few rows to search here: after a pause
+    // in typing, each table is read again narrowed to the matching rows, searched in the
+    // database. A table not loaded yet is read that way when it is.
+    private static void addPagedSearch(JPanel controls, JTable... tables) {
+        String[] typed = {""};
+        javax.swing.Timer pause = new javax.swing.Timer(SEARCH_DELAY_MS, e -> {
+            for (JTable table : tables) {
+                PageView view = pageView(table);
+                if (!view.getSearch().equals(typed[0].trim())) {
+                    table.putClientProperty(PAGE_VIEW, view.searching(typed[0]));
+                    if (table.getClientProperty(PAGE_RELOAD) instanceof Runnable) {
+                        ((Runnable) table.getClientProperty(PAGE_RELOAD)).run();
+                    }
+                }
+            }
+        });
+        pause.setRepeats(false);
+        addSearch(controls, "Show only the rows containing this text, searched in the database", text -> {
+            typed[0] = text;
+            pause.restart();
+        });
+    }
+
+    private static void addSearch(JPanel controls, String tip, Consumer<String> search) {
+        JTextField field = new JTextField(14);
+        field.setToolTipText(tip);
+        field.getDocument().addDocumentListener(new javax.swing.event.DocumentListener() {
+            @Override
+            public void insertUpdate(javax.swing.event.DocumentEvent e) {
+                search.accept(field.getText());
+            }
+
+            @Override
+            public void removeUpdate(javax.swing.event.DocumentEvent e) {
+                search.accept(field.getText());
+            }
+
             @Override
-            public boolean isCellEditable(int row, int column) {
+            public void changedUpdate(javax.swing.event.DocumentEvent e) {
+                search.accept(field.getText());
+            }
+        });
+        controls.add(Box.createHorizontalStrut(16));
+        controls.add(new JLabel("Search:"));
+        controls.add(field);
+    }
+
+    // Shows data in the table. A table already showing these columns is brought up to date row by
+    // row (see TableDiff), so a refresh that changed little costs little and keeps the sort order,
+    // selection and scroll position.
+    private static void setRows(JTable table, Object[][] data, String[] headers, ColumnType[] types) {
+        if (table.getModel() instanceof TypedTableModel && hasColumns((TypedTableModel) table.getModel(), headers, types)) {
+            TableDiff.apply((TypedTableModel) table.getModel(), data);
+        } else {
+            table.setModel(nonEditableModel(data, headers, types));
+        }
+    }
+
+    private static boolean hasColumns(TypedTableModel model, String[] headers, ColumnType[] types) {
+        if (model.getColumnCount() != headers.length) {
+            return false;
+        }
+        for (int c = 0; c < headers.length; c++) {
+            if (!headers[c].equals(model.getColumnName(c)) || model.getColumnType(c) != types[c]) {
                 return false;
             }
-        };
+        }
+        return true;
     }
 
-    private String emptyToNA(String s) {
+    static TypedTableModel nonEditableModel(Object[][] data, String[] headers, ColumnType[] types) {
+        return new TypedTableModel(data, headers, types);
+    }
+
+    // Cells hold the text they show, built once per load rather than on every repaint;
+    // ColumnType parses numbers and dates back out of it to sort.
+
+    static String emptyToNA(String s) {
         return (s == null || s.isEmpty()) ? "N/A" : s;
     }
 
+    static String numberToNA(Number n) {
+        return n == null ? "N/A" : n.toString();
+    }
+
+    // yyyy-MM-dd whichever Date subclass the repository returned
+    static String dateToNA(java.util.Date d) {
+        if (d == null) {
+            return "N/A";
+        }
+        java.time.LocalDate day = d instanceof java.sql.Date
+                ? ((java.sql.Date) d).toLocalDate()
+                : java.time.Instant.ofEpochMilli(d.getTime()).atZone(java.time.ZoneId.systemDefault()).toLocalDate();
+        return day.toString();
+    }
+
     private void showError(String message, Exception ex) {
         ex.printStackTrace();
         JOptionPane.showMessageDialog(
@@ -1146,7 +1472,14 @@ public class JWindow extends JFrame {
     private void styleTable(JTable table) {
         table.setFillsViewportHeight(true);
         table.setRowHeight(24);
-        table.setAutoCreateRowSorter(true);    // click headers to sort
+        // click headers to sort; every model set on the table gets its own sorter, and columns sized to it
+        table.addPropertyChangeListener("model", e -> {
+            table.setRowSorter(new IndexRowSorter(table.getModel()));
+            // a paged model would fetch the pages sampled, so those keep the default widths
+            if (table.getModel() instanceof TypedTableModel) {
+                sizeColumns(table);
+            }
+        });
         table.setShowHorizontalLines(true);
         table.setShowVerticalLines(false);
         table.setGridColor(TABLE_GRID);
@@ -1155,27 +1488,8 @@ public class JWindow extends JFrame {
         table.setSelectionBackground(ACCENT_COLOR);
         table.setSelectionForeground(java.awt.Color.WHITE);
 
-        // Zebra striping
-        javax.swing.table.DefaultTableCellRenderer zebra = new javax.swing.table.DefaultTableCellRenderer() {
-            @Override
-            public java.awt.Component getTableCellRendererComponent(
-                    JTable tbl, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
-
-                java.awt.Component c = super.getTableCellRendererComponent(tbl, value, isSelected, hasFocus, row, column);
-
-                if (!isSelected) {
-                    if (row % 2 == 0) {
-                        c.setBackground(java.awt.Color.WHITE);
-                    } else {
-                        c.setBackground(new java.awt.Color(245, 245, 245));
-                    }
-                }
-                return c;
-            }
-        };
-
-        // apply zebra renderer to all columns
-        table.setDefaultRenderer(Object.class, zebra);
+        // zebra striping, for every column
+        table.setDefaultRenderer(Object.class, new StripedCellRenderer());
 
         // nicer header
         table.getTableHeader().setReorderingAllowed(false);
@@ -1183,13 +1497,39 @@ public class JWindow extends JFrame {
         table.getTableHeader().setForeground(java.awt.Color.WHITE);
     }
 
+    // Preferred column widths from the header and up to WIDTH_SAMPLE_ROWS rows spread through the
+    // model, so a million-row load measures a few hundred strings; the table shares out any slack.
+    private static void sizeColumns(JTable table) {
+        javax.swing.table.TableModel model = table.getModel();
+        java.awt.FontMetrics cells = table.getFontMetrics(table.getFont());
+        java.awt.FontMetrics header = table.getFontMetrics(table.getTableHeader().getFont());
+        int rows = model.getRowCount();
+        int step = Math.max(1, rows / WIDTH_SAMPLE_ROWS);
+        javax.swing.table.TableColumnModel columns = table.getColumnModel();
+        for (int v = 0; v < columns.getColumnCount(); v++) {
+            javax.swing.table.TableColumn column = columns.getColumn(v);
+            int c = column.getModelIndex();
+            int width = header.stringWidth(model.getColumnName(c));
+            for (int r = 0; r < rows; r += step) {
+                Object value = model.getValueAt(r, c);
+                if (value != null) {
+                    width = Math.max(width, cells.stringWidth(value.toString()));
+                }
+            }
+            column.setPreferredWidth(Math.min(width + COLUMN_PADDING, MAX_COLUMN_WIDTH));
+        }
+    }
+
     private java.awt.Component createStyledTabLabel(String title, java.awt.Color textColor) {
         JLabel label = new JLabel(title);
         label.setForeground(textColor);
 
-        // bold font
-        java.awt.Font base = label.getFont();
-        label.setFont(base.deriveFont(java.awt.Font.BOLD, base.getSize2D()));
+        // bold font, derived once for every tab
+        if (tabLabelFont == null) {
+            java.awt.Font base = label.getFont();
+            tabLabelFont = base.deriveFont(java.awt.Font.BOLD, base.getSize2D());
+        }
+        label.setFont(tabLabelFont);
 
         // Don't paint a background, let Nimbus handle the tab background
         label.setOpaque(false);
@@ -0,0 +1,117 @@
+package UI;
+
+import javax.swing.*;
+import java.awt.*;
+import java.awt.event.HierarchyEvent;
+
+/**
+ * Tab content that loads its data the first time it is shown, and shows when it is busy.
+ *
+ * Until the first load finishes a "Loading ..." indicator stands in for the content. After that,
+ * a thin progress bar above the content runs while any of the tab's work is in flight (see
+ * {@link UiTasks}). Works for nested tabs too: an inner tab loads when the outer tab brings it on
+ * screen.
+ */
+class LazyTab extends JPanel {
+
+    private static final String LOADING = "loading";
+    private static final String CONTENT = "content";
+
+    private final CardLayout cards = new CardLayout();
+    private final JPanel cardPanel = new JPanel(cards);
+    private final JProgressBar busyBar = new JProgressBar();
+    private final Runnable loader;
+    private boolean opened;
+    private boolean showingContent;
+    private int busy;
+
+    // title is for the indicator; loader starts the tab's first load (null if it has none)
+    LazyTab(String title, JComponent content, Runnable loader) {
+        super(new BorderLayout());
+        this.loader = loader;
+
+        JLabel label = new JLabel("Loading " + title + "...", SwingConstants.CENTER);
+        JProgressBar bar = new JProgressBar();
+        bar.setIndeterminate(true);
+
+        JPanel indicator = new JPanel(new GridBagLayout());
+        JPanel stack = new JPanel(new BorderLayout(0, 8));
+        stack.setOpaque(false);
+        stack.add(label, BorderLayout.NORTH);
+        stack.add(bar, BorderLayout.CENTER);
+        indicator.add(stack);
+
+        cardPanel.add(indicator, LOADING);
+        cardPanel.add(content, CONTENT);
+        cards.show(cardPanel, LOADING);
+
+        busyBar.setIndeterminate(true);
+        busyBar.setPreferredSize(new Dimension(0, 4));
+        busyBar.setBorderPainted(false);
+        busyBar.setVisible(false);
+
+        add(busyBar, BorderLayout.NORTH);
+        add(cardPanel, BorderLayout.CENTER);
+
+        addHierarchyListener(e -> {
+            if ((e.getChangeFlags() & HierarchyEvent.SHOWING_CHANGED) != 0 && isShowing()) {
+                ensureLoaded();
+            }
+        });
+    }
+
+    // true once the tab has been shown; until then there is nothing on screen to refresh
+    boolean isOpened() {
+        return opened;
+    }
+
+    // true while any of the tab's work is in flight
+    boolean isBusy() {
+        return busy > 0;
+    }
+
+    // starts the first load if it hasn't happened yet
+    void ensureLoaded() {
+        if (opened) {
+            return;
+        }
+        opened = true;
+        if (loader != null) {
+            loader.run();
+        }
+        if (busy == 0) {
+            showContent();
+        }
+    }
+
+    // runs r only if this tab has been opened, for reloads triggered from outside the tab
+    Runnable whenOpened(Runnable r) {
+        return () -> {
+            if (opened) {
+                r.run();
+            }
+        };
+    }
+
+    void taskStarted() {
+        busy++;
+        busyBar.setVisible(showingContent);
+    }
+
+    void taskFinished() {
+        busy--;
+        if (busy == 0) {
+            busyBar.setVisible(false);
+            if (opened) {
+                showContent();
+            }
+        }
+    }
+
+    private void showContent() {
+        if (!showingContent) {
+            showingContent = true;
+            cards.show(cardPanel, CONTENT);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+package UI;
+
+import database.PageIndex;
+import database.PagedTable;
+
+import javax.swing.table.AbstractTableModel;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+import java.util.function.Function;
+
+/**
+ * Read-only table model over a table too large to hold, read a page at a time in the order of
+ * a {@link database.PageView}.
+ *
+ * The row count and where each page starts come from a {@link PageIndex} read up front, so the
+ * scroll bar is right from the start. A page is fetched in the background the first time one of
+ * its rows is painted; until it arrives its cells are blank. A fetch still running when the view
+ * scrolls away from its page is cancelled. At most maxPages pages are kept, dropping the least
+ * recently painted. A page that fails to load stays blank until the view leaves it and comes
+ * back, or the next refresh. Sorting by another column or searching means a new model over an
+ * index read for that view.
+ *
+ * Rows deleted here (see {@link #rowDeleted}) are hidden without rereading the index: rows are
+ * numbered as in the index, and a page fetched afterwards is laid out around the gaps.
+ */
+final class PagedTableModel<T> extends AbstractTableModel {
+
+    // Fetches up to limit rows from fromKey (null for the first page), then calls
+    // model.pageLoaded on the EDT. Returns what drops the fetch, query included, if it is still running.
+    @FunctionalInterface
+    interface PageFetcher<T> {
+        Runnable fetch(int page, Object[] fromKey, int limit, PagedTableModel<T> model);
+    }
+
+    // a page's cells and keys, by position in the page; deleted positions are null
+    private static final class Page {
+        final Object[][] cells;
+        final Object[][] keys;
+
+        Page(Object[][] cells, Object[][] keys) {
+            this.cells = cells;
+            this.keys = keys;
+        }
+    }
+
+    private final String[] headers;
+    private final PageIndex index;
+    private final PagedTable<T> source;
+    private final Function<? super T, Object[]> toRow;
+    private final PageFetcher<T> fetcher;
+    // pages asked for and not yet loaded, to what cancels each
+    private final Map<Integer, Runnable> requested = new HashMap<>();
+    private final Map<Integer, Page> pages;
+    // index positions of the rows deleted since the index was read
+    private final TreeSet<Integer> deleted = new TreeSet<>();
+
+    PagedTableModel(String[] headers, PageIndex index, PagedTable<T> source, int maxPages,
+                    Function<? super T, Object[]> toRow, PageFetcher<T> fetcher) {
+        this.headers = headers;
+        this.index = index;
+        this.source = source;
+        this.toRow = toRow;
+        this.fetcher = fetcher;
+        // access order, so iteration starts at the least recently used page
+        this.pages = new LinkedHashMap<>(maxPages * 2, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, Page> eldest) {
+                return size() > maxPages;
+            }
+        };
+    }
+
+    @Override
+    public int getRowCount() {
+        return index.getRowCount() - deleted.size();
+    }
+
+    @Override
+    public int getColumnCount() {
+        return headers.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return headers[column];
+    }
+
+    @Override
+    public Object getValueAt(int row, int column) {
+        int position = position(row);
+        int page = position / index.getPageSize();
+        Page loaded = pages.get(page);
+        if (loaded == null) {
+            request(page);
+            return null;
+        }
+        int offset = position - page * index.getPageSize();
+        // a page fetched after rows were deleted elsewhere comes back short
+        return offset < loaded.cells.length && loaded.cells[offset] != null ? loaded.cells[offset][column] : null;
+    }
+
+    // Called by the fetcher on the EDT with the rows of a page it was asked for
+    void pageLoaded(int page, List<T> rows) {
+        requested.remove(page);
+        int first = page * index.getPageSize();
+        int end = Math.min(first + index.getPageSize(), index.getRowCount());
+
+        // the fetch skipped rows deleted here, so the rows fill the positions still shown
+        Object[][] cells = new Object[Math.max(end - first, 0)][];
+        Object[][] keys = new Object[cells.length][];
+        int next = 0;
+        for (int i = 0; i < cells.length && next < rows.size(); i++) {
+            if (!deleted.contains(first + i)) {
+                T row = rows.get(next++);
+                cells[i] = toRow.apply(row);
+                keys[i] = source.keyOf(row);
+            }
+        }
+        pages.put(page, new Page(cells, keys));
+
+        int firstRow = rowOf(first);
+        int lastRow = rowOf(end) - 1;
+        if (firstRow <= lastRow) {
+            fireTableRowsUpdated(firstRow, lastRow);
+        }
+    }
+
+    // Hides the row with this key, if it is on a page held now; false if it isn't, in which
+    // case the caller has to reload to drop it
+    boolean rowDeleted(T row) {
+        Object[] key = source.keyOf(row);
+        for (Map.Entry<Integer, Page> e : pages.entrySet()) {
+            Object[][] keys = e.getValue().keys;
+            for (int i = 0; i < keys.length; i++) {
+                if (keys[i] != null && Arrays.equals(keys[i], key)) {
+                    int position = e.getKey() * index.getPageSize() + i;
+                    int viewRow = rowOf(position);
+                    keys[i] = null;
+                    e.getValue().cells[i] = null;
+                    deleted.add(position);
+                    fireTableRowsDeleted(viewRow, viewRow);
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    // index position of the row-th row still shown
+    private int position(int row) {
+        int position = row;
+        for (int d : deleted) {
+            if (d > position) {
+                break;
+            }
+            position++;
+        }
+        return position;
+    }
+
+    // table row of an index position, or of the next row shown after it if it was deleted
+    private int rowOf(int position) {
+        return position - deleted.headSet(position).size();
+    }
+
+    // A view shows at most two neighbouring pages, so any other page asked for was painted on the
+    // way past and has scrolled out of view: its fetch is dropped, and made again if it comes back.
+    private void request(int page) {
+        if (page >= index.getPageCount() || requested.containsKey(page)) {
+            return;
+        }
+        requested.entrySet().removeIf(e -> {
+            if (Math.abs(e.getKey() - page) <= 1) {
+                return false;
+            }
+            e.getValue().run();
+            return true;
+        });
+        requested.put(page, fetcher.fetch(page, page == 0 ? null : index.getPageStart(page), index.getPageSize(), this));
+    }
+}
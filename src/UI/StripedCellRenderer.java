@@ -0,0 +1,53 @@
+package UI;
+
+import javax.swing.JTable;
+import javax.swing.UIManager;
+import javax.swing.border.Border;
+import javax.swing.border.EmptyBorder;
+import javax.swing.table.DefaultTableCellRenderer;
+import java.awt.Color;
+import java.awt.Component;
+
+/**
+ * The tabs' cell renderer: zebra-striped rows, with the cell's text as loaded.
+ *
+ * A scroll repaints every visible cell, so this does no lookups or formatting per cell: the
+ * colors are constants, the borders are read from the look and feel once (again on a theme
+ * change), and the models hold display-ready Strings (see JWindow.emptyToNA and friends), so a
+ * cell's text is set as it is. Other values fall back to toString.
+ */
+final class StripedCellRenderer extends DefaultTableCellRenderer {
+
+    static final Color EVEN_ROW = Color.WHITE;
+    static final Color ODD_ROW = new Color(245, 245, 245);
+
+    // set by updateUI, which the superclass constructor calls, so no initializers here
+    private Border focusBorder;
+    private Border noFocusBorder;
+
+    @Override
+    public void updateUI() {
+        super.updateUI();
+        focusBorder = UIManager.getBorder("Table.focusCellHighlightBorder");
+        noFocusBorder = UIManager.getBorder("Table.cellNoFocusBorder");
+        if (noFocusBorder == null) {
+            noFocusBorder = new EmptyBorder(1, 1, 1, 1);
+        }
+    }
+
+    @Override
+    public Component getTableCellRendererComponent(
+            JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+        if (isSelected) {
+            setForeground(table.getSelectionForeground());
+            setBackground(table.getSelectionBackground());
+        } else {
+            setForeground(table.getForeground());
+            setBackground(row % 2 == 0 ? EVEN_ROW : ODD_ROW);
+        }
+        setFont(table.getFont());
+        setBorder(hasFocus && focusBorder != null ? focusBorder : noFocusBorder);
+        setText(value instanceof String ? (String) value : value == null ? "" : value.toString());
+        return this;
+    }
+}
@@ -0,0 +1,209 @@
+package UI;
+
+import javax.swing.table.DefaultTableModel;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Vector;
+
+/**
+ * Brings a loaded table up to date with a fresh read, touching only the rows that changed.
+ *
+ * Rows are matched by their ID, the first column. Rows that disappeared are deleted, new ones
+ * inserted where they appear in the fresh read, and rows whose cells changed are updated, each
+ * as one event per run of adjacent rows. Unchanged rows get no event, so nothing is re-sorted or
+ * repainted for them and the row sorter, selection and scroll position stay put.
+ *
+ * Both reads must list the rows they share in the same order (the loaders read in ID order). If
+ * they don't, or so many rows were inserted or deleted that shifting them one run at a time
+ * would cost more than starting over, the rows are replaced with one dataChanged event instead.
+ * The same goes for changes scattered over more than MAX_EVENTS runs: every event makes the row
+ * sorter and the search index catch up once, so a few dozen events already cost more than one
+ * dataChanged.
+ */
+final class TableDiff {
+
+    // more inserted plus deleted rows than this and one dataChanged event is cheaper
+    static final int MAX_SHIFTS = 1000;
+    // more runs of deleted, inserted or updated rows than this and one dataChanged event is cheaper
+    static final int MAX_EVENTS = 32;
+
+    // what the fresh read's rows are to the loaded ones
+    private static final byte SAME = 0;
+    private static final byte CHANGED = 1;
+    private static final byte NEW = 2;
+
+    private TableDiff() {
+    }
+
+    @SuppressWarnings("unchecked")
+    static void apply(DefaultTableModel model, Object[][] rows) {
+        Vector<Vector<Object>> current = (Vector<Vector<Object>>) (Vector<?>) model.getDataVector();
+        if (updateInPlace(model, current, rows)) {
+            return;
+        }
+
+        Set<Object> freshIds = new HashSet<>(rows.length * 2);
+        for (Object[] row : rows) {
+            freshIds.add(row[0]);
+        }
+        Set<Object> currentIds = new HashSet<>(current.size() * 2);
+        int deleted = 0;
+        for (Vector<Object> row : current) {
+            currentIds.add(row.get(0));
+            if (!freshIds.contains(row.get(0))) {
+                deleted++;
+            }
+        }
+        int inserted = rows.length - (current.size() - deleted);
+        if (deleted + inserted > MAX_SHIFTS) {
+            replaceAll(model, current, rows);
+            return;
+        }
+
+        // Plan first, so nothing is touched if the diff turns out too scattered. What the deletions
+        // leave is the shared rows in their old order; walk it alongside the fresh rows.
+        Vector<Vector<Object>> kept = new Vector<>(current.size() - deleted);
+        int events = 0;
+        boolean inDeletedRun = false;
+        for (Vector<Object> row : current) {
+            boolean gone = !freshIds.contains(row.get(0));
+            if (gone && !inDeletedRun) {
+                events++;
+            }
+            inDeletedRun = gone;
+            if (!gone) {
+                kept.add(row);
+            }
+        }
+        byte[] status = new byte[rows.length];
+        for (int i = 0, k = 0; i < rows.length; i++) {
+            if (!currentIds.contains(rows[i][0])) {
+                status[i] = NEW;
+            } else if (k < kept.size() && Objects.equals(kept.get(k).get(0), rows[i][0])) {
+                status[i] = sameCells(kept.get(k), rows[i]) ? SAME : CHANGED;
+                k++;
+            } else {
+                // a shared row moved, so the orders differ
+                replaceAll(model, current, rows);
+                return;
+            }
+            if (status[i] != SAME && (i == 0 || status[i - 1] != status[i])) {
+                events++;
+            }
+        }
+        if (events > MAX_EVENTS) {
+            replaceAll(model, current, rows);
+            return;
+        }
+
+        // deletions from the bottom up, so the indexes of runs not yet removed stay valid
+        for (int r = current.size() - 1; r >= 0; ) {
+            if (freshIds.contains(current.get(r).get(0))) {
+                r--;
+                continue;
+            }
+            int last = r;
+            while (r >= 0 && !freshIds.contains(current.get(r).get(0))) {
+                r--;
+            }
+            current.subList(r + 1, last + 1).clear();
+            model.fireTableRowsDeleted(r + 1, last);
+        }
+
+        for (int i = 0; i < rows.length; ) {
+            byte run = status[i];
+            int first = i;
+            for (; i < rows.length && status[i] == run; i++) {
+                if (run == CHANGED) {
+                    setCells(current.get(i), rows[i]);
+                } else if (run == NEW) {
+                    current.add(i, new Vector<>(Arrays.asList(rows[i])));
+                }
+            }
+            if (run == CHANGED) {
+                model.fireTableRowsUpdated(first, i - 1);
+            } else if (run == NEW) {
+                model.fireTableRowsInserted(first, i - 1);
+            }
+        }
+    }
+
+    // The usual refresh: the same IDs in the same order, a few cells changed. Checked and applied
+    // in one pass with no hashing; false (having changed nothing) if any ID differs.
+    private static boolean updateInPlace(DefaultTableModel model, Vector<Vector<Object>> current, Object[][] rows) {
+        if (current.size() != rows.length) {
+            return false;
+        }
+        Object[] currentRows = current.toArray();
+        int[] changed = new int[16];
+        int changes = 0;
+        int runs = 0;
+        for (int i = 0; i < rows.length; i++) {
+            @SuppressWarnings("unchecked")
+            Vector<Object> row = (Vector<Object>) currentRows[i];
+            if (!Objects.equals(row.get(0), rows[i][0])) {
+                return false;
+            }
+            if (!sameCells(row, rows[i])) {
+                if (changes == changed.length) {
+                    changed = Arrays.copyOf(changed, changes * 2);
+                }
+                if (changes == 0 || changed[changes - 1] != i - 1) {
+                    runs++;
+                }
+                changed[changes++] = i;
+            }
+        }
+
+        if (runs > MAX_EVENTS) {
+            for (int k = 0; k < changes; k++) {
+                setCells(current.get(changed[k]), rows[changed[k]]);
+            }
+            model.fireTableDataChanged();
+            return true;
+        }
+
+        for (int k = 0; k < changes; ) {
+            int first = changed[k];
+            int last = first;
+            setCells(current.get(first), rows[first]);
+            while (++k < changes && changed[k] == last + 1) {
+                last = changed[k];
+                setCells(current.get(last), rows[last]);
+            }
+            model.fireTableRowsUpdated(first, last);
+        }
+        return true;
+    }
+
+    private static boolean sameCells(Vector<Object> row, Object[] cells) {
+        // one synchronized copy of the row rather than a synchronized get per cell
+        Object[] values = row.toArray();
+        if (values.length != cells.length) {
+            return false;
+        }
+        for (int c = 0; c < cells.length; c++) {
+            if (!Objects.equals(values[c], cells[c])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void setCells(Vector<Object> row, Object[] cells) {
+        for (int c = 0; c < cells.length && c < row.size(); c++) {
+            row.set(c, cells[c]);
+        }
+    }
+
+    // keeps the model (and so its columns and the sorter's sort keys); only the rows change
+    private static void replaceAll(DefaultTableModel model, Vector<Vector<Object>> current, Object[][] rows) {
+        current.clear();
+        for (Object[] row : rows) {
+            current.add(new Vector<>(Arrays.asList(row)));
+        }
+        model.fireTableDataChanged();
+    }
+}
@@ -0,0 +1,136 @@
+package UI;
+
+import javax.swing.JTable;
+import javax.swing.RowFilter;
+import javax.swing.event.TableModelEvent;
+import javax.swing.event.TableModelListener;
+import javax.swing.table.TableModel;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.stream.IntStream;
+
+/**
+ * Search-as-you-type for one table: keeps a {@link TrigramIndex} of its rows in step with
+ * whatever model the table shows, and filters the table's {@link IndexRowSorter} to the rows the
+ * search term matches.
+ *
+ * Rows are indexed as the model reports them (a whole load, a page arriving, a row patched or
+ * inserted), so a keystroke only searches the index and hands the sorter the matching row
+ * numbers; the filter reads no cells. Paged tables are searched in the database instead (see
+ * {@link database.PageView}).
+ */
+final class TableSearch implements TableModelListener {
+
+    private final JTable table;
+    // columns searched; null for the model's text columns (all of them if it has no types)
+    private final int[] columns;
+    private final TrigramIndex index = new TrigramIndex();
+    private final RowFilter<TableModel, Integer> filter = new RowFilter<TableModel, Integer>() {
+        @Override
+        public boolean include(Entry<? extends TableModel, ? extends Integer> entry) {
+            return matches.get(entry.getIdentifier());
+        }
+    };
+
+    private TableModel model;
+    private int[] indexed;
+    private String term = "";
+    // rows matching term, kept current as rows change
+    private BitSet matches = new BitSet();
+
+    // Call after styleTable, which gives each new model its sorter first
+    TableSearch(JTable table, int... columns) {
+        this.table = table;
+        this.columns = columns.length == 0 ? null : columns.clone();
+        table.addPropertyChangeListener("model", e -> attach());
+        attach();
+    }
+
+    // narrows the table to rows containing text, ignoring case; blank shows them all
+    void search(String text) {
+        term = text.trim();
+        rematch();
+        applyFilter();
+    }
+
+    private void attach() {
+        if (model != null) {
+            model.removeTableModelListener(this);
+        }
+        model = table.getModel();
+        model.addTableModelListener(this);
+        indexed = columnsOf(model);
+        reindex();
+        rematch();
+        applyFilter();
+    }
+
+    // Runs before the table (and so its sorter) hears of the change, being added after it, so the
+    // sorter re-filters with matches already brought up to date
+    @Override
+    public void tableChanged(TableModelEvent e) {
+        if (e.getFirstRow() == TableModelEvent.HEADER_ROW) {
+            indexed = columnsOf(model);
+            reindex();
+        } else if (e.getLastRow() == Integer.MAX_VALUE) {
+            reindex();
+        } else if (e.getType() == TableModelEvent.INSERT) {
+            for (int r = e.getFirstRow(); r <= e.getLastRow(); r++) {
+                index.insert(r, text(r));
+            }
+        } else if (e.getType() == TableModelEvent.DELETE) {
+            index.remove(e.getFirstRow(), e.getLastRow());
+        } else {
+            for (int r = e.getFirstRow(); r <= e.getLastRow(); r++) {
+                index.set(r, text(r));
+            }
+        }
+        rematch();
+    }
+
+    private void reindex() {
+        index.clear();
+        for (int r = 0; r < model.getRowCount(); r++) {
+            index.add(text(r));
+        }
+    }
+
+    private void rematch() {
+        matches = term.isEmpty() ? new BitSet() : index.search(term);
+    }
+
+    private void applyFilter() {
+        if (table.getRowSorter() instanceof IndexRowSorter) {
+            IndexRowSorter sorter = (IndexRowSorter) table.getRowSorter();
+            sorter.setRowFilter(term.isEmpty() ? null : filter);
+        }
+    }
+
+    // the row's searched cells, one per line
+    private String text(int row) {
+        StringBuilder text = new StringBuilder();
+        for (int c : indexed) {
+            Object value = model.getValueAt(row, c);
+            if (value != null) {
+                text.append(value).append('\n');
+            }
+        }
+        return text.toString();
+    }
+
+    private int[] columnsOf(TableModel model) {
+        int count = model.getColumnCount();
+        if (columns != null) {
+            return Arrays.stream(columns).filter(c -> c < count).toArray();
+        }
+        if (model instanceof TypedTableModel) {
+            TypedTableModel typed = (TypedTableModel) model;
+            int[] text = IntStream.range(0, count)
+                    .filter(c -> typed.getColumnType(c) == ColumnType.TEXT).toArray();
+            if (text.length > 0) {
+                return text;
+            }
+        }
+        return IntStream.range(0, count).toArray();
+    }
+}
@@ -0,0 +1,343 @@
+package UI;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Case-insensitive substring search over a table's rows, for the search boxes (see
+ * {@link TableSearch}).
+ *
+ * Each row's text is kept lower-cased, and every three-character run in it (a trigram) maps to
+ * the rows holding it. A search for three or more characters intersects its trigrams' row lists,
+ * smallest first, and checks only the rows left; shorter terms check every row. When the term
+ * contains the previous one (typing one more character), only the rows that matched before are
+ * considered, narrowed by the trigrams the term gained. Rows are numbered as in the table model.
+ *
+ * Rows appended or filled in for the first time (a page arriving) are indexed as they come.
+ * Inserting or removing rows elsewhere renumbers the rows after them, so the trigram lists are
+ * rebuilt from the kept text at the next search instead.
+ */
+final class TrigramIndex {
+
+    // rows' lower-cased text; null for a row not loaded yet
+    private final List<String> texts = new ArrayList<>();
+    private final PostingsTable postings = new PostingsTable();
+    // the trigram lists no longer match texts' row numbers
+    private boolean stale;
+
+    // the last search, to narrow from while its rows haven't changed
+    private String lastTerm;
+    private BitSet lastMatches;
+
+    // the rows holding one trigram, ascending once sorted
+    private static final class Postings {
+        int[] rows = new int[4];
+        int size;
+        boolean sorted = true;
+
+        void add(int row) {
+            if (size > 0 && rows[size - 1] >= row) {
+                if (rows[size - 1] == row) {
+                    return; // the trigram occurs twice in this row
+                }
+                sorted = false;
+            }
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            rows[size++] = row;
+        }
+
+        void sort() {
+            if (sorted) {
+                return;
+            }
+            Arrays.sort(rows, 0, size);
+            int unique = 0;
+            for (int i = 0; i < size; i++) {
+                if (unique == 0 || rows[i] != rows[unique - 1]) {
+                    rows[unique++] = rows[i];
+                }
+            }
+            size = unique;
+            sorted = true;
+        }
+    }
+
+    // Trigram -> Postings, open addressing on the packed trigram: a HashMap<Long, Postings> boxes
+    // a Long per trigram looked up, which made indexing a load several times slower
+    private static final class PostingsTable {
+        private long[] keys = new long[1024];
+        private Postings[] values = new Postings[1024];
+        private int size;
+
+        Postings get(long key) {
+            int mask = keys.length - 1;
+            for (int i = slot(key, mask); values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            return null;
+        }
+
+        Postings getOrAdd(long key) {
+            int mask = keys.length - 1;
+            int i = slot(key, mask);
+            for (; values[i] != null; i = (i + 1) & mask) {
+                if (keys[i] == key) {
+                    return values[i];
+                }
+            }
+            Postings p = new Postings();
+            keys[i] = key;
+            values[i] = p;
+            if (++size * 2 > keys.length) {
+                grow();
+            }
+            return p;
+        }
+
+        void clear() {
+            Arrays.fill(values, null);
+            size = 0;
+        }
+
+        private void grow() {
+            long[] oldKeys = keys;
+            Postings[] oldValues = values;
+            keys = new long[oldKeys.length * 2];
+            values = new Postings[oldValues.length * 2];
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldValues[j] != null) {
+                    int i = slot(oldKeys[j], mask);
+                    while (values[i] != null) {
+                        i = (i + 1) & mask;
+                    }
+                    keys[i] = oldKeys[j];
+                    values[i] = oldValues[j];
+                }
+            }
+        }
+
+        private static int slot(long key, int mask) {
+            long h = key * 0x9E3779B97F4A7C15L;
+            return (int) (h >>> 40) & mask;
+        }
+    }
+
+    int size() {
+        return texts.size();
+    }
+
+    void clear() {
+        texts.clear();
+        postings.clear();
+        stale = false;
+        changed();
+    }
+
+    // text may be null for a row whose cells haven't loaded yet
+    void add(String text) {
+        insert(texts.size(), text);
+    }
+
+    void insert(int row, String text) {
+        String lower = lower(text);
+        if (row == texts.size()) {
+            texts.add(lower);
+            if (!stale && lower != null) {
+                addTrigrams(row, lower);
+            }
+        } else {
+            texts.add(row, lower);
+            stale = true;
+        }
+        changed();
+    }
+
+    void set(int row, String text) {
+        String lower = lower(text);
+        String old = texts.set(row, lower);
+        if (old == null ? lower == null : old.equals(lower)) {
+            return;
+        }
+        if (old == null) {
+            if (!stale) {
+                addTrigrams(row, lower);
+            }
+        } else {
+            // the old text's trigrams would still point here
+            stale = true;
+        }
+        changed();
+    }
+
+    // removes rows first to last, inclusive
+    void remove(int first, int last) {
+        texts.subList(first, last + 1).clear();
+        stale = true;
+        changed();
+    }
+
+    // the rows whose text contains term, ignoring case
+    BitSet search(String term) {
+        String t = term.toLowerCase(Locale.ROOT);
+        if (stale) {
+            rebuild();
+        }
+        if (t.equals(lastTerm)) {
+            return (BitSet) lastMatches.clone();
+        }
+        // typing on: only rows that held the last term can hold this one
+        BitSet narrowFrom = lastTerm != null && t.contains(lastTerm) ? lastMatches : null;
+
+        BitSet matches = new BitSet(texts.size());
+        if (t.length() < 3) {
+            if (narrowFrom != null) {
+                for (int row = narrowFrom.nextSetBit(0); row >= 0; row = narrowFrom.nextSetBit(row + 1)) {
+                    check(row, t, matches);
+                }
+            } else {
+                for (int row = 0; row < texts.size(); row++) {
+                    check(row, t, matches);
+                }
+            }
+        } else {
+            int[] candidates = candidates(t, narrowFrom);
+            // a three-character term is one trigram, whose rows all hold it
+            boolean exact = t.length() == 3;
+            for (int row : candidates) {
+                if (exact) {
+                    matches.set(row);
+                } else {
+                    check(row, t, matches);
+                }
+            }
+        }
+        lastTerm = t;
+        lastMatches = matches;
+        return (BitSet) matches.clone();
+    }
+
+    private void check(int row, String t, BitSet matches) {
+        String text = texts.get(row);
+        if (text != null && text.contains(t)) {
+            matches.set(row);
+        }
+    }
+
+    // Rows holding every trigram of t, ascending, and within narrowFrom if given. Trigrams that
+    // narrowFrom's rows are already known to hold (those of the last term) are skipped.
+    private int[] candidates(String t, BitSet narrowFrom) {
+        List<Postings> lists = new ArrayList<>();
+        for (int i = 0; i + 3 <= t.length(); i++) {
+            long trigram = trigram(t, i);
+            Postings p = postings.get(trigram);
+            if (p == null) {
+                return new int[0];
+            }
+            if (narrowFrom != null && lastTerm.length() >= 3 && contains(lastTerm, trigram)) {
+                continue;
+            }
+            if (!lists.contains(p)) {
+                p.sort();
+                lists.add(p);
+            }
+        }
+        lists.sort((a, b) -> Integer.compare(a.size, b.size));
+
+        int[] rows;
+        int n;
+        int first;
+        if (narrowFrom != null && (lists.isEmpty() || narrowFrom.cardinality() <= lists.get(0).size)) {
+            rows = narrowFrom.stream().toArray();
+            n = rows.length;
+            first = 0;
+        } else {
+            rows = Arrays.copyOf(lists.get(0).rows, lists.get(0).size);
+            n = rows.length;
+            first = 1;
+            if (narrowFrom != null) {
+                int kept = 0;
+                for (int i = 0; i < n; i++) {
+                    if (narrowFrom.get(rows[i])) {
+                        rows[kept++] = rows[i];
+                    }
+                }
+                n = kept;
+            }
+        }
+        for (int l = first; l < lists.size() && n > 0; l++) {
+            n = retain(rows, n, lists.get(l));
+        }
+        return Arrays.copyOf(rows, n);
+    }
+
+    // Keeps the first n of rows (ascending) that p holds, galloping through p so a short list
+    // against a long one costs a few probes per row; returns how many were kept
+    private static int retain(int[] rows, int n, Postings p) {
+        int kept = 0;
+        int j = 0;
+        for (int i = 0; i < n && j < p.size; i++) {
+            int row = rows[i];
+            if (p.rows[j] < row) {
+                int step = 1;
+                while (j + step < p.size && p.rows[j + step] < row) {
+                    j += step;
+                    step <<= 1;
+                }
+                int at = Arrays.binarySearch(p.rows, j + 1, Math.min(j + step + 1, p.size), row);
+                j = at >= 0 ? at : -at - 1;
+            }
+            if (j < p.size && p.rows[j] == row) {
+                rows[kept++] = row;
+                j++;
+            }
+        }
+        return kept;
+    }
+
+    private static boolean contains(String s, long trigram) {
+        for (int i = 0; i + 3 <= s.length(); i++) {
+            if (trigram(s, i) == trigram) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void rebuild() {
+        postings.clear();
+        for (int row = 0; row < texts.size(); row++) {
+            String text = texts.get(row);
+            if (text != null) {
+                addTrigrams(row, text);
+            }
+        }
+        stale = false;
+    }
+
+    private void addTrigrams(int row, String text) {
+        for (int i = 0; i + 3 <= text.length(); i++) {
+            postings.getOrAdd(trigram(text, i)).add(row);
+        }
+    }
+
+    private void changed() {
+        lastTerm = null;
+        lastMatches = null;
+    }
+
+    private static long trigram(String s, int i) {
+        return ((long) s.charAt(i) << 32) | ((long) s.charAt(i + 1) << 16) | s.charAt(i + 2);
+    }
+
+    private static String lower(String text) {
+        return text == null ? null : text.toLowerCase(Locale.ROOT);
+    }
+}
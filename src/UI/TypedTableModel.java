@@ -0,0 +1,54 @@
+package UI;
+
+import javax.swing.event.TableModelEvent;
+import javax.swing.table.DefaultTableModel;
+
+/**
+ * The read-only model behind the tabs' tables: rows as loaded, plus what type each column
+ * holds. Sort ranks (see {@link ColumnType#ranks}) are computed the first time a column is
+ * sorted and kept until the rows change, so re-sorting, or sorting the other way, costs one
+ * pass over an int array.
+ */
+class TypedTableModel extends DefaultTableModel {
+
+    private final ColumnType[] types;
+    private final ColumnType.Ranks[] ranks;
+
+    TypedTableModel(Object[][] data, String[] headers, ColumnType[] types) {
+        super(data, headers);
+        if (types.length != headers.length) {
+            throw new IllegalArgumentException(headers.length + " headers but " + types.length + " column types");
+        }
+        this.types = types.clone();
+        this.ranks = new ColumnType.Ranks[types.length];
+    }
+
+    @Override
+    public boolean isCellEditable(int row, int column) {
+        return false;
+    }
+
+    ColumnType getColumnType(int column) {
+        return types[column];
+    }
+
+    ColumnType.Ranks getRanks(int column) {
+        if (ranks[column] == null) {
+            ranks[column] = types[column].ranks(this, column);
+        }
+        return ranks[column];
+    }
+
+    // every change to the rows comes through here, before any listener (the sorter included) hears of it
+    @Override
+    public void fireTableChanged(TableModelEvent e) {
+        if (ranks != null) { // null while the superclass constructor fires
+            for (int c = 0; c < ranks.length; c++) {
+                if (e.getColumn() == TableModelEvent.ALL_COLUMNS || e.getColumn() == c) {
+                    ranks[c] = null;
+                }
+            }
+        }
+        super.fireTableChanged(e);
+    }
+}
@@ -0,0 +1,184 @@
+package UI;
+
+import database.AsyncDatabaseHandler;
+import database.AsyncDatabaseHandler.DbCall;
+import exceptions.NotExists;
+
+import javax.swing.*;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Runs database work off the EDT and hands the results back on it.
+ *
+ * Work is grouped by key, one per table view (e.g. "animals"), and named by a request
+ * (e.g. "load", or "search:dell"). Asking for the request already in flight for a key joins it,
+ * so repeated Refresh clicks cost one query. Asking for a different one supersedes it: the old
+ * work is skipped if it hasn't reached the database yet, and its query is cancelled on the
+ * server if it has (see {@link AsyncDatabaseHandler#submit}), so it stops holding a connection.
+ * After {@link #dataChanged()} nothing joins work started earlier, so a reload after a write
+ * never shows data from before it. Writes go through {@link #write} instead, which neither joins
+ * nor supersedes: every edit the user submits runs and reports back.
+ *
+ * Work can name the {@link LazyTab} it belongs to, which shows a busy indicator while any of
+ * its work runs. Everything here except the work itself runs on the EDT.
+ */
+final class UiTasks {
+
+    // the user action each background call was started for, for the slow query log
+    private static final ThreadLocal<String> ACTION = new ThreadLocal<>();
+
+    private final AsyncDatabaseHandler async;
+    private final Supplier<String> currentAction;
+    private final Map<String, Flight> inFlight = new HashMap<>();
+    private long epoch;
+
+    private static final class Flight {
+        final String request;
+        final long epoch;
+        final LazyTab tab;
+        volatile boolean superseded;
+        CompletableFuture<?> future;
+
+        Flight(String request, long epoch, LazyTab tab) {
+            this.request = request;
+            this.epoch = epoch;
+            this.tab = tab;
+        }
+    }
+
+    // currentAction is read on the EDT when work is submitted
+    UiTasks(AsyncDatabaseHandler async, Supplier<String> currentAction) {
+        this.async = async;
+        this.currentAction = currentAction;
+    }
+
+    // the action the calling background thread is working for, or null off our threads
+    static String currentAction() {
+        return ACTION.get();
+    }
+
+    // Runs work in the background, then onSuccess or onFailure on the EDT, unless superseded.
+    // onFailure gets the SQLException / NotExists / RuntimeException the work threw.
+    <T> void run(String key, String request, LazyTab tab, DbCall<T> work,
+                 Consumer<? super T> onSuccess, Consumer<? super Exception> onFailure) {
+        Flight current = inFlight.get(key);
+        if (current != null) {
+            if (current.request.equals(request) && current.epoch == epoch) {
+                return; // joins the one in flight
+            }
+            supersede(key, current);
+        }
+
+        Flight flight = new Flight(request, epoch, tab);
+        inFlight.put(key, flight);
+        if (tab != null) {
+            tab.taskStarted();
+        }
+
+        String action = currentAction.get();
+        CompletableFuture<T> submitted = async.submit(() -> {
+            // superseded while waiting for a connection permit: don't run the query at all
+            if (flight.superseded) {
+                throw new CancellationException();
+            }
+            return callFor(action, work);
+        });
+        flight.future = submitted;
+        submitted.whenComplete((result, error) -> SwingUtilities.invokeLater(() -> {
+            if (inFlight.get(key) != flight) {
+                return; // superseded; its tab was already released
+            }
+            finish(key, flight);
+            if (error == null) {
+                onSuccess.accept(result);
+            } else if (!(unwrap(error) instanceof CancellationException)) {
+                onFailure.accept(asException(unwrap(error)));
+            }
+        }));
+    }
+
+    // Runs a write in the background, then onSuccess or onFailure on the EDT. Unlike run, a write
+    // is never joined or superseded: two edits to the same row both run, and each one's outcome
+    // (a failure included) is reported.
+    <T> void write(LazyTab tab, DbCall<T> work, Consumer<? super T> onSuccess, Consumer<? super Exception> onFailure) {
+        if (tab != null) {
+            tab.taskStarted();
+        }
+        String action = currentAction.get();
+        async.submit(() -> callFor(action, work)).whenComplete((result, error) -> SwingUtilities.invokeLater(() -> {
+            if (tab != null) {
+                tab.taskFinished();
+            }
+            if (error == null) {
+                onSuccess.accept(result);
+            } else {
+                onFailure.accept(asException(unwrap(error)));
+            }
+        }));
+    }
+
+    // true while work for the key is queued or running
+    boolean isBusy(String key) {
+        return inFlight.containsKey(key);
+    }
+
+    // Drops whatever is in flight for the key, e.g. before the view it would fill goes away
+    void cancel(String key) {
+        Flight current = inFlight.get(key);
+        if (current != null) {
+            supersede(key, current);
+        }
+    }
+
+    // Drops the request if it is what is in flight for the key; newer work under the key runs on
+    void cancel(String key, String request) {
+        Flight current = inFlight.get(key);
+        if (current != null && current.request.equals(request)) {
+            supersede(key, current);
+        }
+    }
+
+    // The data changed (a write here or in another session); later requests start fresh work
+    void dataChanged() {
+        epoch++;
+    }
+
+    private void supersede(String key, Flight flight) {
+        flight.superseded = true;
+        if (flight.future != null) {
+            flight.future.cancel(false);
+        }
+        finish(key, flight);
+    }
+
+    private void finish(String key, Flight flight) {
+        inFlight.remove(key);
+        if (flight.tab != null) {
+            flight.tab.taskFinished();
+        }
+    }
+
+    private static <T> T callFor(String action, DbCall<T> work) throws SQLException, NotExists {
+        ACTION.set(action);
+        try {
+            return work.call();
+        } finally {
+            ACTION.remove();
+        }
+    }
+
+    private static Throwable unwrap(Throwable t) {
+        return t instanceof CompletionException && t.getCause() != null ? t.getCause() : t;
+    }
+
+    private static Exception asException(Throwable t) {
+        return t instanceof Exception ? (Exception) t : new RuntimeException(t);
+    }
+}
@@ -0,0 +1,299 @@
+package database;
+
+import exceptions.NotExists;
+import model.*;
+
+import java.lang.reflect.Method;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * CompletableFuture facade over a {@link ZooRepository}.
+ *
+ * Every call runs on a background thread (virtual threads when the JVM has them, otherwise a
+ * daemon pool) and at most {@code maxConcurrency} calls hit the database at once, so independent
+ * reads overlap without oversubscribing the connection pool. Failures complete the future
+ * exceptionally with the original SQLException / NotExists as the cause. Cancelling a future
+ * cancels the query its call is running.
+ *
+ * Example, loading vets and the cheap-vets report in parallel:
+ * <pre>
+ *   async.getVeterinarianInfoAsync(cols)
+ *        .thenCombine(async.getCheapVeterinariansAsync(), (all, cheap) -> ...);
+ * </pre>
+ */
+public class AsyncDatabaseHandler implements AutoCloseable {
+
+    // A database call that may throw checked exceptions
+    @FunctionalInterface
+    public interface DbCall<T> {
+        T call() throws SQLException, NotExists;
+    }
+
+    private final ZooRepository db;
+    private final ExecutorService executor;
+    private final Semaphore permits;
+
+    // concurrency defaults to the connection pool size
+    public AsyncDatabaseHandler(DatabaseConnectionHandler db) {
+        this(db, db.getPoolStats().getMaxSize());
+    }
+
+    public AsyncDatabaseHandler(ZooRepository db, int maxConcurrency) {
+        if (maxConcurrency < 1) {
+            throw new IllegalArgumentException("maxConcurrency must be positive: " + maxConcurrency);
+        }
+        this.db = db;
+        this.permits = new Semaphore(maxConcurrency, true);
+        this.executor = newExecutor(maxConcurrency);
+    }
+
+    // Runs any handler call asynchronously under the concurrency limit. Cancelling the future
+    // also cancels the query the call is running, freeing its connection (see CancelToken).
+    public <T> CompletableFuture<T> submit(DbCall<T> call) {
+        CancelToken token = new CancelToken();
+        CompletableFuture<T> future = new CompletableFuture<T>() {
+            @Override
+            public boolean cancel(boolean mayInterruptIfRunning) {
+                token.cancel();
+                return super.cancel(mayInterruptIfRunning);
+            }
+        };
+        executor.execute(() -> {
+            permits.acquireUninterruptibly();
+            try {
+                future.complete(token.run(call));
+            } catch (Throwable t) {
+                // as supplyAsync would
+                future.completeExceptionally(t instanceof CompletionException ? t : new CompletionException(t));
+            } finally {
+                permits.release();
+            }
+        });
+        return future;
+    }
+
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    // ------------------------------------------------------------
+    // Animals & habitats
+    // ------------------------------------------------------------
+
+    public CompletableFuture<Animal[]> getAnimalInfoAsync(ArrayList<String> columns) {
+        return submit(() -> db.getAnimalInfo(columns));
+    }
+
+    public CompletableFuture<Integer> streamAnimalsAsync(ArrayList<String> columns, Consumer<? super Animal> consumer) {
+        return submit(() -> db.streamAnimals(columns, consumer));
+    }
+
+    public CompletableFuture<Animal> deleteAnimalAsync(String aId) {
+        return submit(() -> db.deleteAnimal(aId));
+    }
+
+    public CompletableFuture<Integer> upsertAnimalsAsync(List<Animal> animals) {
+        return submit(() -> db.upsertAnimals(animals));
+    }
+
+    public CompletableFuture<Habitat[]> getHabitatInfoAsync(ArrayList<String> columns) {
+        return submit(() -> db.getHabitatInfo(columns));
+    }
+
+    // ------------------------------------------------------------
+    // Workers & veterinarians
+    // ------------------------------------------------------------
+
+    public CompletableFuture<Worker[]> getWorkerInfoAsync(ArrayList<String> columns) {
+        return submit(() -> db.getWorkerInfo(columns));
+    }
+
+    public CompletableFuture<Worker> updateWorkerAsync(String wId, String column, Object value) {
+        return submit(() -> db.updateWorker(wId, column, value));
+    }
+
+    public CompletableFuture<Integer> upsertWorkersAsync(List<? extends Worker> workers) {
+        return submit(() -> db.upsertWorkers(workers));
+    }
+
+    public CompletableFuture<Integer> upsertZookeepersAsync(List<Zookeeper> zookeepers) {
+        return submit(() -> db.upsertZookeepers(zookeepers));
+    }
+
+    public CompletableFuture<Veterinarian[]> getVeterinarianInfoAsync(ArrayList<String> columns) {
+        return submit(() -> db.getVeterinarianInfo(columns));
+    }
+
+    public CompletableFuture<Veterinarian> insertVeterinarianAsync(String wId, String name, float payRate, String address,
+                                                                   String email, String phone, String specialization) {
+        return submit(() -> db.insertVeterinarian(wId, name, payRate, address, email, phone, specialization));
+    }
+
+    public CompletableFuture<Integer> upsertVeterinariansAsync(List<Veterinarian> vets) {
+        return submit(() -> db.upsertVeterinarians(vets));
+    }
+
+    // ------------------------------------------------------------
+    // Shops, storage, orders, computers
+    // ------------------------------------------------------------
+
+    public CompletableFuture<Shop[]> getShopInfoAsync(ArrayList<String> columns) {
+        return submit(() -> db.getShopInfo(columns));
+    }
+
+    public CompletableFuture<Item[]> getItemInfoAsync(ArrayList<String> columns) {
+        return submit(() -> db.getItemInfo(columns));
+    }
+
+    public CompletableFuture<StorageUnit[]> getStorageUnitInfoAsync(ArrayList<String> columns) {
+        return submit(() -> db.getStorageUnitInfo(columns));
+    }
+
+    public CompletableFuture<RawFoodOrder[]> getRawFoodOrderInfoAsync(ArrayList<String> columns) {
+        return submit(() -> db.getRawFoodOrderInfo(columns));
+    }
+
+    public CompletableFuture<Integer> streamRawFoodOrdersAsync(ArrayList<String> columns,
+                                                               Consumer<? super RawFoodOrder> consumer) {
+        return submit(() -> db.streamRawFoodOrders(columns, consumer));
+    }
+
+    public CompletableFuture<Computer[]> getComputerInfoAsync(ArrayList<String> columns) {
+        return submit(() -> db.getComputerInfo(columns));
+    }
+
+    public CompletableFuture<Computer[]> searchComputersByManufacturerAsync(String manufacturer) {
+        return submit(() -> db.searchComputersByManufacturer(manufacturer));
+    }
+
+    // ------------------------------------------------------------
+    // Relationships
+    // ------------------------------------------------------------
+
+    public CompletableFuture<CohabitatesWith[]> getCohabitatesWithInfoAsync(ArrayList<String> columns) {
+        return submit(() -> db.getCohabitatesWithInfo(columns));
+    }
+
+    public CompletableFuture<MaintainsHealthOf[]> getMaintainsHealthOfInfoAsync(ArrayList<String> columns) {
+        return submit(() -> db.getMaintainsHealthOfInfo(columns));
+    }
+
+    public CompletableFuture<Feeds[]> getFeedsInfoAsync(ArrayList<String> columns) {
+        return submit(() -> db.getFeedsInfo(columns));
+    }
+
+    public CompletableFuture<MadeFrom[]> getMadeFromInfoAsync(ArrayList<String> columns) {
+        return submit(() -> db.getMadeFromInfo(columns));
+    }
+
+    public CompletableFuture<Integer> streamCohabitatesWithAsync(Consumer<? super CohabitatesWith> consumer) {
+        return submit(() -> db.streamCohabitatesWith(consumer));
+    }
+
+    public CompletableFuture<Integer> streamMaintainsHealthOfAsync(Consumer<? super MaintainsHealthOf> consumer) {
+        return submit(() -> db.streamMaintainsHealthOf(consumer));
+    }
+
+    public CompletableFuture<Integer> streamFeedsAsync(Consumer<? super Feeds> consumer) {
+        return submit(() -> db.streamFeeds(consumer));
+    }
+
+    public CompletableFuture<Integer> streamMadeFromAsync(Consumer<? super MadeFrom> consumer) {
+        return submit(() -> db.streamMadeFrom(consumer));
+    }
+
+    public CompletableFuture<Integer> insertCohabitatesWithAsync(List<CohabitatesWith> rows) {
+        return submit(() -> db.insertCohabitatesWith(rows));
+    }
+
+    public CompletableFuture<Integer> insertMaintainsHealthOfAsync(List<MaintainsHealthOf> rows) {
+        return submit(() -> db.insertMaintainsHealthOf(rows));
+    }
+
+    public CompletableFuture<Integer> insertFeedsAsync(List<Feeds> rows) {
+        return submit(() -> db.insertFeeds(rows));
+    }
+
+    public CompletableFuture<Integer> insertMadeFromAsync(List<MadeFrom> rows) {
+        return submit(() -> db.insertMadeFrom(rows));
+    }
+
+    // ------------------------------------------------------------
+    // Keyset paging
+    // ------------------------------------------------------------
+
+    public CompletableFuture<PageIndex> getPageIndexAsync(PagedTable<?> table, PageView view, int pageSize) {
+        return submit(() -> db.getPageIndex(table, view, pageSize));
+    }
+
+    public <T> CompletableFuture<List<T>> getPageAsync(PagedTable<T> table, PageView view, Object[] fromKey, int limit) {
+        return submit(() -> db.getPage(table, view, fromKey, limit));
+    }
+
+    // ------------------------------------------------------------
+    // Reports
+    // ------------------------------------------------------------
+
+    public CompletableFuture<Zookeeper[]> getSuperZookeepersAsync() {
+        return submit(db::getSuperZookeepers);
+    }
+
+    public CompletableFuture<Zookeeper[]> getZookeepersFeedingAllInAsync(String habitatId) {
+        return submit(() -> db.getZookeepersFeedingAllIn(habitatId));
+    }
+
+    public CompletableFuture<Zookeeper[]> getZookeepersFeedingAtLeastAsync(double percent) {
+        return submit(() -> db.getZookeepersFeedingAtLeast(percent));
+    }
+
+    public CompletableFuture<Veterinarian[]> getCheapVeterinariansAsync() {
+        return submit(db::getCheapVeterinarians);
+    }
+
+    public CompletableFuture<SumWeights[]> getSumWeightsAsync() {
+        return submit(db::getSumWeights);
+    }
+
+    public CompletableFuture<SumWeights[]> getFreeStorageAsync(int maxWeight) {
+        return submit(() -> db.getFreeStorage(maxWeight));
+    }
+
+    public CompletableFuture<Integer> rebuildStorageUsageAsync() {
+        return submit(db::rebuildStorageUsage);
+    }
+
+    public CompletableFuture<SumWeights[]> verifyStorageUsageAsync() {
+        return submit(db::verifyStorageUsage);
+    }
+
+    // ------------------------------------------------------------
+    // Executor
+    // ------------------------------------------------------------
+
+    // Virtual threads need Java 21; looked up reflectively so the app still runs on 17.
+    private static ExecutorService newExecutor(int maxConcurrency) {
+        try {
+            Method factory = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (ReflectiveOperationException e) {
+            AtomicInteger count = new AtomicInteger();
+            ThreadFactory threads = r -> {
+                Thread t = new Thread(r, "db-async-" + count.incrementAndGet());
+                t.setDaemon(true);
+                return t;
+            };
+            return Executors.newFixedThreadPool(maxConcurrency, threads);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Writes many rows with JDBC batching and chunked commits.
+ *
+ * Rows are sent {@code batchSize} at a time per statement (the driver rewrites each batch into
+ * multi-row INSERTs), and the transaction is committed every {@code commitEvery} rows. All steps
+ * for one chunk run in the same transaction, so a step can depend on an earlier one (e.g. the
+ * workers row before the zookeepers row). If a chunk fails it is rolled back and the exception
+ * is rethrown; chunks committed before it stay committed.
+ */
+final class BatchWriter {
+
+    @FunctionalInterface
+    interface Binder<T> {
+        void bind(PreparedStatement ps, T row) throws SQLException;
+    }
+
+    // one INSERT statement applied to every row of a chunk
+    static final class Step<T> {
+        final String sql;
+        final Binder<? super T> binder;
+
+        Step(String sql, Binder<? super T> binder) {
+            this.sql = sql;
+            this.binder = binder;
+        }
+    }
+
+    private final int batchSize;
+    private final int commitEvery;
+
+    BatchWriter(int batchSize, int commitEvery) {
+        if (batchSize < 1 || commitEvery < batchSize) {
+            throw new IllegalArgumentException("Invalid batch bounds: batchSize=" + batchSize
+                    + ", commitEvery=" + commitEvery);
+        }
+        this.batchSize = batchSize;
+        this.commitEvery = commitEvery;
+    }
+
+    // Returns the number of rows submitted. The update counts can't say how many of them changed:
+    // with reWriteBatchedInserts (see DatabaseConnectionHandler) the driver sends multi-row INSERTs
+    // and reports SUCCESS_NO_INFO for their rows, so a row ON CONFLICT DO NOTHING skipped looks the
+    // same as one it wrote.
+    <T> int write(PooledConnection pc, List<? extends T> rows, List<Step<T>> steps) throws SQLException {
+        if (rows.isEmpty()) {
+            return 0;
+        }
+
+        Connection connection = pc.get();
+        boolean oldAutoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+
+        try {
+            for (int from = 0; from < rows.size(); from += commitEvery) {
+                List<? extends T> chunk = rows.subList(from, Math.min(rows.size(), from + commitEvery));
+                try {
+                    for (Step<T> step : steps) {
+                        runStep(pc.prepare(step.sql), chunk, step.binder);
+                    }
+                    connection.commit();
+                } catch (SQLException ex) {
+                    connection.rollback(); // only this chunk; earlier ones are already committed
+                    throw ex;
+                }
+            }
+        } finally {
+            connection.setAutoCommit(oldAutoCommit);
+        }
+
+        return rows.size();
+    }
+
+    private <T> void runStep(PreparedStatement ps, List<? extends T> chunk, Binder<? super T> binder)
+            throws SQLException {
+        try {
+            int pending = 0;
+            for (T row : chunk) {
+                binder.bind(ps, row);
+                ps.addBatch();
+                if (++pending == batchSize) {
+                    ps.executeBatch();
+                    pending = 0;
+                }
+            }
+            if (pending > 0) {
+                ps.executeBatch();
+            }
+        } finally {
+            // the statement is cached; never leave queued rows behind for the next caller
+            ps.clearBatch();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package database;
+
+import exceptions.NotExists;
+
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * Stops a background read on the server, not just its result on the way back.
+ *
+ * AsyncDatabaseHandler gives every call a token and binds it to the thread running the call.
+ * While the handler executes a query it registers the statement with that thread's token, and
+ * {@link #cancel} stops a registered statement with {@link Statement#cancel()}, so the query
+ * fails with SQLState 57014 and its pooled connection goes back at once. A query that would
+ * start after cancel fails the same way without reaching the server.
+ */
+final class CancelToken {
+
+    static final String CANCELED_STATE = "57014";
+
+    private static final ThreadLocal<CancelToken> CURRENT = new ThreadLocal<>();
+
+    private Statement running;
+    private boolean cancelled;
+
+    // A registration; closing it ends it, after which cancel no longer touches the statement
+    interface Running extends AutoCloseable {
+        @Override
+        void close();
+    }
+
+    synchronized void cancel() {
+        cancelled = true;
+        if (running != null) {
+            try {
+                running.cancel();
+            } catch (SQLException e) {
+                // the query runs on; the caller drops its result anyway
+            }
+        }
+    }
+
+    // Runs call with this token bound to the current thread
+    <T> T run(AsyncDatabaseHandler.DbCall<T> call) throws SQLException, NotExists {
+        CURRENT.set(this);
+        try {
+            return call.call();
+        } finally {
+            CURRENT.remove();
+        }
+    }
+
+    // Registers statement with the token bound to this thread, if any, until the result is closed
+    static Running register(Statement statement) throws SQLException {
+        CancelToken token = CURRENT.get();
+        if (token == null) {
+            return () -> { };
+        }
+        synchronized (token) {
+            if (token.cancelled) {
+                throw new SQLException("canceling statement due to user request", CANCELED_STATE);
+            }
+            token.running = statement;
+        }
+        return () -> {
+            synchronized (token) {
+                token.running = null;
+            }
+        };
+    }
+}
@@ -0,0 +1,48 @@
+package database;
+
+/**
+ * One SQL statement run by {@link DatabaseConnectionHandler}, with sample parameter values,
+ * as listed by {@code DatabaseConnectionHandler.sqlCatalog()} for plan checks.
+ */
+final class CatalogQuery {
+
+    private final String name;
+    private final String setup;
+    private final String sql;
+    private final Object[] params;
+
+    CatalogQuery(String name, String sql, Object... params) {
+        this(name, null, sql, params);
+    }
+
+    private CatalogQuery(String name, String setup, String sql, Object[] params) {
+        this.name = name;
+        this.setup = setup;
+        this.sql = sql;
+        this.params = params;
+    }
+
+    // This query run after setup, a statement without parameters, in the same transaction; for
+    // a statement that runs after another, e.g. an insert into the rows a delete just cleared
+    CatalogQuery after(String setup) {
+        return new CatalogQuery(name, setup, sql, params);
+    }
+
+    String name() {
+        return name;
+    }
+
+    // null if the query runs on its own
+    String setup() {
+        return setup;
+    }
+
+    String sql() {
+        return sql;
+    }
+
+    // bound in order with setObject; may contain nulls
+    Object[] params() {
+        return params.clone();
+    }
+}
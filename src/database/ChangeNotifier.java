@@ -0,0 +1,137 @@
+package database;
+
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashSet;
+import java.util.Properties;
+import java.util.Set;
+
+/**
+ * Background LISTEN on the {@code zoo_changes} channel fed by the triggers that
+ * {@link SchemaMigrator} version 3 installs.
+ *
+ * Runs on its own connection outside the pool (a LISTEN session must stay open). Notifications
+ * that arrive in the same poll are merged into one {@link TableChangeListener#tablesChanged}
+ * call. Notifications sent by our own pooled connections are skipped, since the handler already
+ * knows about its own writes. If the connection drops it is reopened with a backoff, and
+ * listeners get {@link TableChangeListener#resync()} because events may have been lost meanwhile.
+ */
+final class ChangeNotifier implements AutoCloseable {
+
+    static final String CHANNEL = "zoo_changes";
+
+    private static final int POLL_TIMEOUT_MS = 500;
+    private static final long MAX_RECONNECT_DELAY_MS = 30_000;
+
+    private final String url;
+    private final Properties properties;
+    private final ConnectionPool pool;
+    private final TableChangeListener listener;
+    private final Thread thread;
+
+    private volatile boolean closed;
+    private volatile Connection connection;
+
+    ChangeNotifier(String url, Properties properties, ConnectionPool pool, TableChangeListener listener) {
+        this.url = url;
+        this.properties = properties;
+        this.pool = pool;
+        this.listener = listener;
+        this.thread = new Thread(this::run, "db-change-notifier");
+        this.thread.setDaemon(true);
+    }
+
+    void start() {
+        thread.start();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        thread.interrupt();
+        closeConnection();
+    }
+
+    private void run() {
+        long delay = 0;
+        boolean lostEvents = false;
+
+        while (!closed) {
+            try {
+                if (delay > 0) {
+                    Thread.sleep(delay);
+                }
+                listen();
+                delay = 0;
+                if (lostEvents) {
+                    listener.resync();
+                    lostEvents = false;
+                }
+                poll();
+            } catch (InterruptedException e) {
+                return;
+            } catch (SQLException e) {
+                if (closed) {
+                    return;
+                }
+                System.out.println("[EXCEPTION] change notifications: " + e.getMessage());
+                closeConnection();
+                lostEvents = true;
+                delay = Math.min(MAX_RECONNECT_DELAY_MS, Math.max(1000, delay * 2));
+            } catch (RuntimeException e) {
+                // a listener failed; keep delivering to the others
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void listen() throws SQLException {
+        if (connection != null) {
+            return;
+        }
+        Connection c = DriverManager.getConnection(url, properties);
+        try (Statement st = c.createStatement()) {
+            st.execute("LISTEN " + CHANNEL);
+        }
+        connection = c;
+    }
+
+    // returns when the connection fails or the notifier is closed
+    private void poll() throws SQLException {
+        PGConnection pg = connection.unwrap(PGConnection.class);
+
+        while (!closed) {
+            PGNotification[] notifications = pg.getNotifications(POLL_TIMEOUT_MS);
+            if (notifications == null || notifications.length == 0) {
+                continue;
+            }
+
+            Set<String> tables = new LinkedHashSet<>();
+            for (PGNotification n : notifications) {
+                if (!pool.ownsBackend(n.getPID())) {
+                    tables.add(n.getParameter());
+                }
+            }
+            if (!tables.isEmpty()) {
+                listener.tablesChanged(tables);
+            }
+        }
+    }
+
+    private void closeConnection() {
+        Connection c = connection;
+        connection = null;
+        if (c != null) {
+            try {
+                c.close();
+            } catch (SQLException e) {
+                // going away anyway
+            }
+        }
+    }
+}
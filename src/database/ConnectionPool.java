@@ -0,0 +1,254 @@
+package database;
+
+import org.postgresql.PGConnection;
+
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Bounded, thread-safe pool of physical PostgreSQL connections.
+ *
+ * At most {@code maxSize} connections are checked out at once; callers beyond that wait
+ * up to {@code checkoutTimeoutMs}. Returned connections are kept (LIFO) up to {@code maxIdle},
+ * anything beyond that is closed. A connection that has sat idle for a while is validated
+ * before it is handed out again. Each connection carries its own {@link StatementCache}.
+ */
+public class ConnectionPool implements AutoCloseable {
+
+    // connections used within this window are trusted without a validation round trip
+    private static final long VALIDATION_SKIP_MS = 500;
+    private static final int VALIDATION_TIMEOUT_SECONDS = 2;
+
+    private final String url;
+    private final Properties properties;
+    private final int maxSize;
+    private final int maxIdle;
+    private final long checkoutTimeoutMs;
+    private final int statementCacheSize;
+
+    private final Semaphore permits;
+    private final ArrayDeque<PooledConnection> idle = new ArrayDeque<>();
+    private volatile boolean closed;
+
+    // server process ids of our own connections, so notifications caused by our writes can be told apart
+    private final Set<Integer> backendPids = ConcurrentHashMap.newKeySet();
+
+    // stats
+    private final AtomicInteger active = new AtomicInteger();
+    private final AtomicLong checkouts = new AtomicLong();
+    private final AtomicLong totalWaitNanos = new AtomicLong();
+    private final AtomicLong maxWaitNanos = new AtomicLong();
+    private final AtomicLong created = new AtomicLong();
+    private final AtomicLong destroyed = new AtomicLong();
+    private final AtomicLong timeouts = new AtomicLong();
+    private final StatementCacheStats statementCacheStats = new StatementCacheStats();
+
+    // properties are passed straight to the driver (user, password, driver tuning)
+    public ConnectionPool(String url, Properties properties, int maxSize, int maxIdle,
+                          long checkoutTimeoutMs, int statementCacheSize) {
+        if (maxSize < 1 || maxIdle < 0 || maxIdle > maxSize) {
+            throw new IllegalArgumentException("Invalid pool bounds: maxSize=" + maxSize + ", maxIdle=" + maxIdle);
+        }
+        this.url = url;
+        this.properties = new Properties();
+        this.properties.putAll(properties);
+        this.maxSize = maxSize;
+        this.maxIdle = maxIdle;
+        this.checkoutTimeoutMs = checkoutTimeoutMs;
+        this.statementCacheSize = statementCacheSize;
+        this.permits = new Semaphore(maxSize, true);
+    }
+
+    // ------------------------------------------------------------
+    // Checkout / return
+    // ------------------------------------------------------------
+
+    // Borrow a connection; close() the returned handle to give it back.
+    public PooledConnection borrow() throws SQLException {
+        if (closed) {
+            throw new SQLException("Connection pool is closed.");
+        }
+
+        long start = System.nanoTime();
+        try {
+            if (!permits.tryAcquire(checkoutTimeoutMs, TimeUnit.MILLISECONDS)) {
+                timeouts.incrementAndGet();
+                throw new SQLException("Timed out after " + checkoutTimeoutMs
+                        + " ms waiting for a database connection (" + maxSize + " in use).");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new SQLException("Interrupted while waiting for a database connection.", e);
+        }
+        recordWait(System.nanoTime() - start);
+
+        try {
+            PooledConnection pc = takeValidIdle();
+            if (pc == null) {
+                Connection connection = openPhysical();
+                int backendPid = backendPid(connection);
+                backendPids.add(backendPid);
+                pc = new PooledConnection(this, connection, backendPid,
+                        new StatementCache(connection, statementCacheSize, statementCacheStats));
+            }
+            pc.markCheckedOut();
+            active.incrementAndGet();
+            checkouts.incrementAndGet();
+            return pc;
+        } catch (SQLException | RuntimeException e) {
+            permits.release();
+            throw e;
+        }
+    }
+
+    // Called by PooledConnection.close(). A connection the server dropped (I/O error, terminated
+    // backend) is already closed by the driver, so resetState fails and it is destroyed here.
+    void release(PooledConnection pc) {
+        active.decrementAndGet();
+        try {
+            if (resetState(pc.physical())) {
+                synchronized (idle) {
+                    if (!closed && idle.size() < maxIdle) {
+                        pc.markReturned();
+                        idle.push(pc);
+                        return;
+                    }
+                }
+            }
+            destroy(pc);
+        } finally {
+            permits.release();
+        }
+    }
+
+    private PooledConnection takeValidIdle() {
+        while (true) {
+            PooledConnection pc;
+            synchronized (idle) {
+                pc = idle.poll();
+            }
+            if (pc == null) {
+                return null;
+            }
+            if (isUsable(pc)) {
+                return pc;
+            }
+            destroy(pc);
+        }
+    }
+
+    private boolean isUsable(PooledConnection pc) {
+        try {
+            if (pc.physical().isClosed()) {
+                return false;
+            }
+            if (System.currentTimeMillis() - pc.getLastReturnedAt() < VALIDATION_SKIP_MS) {
+                return true;
+            }
+            return pc.physical().isValid(VALIDATION_TIMEOUT_SECONDS);
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    // undo anything a caller left behind so the next borrower starts clean
+    private boolean resetState(Connection connection) {
+        try {
+            if (connection.isClosed()) {
+                return false;
+            }
+            if (!connection.getAutoCommit()) {
+                connection.rollback();
+                connection.setAutoCommit(true);
+            }
+            return true;
+        } catch (SQLException e) {
+            return false;
+        }
+    }
+
+    private Connection openPhysical() throws SQLException {
+        Connection connection = DriverManager.getConnection(url, properties);
+        connection.setAutoCommit(true);
+        created.incrementAndGet();
+        return connection;
+    }
+
+    private static int backendPid(Connection connection) throws SQLException {
+        return connection.isWrapperFor(PGConnection.class)
+                ? connection.unwrap(PGConnection.class).getBackendPID()
+                : 0;
+    }
+
+    private void destroy(PooledConnection pc) {
+        destroyed.incrementAndGet();
+        backendPids.remove(pc.getBackendPid());
+        pc.closeStatements();
+        try {
+            pc.physical().close();
+        } catch (SQLException e) {
+            // already unusable, nothing else to do
+        }
+    }
+
+    private void recordWait(long nanos) {
+        totalWaitNanos.addAndGet(nanos);
+        maxWaitNanos.accumulateAndGet(nanos, Math::max);
+    }
+
+    // ------------------------------------------------------------
+    // Lifecycle & stats
+    // ------------------------------------------------------------
+
+    // Closes idle connections now; checked-out ones are closed when they come back.
+    @Override
+    public void close() {
+        List<PooledConnection> drained;
+        synchronized (idle) {
+            closed = true;
+            drained = new ArrayList<>(idle);
+            idle.clear();
+        }
+        for (PooledConnection pc : drained) {
+            destroy(pc);
+        }
+    }
+
+    // true if the server process with this id is one of this pool's connections
+    boolean ownsBackend(int pid) {
+        return pid != 0 && backendPids.contains(pid);
+    }
+
+    public StatementCacheStats getStatementCacheStats() {
+        return statementCacheStats;
+    }
+
+    public PoolStats getStats() {
+        int idleCount;
+        synchronized (idle) {
+            idleCount = idle.size();
+        }
+        return new PoolStats(
+                active.get(),
+                idleCount,
+                maxSize,
+                permits.getQueueLength(),
+                checkouts.get(),
+                totalWaitNanos.get(),
+                maxWaitNanos.get(),
+                created.get(),
+                destroyed.get(),
+                timeouts.get());
+    }
+}
@@ -1,23 +1,223 @@
 package database;
 
 import exceptions.NotExists;
+import mapping.RowMapper;
+import mapping.RowReader;
 import model.*;
+import util.Constants;
+
+import java.io.IOException;
 import java.sql.*;
 import java.util.ArrayList;
-import java.util.Date;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 
- // PostgreSQL-specific database connection + query helper.
-public class DatabaseConnectionHandler {
+ // PostgreSQL-specific database connection + query helper; the server-backed ZooRepository.
+public class DatabaseConnectionHandler implements ZooRepository {
 
     // PostgreSQL connection settings
     private static final String DB_URL = "jdbc:postgresql://localhost:5432/zoo";
+    // -Dzoo.db.url=... points the app (or a benchmark) at another database; read at each login()
+    private static final String DB_URL_PROPERTY = "zoo.db.url";
     private static final String DB_USER = "zoo";
     private static final String DB_PASSWORD = "zoo";
     private static final String EXCEPTION_TAG = "[EXCEPTION]";
 
-    private Connection connection;
+    // Connection pool bounds: enough for several tabs loading at once
+    private static final int POOL_MAX_SIZE = 10;
+    private static final int POOL_MAX_IDLE = 8;
+    private static final long POOL_CHECKOUT_TIMEOUT_MS = 10_000;
+
+    // Prepared statements cached per pooled connection (LRU beyond this)
+    private static final int STATEMENT_CACHE_SIZE = 64;
+
+    // Bulk writes: rows per executeBatch round trip, and rows per committed transaction
+    private static final int BATCH_SIZE = 500;
+    private static final int BATCH_COMMIT_ROWS = 5000;
+    private static final BatchWriter BATCH_WRITER = new BatchWriter(BATCH_SIZE, BATCH_COMMIT_ROWS);
+
+    // Rows buffered per round trip by the stream* methods
+    private static final int DEFAULT_STREAM_FETCH_SIZE = 1000;
+
+    // Query results are reused until a write touches one of their tables, or for at most this long
+    private static final long QUERY_CACHE_TTL_MS = 60_000;
+    private static final long QUERY_CACHE_MAX_BYTES = 32L * 1024 * 1024;
+
+    // The feeding index is reloaded at least this often, in case a change notification was missed
+    private static final long FEEDING_INDEX_MAX_AGE_MS = 60_000;
+
+    // Statements slower than this are written to the slow query log (0 turns it off).
+    // -Dzoo.slowQuery.explain=true also logs their plans, taken in the background.
+    private static final long SLOW_QUERY_MS = Long.getLong("zoo.slowQuery.ms", 500);
+    private static final String SLOW_QUERY_FILE = System.getProperty("zoo.slowQuery.file", "logs/slow-queries.%g.log");
+    private static final boolean SLOW_QUERY_EXPLAIN = Boolean.getBoolean("zoo.slowQuery.explain");
+
+    private volatile ConnectionPool pool;
+    private final QueryCache queryCache = new QueryCache(QUERY_CACHE_TTL_MS, QUERY_CACHE_MAX_BYTES);
+
+    // latency, rows and bytes per public method, and pool checkout waits; see getQueryStats()
+    private final QueryMetrics metrics = new QueryMetrics();
+    private volatile MetricsEndpoint metricsEndpoint;
+    private final SlowQueryLog slowQueries =
+            new SlowQueryLog(SLOW_QUERY_FILE, SLOW_QUERY_MS, SLOW_QUERY_EXPLAIN, this::borrow);
+
+    // who feeds which animal, for the super zookeeper reports
+    private final FeedingIndex feedingIndex = new FeedingIndex(FEEDING_INDEX_MAX_AGE_MS);
+
+    // writes from other sessions arrive via LISTEN/NOTIFY; the cache is invalidated before listeners run
+    private volatile ChangeNotifier notifier;
+    private final List<TableChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    private final TableChangeListener changeDispatcher = new TableChangeListener() {
+        @Override
+        public void tablesChanged(Set<String> tables) {
+            queryCache.invalidate(tables);
+            if (!Collections.disjoint(tables, FEEDING_INDEX_TABLES)) {
+                feedingIndex.markStale();
+            }
+            for (TableChangeListener l : changeListeners) {
+                try {
+                    l.tablesChanged(tables);
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+
+        @Override
+        public void resync() {
+            queryCache.clear();
+            feedingIndex.markStale();
+            for (TableChangeListener l : changeListeners) {
+                try {
+                    l.resync();
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        }
+    };
+    private volatile int streamFetchSize = DEFAULT_STREAM_FETCH_SIZE;
+
+    // ------------------------------------------------------------
+    // Tables read by each query, used to tag cached results
+    // ------------------------------------------------------------
+
+    private static final Set<String> ANIMAL_TABLES = Set.of("animals1", "animals2");
+    private static final Set<String> HABITAT_TABLES = Set.of("habitats1", "habitats2");
+    private static final Set<String> WORKER_TABLES = Set.of("workers");
+    private static final Set<String> ZOOKEEPER_TABLES = Set.of("workers", "zookeepers");
+    private static final Set<String> VETERINARIAN_TABLES = Set.of("workers", "veterinarians");
+    private static final Set<String> SHOP_TABLES = Set.of("shops");
+    private static final Set<String> ITEM_TABLES = Set.of("items");
+    private static final Set<String> STORAGE_UNIT_TABLES = Set.of("storage_units");
+    private static final Set<String> RAW_FOOD_ORDER_TABLES = Set.of("raw_food_orders");
+    private static final Set<String> COMPUTER_TABLES = Set.of("computers1", "computers2");
+    private static final Set<String> COHABITATES_WITH_TABLES = Set.of("cohabitates_with");
+    private static final Set<String> MAINTAINS_HEALTH_OF_TABLES = Set.of("maintains_health_of");
+    private static final Set<String> FEEDS_TABLES = Set.of("feeds");
+    private static final Set<String> MADE_FROM_TABLES = Set.of("made_from");
+    private static final Set<String> FEEDING_INDEX_TABLES = Set.of("zookeepers", "animals1", "feeds");
+    private static final Set<String> STORAGE_WEIGHT_TABLES = Set.of("storage_units", "storage_usage", "located_at", "raw_food_orders");
+
+    // deleting an animal cascades to every table with an ON DELETE CASCADE key on animals1
+    private static final Set<String> ANIMAL_DELETE_TABLES = Set.of("animals1", "prepped_food", "feeds",
+            "maintains_health_of", "cohabitates_with", "made_from", "stored_at");
+
+    // ------------------------------------------------------------
+    // Column whitelists for the projecting getters (InMemoryZooRepository projects with them too)
+    // ------------------------------------------------------------
+
+    // The joined tables are LEFT JOINs, so the row set is the same whichever columns are asked
+    // for. That includes animals with no species and habitats with no biome (both columns are
+    // nullable), which the inner joins these getters used to run left out: they are listed, with
+    // NULL genus / temperature / humidity, as the in-memory store and the paged animals tab do.
+    // computers1.model is NOT NULL, so the computers join matches every row either way.
+
+    static final SelectSpec ANIMAL_SELECT = SelectSpec.from("animals1 a1")
+            .key(Constants.A_ID, "a1.a_id")
+            .column(Constants.P_ID, "a1.p_id")
+            .column(Constants.NAME, "a1.name")
+            .column(Constants.SPECIES, "a1.species")
+            .column(Constants.GENUS, "a2.genus", "LEFT JOIN animals2 a2 ON a1.species = a2.species")
+            .orderBy("a1.a_id");
+
+    private static final String HABITATS2_JOIN = "LEFT JOIN habitats2 h2 ON h1.biome = h2.biome";
+    private static final String COMPUTERS2_JOIN = "LEFT JOIN computers2 c2 ON c1.model = c2.model";
+
+    static final SelectSpec HABITAT_SELECT = SelectSpec.from("habitats1 h1")
+            .key(Constants.P_ID, "h1.p_id")
+            .column(Constants.NAME, "h1.name")
+            .column(Constants.BIOME, "h1.biome")
+            .column(Constants.AREA, "h1.area")
+            .column(Constants.TEMPERATURE, "h2.temperature", HABITATS2_JOIN)
+            .column(Constants.HUMIDITY, "h2.humidity", HABITATS2_JOIN)
+            .orderBy("h1.p_id");
+
+    static final SelectSpec WORKER_SELECT = SelectSpec.from("workers")
+            .key(Constants.W_ID, "w_id")
+            .column(Constants.NAME, "name")
+            .column(Constants.PAY_RATE, "pay_rate")
+            .column(Constants.ADDRESS, "address")
+            .column(Constants.EMAIL, "email")
+            .column(Constants.PHONE, "phone")
+            .orderBy("w_id");
+
+    // the veterinarians join filters rows, so it is part of the base FROM clause
+    static final SelectSpec VETERINARIAN_SELECT = SelectSpec.from("workers w JOIN veterinarians v ON w.w_id = v.w_id")
+            .key(Constants.W_ID, "w.w_id")
+            .column(Constants.NAME, "w.name")
+            .column(Constants.PAY_RATE, "w.pay_rate")
+            .column(Constants.ADDRESS, "w.address")
+            .column(Constants.EMAIL, "w.email")
+            .column(Constants.PHONE, "w.phone")
+            .column(Constants.SPECIALIZATION, "v.specialization")
+            .orderBy("w.w_id");
+
+    static final SelectSpec SHOP_SELECT = SelectSpec.from("shops")
+            .key(Constants.P_ID, "p_id")
+            .column(Constants.NAME, "name")
+            .column(Constants.TYPE, "type")
+            .orderBy("p_id");
+
+    static final SelectSpec ITEM_SELECT = SelectSpec.from("items")
+            .key(Constants.I_ID, "i_id")
+            .column(Constants.P_ID, "p_id")
+            .column(Constants.NAME, "name")
+            .column(Constants.STOCK, "stock")
+            .column(Constants.PRICE, "price")
+            .orderBy("i_id");
+
+    static final SelectSpec STORAGE_UNIT_SELECT = SelectSpec.from("storage_units")
+            .key(Constants.P_ID, "p_id")
+            .column(Constants.NAME, "name")
+            .column(Constants.TEMPERATURE, "temperature")
+            .orderBy("p_id");
+
+    static final SelectSpec RAW_FOOD_ORDER_SELECT = SelectSpec.from("raw_food_orders")
+            .key(Constants.O_ID, "o_id")
+            .column(Constants.CONTENTS, "contents")
+            .column(Constants.WEIGHT, "weight")
+            .column(Constants.DATE_RECEIVED, "date_received")
+            .column(Constants.EXPIRY_DATE, "expiry_date")
+            .orderBy("o_id");
+
+    static final SelectSpec COMPUTER_SELECT = SelectSpec.from("computers1 c1")
+            .key(Constants.C_ID, "c1.c_id")
+            .column(Constants.W_ID, "c1.w_id")
+            .column(Constants.MODEL, "c1.model")
+            .column(Constants.MANUFACTURER, "c2.manufacturer", COMPUTERS2_JOIN)
+            .column(Constants.TYPE, "c2.type", COMPUTERS2_JOIN)
+            .orderBy("c1.c_id");
 
     // ------------------------------------------------------------
     // Connection lifecycle
@@ -25,13 +225,31 @@ public class DatabaseConnectionHandler {
 
     public boolean login(String username, String password) {
         try {
-			if (connection != null) {
-				connection.close();
-			}
+			close();
+			metrics.open();
+			queryCache.clear();
+			feedingIndex.markStale();
 
 			// Ignore passed-in username/password and use Postgres config
-			connection = DriverManager.getConnection(DB_URL, DB_USER, DB_PASSWORD);
-			connection.setAutoCommit(true);
+			String url = System.getProperty(DB_URL_PROPERTY, DB_URL);
+			ConnectionPool newPool = new ConnectionPool(url, connectionProperties(),
+					POOL_MAX_SIZE, POOL_MAX_IDLE, POOL_CHECKOUT_TIMEOUT_MS, STATEMENT_CACHE_SIZE);
+
+			// open one connection up front so bad settings fail here, not on the first query,
+			// and bring the schema up to date before anything else uses it
+			try (PooledConnection pc = newPool.borrow()) {
+				int applied = SchemaMigrator.migrate(pc.get());
+				if (applied > 0) {
+					System.out.println("Applied " + applied + " schema migration(s).");
+				}
+			} catch (SQLException | RuntimeException e) {
+				newPool.close();
+				throw e;
+			}
+			pool = newPool;
+
+			notifier = new ChangeNotifier(url, connectionProperties(), newPool, changeDispatcher);
+			notifier.start();
 
 			System.out.println("\nConnected to PostgreSQL!");
 			return true;
@@ -41,105 +259,422 @@ public class DatabaseConnectionHandler {
 		}
     }
 
+    private static Properties connectionProperties() {
+        Properties props = new Properties();
+        props.setProperty("user", DB_USER);
+        props.setProperty("password", DB_PASSWORD);
+        // cached statements are reused, so server-prepare them on first execution
+        // instead of the driver's default of the fifth
+        props.setProperty("prepareThreshold", "1");
+        // let the driver collapse batched single-row INSERTs into multi-row INSERTs
+        props.setProperty("reWriteBatchedInserts", "true");
+        return props;
+    }
+
     public void close() {
-        if (connection != null) {
-            try {
-                connection.close();
-            } catch (SQLException e) {
-                System.out.println(EXCEPTION_TAG + " " + e.getMessage());
-            }
+        slowQueries.close();
+        metrics.close();
+
+        ChangeNotifier oldNotifier = notifier;
+        notifier = null;
+        if (oldNotifier != null) {
+            oldNotifier.close();
+        }
+
+        ConnectionPool old = pool;
+        pool = null;
+        if (old != null) {
+            old.close();
+        }
+    }
+
+    // Subscribes to writes made by other sessions (other windows, psql, ...). Listeners survive login().
+    public void addTableChangeListener(TableChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeTableChangeListener(TableChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    // Snapshot of pool usage (active/idle connections, checkout wait times)
+    public PoolStats getPoolStats() {
+        ConnectionPool current = pool;
+        if (current == null) {
+            throw new IllegalStateException("Database connection not established. Call login() first.");
+        }
+        return current.getStats();
+    }
+
+    // Hit/miss counters for the per-connection prepared statement caches
+    public StatementCacheStats getStatementCacheStats() {
+        ConnectionPool current = pool;
+        if (current == null) {
+            throw new IllegalStateException("Database connection not established. Call login() first.");
+        }
+        return current.getStatementCacheStats();
+    }
+
+    // Hit/miss/eviction counters for the query result cache
+    public QueryCacheStats getQueryCacheStats() {
+        return queryCache.getStats();
+    }
+
+    // Drops every cached query result, e.g. after the database was changed outside this handler
+    public void clearQueryCache() {
+        queryCache.clear();
+    }
+
+    // Latency percentiles, call/error counts, rows and bytes for each public method called so far,
+    // by method name. Also registered as MXBeans under zoologica.database:type=Query.
+    public List<QueryStats> getQueryStats() {
+        return metrics.methods();
+    }
+
+    // Time spent waiting for a pooled connection, per checkout
+    public QueryStats getPoolWaitStats() {
+        return metrics.poolWait();
+    }
+
+    public void resetQueryStats() {
+        metrics.reset();
+    }
+
+    // Serves the metrics as plain text on http://127.0.0.1:<port>/metrics; port 0 picks a free one.
+    // Returns the bound port. Only reachable from this machine.
+    public synchronized int startMetricsEndpoint(int port) throws IOException {
+        if (metricsEndpoint != null) {
+            throw new IllegalStateException("Metrics endpoint already running on port " + metricsEndpoint.port());
         }
+        metricsEndpoint = MetricsEndpoint.start(this, port);
+        return metricsEndpoint.port();
+    }
+
+    public synchronized void stopMetricsEndpoint() {
+        if (metricsEndpoint != null) {
+            metricsEndpoint.stop();
+            metricsEndpoint = null;
+        }
+    }
+
+    // Statements taking at least this long are logged with their parameters; 0 turns the log off
+    public void setSlowQueryThreshold(long millis) {
+        slowQueries.setThresholdMillis(millis);
+    }
+
+    public long getSlowQueryThreshold() {
+        return slowQueries.getThresholdMillis();
+    }
+
+    // Also log an EXPLAIN of each slow statement, run on a background connection
+    public void setSlowQueryExplain(boolean explain) {
+        slowQueries.setExplain(explain);
+    }
+
+    // Describes what the user was doing (e.g. "Animals > Refresh"); asked on the querying thread,
+    // and only when a statement was slow
+    public void setSlowQueryActionContext(Supplier<String> context) {
+        slowQueries.setActionContext(context);
+    }
+
+    // Rows fetched per round trip by the stream* methods; bounds the heap they use
+    public void setStreamFetchSize(int fetchSize) {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("Fetch size must be positive: " + fetchSize);
+        }
+        this.streamFetchSize = fetchSize;
     }
 
     private void ensureConnection() {
-        if (connection == null) {
+        if (pool == null) {
             throw new IllegalStateException("Database connection not established. Call login() first.");
         }
     }
 
+    // read the pool once so a concurrent close() can't null it out between check and use
+    private PooledConnection borrow() throws SQLException {
+        ConnectionPool current = pool;
+        if (current == null) {
+            throw new IllegalStateException("Database connection not established. Call login() first.");
+        }
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            PooledConnection pc = current.borrow();
+            failed = false;
+            return pc;
+        } finally {
+            metrics.recordPoolWait(System.nanoTime() - start, failed);
+        }
+    }
+
     // ------------------------------------------------------------
-    // Animals
+    // Query helpers
     // ------------------------------------------------------------
 
-    // returns all animals joined with their genus
-    public Animal[] getAnimalInfo(ArrayList<String> columns) throws SQLException {
+    // Earlier chunks stay committed when a later one fails, so the tables are invalidated either way.
+    // Returns the rows submitted (see BatchWriter.write), which the bulk methods pass on.
+    private <T> int batchWrite(Set<String> tables, List<? extends T> rows, List<BatchWriter.Step<T>> steps)
+            throws SQLException {
         ensureConnection();
 
-        String sql =
-                "SELECT a1.a_id, a1.p_id, a1.name, a1.species, a2.genus " +
-                "FROM animals1 a1 " +
-                "JOIN animals2 a2 ON a1.species = a2.species " +
-                "ORDER BY a1.a_id::integer";
+        try (PooledConnection pc = borrow()) {
+            long start = System.nanoTime();
+            int written = BATCH_WRITER.write(pc, rows, steps);
+            metrics.addRows(written, 0);
+            logIfSlow(batchSql(steps), start, written, (Object[]) null);
+            return written;
+        } finally {
+            queryCache.invalidate(tables);
+        }
+    }
 
-        List<Animal> result = new ArrayList<>();
+    // Runs a cached statement and maps every row; column positions are resolved once per ResultSet.
+    // Results are served from the query cache until a write touches one of the given tables.
+    // params are bound in order with setObject and are part of the cache key. Reads here and in
+    // streamRows can be cancelled while they run (see CancelToken).
+    @SuppressWarnings("unchecked")
+    private <T> List<T> queryList(Set<String> tables, String sql, RowMapper<T> mapper, Object... params)
+            throws SQLException {
+        QueryCache.Key key = new QueryCache.Key(sql, params);
+        List<T> cached = (List<T>) queryCache.get(key);
+        if (cached != null) {
+            metrics.addRows(cached.size(), 0);
+            return cached;
+        }
 
-        try (PreparedStatement ps = connection.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
+        long generation = queryCache.generation();
+        List<T> result = new ArrayList<>();
+        int columns;
+        long bytes = 0;
 
-            while (rs.next()) {
-                String aId = rs.getString("a_id");
-                String pId = rs.getString("p_id");
-                String name = rs.getString("name");
-                String species = rs.getString("species");
-                String genus = rs.getString("genus");
+        try (PooledConnection pc = borrow()) {
+            PreparedStatement ps = pc.prepare(sql);
+            for (int i = 0; i < params.length; i++) {
+                ps.setObject(i + 1, params[i]);
+            }
 
-                result.add(new Animal(aId, pId, name, species, genus));
+            long start = System.nanoTime();
+            try (CancelToken.Running running = CancelToken.register(ps);
+                 ResultSet rs = ps.executeQuery()) {
+                columns = rs.getMetaData().getColumnCount();
+                RowReader<T> reader = mapper.bind(rs);
+                while (rs.next()) {
+                    result.add(reader.read(rs));
+                    bytes += rowBytes(rs, columns);
+                }
             }
+            logIfSlow(sql, start, result.size(), params);
         }
+        metrics.addRows(result.size(), bytes);
 
-        return result.toArray(new Animal[0]);
+        List<T> rows = Collections.unmodifiableList(result);
+        queryCache.put(key, tables, rows, columns, generation);
+        return rows;
     }
 
-    public void deleteAnimal(String aId) throws SQLException, NotExists {
+    // Runs sql on a server-side cursor so only streamFetchSize rows are held in memory at a time.
+    // Each row is handed to the consumer as soon as it is read; returns the number of rows.
+    private <T> int streamRows(String sql, RowMapper<T> mapper, Consumer<? super T> consumer)
+            throws SQLException {
         ensureConnection();
 
-        String sql = "DELETE FROM animals1 WHERE a_id = ?";
+        int rows = 0;
+        long bytes = 0;
+
+        try (PooledConnection pc = borrow()) {
+            Connection connection = pc.get();
+
+            // the PostgreSQL driver only fetches in batches inside a transaction;
+            // the pool rolls back and restores autocommit if the consumer throws
+            connection.setAutoCommit(false);
+
+            PreparedStatement ps = pc.prepare(sql);
+            ps.setFetchSize(streamFetchSize);
+            long start = System.nanoTime();
+            try (CancelToken.Running running = CancelToken.register(ps);
+                 ResultSet rs = ps.executeQuery()) {
+                int columns = rs.getMetaData().getColumnCount();
+                RowReader<T> reader = mapper.bind(rs);
+                while (rs.next()) {
+                    consumer.accept(reader.read(rs));
+                    bytes += rowBytes(rs, columns);
+                    rows++;
+                }
+            } finally {
+                metrics.addRows(rows, bytes);
+                // includes the consumer's time, which is what the caller waited for
+                logIfSlow(sql, start, rows);
+                // the statement is cached; don't leak the fetch size into normal reads
+                ps.setFetchSize(0);
+            }
+
+            connection.commit();
+            connection.setAutoCommit(true);
+        }
+
+        return rows;
+    }
+
+    private void logIfSlow(String sql, long start, long rows, Object... params) {
+        slowQueries.record(sql, params, System.nanoTime() - start, rows);
+    }
 
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            ps.setString(1, aId);
-            int affected = ps.executeUpdate();
+    // Runs a write with RETURNING (or a query over one); returns its single row, or null if it
+    // touched none
+    private static <T> T returnedRow(PreparedStatement ps, RowMapper<T> mapper) throws SQLException {
+        try (ResultSet rs = ps.executeQuery()) {
+            return rs.next() ? mapper.bind(rs).read(rs) : null;
+        }
+    }
+
+    private static <T> String batchSql(List<BatchWriter.Step<T>> steps) {
+        StringBuilder sb = new StringBuilder();
+        for (BatchWriter.Step<T> step : steps) {
+            sb.append(sb.length() == 0 ? "" : "; ").append(step.sql);
+        }
+        return sb.toString();
+    }
 
-            if (affected == 0) {
-                throw new NotExists("Animal " + aId + " does not exist.");
+    // size of the row's values as sent by the server; the driver hands back its own buffers, so no copy
+    private static long rowBytes(ResultSet rs, int columns) throws SQLException {
+        long bytes = 0;
+        for (int i = 1; i <= columns; i++) {
+            byte[] value = rs.getBytes(i);
+            if (value != null) {
+                bytes += value.length;
             }
-			
-        }catch (SQLException ex) {
-			connection.rollback();
-			throw ex;
-		}
+        }
+        return bytes;
+    }
+
+    // IDs are INTEGER columns but stay Strings in the model classes; null binds SQL NULL
+    private static void setId(PreparedStatement ps, int index, String id) throws SQLException {
+        if (id == null) {
+            ps.setNull(index, Types.INTEGER);
+            return;
+        }
+        try {
+            ps.setInt(index, Integer.parseInt(id.trim()));
+        } catch (NumberFormatException e) {
+            // same SQLState the server reports for a bad integer literal
+            throw new SQLException("Invalid ID '" + id + "': IDs must be whole numbers.", "22P02", e);
+        }
+    }
+
+    // for IDs that setId already bound successfully
+    private static Integer idValue(String id) {
+        return id == null ? null : Integer.valueOf(id.trim());
     }
 
     // ------------------------------------------------------------
-    // Habitats
+    // Animals
     // ------------------------------------------------------------
 
-    public Habitat[] getHabitatInfo(ArrayList<String> columns) throws SQLException {
-        ensureConnection();
+    // returns animals; genus is joined in from animals2 only when requested
+    public Animal[] getAnimalInfo(ArrayList<String> columns) throws SQLException {
+        try (QueryMetrics.Call call = metrics.begin("getAnimalInfo")) {
+            ensureConnection();
+
+            Projection p = ANIMAL_SELECT.project(columns);
+            return call.ok(queryList(ANIMAL_TABLES, p.sql(), AnimalMapper.INSTANCE).toArray(new Animal[0]));
+        }
+    }
+
+    // Streams animals to the consumer over a server-side cursor; returns the row count
+    public int streamAnimals(ArrayList<String> columns, Consumer<? super Animal> consumer) throws SQLException {
+        try (QueryMetrics.Call call = metrics.begin("streamAnimals")) {
+            Projection p = ANIMAL_SELECT.project(columns);
+            return call.ok(streamRows(p.sql(), AnimalMapper.INSTANCE, consumer));
+        }
+    }
 
-        String sql =
-                "SELECT h1.p_id, h1.name, h1.biome, h1.area, h2.temperature, h2.humidity " +
-                "FROM habitats1 h1 " +
-                "JOIN habitats2 h2 ON h1.biome = h2.biome " +
-                "ORDER BY h1.p_id::integer";
+    // the deleted row comes back with its genus, as getAnimalInfo would have shown it
+    private static final String ANIMAL_DELETE_SQL =
+            "WITH deleted AS (DELETE FROM animals1 WHERE a_id = ? RETURNING a_id, p_id, name, species) " +
+            "SELECT d.a_id, d.p_id, d.name, d.species, a2.genus " +
+            "FROM deleted d LEFT JOIN animals2 a2 ON d.species = a2.species";
+
+    // returns the deleted row
+    public Animal deleteAnimal(String aId) throws SQLException, NotExists {
+        try (QueryMetrics.Call call = metrics.begin("deleteAnimal")) {
+            ensureConnection();
+
+            Animal deleted;
+            try (PooledConnection pc = borrow()) {
+                PreparedStatement ps = pc.prepare(ANIMAL_DELETE_SQL);
+                setId(ps, 1, aId);
+                long start = System.nanoTime();
+                deleted = returnedRow(ps, AnimalMapper.INSTANCE);
+                logIfSlow(ANIMAL_DELETE_SQL, start, deleted == null ? 0 : 1, idValue(aId));
+
+                if (deleted == null) {
+                    throw new NotExists("Animal " + aId + " does not exist.");
+                }
+                metrics.addRows(1, 0);
+            }
+
+            queryCache.invalidate(ANIMAL_DELETE_TABLES);
+            feedingIndex.animalDeleted(idValue(aId));
+            return call.ok(deleted);
+        }
+    }
 
-        List<Habitat> result = new ArrayList<>();
+    private static final String SPECIES_INSERT_SQL =
+            "INSERT INTO animals2 (species, genus) VALUES (?, ?) ON CONFLICT (species) DO NOTHING";
 
-        try (PreparedStatement ps = connection.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
+    private static final String ANIMAL_UPSERT_SQL =
+            "INSERT INTO animals1 (a_id, p_id, name, species) VALUES (?, ?, ?, ?) " +
+            "ON CONFLICT (a_id) DO UPDATE SET p_id = EXCLUDED.p_id, name = EXCLUDED.name, species = EXCLUDED.species";
 
-            while (rs.next()) {
-                String pId = rs.getString("p_id");
-                String name = rs.getString("name");
-                String biome = rs.getString("biome");
-                int area = rs.getInt("area");
-                int temp = rs.getInt("temperature");
-                int humidity = rs.getInt("humidity");
+    // Bulk insert-or-update of animals; unknown species are added to animals2 with the animal's genus
+    public int upsertAnimals(List<Animal> animals) throws SQLException {
+        try (QueryMetrics.Call call = metrics.begin("upsertAnimals")) {
+            Map<String, Animal> bySpecies = new LinkedHashMap<>();
+            for (Animal a : animals) {
+                if (a.getSpecies() != null) {
+                    bySpecies.putIfAbsent(a.getSpecies(), a);
+                }
+            }
+
+            batchWrite(ANIMAL_TABLES, new ArrayList<>(bySpecies.values()), List.of(
+                    new BatchWriter.Step<Animal>(SPECIES_INSERT_SQL, (ps, a) -> {
+                        ps.setString(1, a.getSpecies());
+                        ps.setString(2, a.getGenus());
+                    })));
+
+            int written;
+            try {
+                written = batchWrite(ANIMAL_TABLES, animals, List.of(
+                        new BatchWriter.Step<Animal>(ANIMAL_UPSERT_SQL, (ps, a) -> {
+                            setId(ps, 1, a.getA_id());
+                            setId(ps, 2, a.getP_id());
+                            ps.setString(3, a.getName());
+                            ps.setString(4, a.getSpecies());
+                        })));
+            } catch (SQLException | RuntimeException e) {
+                feedingIndex.markStale(); // earlier chunks may have committed
+                throw e;
+            }
 
-                result.add(new Habitat(pId, name, biome, area, temp, humidity));
+            for (Animal a : animals) {
+                feedingIndex.animalUpserted(idValue(a.getA_id()), idValue(a.getP_id()));
             }
+            return call.ok(written);
         }
+    }
+
+    // ------------------------------------------------------------
+    // Habitats
+    // ------------------------------------------------------------
 
-        return result.toArray(new Habitat[0]);
+    public Habitat[] getHabitatInfo(ArrayList<String> columns) throws SQLException {
+        try (QueryMetrics.Call call = metrics.begin("getHabitatInfo")) {
+            ensureConnection();
+
+            Projection p = HABITAT_SELECT.project(columns);
+            return call.ok(queryList(HABITAT_TABLES, p.sql(), HabitatMapper.INSTANCE).toArray(new Habitat[0]));
+        }
     }
 
     // ------------------------------------------------------------
@@ -147,82 +682,122 @@ public class DatabaseConnectionHandler {
     // ------------------------------------------------------------
 
     public Worker[] getWorkerInfo(ArrayList<String> columns) throws SQLException {
-        ensureConnection();
+        try (QueryMetrics.Call call = metrics.begin("getWorkerInfo")) {
+            ensureConnection();
 
-        String sql =
-                "SELECT w_id, name, pay_rate, address, email, phone " +
-                "FROM workers " +
-                "ORDER BY w_id::integer";
+            Projection p = WORKER_SELECT.project(columns);
+            return call.ok(queryList(WORKER_TABLES, p.sql(), WorkerMapper.INSTANCE).toArray(new Worker[0]));
+        }
+    }
 
-        List<Worker> result = new ArrayList<>();
+    // %s is one of the whitelisted column names below, never user input
+    private static final String WORKER_UPDATE_SQL =
+            "UPDATE workers SET %s = ? WHERE w_id = ? RETURNING w_id, name, pay_rate, address, email, phone";
 
-        try (PreparedStatement ps = connection.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
+    // returns the row as updated
+    public Worker updateWorker(String wId, String column, Object value)
+            throws SQLException, NotExists {
+        try (QueryMetrics.Call call = metrics.begin("updateWorker")) {
+            ensureConnection();
+
+            // Restrict to a safe subset of columns we actually allow updating.
+            String normalized = column.toLowerCase();
+            String columnSql;
+
+            switch (normalized) {
+                case "address":
+                    columnSql = "address";
+                    break;
+                case "email":
+                    columnSql = "email";
+                    break;
+                case "phone":
+                    columnSql = "phone";
+                    break;
+                case "pay_rate":
+                    columnSql = "pay_rate";
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported worker column: " + column);
+            }
+
+            String sql = String.format(WORKER_UPDATE_SQL, columnSql);
+
+            Worker updated;
+            try (PooledConnection pc = borrow()) {
+                PreparedStatement ps = pc.prepare(sql);
+                Object bound;
+                if ("pay_rate".equals(columnSql)) {
+                    if (value instanceof Number) {
+                        bound = ((Number) value).floatValue();
+                    } else {
+                        bound = Float.parseFloat(value.toString());
+                    }
+                    ps.setFloat(1, (Float) bound);
+                } else {
+                    bound = value.toString();
+                    ps.setString(1, (String) bound);
+                }
 
-            while (rs.next()) {
-                String wId = rs.getString("w_id");
-                String name = rs.getString("name");
-                float payRate = rs.getFloat("pay_rate");
-                String address = rs.getString("address");
-                String email = rs.getString("email");
-                String phone = rs.getString("phone");
+                setId(ps, 2, wId);
 
-                result.add(new Worker(wId, name, payRate, address, email, phone));
+                long start = System.nanoTime();
+                updated = returnedRow(ps, WorkerMapper.INSTANCE);
+                logIfSlow(sql, start, updated == null ? 0 : 1, bound, idValue(wId));
+                if (updated == null) {
+                    throw new NotExists("Worker " + wId + " does not exist.");
+                }
+                metrics.addRows(1, 0);
             }
-        }
 
-        return result.toArray(new Worker[0]);
+            queryCache.invalidate(WORKER_TABLES);
+            return call.ok(updated);
+        }
     }
 
-    public void updateWorker(String wId, String column, Object value)
-            throws SQLException, NotExists {
+    private static final String WORKER_UPSERT_SQL =
+            "INSERT INTO workers (w_id, name, pay_rate, address, email, phone) VALUES (?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (w_id) DO UPDATE SET name = EXCLUDED.name, pay_rate = EXCLUDED.pay_rate, " +
+            "address = EXCLUDED.address, email = EXCLUDED.email, phone = EXCLUDED.phone";
 
-        ensureConnection();
+    private static final String ZOOKEEPER_INSERT_SQL =
+            "INSERT INTO zookeepers (w_id) VALUES (?) ON CONFLICT (w_id) DO NOTHING";
 
-        // Restrict to a safe subset of columns we actually allow updating.
-        String normalized = column.toLowerCase();
-        String columnSql;
-
-        switch (normalized) {
-            case "address":
-                columnSql = "address";
-                break;
-            case "email":
-                columnSql = "email";
-                break;
-            case "phone":
-                columnSql = "phone";
-                break;
-            case "pay_rate":
-                columnSql = "pay_rate";
-                break;
-            default:
-                throw new IllegalArgumentException("Unsupported worker column: " + column);
-        }
-
-        String sql = "UPDATE workers SET " + columnSql + " = ? WHERE w_id = ?";
-
-        try (PreparedStatement ps = connection.prepareStatement(sql)) {
-            if ("pay_rate".equals(columnSql)) {
-                if (value instanceof Number) {
-                    ps.setFloat(1, ((Number) value).floatValue());
-                } else {
-                    ps.setFloat(1, Float.parseFloat(value.toString()));
-                }
-            } else {
-                ps.setString(1, value.toString());
-            }
+    // Bulk insert-or-update of workers, keyed by w_id
+    public int upsertWorkers(List<? extends Worker> workers) throws SQLException {
+        try (QueryMetrics.Call call = metrics.begin("upsertWorkers")) {
+            return call.ok(batchWrite(WORKER_TABLES, workers, List.of(
+                    new BatchWriter.Step<Worker>(WORKER_UPSERT_SQL, DatabaseConnectionHandler::bindWorker))));
+        }
+    }
 
-            ps.setString(2, wId);
+    // Bulk onboarding of zookeepers: upserts the workers rows and adds them to zookeepers
+    public int upsertZookeepers(List<Zookeeper> zookeepers) throws SQLException {
+        try (QueryMetrics.Call call = metrics.begin("upsertZookeepers")) {
+            int written;
+            try {
+                written = batchWrite(ZOOKEEPER_TABLES, zookeepers, List.of(
+                        new BatchWriter.Step<Zookeeper>(WORKER_UPSERT_SQL, DatabaseConnectionHandler::bindWorker),
+                        new BatchWriter.Step<Zookeeper>(ZOOKEEPER_INSERT_SQL, (ps, z) -> setId(ps, 1, z.getW_id()))));
+            } catch (SQLException | RuntimeException e) {
+                feedingIndex.markStale();
+                throw e;
+            }
 
-            int updated = ps.executeUpdate();
-            if (updated == 0) {
-                throw new NotExists("Worker " + wId + " does not exist.");
+            for (Zookeeper z : zookeepers) {
+                feedingIndex.zookeeperAdded(idValue(z.getW_id()));
             }
-        }catch (SQLException ex) {
-			connection.rollback();
-			throw ex;
-		}
+            return call.ok(written);
+        }
+    }
+
+    private static void bindWorker(PreparedStatement ps, Worker w) throws SQLException {
+        setId(ps, 1, w.getW_id());
+        ps.setString(2, w.getName());
+        ps.setFloat(3, w.getPay_rate());
+        ps.setString(4, w.getAddress());
+        ps.setString(5, w.getEmail());
+        ps.setString(6, w.getPhone());
     }
 
     // ------------------------------------------------------------
@@ -230,78 +805,91 @@ public class DatabaseConnectionHandler {
     // ------------------------------------------------------------
 
     public Veterinarian[] getVeterinarianInfo(ArrayList<String> columns) throws SQLException {
-        ensureConnection();
-
-        String sql =
-                "SELECT w.w_id, w.name, w.pay_rate, w.address, w.email, w.phone, v.specialization " +
-                "FROM workers w " +
-                "JOIN veterinarians v ON w.w_id = v.w_id " +
-                "ORDER BY w.w_id::integer";
-
-        List<Veterinarian> result = new ArrayList<>();
+        try (QueryMetrics.Call call = metrics.begin("getVeterinarianInfo")) {
+            ensureConnection();
 
-        try (PreparedStatement ps = connection.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-
-            while (rs.next()) {
-                String wId = rs.getString("w_id");
-                String name = rs.getString("name");
-                float payRate = rs.getFloat("pay_rate");
-                String address = rs.getString("address");
-                String email = rs.getString("email");
-                String phone = rs.getString("phone");
-                String specialization = rs.getString("specialization");
-
-                result.add(new Veterinarian(
-                        wId, name, payRate, address, email, phone, specialization));
-            }
+            Projection p = VETERINARIAN_SELECT.project(columns);
+            return call.ok(queryList(VETERINARIAN_TABLES, p.sql(), VeterinarianMapper.INSTANCE).toArray(new Veterinarian[0]));
         }
-
-        return result.toArray(new Veterinarian[0]);
     }
 
-	// Insert a new veterinarian (also inserts into workers)
-	public void insertVeterinarian(String wId, String name, float payRate, String address,
+	private static final String WORKER_INSERT_SQL =
+		"INSERT INTO workers (w_id, name, pay_rate, address, email, phone) " +
+		"VALUES (?, ?, ?, ?, ?, ?)";
+
+	// returns the new veterinarian joined with the workers row inserted just before it
+	private static final String VETERINARIAN_INSERT_SQL =
+		"WITH inserted AS (INSERT INTO veterinarians (w_id, specialization) VALUES (?, ?) " +
+		"RETURNING w_id, specialization) " +
+		"SELECT w.w_id, w.name, w.pay_rate, w.address, w.email, w.phone, i.specialization " +
+		"FROM inserted i JOIN workers w ON w.w_id = i.w_id";
+
+	// Insert a new veterinarian (also inserts into workers); returns the inserted row
+	public Veterinarian insertVeterinarian(String wId, String name, float payRate, String address,
 		String email, String phone, String specialization) throws SQLException {
-		
+		try (QueryMetrics.Call call = metrics.begin("insertVeterinarian")) {
 			ensureConnection();
 
-		String workerSql =
-			"INSERT INTO workers (w_id, name, pay_rate, address, email, phone) " +
-			"VALUES (?, ?, ?, ?, ?, ?)";
-
-		String vetSql =
-			"INSERT INTO veterinarians (w_id, specialization) " +
-			"VALUES (?, ?)";
-
-		// using transaction so that either both inserts happen or none
-		boolean oldAutoCommit = connection.getAutoCommit();
-		connection.setAutoCommit(false);
-
-		// insert into workers and veterinarians in a single transaction
-		try (PreparedStatement workerStmt = connection.prepareStatement(workerSql);
-			PreparedStatement vetStmt = connection.prepareStatement(vetSql)) {
-
-			// Insert into workers
-			workerStmt.setString(1, wId);
-			workerStmt.setString(2, name);
-			workerStmt.setFloat(3, payRate);
-			workerStmt.setString(4, address);
-			workerStmt.setString(5, email);
-			workerStmt.setString(6, phone);
-			workerStmt.executeUpdate();
-
-			// Insert into veterinarians
-			vetStmt.setString(1, wId);
-			vetStmt.setString(2, specialization);
-			vetStmt.executeUpdate();
-
-			connection.commit();
-		} catch (SQLException ex) {
-			connection.rollback(); // undo any changes if something goes wrong
-			throw ex;
-		} finally {
-			connection.setAutoCommit(oldAutoCommit);
+			// both inserts run on the same borrowed connection so they share one transaction
+			Veterinarian inserted;
+			try (PooledConnection pc = borrow()) {
+				Connection connection = pc.get();
+
+				// using transaction so that either both inserts happen or none
+				boolean oldAutoCommit = connection.getAutoCommit();
+				connection.setAutoCommit(false);
+
+				// insert into workers and veterinarians in a single transaction
+				try {
+					PreparedStatement workerStmt = pc.prepare(WORKER_INSERT_SQL);
+					PreparedStatement vetStmt = pc.prepare(VETERINARIAN_INSERT_SQL);
+
+					// Insert into workers
+					setId(workerStmt, 1, wId);
+					workerStmt.setString(2, name);
+					workerStmt.setFloat(3, payRate);
+					workerStmt.setString(4, address);
+					workerStmt.setString(5, email);
+					workerStmt.setString(6, phone);
+					long start = System.nanoTime();
+					workerStmt.executeUpdate();
+					logIfSlow(WORKER_INSERT_SQL, start, 1, idValue(wId), name, payRate, address, email, phone);
+
+					// Insert into veterinarians
+					setId(vetStmt, 1, wId);
+					vetStmt.setString(2, specialization);
+					start = System.nanoTime();
+					inserted = returnedRow(vetStmt, VeterinarianMapper.INSTANCE);
+					logIfSlow(VETERINARIAN_INSERT_SQL, start, 1, idValue(wId), specialization);
+
+					connection.commit();
+					metrics.addRows(2, 0);
+				} catch (SQLException ex) {
+					connection.rollback(); // undo any changes if something goes wrong
+					throw ex;
+				} finally {
+					connection.setAutoCommit(oldAutoCommit);
+				}
+			}
+
+			queryCache.invalidate(VETERINARIAN_TABLES);
+			return call.ok(inserted);
+		}
+	}
+
+	private static final String VETERINARIAN_UPSERT_SQL =
+		"INSERT INTO veterinarians (w_id, specialization) VALUES (?, ?) " +
+		"ON CONFLICT (w_id) DO UPDATE SET specialization = EXCLUDED.specialization";
+
+	// Bulk version of insertVeterinarian; existing workers/vets are updated in place
+	public int upsertVeterinarians(List<Veterinarian> vets) throws SQLException {
+		try (QueryMetrics.Call call = metrics.begin("upsertVeterinarians")) {
+			return call.ok(batchWrite(VETERINARIAN_TABLES, vets, List.of(
+					new BatchWriter.Step<Veterinarian>(WORKER_UPSERT_SQL, DatabaseConnectionHandler::bindWorker),
+					new BatchWriter.Step<Veterinarian>(VETERINARIAN_UPSERT_SQL, (ps, v) -> {
+						setId(ps, 1, v.getW_id());
+						ps.setString(2, v.getSpecialization());
+					}))));
 		}
 	}
 
@@ -310,52 +898,21 @@ public class DatabaseConnectionHandler {
     // ------------------------------------------------------------
 
     public Shop[] getShopInfo(ArrayList<String> columns) throws SQLException {
-        ensureConnection();
-
-        String sql = "SELECT p_id, name, type FROM shops ORDER BY p_id::integer";
-
-        List<Shop> result = new ArrayList<>();
-
-        try (PreparedStatement ps = connection.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
+        try (QueryMetrics.Call call = metrics.begin("getShopInfo")) {
+            ensureConnection();
 
-            while (rs.next()) {
-                String pId = rs.getString("p_id");
-                String name = rs.getString("name");
-                String type = rs.getString("type");
-
-                result.add(new Shop(pId, name, type));
-            }
+            Projection p = SHOP_SELECT.project(columns);
+            return call.ok(queryList(SHOP_TABLES, p.sql(), ShopMapper.INSTANCE).toArray(new Shop[0]));
         }
-
-        return result.toArray(new Shop[0]);
     }
 
     public Item[] getItemInfo(ArrayList<String> columns) throws SQLException {
-        ensureConnection();
-
-        String sql =
-                "SELECT i_id, p_id, name, stock, price " +
-                "FROM items " +
-                "ORDER BY i_id::integer";
+        try (QueryMetrics.Call call = metrics.begin("getItemInfo")) {
+            ensureConnection();
 
-        List<Item> result = new ArrayList<>();
-
-        try (PreparedStatement ps = connection.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-
-            while (rs.next()) {
-                String iId = rs.getString("i_id");
-                String pId = rs.getString("p_id");
-                String name = rs.getString("name");
-                int stock = rs.getInt("stock");
-                float price = rs.getFloat("price");
-
-                result.add(new Item(iId, pId, name, stock, price));
-            }
+            Projection p = ITEM_SELECT.project(columns);
+            return call.ok(queryList(ITEM_TABLES, p.sql(), ItemMapper.INSTANCE).toArray(new Item[0]));
         }
-
-        return result.toArray(new Item[0]);
     }
 
     // ------------------------------------------------------------
@@ -363,28 +920,12 @@ public class DatabaseConnectionHandler {
     // ------------------------------------------------------------
 
     public StorageUnit[] getStorageUnitInfo(ArrayList<String> columns) throws SQLException {
-        ensureConnection();
-
-        String sql =
-                "SELECT p_id, name, temperature " +
-                "FROM storage_units " +
-                "ORDER BY p_id::integer";
-
-        List<StorageUnit> result = new ArrayList<>();
-
-        try (PreparedStatement ps = connection.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-
-            while (rs.next()) {
-                String pId = rs.getString("p_id");
-                String name = rs.getString("name");
-                int temperature = rs.getInt("temperature");
+        try (QueryMetrics.Call call = metrics.begin("getStorageUnitInfo")) {
+            ensureConnection();
 
-                result.add(new StorageUnit(pId, name, temperature));
-            }
+            Projection p = STORAGE_UNIT_SELECT.project(columns);
+            return call.ok(queryList(STORAGE_UNIT_TABLES, p.sql(), StorageUnitMapper.INSTANCE).toArray(new StorageUnit[0]));
         }
-
-        return result.toArray(new StorageUnit[0]);
     }
 
     // ------------------------------------------------------------
@@ -392,34 +933,21 @@ public class DatabaseConnectionHandler {
     // ------------------------------------------------------------
 
     public RawFoodOrder[] getRawFoodOrderInfo(ArrayList<String> columns) throws SQLException {
-        ensureConnection();
-
-        String sql =
-                "SELECT o_id, contents, weight, date_received, expiry_date " +
-                "FROM raw_food_orders " +
-                "ORDER BY o_id::integer";
-
-        List<RawFoodOrder> result = new ArrayList<>();
+        try (QueryMetrics.Call call = metrics.begin("getRawFoodOrderInfo")) {
+            ensureConnection();
 
-        try (PreparedStatement ps = connection.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
-
-            while (rs.next()) {
-                String oId = rs.getString("o_id");
-                String contents = rs.getString("contents");
-                int weight = rs.getInt("weight");
-
-                java.sql.Date dr = rs.getDate("date_received");
-                java.sql.Date ed = rs.getDate("expiry_date");
-
-                Date dateReceived = (dr != null) ? new Date(dr.getTime()) : null;
-                Date expiryDate = (ed != null) ? new Date(ed.getTime()) : null;
-
-                result.add(new RawFoodOrder(oId, contents, weight, dateReceived, expiryDate));
-            }
+            Projection p = RAW_FOOD_ORDER_SELECT.project(columns);
+            return call.ok(queryList(RAW_FOOD_ORDER_TABLES, p.sql(), RawFoodOrderMapper.INSTANCE).toArray(new RawFoodOrder[0]));
         }
+    }
 
-        return result.toArray(new RawFoodOrder[0]);
+    // Streams raw food orders to the consumer over a server-side cursor; returns the row count
+    public int streamRawFoodOrders(ArrayList<String> columns, Consumer<? super RawFoodOrder> consumer)
+            throws SQLException {
+        try (QueryMetrics.Call call = metrics.begin("streamRawFoodOrders")) {
+            Projection p = RAW_FOOD_ORDER_SELECT.project(columns);
+            return call.ok(streamRows(p.sql(), RawFoodOrderMapper.INSTANCE, consumer));
+        }
     }
 
     // ------------------------------------------------------------
@@ -427,281 +955,610 @@ public class DatabaseConnectionHandler {
     // ------------------------------------------------------------
 
     public Computer[] getComputerInfo(ArrayList<String> columns) throws SQLException {
-        ensureConnection();
+        try (QueryMetrics.Call call = metrics.begin("getComputerInfo")) {
+            ensureConnection();
 
-        String sql =
-                "SELECT c1.c_id, c1.w_id, c1.model, c2.manufacturer, c2.type " +
-                "FROM computers1 c1 " +
-                "JOIN computers2 c2 ON c1.model = c2.model " +
-                "ORDER BY c1.c_id::integer";
-
-        List<Computer> result = new ArrayList<>();
+            Projection p = COMPUTER_SELECT.project(columns);
+            return call.ok(queryList(COMPUTER_TABLES, p.sql(), ComputerMapper.INSTANCE).toArray(new Computer[0]));
+        }
+    }
 
-        try (PreparedStatement ps = connection.prepareStatement(sql);
-             ResultSet rs = ps.executeQuery()) {
+	private static final String COMPUTER_SEARCH_SQL =
+		"SELECT c1.c_id, c1.w_id, c1.model, c2.manufacturer, c2.type " +
+		"FROM computers1 c1 " +
+		"JOIN computers2 c2 ON c1.model = c2.model " +
+		"WHERE c2.manufacturer ILIKE ? " +
+		"ORDER BY c1.c_id";
 
-            while (rs.next()) {
-                String cId = rs.getString("c_id");
-                String wId = rs.getString("w_id");
-                String model = rs.getString("model");
-                String manufacturer = rs.getString("manufacturer");
-                String type = rs.getString("type");
+	public Computer[] searchComputersByManufacturer(String manufacturer) throws SQLException {
+		try (QueryMetrics.Call call = metrics.begin("searchComputersByManufacturer")) {
+			ensureConnection();
 
-                result.add(new Computer(cId, wId, model, manufacturer, type));
-            }
-        }
+			return call.ok(queryList(COMPUTER_TABLES, COMPUTER_SEARCH_SQL, ComputerMapper.INSTANCE, "%" + manufacturer + "%")
+					.toArray(new Computer[0]));
+		}
+	}
 
-        return result.toArray(new Computer[0]);
-    }
+	// ---------------------------------------------------------------------
+	// Relationship queries
+	// ---------------------------------------------------------------------
 
-	public Computer[] searchComputersByManufacturer(String manufacturer) throws SQLException {
-		ensureConnection();
+	private static final String COHABITATES_WITH_SQL =
+		"SELECT a_id1, a_id2 FROM cohabitates_with ORDER BY a_id1, a_id2";
+	private static final String MAINTAINS_HEALTH_OF_SQL =
+		"SELECT w_id, a_id FROM maintains_health_of ORDER BY w_id, a_id";
+	private static final String FEEDS_SQL =
+		"SELECT w_id, a_id FROM feeds ORDER BY w_id, a_id";
+	private static final String MADE_FROM_SQL =
+		"SELECT a_id, name, o_id FROM made_from ORDER BY a_id, name, o_id";
 
-		String sql =
-			"SELECT c1.c_id, c1.w_id, c1.model, c2.manufacturer, c2.type " +
-			"FROM computers1 c1 " +
-			"JOIN computers2 c2 ON c1.model = c2.model " +
-			"WHERE c2.manufacturer ILIKE ? " +
-			"ORDER BY c1.c_id::integer";
+	public CohabitatesWith[] getCohabitatesWithInfo(ArrayList<String> columns) throws SQLException {
+		try (QueryMetrics.Call call = metrics.begin("getCohabitatesWithInfo")) {
+			ensureConnection();
 
-		ArrayList<Computer> list = new ArrayList<>();
+			return call.ok(queryList(COHABITATES_WITH_TABLES, COHABITATES_WITH_SQL, CohabitatesWithMapper.INSTANCE).toArray(new CohabitatesWith[0]));
+		}
+	}
 
-		try (PreparedStatement ps = connection.prepareStatement(sql)) {
-			ps.setString(1, "%" + manufacturer + "%");
+	public int streamCohabitatesWith(Consumer<? super CohabitatesWith> consumer) throws SQLException {
+		try (QueryMetrics.Call call = metrics.begin("streamCohabitatesWith")) {
+			return call.ok(streamRows(COHABITATES_WITH_SQL, CohabitatesWithMapper.INSTANCE, consumer));
+		}
+	}
 
-			try (ResultSet rs = ps.executeQuery()) {
-				while (rs.next()) {
-					String cId   = rs.getString("c_id");
-					String wId   = rs.getString("w_id");
-					String model = rs.getString("model");
-					String manu  = rs.getString("manufacturer");
-					String type  = rs.getString("type");
+	public MaintainsHealthOf[] getMaintainsHealthOfInfo(ArrayList<String> columns) throws SQLException {
+		try (QueryMetrics.Call call = metrics.begin("getMaintainsHealthOfInfo")) {
+			ensureConnection();
 
-					list.add(new Computer(cId, wId, model, manu, type));
-				}
-			}
+			return call.ok(queryList(MAINTAINS_HEALTH_OF_TABLES, MAINTAINS_HEALTH_OF_SQL, MaintainsHealthOfMapper.INSTANCE).toArray(new MaintainsHealthOf[0]));
 		}
+	}
 
-		return list.toArray(new Computer[0]);
+	public int streamMaintainsHealthOf(Consumer<? super MaintainsHealthOf> consumer) throws SQLException {
+		try (QueryMetrics.Call call = metrics.begin("streamMaintainsHealthOf")) {
+			return call.ok(streamRows(MAINTAINS_HEALTH_OF_SQL, MaintainsHealthOfMapper.INSTANCE, consumer));
+		}
 	}
 
-	// ---------------------------------------------------------------------
-	// Relationship queries
-	// ---------------------------------------------------------------------
+	public Feeds[] getFeedsInfo(ArrayList<String> columns) throws SQLException {
+		try (QueryMetrics.Call call = metrics.begin("getFeedsInfo")) {
+			ensureConnection();
 
-	public CohabitatesWith[] getCohabitatesWithInfo(ArrayList<String> columns) throws SQLException {
-		ensureConnection();
+			return call.ok(queryList(FEEDS_TABLES, FEEDS_SQL, FeedsMapper.INSTANCE).toArray(new Feeds[0]));
+		}
+	}
 
-		String sql = "SELECT a_id1, a_id2 FROM cohabitates_with ORDER BY a_id1::integer, a_id2::integer";
-		ArrayList<CohabitatesWith> list = new ArrayList<>();
+	public int streamFeeds(Consumer<? super Feeds> consumer) throws SQLException {
+		try (QueryMetrics.Call call = metrics.begin("streamFeeds")) {
+			return call.ok(streamRows(FEEDS_SQL, FeedsMapper.INSTANCE, consumer));
+		}
+	}
 
-		try (PreparedStatement ps = connection.prepareStatement(sql);
-			ResultSet rs = ps.executeQuery()) {
+	public MadeFrom[] getMadeFromInfo(ArrayList<String> columns) throws SQLException {
+		try (QueryMetrics.Call call = metrics.begin("getMadeFromInfo")) {
+			ensureConnection();
 
-			while (rs.next()) {
-				String a1 = rs.getString("a_id1");
-				String a2 = rs.getString("a_id2");
-				list.add(new CohabitatesWith(a1, a2));
-			}
+			return call.ok(queryList(MADE_FROM_TABLES, MADE_FROM_SQL, MadeFromMapper.INSTANCE).toArray(new MadeFrom[0]));
 		}
+	}
 
-		return list.toArray(new CohabitatesWith[0]);
+	public int streamMadeFrom(Consumer<? super MadeFrom> consumer) throws SQLException {
+		try (QueryMetrics.Call call = metrics.begin("streamMadeFrom")) {
+			return call.ok(streamRows(MADE_FROM_SQL, MadeFromMapper.INSTANCE, consumer));
+		}
 	}
 
-	public MaintainsHealthOf[] getMaintainsHealthOfInfo(ArrayList<String> columns) throws SQLException {
-		ensureConnection();
+	// Bulk relationship inserts. Pairs that already exist are skipped, so these are safe to re-run.
+
+	private static final String COHABITATES_WITH_INSERT_SQL =
+		"INSERT INTO cohabitates_with (a_id1, a_id2) VALUES (?, ?) ON CONFLICT DO NOTHING";
+	private static final String MAINTAINS_HEALTH_OF_INSERT_SQL =
+		"INSERT INTO maintains_health_of (w_id, a_id) VALUES (?, ?) ON CONFLICT DO NOTHING";
+	private static final String FEEDS_INSERT_SQL =
+		"INSERT INTO feeds (w_id, a_id) VALUES (?, ?) ON CONFLICT DO NOTHING";
+	private static final String MADE_FROM_INSERT_SQL =
+		"INSERT INTO made_from (a_id, name, o_id) VALUES (?, ?, ?) ON CONFLICT DO NOTHING";
+
+	public int insertCohabitatesWith(List<CohabitatesWith> rows) throws SQLException {
+		try (QueryMetrics.Call call = metrics.begin("insertCohabitatesWith")) {
+			return call.ok(batchWrite(COHABITATES_WITH_TABLES, rows, List.of(new BatchWriter.Step<CohabitatesWith>(
+					COHABITATES_WITH_INSERT_SQL,
+					(ps, r) -> {
+						setId(ps, 1, r.getA_id1());
+						setId(ps, 2, r.getA_id2());
+					}))));
+		}
+	}
 
-		String sql = "SELECT w_id, a_id FROM maintains_health_of ORDER BY w_id::integer, a_id::integer";
-		ArrayList<MaintainsHealthOf> list = new ArrayList<>();
+	public int insertMaintainsHealthOf(List<MaintainsHealthOf> rows) throws SQLException {
+		try (QueryMetrics.Call call = metrics.begin("insertMaintainsHealthOf")) {
+			return call.ok(batchWrite(MAINTAINS_HEALTH_OF_TABLES, rows, List.of(new BatchWriter.Step<MaintainsHealthOf>(
+					MAINTAINS_HEALTH_OF_INSERT_SQL,
+					(ps, r) -> {
+						setId(ps, 1, r.getW_id());
+						setId(ps, 2, r.getA_id());
+					}))));
+		}
+	}
 
-		try (PreparedStatement ps = connection.prepareStatement(sql);
-			ResultSet rs = ps.executeQuery()) {
+	public int insertFeeds(List<Feeds> rows) throws SQLException {
+		try (QueryMetrics.Call call = metrics.begin("insertFeeds")) {
+			int written;
+			try {
+				written = batchWrite(FEEDS_TABLES, rows, List.of(new BatchWriter.Step<Feeds>(
+						FEEDS_INSERT_SQL,
+						(ps, r) -> {
+							setId(ps, 1, r.getW_id());
+							setId(ps, 2, r.getA_id());
+						})));
+			} catch (SQLException | RuntimeException e) {
+				feedingIndex.markStale();
+				throw e;
+			}
 
-			while (rs.next()) {
-				String wId = rs.getString("w_id");
-				String aId = rs.getString("a_id");
-				list.add(new MaintainsHealthOf(wId, aId));
+			for (Feeds r : rows) {
+				feedingIndex.feedsAdded(idValue(r.getW_id()), idValue(r.getA_id()));
 			}
+			return call.ok(written);
 		}
+	}
 
-		return list.toArray(new MaintainsHealthOf[0]);
+	public int insertMadeFrom(List<MadeFrom> rows) throws SQLException {
+		try (QueryMetrics.Call call = metrics.begin("insertMadeFrom")) {
+			return call.ok(batchWrite(MADE_FROM_TABLES, rows, List.of(new BatchWriter.Step<MadeFrom>(
+					MADE_FROM_INSERT_SQL,
+					(ps, r) -> {
+						setId(ps, 1, r.getA_id());
+						ps.setString(2, r.getName());
+						setId(ps, 3, r.getO_id());
+					}))));
+		}
 	}
 
-	public Feeds[] getFeedsInfo(ArrayList<String> columns) throws SQLException {
-		ensureConnection();
+	// ---------------------------------------------------------------------
+	// Keyset paging
+	// ---------------------------------------------------------------------
 
-		String sql = "SELECT w_id, a_id FROM feeds ORDER BY w_id::integer, a_id::integer";
-		ArrayList<Feeds> list = new ArrayList<>();
+	// How one PagedTable is read: its key columns both as plain names (for the key order index
+	// over the bare table) and as the SELECT refers to them, the FROM clause, for each of the
+	// table's columns after the first the expression to sort by (null values replaced as
+	// PagedTable's sort values replace them), and for each searched column the text to search.
+	// Every view gets its three statements up front; a search adds a WHERE taking the pattern
+	// once per searched column, ahead of the other parameters.
+	private static final class PageQuery<T> {
+		final Set<String> tables;
+		final RowMapper<T> mapper;
+		final int keyColumns;
+		final int searchColumns;
+		private final Map<String, String[]> sql = new HashMap<>();
+
+		PageQuery(PagedTable<T> table, Set<String> tables, RowMapper<T> mapper, String keys, String columns,
+				  String from, String selectKeys, String[] sortBy, String... searchBy) {
+			this.tables = tables;
+			this.mapper = mapper;
+			this.keyColumns = keys.split(",").length;
+			this.searchColumns = searchBy.length;
+			String select = "SELECT " + columns + " FROM " + from;
+			String search = "(" + String.join(" ILIKE ? OR ", searchBy) + " ILIKE ?)";
+			List<String> names = table.columns();
+			for (boolean descending : new boolean[] {false, true}) {
+				for (boolean searching : new boolean[] {false, true}) {
+					String where = searching ? " WHERE " + search : "";
+					for (int c = 0; c < names.size(); c++) {
+						// sorted: the sort value is the first key column
+						String sortValue = c == 0 ? null : sortBy[c - 1];
+						String sortKeys = c == 0 ? selectKeys : sortValue + ", " + selectKeys;
+						String sortOrder = (c == 0 ? "" : sortValue + (descending ? " DESC, " : ", "))
+								+ order(selectKeys, descending);
+						String index;
+						if (c == 0 && !searching) {
+							// one pass in key order; lead() marks the last row so the total comes from the same scan
+							index = "SELECT " + keys + ", rn, last FROM (" +
+									"SELECT " + keys + ", row_number() OVER w AS rn, lead(1) OVER w IS NULL AS last " +
+									"FROM " + table.table() + " WINDOW w AS (ORDER BY " + order(keys, descending) + ")) k " +
+									"WHERE (rn - 1) % ? = 0 OR last ORDER BY rn";
+						} else {
+							// the same over the joined rows
+							index = "SELECT * FROM (" +
+									"SELECT " + (c == 0 ? "" : sortValue + " AS sort_value, ") + selectKeys + ", " +
+									"row_number() OVER w AS rn, lead(1) OVER w IS NULL AS last " +
+									"FROM " + from + where + " WINDOW w AS (ORDER BY " + sortOrder + ")) k " +
+									"WHERE (rn - 1) % ? = 0 OR last ORDER BY rn";
+						}
+						sql.put(shape(c == 0 ? null : names.get(c), descending, searching), new String[] {
+								index,
+								select + where + " ORDER BY " + sortOrder + " LIMIT ?",
+								select + (searching ? where + " AND (" : " WHERE (") + sortKeys + ") " +
+								(descending ? "<=" : ">=") + " (" +
+								String.join(", ", Collections.nCopies(keyColumns + (c == 0 ? 0 : 1), "?")) + ") " +
+								"ORDER BY " + sortOrder + " LIMIT ?"});
+					}
+				}
+			}
+		}
 
-		try (PreparedStatement ps = connection.prepareStatement(sql);
-			ResultSet rs = ps.executeQuery()) {
+		// the index query, the first page and the page from a key
+		String[] sql(PageView view) {
+			String[] statements = sql.get(shape(view.getSortColumn(), view.isDescending(), !view.getSearch().isEmpty()));
+			if (statements == null) {
+				throw new IllegalArgumentException("Can't page by " + view);
+			}
+			return statements;
+		}
 
-			while (rs.next()) {
-				String wId = rs.getString("w_id");
-				String aId = rs.getString("a_id");
-				list.add(new Feeds(wId, aId));
+		// the view's parameters, then the statement's own
+		Object[] params(PageView view, Object... params) {
+			if (view.getSearch().isEmpty()) {
+				return params;
 			}
+			// ILIKE's wildcards and escape character match themselves
+			String pattern = "%" + view.getSearch().replaceAll("([\\\\%_])", "\\\\$1") + "%";
+			Object[] all = new Object[searchColumns + params.length];
+			java.util.Arrays.fill(all, 0, searchColumns, pattern);
+			System.arraycopy(params, 0, all, searchColumns, params.length);
+			return all;
 		}
 
-		return list.toArray(new Feeds[0]);
-	}
+		private static String shape(String sortColumn, boolean descending, boolean searching) {
+			return sortColumn + (descending ? " desc" : "") + (searching ? " search" : "");
+		}
 
-	public MadeFrom[] getMadeFromInfo(ArrayList<String> columns) throws SQLException {
-		ensureConnection();
+		// columns is a list of plain column names
+		private static String order(String columns, boolean descending) {
+			return descending ? String.join(" DESC, ", columns.split(", ")) + " DESC" : columns;
+		}
+	}
 
-		String sql = "SELECT a_id, name, o_id FROM made_from ORDER BY a_id::integer, name, o_id::integer";
-		ArrayList<MadeFrom> list = new ArrayList<>();
+	// IDs are searched as text, as the tabs show them
+	private static final Map<PagedTable<?>, PageQuery<?>> PAGE_QUERIES = Map.of(
+			PagedTable.ANIMALS, new PageQuery<>(PagedTable.ANIMALS, ANIMAL_TABLES, AnimalMapper.INSTANCE, "a_id",
+					"a1.a_id, a1.p_id, a1.name, a1.species, a2.genus",
+					"animals1 a1 LEFT JOIN animals2 a2 ON a1.species = a2.species", "a1.a_id",
+					new String[] {"COALESCE(a1.p_id, -2147483648)", "COALESCE(a1.name, '')",
+							"COALESCE(a1.species, '')", "COALESCE(a2.genus, '')"},
+					"a1.name", "a1.species", "a2.genus"),
+			PagedTable.RAW_FOOD_ORDERS, new PageQuery<>(PagedTable.RAW_FOOD_ORDERS, RAW_FOOD_ORDER_TABLES,
+					RawFoodOrderMapper.INSTANCE, "o_id", "o_id, contents, weight, date_received, expiry_date",
+					"raw_food_orders", "o_id", new String[] {"contents", "weight", "date_received", "expiry_date"},
+					"contents"),
+			PagedTable.COHABITATES_WITH, new PageQuery<>(PagedTable.COHABITATES_WITH, COHABITATES_WITH_TABLES,
+					CohabitatesWithMapper.INSTANCE, "a_id1, a_id2", "a_id1, a_id2", "cohabitates_with", "a_id1, a_id2",
+					new String[] {"a_id2"}, "a_id1::text", "a_id2::text"),
+			PagedTable.MAINTAINS_HEALTH_OF, new PageQuery<>(PagedTable.MAINTAINS_HEALTH_OF, MAINTAINS_HEALTH_OF_TABLES,
+					MaintainsHealthOfMapper.INSTANCE, "w_id, a_id", "w_id, a_id", "maintains_health_of", "w_id, a_id",
+					new String[] {"a_id"}, "w_id::text", "a_id::text"),
+			PagedTable.FEEDS, new PageQuery<>(PagedTable.FEEDS, FEEDS_TABLES, FeedsMapper.INSTANCE,
+					"w_id, a_id", "w_id, a_id", "feeds", "w_id, a_id", new String[] {"a_id"}, "w_id::text", "a_id::text"),
+			PagedTable.MADE_FROM, new PageQuery<>(PagedTable.MADE_FROM, MADE_FROM_TABLES, MadeFromMapper.INSTANCE,
+					"a_id, name, o_id", "a_id, name, o_id", "made_from", "a_id, name, o_id", new String[] {"name", "o_id"},
+					"a_id::text", "name", "o_id::text"));
+
+	@SuppressWarnings("unchecked")
+	private static <T> PageQuery<T> pageQuery(PagedTable<T> table) {
+		return (PageQuery<T>) PAGE_QUERIES.get(table);
+	}
 
-		try (PreparedStatement ps = connection.prepareStatement(sql);
-			ResultSet rs = ps.executeQuery()) {
+	public PageIndex getPageIndex(PagedTable<?> table, PageView view, int pageSize) throws SQLException {
+		try (QueryMetrics.Call call = metrics.begin("getPageIndex")) {
+			ensureConnection();
+			if (pageSize < 1) {
+				throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+			}
 
-			while (rs.next()) {
-				String aId = rs.getString("a_id");
-				String name = rs.getString("name");
-				String oId = rs.getString("o_id");
-				list.add(new MadeFrom(aId, name, oId));
+			PageQuery<?> q = pageQuery(table);
+			// each row: the key columns, then rn and last
+			List<Object[]> rows = queryList(q.tables, q.sql(view)[0], rs -> {
+				int columns = rs.getMetaData().getColumnCount();
+				return r -> {
+					Object[] row = new Object[columns];
+					for (int i = 0; i < columns; i++) {
+						row[i] = r.getObject(i + 1);
+					}
+					return row;
+				};
+			}, q.params(view, pageSize));
+
+			int rowCount = 0;
+			List<Object[]> starts = new ArrayList<>();
+			for (Object[] row : rows) {
+				long rn = ((Number) row[row.length - 2]).longValue();
+				if ((rn - 1) % pageSize == 0) {
+					starts.add(java.util.Arrays.copyOf(row, row.length - 2));
+				}
+				if ((Boolean) row[row.length - 1]) {
+					rowCount = (int) rn;
+				}
 			}
+			call.ok(starts);
+			return new PageIndex(rowCount, pageSize, starts);
 		}
+	}
 
-		return list.toArray(new MadeFrom[0]);
+	public <T> List<T> getPage(PagedTable<T> table, PageView view, Object[] fromKey, int limit) throws SQLException {
+		try (QueryMetrics.Call call = metrics.begin("getPage")) {
+			ensureConnection();
+
+			PageQuery<T> q = pageQuery(table);
+			String[] sql = q.sql(view);
+			if (fromKey == null) {
+				return call.ok(queryList(q.tables, sql[1], q.mapper, q.params(view, limit)));
+			}
+			Object[] params = java.util.Arrays.copyOf(fromKey, fromKey.length + 1);
+			params[fromKey.length] = limit;
+			return call.ok(queryList(q.tables, sql[2], q.mapper, q.params(view, params)));
+		}
 	}
 
 	// ---------------------------------------------------------------------
 	// report queries
 	// ---------------------------------------------------------------------
 
+	private static final String ZOOKEEPERS_SQL =
+		"SELECT w.w_id, w.name, w.pay_rate, w.address, w.email, w.phone " +
+		"FROM zookeepers z " +
+		"JOIN workers w ON z.w_id = w.w_id " +
+		"ORDER BY w.w_id";
+
+	// The three reports below divide feeds by animals in memory (see FeedingIndex) instead of
+	// running a nested NOT EXISTS over zookeepers x animals1 x feeds.
+
 	// Zookeepers who feed every animal in the zoo
 	public Zookeeper[] getSuperZookeepers() throws SQLException {
-		ensureConnection();
+		try (QueryMetrics.Call call = metrics.begin("getSuperZookeepers")) {
+			return call.ok(zookeepersById(loadedFeedingIndex().feedsAll()));
+		}
+	}
 
-		String sql =
-			"SELECT w.w_id, w.name, w.pay_rate, w.address, w.email, w.phone " +
-			"FROM zookeepers z " +
-			"JOIN workers w ON z.w_id = w.w_id " +
-			"WHERE NOT EXISTS ( " +
-			"    SELECT 1 FROM animals1 a " +
-			"    WHERE NOT EXISTS ( " +
-			"        SELECT 1 FROM feeds f " +
-			"        WHERE f.w_id = z.w_id AND f.a_id = a.a_id " +
-			"    ) " +
-			") " +
-			"ORDER BY w.w_id::integer";
-
-		ArrayList<Zookeeper> list = new ArrayList<>();
-
-		try (PreparedStatement ps = connection.prepareStatement(sql);
-			ResultSet rs = ps.executeQuery()) {
-
-			while (rs.next()) {
-				String wId   = rs.getString("w_id");
-				String name  = rs.getString("name");
-				float pay    = rs.getFloat("pay_rate");
-				String addr  = rs.getString("address");
-				String email = rs.getString("email");
-				String phone = rs.getString("phone");
-
-				list.add(new Zookeeper(wId, name, pay, addr, email, phone));
+	// Zookeepers who feed every animal living in the given habitat
+	public Zookeeper[] getZookeepersFeedingAllIn(String habitatId) throws SQLException {
+		try (QueryMetrics.Call call = metrics.begin("getZookeepersFeedingAllIn")) {
+			int habitat;
+			try {
+				habitat = Integer.parseInt(habitatId.trim());
+			} catch (NumberFormatException e) {
+				throw new IllegalArgumentException("Invalid habitat ID '" + habitatId + "': IDs must be whole numbers.");
 			}
+			return call.ok(zookeepersById(loadedFeedingIndex().feedsAllIn(habitat)));
 		}
+	}
 
-		return list.toArray(new Zookeeper[0]);
+	// Zookeepers who feed at least the given percentage (0-100) of all animals
+	public Zookeeper[] getZookeepersFeedingAtLeast(double percent) throws SQLException {
+		try (QueryMetrics.Call call = metrics.begin("getZookeepersFeedingAtLeast")) {
+			if (!(percent >= 0 && percent <= 100)) {
+				throw new IllegalArgumentException("Percentage must be between 0 and 100: " + percent);
+			}
+			return call.ok(zookeepersById(loadedFeedingIndex().feedsAtLeast(percent)));
+		}
 	}
 
-	// Vets whose pay_rate is <= the average pay for their specialization (for u cheap fucks lol)
-	public Veterinarian[] getCheapVeterinarians() throws SQLException {
+	private FeedingIndex loadedFeedingIndex() throws SQLException {
 		ensureConnection();
 
-		String sql =
-			"SELECT w.w_id, w.name, v.specialization, w.pay_rate, w.address, w.email, w.phone " +
-			"FROM veterinarians v " +
-			"JOIN workers w ON v.w_id = w.w_id " +
-			"WHERE w.pay_rate <= ALL ( " +
-			"    SELECT AVG(w2.pay_rate) " +
-			"    FROM workers w2 " +
-			"    JOIN veterinarians v2 ON w2.w_id = v2.w_id " +
-			"    WHERE v2.specialization = v.specialization " +
-			"    GROUP BY v2.specialization " +
-			") " +
-			"ORDER BY v.specialization, w.pay_rate::integer";
-
-		ArrayList<Veterinarian> list = new ArrayList<>();
-
-		try (PreparedStatement ps = connection.prepareStatement(sql);
-			ResultSet rs = ps.executeQuery()) {
-
-			while (rs.next()) {
-				String wId   = rs.getString("w_id");
-				String name  = rs.getString("name");
-				float pay    = rs.getFloat("pay_rate");
-				String addr  = rs.getString("address");
-				String email = rs.getString("email");
-				String phone = rs.getString("phone");
-				String spec  = rs.getString("specialization");
-
-				list.add(new Veterinarian(wId, name, pay, addr, email, phone, spec));
+		if (feedingIndex.isStale()) {
+			try (PooledConnection pc = borrow()) {
+				long start = System.nanoTime();
+				feedingIndex.loadIfStale(pc);
+				logIfSlow(FeedingIndex.ANIMALS_SQL + "; " + FeedingIndex.ZOOKEEPERS_SQL + "; " + FeedingIndex.FEEDS_SQL,
+						start, 0, (Object[]) null);
 			}
 		}
+		return feedingIndex;
+	}
 
-		return list.toArray(new Veterinarian[0]);
+	// worker details come from the (cached) list of all zookeepers
+	private Zookeeper[] zookeepersById(List<Integer> ids) throws SQLException {
+		Set<Integer> wanted = new HashSet<>(ids);
+		List<Zookeeper> result = new ArrayList<>();
+		for (Zookeeper z : queryList(ZOOKEEPER_TABLES, ZOOKEEPERS_SQL, ZookeeperMapper.INSTANCE)) {
+			if (wanted.contains(idValue(z.getW_id()))) {
+				result.add(z);
+			}
+		}
+		return result.toArray(new Zookeeper[0]);
 	}
 
-	// Total weight of raw food stored in each storage unit
-	public SumWeights[] getSumWeights() throws SQLException {
-		ensureConnection();
+	private static final String CHEAP_VETERINARIANS_SQL =
+		"SELECT w.w_id, w.name, v.specialization, w.pay_rate, w.address, w.email, w.phone " +
+		"FROM veterinarians v " +
+		"JOIN workers w ON v.w_id = w.w_id " +
+		"WHERE w.pay_rate <= ALL ( " +
+		"    SELECT AVG(w2.pay_rate) " +
+		"    FROM workers w2 " +
+		"    JOIN veterinarians v2 ON w2.w_id = v2.w_id " +
+		"    WHERE v2.specialization = v.specialization " +
+		"    GROUP BY v2.specialization " +
+		") " +
+		"ORDER BY v.specialization, w.pay_rate::integer";
 
-		String sql =
-			"SELECT s.p_id, s.name, COALESCE(SUM(o.weight), 0) AS total_weight " +
-			"FROM storage_units s " +
-			"LEFT JOIN located_at l ON s.p_id = l.p_id " +
-			"LEFT JOIN raw_food_orders o ON l.o_id = o.o_id " +
-			"GROUP BY s.p_id, s.name " +
-			"ORDER BY s.p_id::integer";
+	// Vets whose pay_rate is <= the average pay for their specialization (for u cheap fucks lol)
+	public Veterinarian[] getCheapVeterinarians() throws SQLException {
+		try (QueryMetrics.Call call = metrics.begin("getCheapVeterinarians")) {
+			ensureConnection();
 
-		ArrayList<SumWeights> list = new ArrayList<>();
+			return call.ok(queryList(VETERINARIAN_TABLES, CHEAP_VETERINARIANS_SQL, VeterinarianMapper.INSTANCE).toArray(new Veterinarian[0]));
+		}
+	}
 
-		try (PreparedStatement ps = connection.prepareStatement(sql);
-			ResultSet rs = ps.executeQuery()) {
+	// Both storage reports read the storage_usage running totals (kept current by triggers,
+	// see SchemaMigrator version 2) instead of aggregating located_at x raw_food_orders.
+	private static final String SUM_WEIGHTS_SQL =
+		"SELECT s.p_id, s.name, COALESCE(u.total_weight, 0) AS total_weight " +
+		"FROM storage_units s " +
+		"LEFT JOIN storage_usage u ON u.p_id = s.p_id " +
+		"ORDER BY s.p_id";
 
-			while (rs.next()) {
-				String pId   = rs.getString("p_id");
-				String name  = rs.getString("name");
-				int sum      = rs.getInt("total_weight");
+	// Total weight of raw food stored in each storage unit
+	public SumWeights[] getSumWeights() throws SQLException {
+		try (QueryMetrics.Call call = metrics.begin("getSumWeights")) {
+			ensureConnection();
 
-				list.add(new SumWeights(pId, name, sum));
-			}
+			return call.ok(queryList(STORAGE_WEIGHT_TABLES, SUM_WEIGHTS_SQL, SumWeightsMapper.INSTANCE).toArray(new SumWeights[0]));
 		}
-
-		return list.toArray(new SumWeights[0]);
 	}
 
-	// get storage units with < 50kg stored
-	public SumWeights[] getFreeStorage() throws SQLException {
-		ensureConnection();
+	private static final String FREE_STORAGE_SQL =
+		"SELECT s.p_id, s.name, COALESCE(u.total_weight, 0) AS total_weight " +
+		"FROM storage_units s " +
+		"LEFT JOIN storage_usage u ON u.p_id = s.p_id " +
+		"WHERE COALESCE(u.total_weight, 0) < ? " +
+		"ORDER BY s.p_id";
+
+	// get storage units with less than maxWeight kg stored
+	public SumWeights[] getFreeStorage(int maxWeight) throws SQLException {
+		try (QueryMetrics.Call call = metrics.begin("getFreeStorage")) {
+			ensureConnection();
+
+			return call.ok(queryList(STORAGE_WEIGHT_TABLES, FREE_STORAGE_SQL, SumWeightsMapper.INSTANCE, maxWeight)
+					.toArray(new SumWeights[0]));
+		}
+	}
 
-		String sql =
-			"SELECT s.p_id, s.name, COALESCE(SUM(o.weight), 0) AS total_weight " +
-			"FROM storage_units s " +
-			"LEFT JOIN located_at l ON s.p_id = l.p_id " +
-			"LEFT JOIN raw_food_orders o ON l.o_id = o.o_id " +
-			"GROUP BY s.p_id, s.name " +
-			"HAVING COALESCE(SUM(o.weight), 0) < 50 " +
-			"ORDER BY s.p_id::integer";
+	private static final String STORAGE_USAGE_AGGREGATE_SQL =
+		"SELECT l.p_id, SUM(o.weight) AS total_weight " +
+		"FROM located_at l JOIN raw_food_orders o ON o.o_id = l.o_id " +
+		"GROUP BY l.p_id";
+
+	private static final String STORAGE_USAGE_CLEAR_SQL = "DELETE FROM storage_usage";
+
+	// also run by the bench dataset generator, which loads with the usage triggers off
+	static final String STORAGE_USAGE_REBUILD_SQL =
+		"INSERT INTO storage_usage (p_id, total_weight) " + STORAGE_USAGE_AGGREGATE_SQL;
+
+	// Units whose running total disagrees with the full aggregate, with the aggregate's total
+	private static final String STORAGE_USAGE_VERIFY_SQL =
+		"SELECT s.p_id, s.name, COALESCE(a.total_weight, 0) AS total_weight " +
+		"FROM storage_units s " +
+		"LEFT JOIN (" + STORAGE_USAGE_AGGREGATE_SQL + ") a ON a.p_id = s.p_id " +
+		"LEFT JOIN storage_usage u ON u.p_id = s.p_id " +
+		"WHERE COALESCE(a.total_weight, 0) <> COALESCE(u.total_weight, 0) " +
+		"ORDER BY s.p_id";
+
+	// Recomputes storage_usage from located_at and raw_food_orders, e.g. after triggers were
+	// disabled for a bulk load. Writers to both tables wait until it commits.
+	// Returns the number of storage units with a total.
+	public int rebuildStorageUsage() throws SQLException {
+		try (QueryMetrics.Call call = metrics.begin("rebuildStorageUsage")) {
+			ensureConnection();
 
-		ArrayList<SumWeights> list = new ArrayList<>();
+			int rows;
+			try (PooledConnection pc = borrow()) {
+				Connection connection = pc.get();
+
+				// lock, clear and refill in one transaction so readers never see a half-built summary
+				boolean oldAutoCommit = connection.getAutoCommit();
+				connection.setAutoCommit(false);
+
+				try {
+					pc.prepare("LOCK TABLE located_at, raw_food_orders IN SHARE MODE").execute();
+					pc.prepare(STORAGE_USAGE_CLEAR_SQL).executeUpdate();
+					long start = System.nanoTime();
+					rows = pc.prepare(STORAGE_USAGE_REBUILD_SQL).executeUpdate();
+					logIfSlow(STORAGE_USAGE_REBUILD_SQL, start, rows);
+
+					connection.commit();
+				} catch (SQLException ex) {
+					connection.rollback();
+					throw ex;
+				} finally {
+					connection.setAutoCommit(oldAutoCommit);
+				}
+			}
 
-		try (PreparedStatement ps = connection.prepareStatement(sql);
-			ResultSet rs = ps.executeQuery()) {
+			queryCache.invalidate(STORAGE_WEIGHT_TABLES);
+			metrics.addRows(rows, 0);
+			return call.ok(rows);
+		}
+	}
 
-			while (rs.next()) {
-				String pId   = rs.getString("p_id");
-				String name  = rs.getString("name");
-				int sum      = rs.getInt("total_weight");
+	// Compares storage_usage with the full aggregate. Returns the storage units that are out of
+	// date, each with its correct total; empty when the summary is consistent. Never cached.
+	public SumWeights[] verifyStorageUsage() throws SQLException {
+		try (QueryMetrics.Call call = metrics.begin("verifyStorageUsage")) {
+			ensureConnection();
 
-				list.add(new SumWeights(pId, name, sum));
+			List<SumWeights> drifted = new ArrayList<>();
+			long start = System.nanoTime();
+			try (PooledConnection pc = borrow();
+				 ResultSet rs = pc.prepare(STORAGE_USAGE_VERIFY_SQL).executeQuery()) {
+				int columns = rs.getMetaData().getColumnCount();
+				long bytes = 0;
+				RowReader<SumWeights> reader = SumWeightsMapper.INSTANCE.bind(rs);
+				while (rs.next()) {
+					drifted.add(reader.read(rs));
+					bytes += rowBytes(rs, columns);
+				}
+				metrics.addRows(drifted.size(), bytes);
 			}
+			logIfSlow(STORAGE_USAGE_VERIFY_SQL, start, drifted.size());
+			return call.ok(drifted.toArray(new SumWeights[0]));
 		}
+	}
 
-		return list.toArray(new SumWeights[0]);
+	// ---------------------------------------------------------------------
+	// SQL catalog
+	// ---------------------------------------------------------------------
+
+	// Every statement this class runs, with sample parameters, for the plan regression suite
+	// (bench/src/database/PlanRegressionSuite). Add new queries here too.
+	// Sample IDs refer to rows that exist at every scale the suite generates.
+	static List<CatalogQuery> sqlCatalog() {
+		List<CatalogQuery> catalog = new ArrayList<>(List.of(
+				new CatalogQuery("getAnimalInfo", ANIMAL_SELECT.project(null).sql()),
+				new CatalogQuery("getHabitatInfo", HABITAT_SELECT.project(null).sql()),
+				new CatalogQuery("getWorkerInfo", WORKER_SELECT.project(null).sql()),
+				new CatalogQuery("getVeterinarianInfo", VETERINARIAN_SELECT.project(null).sql()),
+				new CatalogQuery("getShopInfo", SHOP_SELECT.project(null).sql()),
+				new CatalogQuery("getItemInfo", ITEM_SELECT.project(null).sql()),
+				new CatalogQuery("getStorageUnitInfo", STORAGE_UNIT_SELECT.project(null).sql()),
+				new CatalogQuery("getRawFoodOrderInfo", RAW_FOOD_ORDER_SELECT.project(null).sql()),
+				new CatalogQuery("getComputerInfo", COMPUTER_SELECT.project(null).sql()),
+				new CatalogQuery("searchComputersByManufacturer", COMPUTER_SEARCH_SQL, "%App%"),
+				new CatalogQuery("getCohabitatesWithInfo", COHABITATES_WITH_SQL),
+				new CatalogQuery("getMaintainsHealthOfInfo", MAINTAINS_HEALTH_OF_SQL),
+				new CatalogQuery("getFeedsInfo", FEEDS_SQL),
+				new CatalogQuery("getMadeFromInfo", MADE_FROM_SQL)));
+		// the key order statements of every paged table; a page from key (1, ...), made_from's
+		// prepped food name being 'meal'
+		for (PagedTable<?> table : PagedTable.values()) {
+			PageQuery<?> q = pageQuery(table);
+			String[] sql = q.sql(PageView.KEY_ORDER);
+			Object[] page = new Object[q.keyColumns + 1];
+			java.util.Arrays.fill(page, 1);
+			if (table == PagedTable.MADE_FROM) {
+				page[1] = "meal";
+			}
+			page[q.keyColumns] = 500;
+			catalog.add(new CatalogQuery("getPageIndex." + table, sql[0], 500));
+			catalog.add(new CatalogQuery("getPage." + table, sql[2], page));
+		}
+		catalog.addAll(List.of(
+				new CatalogQuery("getSuperZookeepers.zookeepers", ZOOKEEPERS_SQL),
+				new CatalogQuery("FeedingIndex.animals", FeedingIndex.ANIMALS_SQL),
+				new CatalogQuery("FeedingIndex.zookeepers", FeedingIndex.ZOOKEEPERS_SQL),
+				new CatalogQuery("FeedingIndex.feeds", FeedingIndex.FEEDS_SQL),
+				new CatalogQuery("getCheapVeterinarians", CHEAP_VETERINARIANS_SQL),
+				new CatalogQuery("getSumWeights", SUM_WEIGHTS_SQL),
+				new CatalogQuery("getFreeStorage", FREE_STORAGE_SQL, 50),
+				new CatalogQuery("verifyStorageUsage", STORAGE_USAGE_VERIFY_SQL),
+				new CatalogQuery("rebuildStorageUsage.clear", STORAGE_USAGE_CLEAR_SQL),
+				new CatalogQuery("rebuildStorageUsage", STORAGE_USAGE_REBUILD_SQL).after(STORAGE_USAGE_CLEAR_SQL),
+				new CatalogQuery("deleteAnimal", ANIMAL_DELETE_SQL, 1),
+				new CatalogQuery("updateWorker", String.format(WORKER_UPDATE_SQL, "address"), "1 Plan St", 1),
+				new CatalogQuery("insertVeterinarian.workers", WORKER_INSERT_SQL,
+						Integer.MAX_VALUE, "Plan Check", 10.0f, "1 Plan St", "plan@check", "0000000000"),
+				new CatalogQuery("insertVeterinarian.veterinarians", VETERINARIAN_INSERT_SQL, 2, "plans"),
+				new CatalogQuery("upsertAnimals.species", SPECIES_INSERT_SQL, "plan species", "plan genus"),
+				new CatalogQuery("upsertAnimals", ANIMAL_UPSERT_SQL, 1, null, "Plan Check", null),
+				new CatalogQuery("upsertWorkers", WORKER_UPSERT_SQL,
+						1, "Plan Check", 10.0f, "1 Plan St", "plan@check", "0000000000"),
+				new CatalogQuery("upsertZookeepers", ZOOKEEPER_INSERT_SQL, 1),
+				new CatalogQuery("upsertVeterinarians", VETERINARIAN_UPSERT_SQL, 1, "plans"),
+				new CatalogQuery("insertCohabitatesWith", COHABITATES_WITH_INSERT_SQL, 1, 2),
+				new CatalogQuery("insertMaintainsHealthOf", MAINTAINS_HEALTH_OF_INSERT_SQL, 1, 1),
+				new CatalogQuery("insertFeeds", FEEDS_INSERT_SQL, 1, 1),
+				new CatalogQuery("insertMadeFrom", MADE_FROM_INSERT_SQL, 1, "meal", 1)));
+		return catalog;
 	}
 
 }
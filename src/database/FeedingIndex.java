@@ -0,0 +1,341 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PrimitiveIterator;
+import java.util.TreeMap;
+import java.util.function.Predicate;
+
+/**
+ * In-memory copy of feeds for the "super zookeeper" reports (relational division over
+ * zookeepers x animals1 x feeds).
+ *
+ * Animals get dense bit positions. Each zookeeper's fed animals, and each habitat's animals,
+ * are an {@link AnimalSet}: a sorted array of positions while sparse, a BitSet once that is
+ * smaller (like Roaring's array and bitmap containers). A zookeeper's set only ever holds live
+ * animals, so "feeds all" and "feeds at least N%" compare cardinalities, and "feeds all in
+ * habitat X" is a subset test.
+ *
+ * Loaded on first use and kept current by the handler's own writes. Writes from other
+ * sessions mark it stale; it is reloaded by the next query. A load is also only trusted for
+ * maxAgeMillis, so a missed notification (a listener that isn't running, or a database without
+ * the notify triggers) leaves the reports out of date for that long at most.
+ */
+final class FeedingIndex {
+
+    static final String ANIMALS_SQL = "SELECT a_id, p_id FROM animals1 ORDER BY a_id";
+    static final String ZOOKEEPERS_SQL = "SELECT w_id FROM zookeepers";
+    static final String FEEDS_SQL = "SELECT w_id, a_id FROM feeds";
+
+    private static final int NO_HABITAT = Integer.MIN_VALUE;
+
+    private final Map<Integer, Integer> bitByAnimal = new HashMap<>();
+    private int[] habitatByBit = new int[64];    // NO_HABITAT where p_id is null
+    private final BitSet animals = new BitSet();
+    private final Map<Integer, AnimalSet> animalsByHabitat = new HashMap<>();
+    private final TreeMap<Integer, AnimalSet> fedByZookeeper = new TreeMap<>();
+    private int animalCount;
+    private boolean stale = true;
+    private final long maxAgeNanos;
+    private long loadedAt;
+
+    FeedingIndex(long maxAgeMillis) {
+        if (maxAgeMillis < 1) {
+            throw new IllegalArgumentException("Invalid feeding index max age: " + maxAgeMillis);
+        }
+        this.maxAgeNanos = maxAgeMillis * 1_000_000L;
+    }
+
+    synchronized boolean isStale() {
+        return stale || System.nanoTime() - loadedAt > maxAgeNanos;
+    }
+
+    // the current contents keep answering queries until the next loadIfStale
+    synchronized void markStale() {
+        stale = true;
+    }
+
+    // Reads all three tables from one snapshot. Deltas and markStale wait until it finishes;
+    // deltas are idempotent, so one for a write the snapshot already saw does no harm.
+    synchronized void loadIfStale(PooledConnection pc) throws SQLException {
+        if (!isStale()) {
+            return;
+        }
+        stale = true; // also when only expired, so a failed reload leaves it stale
+        clear();
+
+        Connection connection = pc.get();
+        boolean oldAutoCommit = connection.getAutoCommit();
+        int oldIsolation = connection.getTransactionIsolation();
+        connection.setAutoCommit(false);
+        connection.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+
+        try {
+            // positions first, so the habitat sets are sized against the final animal count
+            try (ResultSet rs = pc.prepare(ANIMALS_SQL).executeQuery()) {
+                while (rs.next()) {
+                    int bit = animalCount++;
+                    int habitat = rs.getInt(2);
+                    bitByAnimal.put(rs.getInt(1), bit);
+                    animals.set(bit);
+                    setHabitat(bit, rs.wasNull() ? NO_HABITAT : habitat);
+                }
+            }
+            int universe = universe();
+            for (int bit = 0; bit < animalCount; bit++) {
+                if (habitatByBit[bit] != NO_HABITAT) {
+                    animalsByHabitat.computeIfAbsent(habitatByBit[bit], h -> new AnimalSet()).add(bit, universe);
+                }
+            }
+            try (ResultSet rs = pc.prepare(ZOOKEEPERS_SQL).executeQuery()) {
+                while (rs.next()) {
+                    fedByZookeeper.put(rs.getInt(1), new AnimalSet());
+                }
+            }
+            try (ResultSet rs = pc.prepare(FEEDS_SQL).executeQuery()) {
+                while (rs.next()) {
+                    AnimalSet fed = fedByZookeeper.get(rs.getInt(1));
+                    Integer bit = bitByAnimal.get(rs.getInt(2));
+                    if (fed != null && bit != null) {
+                        fed.add(bit, universe);
+                    }
+                }
+            }
+            connection.commit();
+            loadedAt = System.nanoTime();
+        } catch (SQLException e) {
+            connection.rollback();
+            clear();
+            throw e;
+        } finally {
+            connection.setTransactionIsolation(oldIsolation);
+            connection.setAutoCommit(oldAutoCommit);
+        }
+
+        stale = false;
+    }
+
+    private void clear() {
+        bitByAnimal.clear();
+        habitatByBit = new int[64];
+        animals.clear();
+        animalsByHabitat.clear();
+        fedByZookeeper.clear();
+        animalCount = 0;
+    }
+
+    // ------------------------------------------------------------
+    // Queries (zookeeper IDs, ascending)
+    // ------------------------------------------------------------
+
+    synchronized List<Integer> feedsAll() {
+        return zookeepersWhere(fed -> fed.size() == animalCount);
+    }
+
+    // a habitat with no animals is fed entirely by everyone, as with NOT EXISTS in SQL
+    synchronized List<Integer> feedsAllIn(int habitat) {
+        AnimalSet inHabitat = animalsByHabitat.get(habitat);
+        if (inHabitat == null) {
+            return zookeepersWhere(fed -> true);
+        }
+        return zookeepersWhere(fed -> fed.containsAll(inHabitat));
+    }
+
+    synchronized List<Integer> feedsAtLeast(double percent) {
+        return zookeepersWhere(fed -> fed.size() * 100.0 >= percent * animalCount);
+    }
+
+    private List<Integer> zookeepersWhere(Predicate<AnimalSet> test) {
+        List<Integer> ids = new ArrayList<>();
+        for (Map.Entry<Integer, AnimalSet> e : fedByZookeeper.entrySet()) {
+            if (test.test(e.getValue())) {
+                ids.add(e.getKey());
+            }
+        }
+        return ids;
+    }
+
+    // ------------------------------------------------------------
+    // Deltas from the handler's own committed writes (ignored while stale)
+    // ------------------------------------------------------------
+
+    synchronized void animalUpserted(int animal, Integer habitat) {
+        if (!stale) {
+            putAnimal(animal, habitat);
+        }
+    }
+
+    // feeds rows for the animal go with it (ON DELETE CASCADE)
+    synchronized void animalDeleted(int animal) {
+        if (stale) {
+            return;
+        }
+        Integer bit = bitByAnimal.remove(animal);
+        if (bit == null) {
+            return;
+        }
+        animals.clear(bit);
+        animalCount--;
+        if (habitatByBit[bit] != NO_HABITAT) {
+            animalsByHabitat.get(habitatByBit[bit]).remove(bit);
+        }
+        for (AnimalSet fed : fedByZookeeper.values()) {
+            fed.remove(bit);
+        }
+    }
+
+    synchronized void zookeeperAdded(int zookeeper) {
+        if (!stale) {
+            fedByZookeeper.putIfAbsent(zookeeper, new AnimalSet());
+        }
+    }
+
+    synchronized void feedsAdded(int zookeeper, int animal) {
+        if (stale) {
+            return;
+        }
+        AnimalSet fed = fedByZookeeper.get(zookeeper);
+        Integer bit = bitByAnimal.get(animal);
+        if (fed == null || bit == null) {
+            // the foreign keys say both exist, so another session added them; start over
+            stale = true;
+            return;
+        }
+        fed.add(bit, universe());
+    }
+
+    private void putAnimal(int animal, Integer habitat) {
+        Integer bit = bitByAnimal.get(animal);
+        if (bit == null) {
+            bit = animals.nextClearBit(0); // reuse positions freed by deletes
+            animals.set(bit);
+            bitByAnimal.put(animal, bit);
+            animalCount++;
+        } else if (habitatByBit[bit] != NO_HABITAT) {
+            animalsByHabitat.get(habitatByBit[bit]).remove(bit);
+        }
+        setHabitat(bit, habitat == null ? NO_HABITAT : habitat);
+        if (habitat != null) {
+            animalsByHabitat.computeIfAbsent(habitat, h -> new AnimalSet()).add(bit, universe());
+        }
+    }
+
+    private void setHabitat(int bit, int habitat) {
+        if (bit >= habitatByBit.length) {
+            habitatByBit = Arrays.copyOf(habitatByBit, Math.max(bit + 1, habitatByBit.length * 2));
+        }
+        habitatByBit[bit] = habitat;
+    }
+
+    private int universe() {
+        return Math.max(64, animals.length());
+    }
+
+    // ------------------------------------------------------------
+    // Set of animal bit positions
+    // ------------------------------------------------------------
+
+    // sorted int array while that takes fewer bits than a bitmap over all animals, then a BitSet
+    static final class AnimalSet {
+
+        private int[] sorted = new int[4];
+        private BitSet bits;
+        private int size;
+
+        int size() {
+            return size;
+        }
+
+        void add(int bit, int universe) {
+            if (bits != null) {
+                if (!bits.get(bit)) {
+                    bits.set(bit);
+                    size++;
+                }
+                return;
+            }
+            int i = Arrays.binarySearch(sorted, 0, size, bit);
+            if (i >= 0) {
+                return;
+            }
+            if ((size + 1) * 32L > universe) {
+                bits = new BitSet(universe);
+                for (int k = 0; k < size; k++) {
+                    bits.set(sorted[k]);
+                }
+                bits.set(bit);
+                sorted = null;
+                size++;
+                return;
+            }
+            i = -i - 1;
+            if (size == sorted.length) {
+                sorted = Arrays.copyOf(sorted, size * 2);
+            }
+            System.arraycopy(sorted, i, sorted, i + 1, size - i);
+            sorted[i] = bit;
+            size++;
+        }
+
+        void remove(int bit) {
+            if (bits != null) {
+                if (bits.get(bit)) {
+                    bits.clear(bit);
+                    size--;
+                }
+                return;
+            }
+            int i = Arrays.binarySearch(sorted, 0, size, bit);
+            if (i >= 0) {
+                System.arraycopy(sorted, i + 1, sorted, i, size - i - 1);
+                size--;
+            }
+        }
+
+        boolean contains(int bit) {
+            return bits != null ? bits.get(bit) : Arrays.binarySearch(sorted, 0, size, bit) >= 0;
+        }
+
+        // Two bitmaps compare word by word, and an array against a bitmap looks each element
+        // up; otherwise other's elements, ascending, are merged against this array in one pass.
+        boolean containsAll(AnimalSet other) {
+            if (other.size > size) {
+                return false;
+            }
+            if (bits != null && other.bits != null) {
+                BitSet missing = (BitSet) other.bits.clone();
+                missing.andNot(bits);
+                return missing.isEmpty();
+            }
+            if (bits != null) {
+                for (int k = 0; k < other.size; k++) {
+                    if (!bits.get(other.sorted[k])) {
+                        return false;
+                    }
+                }
+                return true;
+            }
+            PrimitiveIterator.OfInt wanted = other.bits != null
+                    ? other.bits.stream().iterator() : Arrays.stream(other.sorted, 0, other.size).iterator();
+            int i = 0;
+            while (wanted.hasNext()) {
+                int bit = wanted.nextInt();
+                while (i < size && sorted[i] < bit) {
+                    i++;
+                }
+                if (i == size || sorted[i] != bit) {
+                    return false;
+                }
+                i++;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,1476 @@
+package database;
+
+import exceptions.NotExists;
+import model.*;
+import util.Constants;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.LocalDate;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.Consumer;
+import java.util.function.IntPredicate;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import java.util.regex.Pattern;
+
+/**
+ * {@link ZooRepository} kept entirely in this process: no server and no network hop.
+ *
+ * Each table is a TreeMap on its integer key, so scans come out in the order of the SQL
+ * getters' ORDER BY. Hash indexes cover the unique columns and the lookups the reports and
+ * cascades need (animals by habitat, feeds and the other relationships both ways). Writes check
+ * the same keys, foreign keys and column lengths as the schema and fail with the SQLState
+ * PostgreSQL would use. A bulk write is all-or-nothing.
+ *
+ * The data comes from an INSERT script such as init.sql, read at the first login, or is copied
+ * from a database with {@link #load(Connection)}. Nothing is written back, so writes last until
+ * the process exits. Tables that no method reads (vendors, works_at, assigned_to, stored_at)
+ * are not kept. No other session can write, so change listeners are never called.
+ *
+ * One read-write lock guards everything: reads run in parallel, writes one at a time.
+ */
+public class InMemoryZooRepository implements ZooRepository {
+
+    private static final String EXCEPTION_TAG = "[EXCEPTION]";
+
+    // varchar limits from init.sql
+    private static final int NAME_LENGTH = 20;
+    private static final int ADDRESS_LENGTH = 30;
+    private static final int EMAIL_LENGTH = 30;
+    private static final int PHONE_LENGTH = 13;
+    private static final int ANIMAL_NAME_LENGTH = 30;
+
+    // tables copied by load(Connection), parents first
+    private static final String[] LOAD_TABLES = {"workers", "zookeepers", "veterinarians", "habitats2", "habitats1",
+            "shops", "items", "storage_units", "raw_food_orders", "located_at", "computers2", "computers1",
+            "animals2", "animals1", "prepped_food", "feeds", "maintains_health_of", "cohabitates_with", "made_from"};
+    private static final int LOAD_FETCH_SIZE = 10_000;
+
+    private final Path seedScript;
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private final List<TableChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+    private volatile boolean open;
+    private boolean loaded;
+
+    // animals1 (genus left null, joined from animals2 on read) and animals2
+    private final TreeMap<Integer, Animal> animals = new TreeMap<>();
+    private final Map<String, String> genusBySpecies = new HashMap<>();
+    private final Map<Integer, Set<Integer>> animalsByHabitat = new HashMap<>();
+
+    // habitats1 (temperature and humidity joined from habitats2 on read) and habitats2
+    private final TreeMap<Integer, Habitat> habitats = new TreeMap<>();
+    private final Map<String, int[]> climateByBiome = new HashMap<>();
+
+    // workers and their subtypes; veterinarians maps to the specialization, which may be null
+    private final TreeMap<Integer, Worker> workers = new TreeMap<>();
+    private final Map<String, Integer> workerByEmail = new HashMap<>();
+    private final Map<String, Integer> workerByPhone = new HashMap<>();
+    private final TreeSet<Integer> zookeepers = new TreeSet<>();
+    private final TreeMap<Integer, String> veterinarians = new TreeMap<>();
+
+    // only ever loaded; the repository has no writers for these
+    private final TreeMap<Integer, Shop> shops = new TreeMap<>();
+    private final TreeMap<Integer, Item> items = new TreeMap<>();
+    private final TreeMap<Integer, StorageUnit> storageUnits = new TreeMap<>();
+    private final TreeMap<Integer, RawFoodOrder> rawFoodOrders = new TreeMap<>();
+    private final Relation locatedAt = new Relation(); // o_id -> p_id
+    private final TreeMap<Integer, Computer> computers = new TreeMap<>(); // manufacturer and type joined on read
+    private final Map<String, String[]> computerModels = new HashMap<>(); // model -> {manufacturer, type}
+
+    // prepped food and the relationship tables
+    private final Map<Integer, Set<String>> preppedFood = new HashMap<>();
+    private final Relation feeds = new Relation(); // w_id -> a_id
+    private final Relation maintainsHealthOf = new Relation(); // w_id -> a_id
+    private final Relation cohabitatesWith = new Relation(); // a_id1 -> a_id2
+    private final TreeMap<Integer, TreeMap<String, TreeSet<Integer>>> madeFrom = new TreeMap<>(); // a_id -> name -> o_id
+
+    // storage_usage: total raw food weight per storage unit
+    private TreeMap<Integer, Integer> storageUsage = new TreeMap<>();
+
+    // the keys of the last few sorted or searched PageViews read since the last write, in order
+    // (see getPageIndex)
+    private static final int SORTED_VIEWS = 8;
+    private final Map<List<Object>, List<Object[]>> sortedKeys = Collections.synchronizedMap(
+            new LinkedHashMap<List<Object>, List<Object[]>>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<List<Object>, List<Object[]>> eldest) {
+                    return size() > SORTED_VIEWS;
+                }
+            });
+
+    // starts empty; fill it with load(Connection)
+    public InMemoryZooRepository() {
+        this(null);
+    }
+
+    // the script's INSERT statements are loaded at the first login
+    public InMemoryZooRepository(Path seedScript) {
+        this.seedScript = seedScript;
+    }
+
+    // ------------------------------------------------------------
+    // Lifecycle
+    // ------------------------------------------------------------
+
+    // username and password are ignored; the seed script, if any, is read the first time
+    public boolean login(String username, String password) {
+        lock.writeLock().lock();
+        try {
+            if (seedScript != null && !loaded) {
+                clear();
+                int rows = InsertScript.read(Files.readString(seedScript, StandardCharsets.UTF_8), this::loadRow);
+                storageUsage = aggregateStorageUsage();
+                loaded = true;
+                System.out.println("Loaded " + rows + " rows from " + seedScript + ".");
+            }
+            open = true;
+            System.out.println("\nUsing the in-memory store.");
+            return true;
+        } catch (IOException | SQLException | RuntimeException e) {
+            clear();
+            System.out.println(EXCEPTION_TAG + " " + e.getMessage());
+            return false;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // the data stays; a later login() carries on with it
+    public void close() {
+        open = false;
+    }
+
+    // Replaces the contents with a copy of the database's tables, read from one snapshot.
+    // Returns the number of rows copied.
+    public int load(Connection source) throws SQLException {
+        lock.writeLock().lock();
+        try {
+            clear();
+            boolean oldAutoCommit = source.getAutoCommit();
+            int oldIsolation = source.getTransactionIsolation();
+            source.setAutoCommit(false);
+            source.setTransactionIsolation(Connection.TRANSACTION_REPEATABLE_READ);
+
+            int rows = 0;
+            try (Statement st = source.createStatement()) {
+                st.setFetchSize(LOAD_FETCH_SIZE);
+                for (String table : LOAD_TABLES) {
+                    try (ResultSet rs = st.executeQuery("SELECT * FROM " + table)) {
+                        ResultSetMetaData meta = rs.getMetaData();
+                        List<String> columns = new ArrayList<>();
+                        for (int i = 1; i <= meta.getColumnCount(); i++) {
+                            columns.add(meta.getColumnLabel(i).toLowerCase(Locale.ROOT));
+                        }
+                        List<Object> values = new ArrayList<>(columns.size());
+                        while (rs.next()) {
+                            values.clear();
+                            for (int i = 1; i <= columns.size(); i++) {
+                                values.add(rs.getObject(i));
+                            }
+                            loadRow(table, columns, values);
+                            rows++;
+                        }
+                    }
+                }
+                source.commit();
+            } catch (SQLException | RuntimeException e) {
+                source.rollback();
+                clear();
+                throw e;
+            } finally {
+                source.setTransactionIsolation(oldIsolation);
+                source.setAutoCommit(oldAutoCommit);
+            }
+
+            storageUsage = aggregateStorageUsage();
+            loaded = true;
+            return rows;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void addTableChangeListener(TableChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    public void removeTableChangeListener(TableChangeListener listener) {
+        changeListeners.remove(listener);
+    }
+
+    private void ensureOpen() {
+        if (!open) {
+            throw new IllegalStateException("In-memory store not open. Call login() first.");
+        }
+    }
+
+    private <T> T read(Supplier<T> body) {
+        ensureOpen();
+        lock.readLock().lock();
+        try {
+            return body.get();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    @FunctionalInterface
+    private interface Write<T> {
+        T apply(Deque<Runnable> undo) throws SQLException;
+    }
+
+    // Runs body under the write lock. Each change pushes its inverse onto undo; if body throws,
+    // they run in reverse so a failed write leaves nothing behind.
+    private <T> T write(Write<T> body) throws SQLException {
+        ensureOpen();
+        lock.writeLock().lock();
+        Deque<Runnable> undo = new ArrayDeque<>();
+        sortedKeys.clear();
+        try {
+            return body.apply(undo);
+        } catch (SQLException | RuntimeException e) {
+            while (!undo.isEmpty()) {
+                undo.pop().run();
+            }
+            throw e;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // streams hand rows over outside the lock, so a consumer may call back into the repository
+    private static <T> int stream(List<T> rows, Consumer<? super T> consumer) {
+        for (T row : rows) {
+            consumer.accept(row);
+        }
+        return rows.size();
+    }
+
+    // ------------------------------------------------------------
+    // Animals
+    // ------------------------------------------------------------
+
+    public Animal[] getAnimalInfo(ArrayList<String> columns) {
+        return animalRows(columns).toArray(new Animal[0]);
+    }
+
+    public int streamAnimals(ArrayList<String> columns, Consumer<? super Animal> consumer) {
+        return stream(animalRows(columns), consumer);
+    }
+
+    private List<Animal> animalRows(List<String> columns) {
+        Projection p = DatabaseConnectionHandler.ANIMAL_SELECT.project(columns);
+        return read(() -> {
+            List<Animal> rows = new ArrayList<>(animals.size());
+            for (Animal a : animals.values()) {
+                rows.add(new Animal(a.getA_id(),
+                        p.has(Constants.P_ID) ? a.getP_id() : null,
+                        p.has(Constants.NAME) ? a.getName() : null,
+                        p.has(Constants.SPECIES) ? a.getSpecies() : null,
+                        p.has(Constants.GENUS) && a.getSpecies() != null ? genusBySpecies.get(a.getSpecies()) : null));
+            }
+            return rows;
+        });
+    }
+
+    public Animal deleteAnimal(String aId) throws SQLException, NotExists {
+        Integer id = optionalId(aId);
+        ensureOpen();
+        lock.writeLock().lock();
+        try {
+            if (id == null || !animals.containsKey(id)) {
+                throw new NotExists("Animal " + aId + " does not exist.");
+            }
+            sortedKeys.clear();
+
+            // ON DELETE CASCADE from animals1
+            preppedFood.remove(id);
+            madeFrom.remove(id);
+            feeds.removeRight(id);
+            maintainsHealthOf.removeRight(id);
+            cohabitatesWith.removeLeft(id);
+            cohabitatesWith.removeRight(id);
+            Animal a = animals.get(id);
+            replaceAnimal(id, a, null);
+            return new Animal(a.getA_id(), a.getP_id(), a.getName(), a.getSpecies(),
+                    a.getSpecies() == null ? null : genusBySpecies.get(a.getSpecies()));
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int upsertAnimals(List<Animal> rows) throws SQLException {
+        return write(undo -> {
+            for (Animal a : rows) {
+                String species = a.getSpecies();
+                if (species != null && !genusBySpecies.containsKey(species)) {
+                    checkLength("animals2", "species", species, NAME_LENGTH);
+                    checkLength("animals2", "genus", a.getGenus(), NAME_LENGTH);
+                    genusBySpecies.put(species, a.getGenus());
+                    undo.push(() -> genusBySpecies.remove(species));
+                }
+            }
+
+            for (Animal a : rows) {
+                int id = requireId("animals1", "a_id", a.getA_id());
+                Integer habitat = optionalId(a.getP_id());
+                if (habitat != null && !habitats.containsKey(habitat)) {
+                    throw missingKey("animals1", "p_id", habitat, "habitats1");
+                }
+                checkLength("animals1", "name", a.getName(), ANIMAL_NAME_LENGTH);
+
+                Animal old = animals.get(id);
+                Animal row = new Animal(String.valueOf(id), habitat == null ? null : String.valueOf(habitat),
+                        a.getName(), a.getSpecies(), null);
+                replaceAnimal(id, old, row);
+                undo.push(() -> replaceAnimal(id, row, old));
+            }
+            return rows.size();
+        });
+    }
+
+    // keeps animalsByHabitat in step; null removes
+    private void replaceAnimal(int id, Animal from, Animal to) {
+        if (from != null && from.getP_id() != null) {
+            Set<Integer> inHabitat = animalsByHabitat.get(Integer.valueOf(from.getP_id()));
+            inHabitat.remove(id);
+            if (inHabitat.isEmpty()) {
+                animalsByHabitat.remove(Integer.valueOf(from.getP_id()));
+            }
+        }
+        if (to == null) {
+            animals.remove(id);
+            return;
+        }
+        animals.put(id, to);
+        if (to.getP_id() != null) {
+            animalsByHabitat.computeIfAbsent(Integer.valueOf(to.getP_id()), h -> new java.util.HashSet<>()).add(id);
+        }
+    }
+
+    // ------------------------------------------------------------
+    // Habitats
+    // ------------------------------------------------------------
+
+    public Habitat[] getHabitatInfo(ArrayList<String> columns) {
+        Projection p = DatabaseConnectionHandler.HABITAT_SELECT.project(columns);
+        return read(() -> {
+            List<Habitat> rows = new ArrayList<>(habitats.size());
+            for (Habitat h : habitats.values()) {
+                int[] climate = h.getBiome() == null ? null : climateByBiome.get(h.getBiome());
+                rows.add(new Habitat(h.getP_id(),
+                        p.has(Constants.NAME) ? h.getName() : null,
+                        p.has(Constants.BIOME) ? h.getBiome() : null,
+                        p.has(Constants.AREA) ? h.getArea() : 0,
+                        p.has(Constants.TEMPERATURE) && climate != null ? climate[0] : 0,
+                        p.has(Constants.HUMIDITY) && climate != null ? climate[1] : 0));
+            }
+            return rows.toArray(new Habitat[0]);
+        });
+    }
+
+    // ------------------------------------------------------------
+    // Workers
+    // ------------------------------------------------------------
+
+    public Worker[] getWorkerInfo(ArrayList<String> columns) {
+        Projection p = DatabaseConnectionHandler.WORKER_SELECT.project(columns);
+        return read(() -> {
+            List<Worker> rows = new ArrayList<>(workers.size());
+            for (Worker w : workers.values()) {
+                rows.add(new Worker(w.getW_id(),
+                        p.has(Constants.NAME) ? w.getName() : null,
+                        p.has(Constants.PAY_RATE) ? w.getPay_rate() : 0,
+                        p.has(Constants.ADDRESS) ? w.getAddress() : null,
+                        p.has(Constants.EMAIL) ? w.getEmail() : null,
+                        p.has(Constants.PHONE) ? w.getPhone() : null));
+            }
+            return rows.toArray(new Worker[0]);
+        });
+    }
+
+    public Worker updateWorker(String wId, String column, Object value) throws SQLException, NotExists {
+        // same column whitelist and value conversion as the SQL version
+        String normalized = column.toLowerCase();
+        switch (normalized) {
+            case "address":
+            case "email":
+            case "phone":
+            case "pay_rate":
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported worker column: " + column);
+        }
+        float payRate = 0;
+        String text = null;
+        if ("pay_rate".equals(normalized)) {
+            payRate = value instanceof Number ? ((Number) value).floatValue() : Float.parseFloat(value.toString());
+        } else {
+            text = value.toString();
+        }
+        Integer id = optionalId(wId);
+
+        ensureOpen();
+        lock.writeLock().lock();
+        try {
+            Worker w = id == null ? null : workers.get(id);
+            if (w == null) {
+                throw new NotExists("Worker " + wId + " does not exist.");
+            }
+            Worker updated;
+            switch (normalized) {
+                case "address":
+                    updated = new Worker(w.getW_id(), w.getName(), w.getPay_rate(), text, w.getEmail(), w.getPhone());
+                    break;
+                case "email":
+                    updated = new Worker(w.getW_id(), w.getName(), w.getPay_rate(), w.getAddress(), text, w.getPhone());
+                    break;
+                case "phone":
+                    updated = new Worker(w.getW_id(), w.getName(), w.getPay_rate(), w.getAddress(), w.getEmail(), text);
+                    break;
+                default:
+                    updated = new Worker(w.getW_id(), w.getName(), payRate, w.getAddress(), w.getEmail(), w.getPhone());
+                    break;
+            }
+            checkWorker(id, updated);
+            replaceWorker(id, w, updated);
+            return updated;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public int upsertWorkers(List<? extends Worker> rows) throws SQLException {
+        return write(undo -> {
+            for (Worker w : rows) {
+                putWorker(w, undo);
+            }
+            return rows.size();
+        });
+    }
+
+    public int upsertZookeepers(List<Zookeeper> rows) throws SQLException {
+        return write(undo -> {
+            for (Zookeeper z : rows) {
+                int id = putWorker(z, undo);
+                if (zookeepers.add(id)) {
+                    undo.push(() -> zookeepers.remove(id));
+                }
+            }
+            return rows.size();
+        });
+    }
+
+    // insert or update; returns the ID
+    private int putWorker(Worker w, Deque<Runnable> undo) throws SQLException {
+        int id = requireId("workers", "w_id", w.getW_id());
+        Worker row = new Worker(String.valueOf(id), w.getName(), w.getPay_rate(), w.getAddress(), w.getEmail(), w.getPhone());
+        checkWorker(id, row);
+
+        Worker old = workers.get(id);
+        replaceWorker(id, old, row);
+        undo.push(() -> replaceWorker(id, row, old));
+        return id;
+    }
+
+    // NOT NULL, varchar lengths and the unique email and phone
+    private void checkWorker(int id, Worker w) throws SQLException {
+        checkRequired("workers", "name", w.getName(), NAME_LENGTH);
+        checkRequired("workers", "address", w.getAddress(), ADDRESS_LENGTH);
+        checkRequired("workers", "email", w.getEmail(), EMAIL_LENGTH);
+        checkRequired("workers", "phone", w.getPhone(), PHONE_LENGTH);
+        checkUnique(workerByEmail, w.getEmail(), id, "workers_email_key", "email");
+        checkUnique(workerByPhone, w.getPhone(), id, "workers_phone_key", "phone");
+    }
+
+    // keeps the email and phone indexes in step; null removes
+    private void replaceWorker(int id, Worker from, Worker to) {
+        if (from != null) {
+            workerByEmail.remove(from.getEmail());
+            workerByPhone.remove(from.getPhone());
+        }
+        if (to == null) {
+            workers.remove(id);
+            return;
+        }
+        workers.put(id, to);
+        workerByEmail.put(to.getEmail(), id);
+        workerByPhone.put(to.getPhone(), id);
+    }
+
+    // ------------------------------------------------------------
+    // Veterinarians
+    // ------------------------------------------------------------
+
+    public Veterinarian[] getVeterinarianInfo(ArrayList<String> columns) {
+        Projection p = DatabaseConnectionHandler.VETERINARIAN_SELECT.project(columns);
+        return read(() -> {
+            List<Veterinarian> rows = new ArrayList<>(veterinarians.size());
+            for (Map.Entry<Integer, String> e : veterinarians.entrySet()) {
+                Worker w = workers.get(e.getKey());
+                rows.add(new Veterinarian(w.getW_id(),
+                        p.has(Constants.NAME) ? w.getName() : null,
+                        p.has(Constants.PAY_RATE) ? w.getPay_rate() : 0,
+                        p.has(Constants.ADDRESS) ? w.getAddress() : null,
+                        p.has(Constants.EMAIL) ? w.getEmail() : null,
+                        p.has(Constants.PHONE) ? w.getPhone() : null,
+                        p.has(Constants.SPECIALIZATION) ? e.getValue() : null));
+            }
+            return rows.toArray(new Veterinarian[0]);
+        });
+    }
+
+    public Veterinarian insertVeterinarian(String wId, String name, float payRate, String address,
+                                           String email, String phone, String specialization) throws SQLException {
+        return write(undo -> {
+            int id = requireId("workers", "w_id", wId);
+            if (workers.containsKey(id)) {
+                throw duplicate("workers_pkey", "w_id", id);
+            }
+            putWorker(new Worker(wId, name, payRate, address, email, phone), undo);
+            putVeterinarian(id, specialization, undo);
+            Worker w = workers.get(id);
+            return new Veterinarian(w.getW_id(), w.getName(), w.getPay_rate(), w.getAddress(), w.getEmail(),
+                    w.getPhone(), specialization);
+        });
+    }
+
+    public int upsertVeterinarians(List<Veterinarian> rows) throws SQLException {
+        return write(undo -> {
+            for (Veterinarian v : rows) {
+                int id = putWorker(v, undo);
+                putVeterinarian(id, v.getSpecialization(), undo);
+            }
+            return rows.size();
+        });
+    }
+
+    private void putVeterinarian(int id, String specialization, Deque<Runnable> undo) throws SQLException {
+        checkLength("veterinarians", "specialization", specialization, NAME_LENGTH);
+        boolean existed = veterinarians.containsKey(id);
+        String old = veterinarians.put(id, specialization);
+        undo.push(() -> {
+            if (existed) {
+                veterinarians.put(id, old);
+            } else {
+                veterinarians.remove(id);
+            }
+        });
+    }
+
+    // ------------------------------------------------------------
+    // Shops, items, storage units, raw food orders
+    // ------------------------------------------------------------
+
+    public Shop[] getShopInfo(ArrayList<String> columns) {
+        Projection p = DatabaseConnectionHandler.SHOP_SELECT.project(columns);
+        return read(() -> {
+            List<Shop> rows = new ArrayList<>(shops.size());
+            for (Shop s : shops.values()) {
+                rows.add(new Shop(s.getP_id(),
+                        p.has(Constants.NAME) ? s.getName() : null,
+                        p.has(Constants.TYPE) ? s.getType() : null));
+            }
+            return rows.toArray(new Shop[0]);
+        });
+    }
+
+    public Item[] getItemInfo(ArrayList<String> columns) {
+        Projection p = DatabaseConnectionHandler.ITEM_SELECT.project(columns);
+        return read(() -> {
+            List<Item> rows = new ArrayList<>(items.size());
+            for (Item i : items.values()) {
+                rows.add(new Item(i.getI_id(),
+                        p.has(Constants.P_ID) ? i.getP_id() : null,
+                        p.has(Constants.NAME) ? i.getName() : null,
+                        p.has(Constants.STOCK) ? i.getStock() : 0,
+                        p.has(Constants.PRICE) ? i.getPrice() : 0));
+            }
+            return rows.toArray(new Item[0]);
+        });
+    }
+
+    public StorageUnit[] getStorageUnitInfo(ArrayList<String> columns) {
+        Projection p = DatabaseConnectionHandler.STORAGE_UNIT_SELECT.project(columns);
+        return read(() -> {
+            List<StorageUnit> rows = new ArrayList<>(storageUnits.size());
+            for (StorageUnit s : storageUnits.values()) {
+                rows.add(new StorageUnit(s.getP_id(),
+                        p.has(Constants.NAME) ? s.getName() : null,
+                        p.has(Constants.TEMPERATURE) ? s.getTemperature() : 0));
+            }
+            return rows.toArray(new StorageUnit[0]);
+        });
+    }
+
+    public RawFoodOrder[] getRawFoodOrderInfo(ArrayList<String> columns) {
+        return rawFoodOrderRows(columns).toArray(new RawFoodOrder[0]);
+    }
+
+    public int streamRawFoodOrders(ArrayList<String> columns, Consumer<? super RawFoodOrder> consumer) {
+        return stream(rawFoodOrderRows(columns), consumer);
+    }
+
+    private List<RawFoodOrder> rawFoodOrderRows(List<String> columns) {
+        Projection p = DatabaseConnectionHandler.RAW_FOOD_ORDER_SELECT.project(columns);
+        return read(() -> {
+            List<RawFoodOrder> rows = new ArrayList<>(rawFoodOrders.size());
+            for (RawFoodOrder o : rawFoodOrders.values()) {
+                rows.add(new RawFoodOrder(o.getO_id(),
+                        p.has(Constants.CONTENTS) ? o.getContents() : null,
+                        p.has(Constants.WEIGHT) ? o.getWeight() : null,
+                        p.has(Constants.DATE_RECEIVED) ? o.getDate_received() : null,
+                        p.has(Constants.EXPIRY_DATE) ? o.getExpiry_date() : null));
+            }
+            return rows;
+        });
+    }
+
+    // ------------------------------------------------------------
+    // Computers
+    // ------------------------------------------------------------
+
+    public Computer[] getComputerInfo(ArrayList<String> columns) {
+        Projection p = DatabaseConnectionHandler.COMPUTER_SELECT.project(columns);
+        return read(() -> {
+            List<Computer> rows = new ArrayList<>(computers.size());
+            for (Computer c : computers.values()) {
+                String[] model = computerModels.get(c.getModel());
+                rows.add(new Computer(c.getC_id(),
+                        p.has(Constants.W_ID) ? c.getW_id() : null,
+                        p.has(Constants.MODEL) ? c.getModel() : null,
+                        p.has(Constants.MANUFACTURER) && model != null ? model[0] : null,
+                        p.has(Constants.TYPE) && model != null ? model[1] : null));
+            }
+            return rows.toArray(new Computer[0]);
+        });
+    }
+
+    // ILIKE '%manufacturer%', so % and _ in the input are wildcards as in the SQL version
+    public Computer[] searchComputersByManufacturer(String manufacturer) {
+        Pattern like = likePattern("%" + manufacturer + "%");
+        return read(() -> {
+            List<Computer> rows = new ArrayList<>();
+            for (Computer c : computers.values()) {
+                String[] model = computerModels.get(c.getModel());
+                if (model != null && model[0] != null && like.matcher(model[0]).matches()) {
+                    rows.add(new Computer(c.getC_id(), c.getW_id(), c.getModel(), model[0], model[1]));
+                }
+            }
+            return rows.toArray(new Computer[0]);
+        });
+    }
+
+    // LIKE pattern with the default backslash escape, case-insensitive
+    private static Pattern likePattern(String like) {
+        StringBuilder regex = new StringBuilder();
+        for (int i = 0; i < like.length(); i++) {
+            char c = like.charAt(i);
+            if (c == '\\' && i + 1 < like.length()) {
+                regex.append(Pattern.quote(String.valueOf(like.charAt(++i))));
+            } else if (c == '%') {
+                regex.append(".*");
+            } else if (c == '_') {
+                regex.append('.');
+            } else {
+                regex.append(Pattern.quote(String.valueOf(c)));
+            }
+        }
+        return Pattern.compile(regex.toString(), Pattern.CASE_INSENSITIVE | Pattern.UNICODE_CASE | Pattern.DOTALL);
+    }
+
+    // ------------------------------------------------------------
+    // Relationships
+    // ------------------------------------------------------------
+
+    public CohabitatesWith[] getCohabitatesWithInfo(ArrayList<String> columns) {
+        return cohabitatesWithRows().toArray(new CohabitatesWith[0]);
+    }
+
+    public int streamCohabitatesWith(Consumer<? super CohabitatesWith> consumer) {
+        return stream(cohabitatesWithRows(), consumer);
+    }
+
+    private List<CohabitatesWith> cohabitatesWithRows() {
+        return read(() -> cohabitatesWith.rows((a1, a2) -> new CohabitatesWith(String.valueOf(a1), String.valueOf(a2))));
+    }
+
+    public MaintainsHealthOf[] getMaintainsHealthOfInfo(ArrayList<String> columns) {
+        return maintainsHealthOfRows().toArray(new MaintainsHealthOf[0]);
+    }
+
+    public int streamMaintainsHealthOf(Consumer<? super MaintainsHealthOf> consumer) {
+        return stream(maintainsHealthOfRows(), consumer);
+    }
+
+    private List<MaintainsHealthOf> maintainsHealthOfRows() {
+        return read(() -> maintainsHealthOf.rows((w, a) -> new MaintainsHealthOf(String.valueOf(w), String.valueOf(a))));
+    }
+
+    public Feeds[] getFeedsInfo(ArrayList<String> columns) {
+        return feedsRows().toArray(new Feeds[0]);
+    }
+
+    public int streamFeeds(Consumer<? super Feeds> consumer) {
+        return stream(feedsRows(), consumer);
+    }
+
+    private List<Feeds> feedsRows() {
+        return read(() -> feeds.rows((w, a) -> new Feeds(String.valueOf(w), String.valueOf(a))));
+    }
+
+    public MadeFrom[] getMadeFromInfo(ArrayList<String> columns) {
+        return madeFromRows().toArray(new MadeFrom[0]);
+    }
+
+    public int streamMadeFrom(Consumer<? super MadeFrom> consumer) {
+        return stream(madeFromRows(), consumer);
+    }
+
+    private List<MadeFrom> madeFromRows() {
+        return read(() -> {
+            List<MadeFrom> rows = new ArrayList<>();
+            for (Map.Entry<Integer, TreeMap<String, TreeSet<Integer>>> byAnimal : madeFrom.entrySet()) {
+                String animal = String.valueOf(byAnimal.getKey());
+                for (Map.Entry<String, TreeSet<Integer>> byName : byAnimal.getValue().entrySet()) {
+                    for (int order : byName.getValue()) {
+                        rows.add(new MadeFrom(animal, byName.getKey(), String.valueOf(order)));
+                    }
+                }
+            }
+            return rows;
+        });
+    }
+
+    public int insertCohabitatesWith(List<CohabitatesWith> rows) throws SQLException {
+        return write(undo -> {
+            for (CohabitatesWith r : rows) {
+                int a1 = requireAnimal("cohabitates_with", "a_id1", r.getA_id1());
+                int a2 = requireAnimal("cohabitates_with", "a_id2", r.getA_id2());
+                add(cohabitatesWith, a1, a2, undo);
+            }
+            return rows.size();
+        });
+    }
+
+    public int insertMaintainsHealthOf(List<MaintainsHealthOf> rows) throws SQLException {
+        return write(undo -> {
+            for (MaintainsHealthOf r : rows) {
+                int w = requireId("maintains_health_of", "w_id", r.getW_id());
+                if (!veterinarians.containsKey(w)) {
+                    throw missingKey("maintains_health_of", "w_id", w, "veterinarians");
+                }
+                int a = requireAnimal("maintains_health_of", "a_id", r.getA_id());
+                add(maintainsHealthOf, w, a, undo);
+            }
+            return rows.size();
+        });
+    }
+
+    public int insertFeeds(List<Feeds> rows) throws SQLException {
+        return write(undo -> {
+            for (Feeds r : rows) {
+                int w = requireId("feeds", "w_id", r.getW_id());
+                if (!zookeepers.contains(w)) {
+                    throw missingKey("feeds", "w_id", w, "zookeepers");
+                }
+                int a = requireAnimal("feeds", "a_id", r.getA_id());
+                add(feeds, w, a, undo);
+            }
+            return rows.size();
+        });
+    }
+
+    public int insertMadeFrom(List<MadeFrom> rows) throws SQLException {
+        return write(undo -> {
+            for (MadeFrom r : rows) {
+                int a = requireId("made_from", "a_id", r.getA_id());
+                String name = r.getName();
+                checkRequired("made_from", "name", name, ANIMAL_NAME_LENGTH);
+                if (!preppedFood.getOrDefault(a, Set.of()).contains(name)) {
+                    throw missingKey("made_from", "a_id, name", a + ", " + name, "prepped_food");
+                }
+                int o = requireId("made_from", "o_id", r.getO_id());
+                if (!rawFoodOrders.containsKey(o)) {
+                    throw missingKey("made_from", "o_id", o, "raw_food_orders");
+                }
+                TreeSet<Integer> orders = madeFrom.computeIfAbsent(a, k -> new TreeMap<>())
+                        .computeIfAbsent(name, k -> new TreeSet<>());
+                if (orders.add(o)) {
+                    undo.push(() -> removeMadeFrom(a, name, o));
+                }
+            }
+            return rows.size();
+        });
+    }
+
+    private void removeMadeFrom(int animal, String name, int order) {
+        TreeMap<String, TreeSet<Integer>> byName = madeFrom.get(animal);
+        TreeSet<Integer> orders = byName.get(name);
+        orders.remove(order);
+        if (orders.isEmpty()) {
+            byName.remove(name);
+            if (byName.isEmpty()) {
+                madeFrom.remove(animal);
+            }
+        }
+    }
+
+    private static void add(Relation relation, int left, int right, Deque<Runnable> undo) {
+        if (relation.add(left, right)) {
+            undo.push(() -> relation.remove(left, right));
+        }
+    }
+
+    // ------------------------------------------------------------
+    // Keyset paging
+    // ------------------------------------------------------------
+
+    // Key order scans the tables' own maps. Any other view sorts the keys of the rows it shows
+    // once, then reuses them until the next write.
+    public PageIndex getPageIndex(PagedTable<?> table, PageView view, int pageSize) {
+        if (pageSize < 1) {
+            throw new IllegalArgumentException("Page size must be positive: " + pageSize);
+        }
+        return read(() -> {
+            List<Object[]> starts = new ArrayList<>();
+            int[] rows = {0};
+            scanKeys(table, view, null, key -> {
+                if (rows[0]++ % pageSize == 0) {
+                    starts.add(key);
+                }
+                return true;
+            });
+            return new PageIndex(rows[0], pageSize, starts);
+        });
+    }
+
+    public <T> List<T> getPage(PagedTable<T> table, PageView view, Object[] fromKey, int limit) {
+        return read(() -> {
+            List<T> rows = new ArrayList<>(Math.min(limit, 1024));
+            if (limit > 0) {
+                scanKeys(table, view, fromKey, key -> {
+                    // a sorted key leads with the sort value
+                    rows.add(rowAt(table, view.getSortColumn() == null ? key : Arrays.copyOfRange(key, 1, key.length)));
+                    return rows.size() < limit;
+                });
+            }
+            return rows;
+        });
+    }
+
+    // Visits the view's keys from `from` (null: all) on, in its order, until the visitor returns false
+    private void scanKeys(PagedTable<?> table, PageView view, Object[] from, Predicate<Object[]> visitor) {
+        if (view.equals(PageView.KEY_ORDER)) {
+            scanKeys(table, from, visitor);
+            return;
+        }
+        List<Object[]> keys = sortedKeys.computeIfAbsent(List.of(table, view), v -> sortKeys(table, view));
+        Comparator<Object[]> order = view.isDescending() ? KEY_ORDER.reversed() : KEY_ORDER;
+        int start = 0;
+        if (from != null) {
+            // the first key at or after from
+            int end = keys.size();
+            while (start < end) {
+                int mid = (start + end) >>> 1;
+                if (order.compare(keys.get(mid), from) < 0) {
+                    start = mid + 1;
+                } else {
+                    end = mid;
+                }
+            }
+        }
+        for (int i = start; i < keys.size(); i++) {
+            if (!visitor.test(keys.get(i))) {
+                return;
+            }
+        }
+    }
+
+    private <T> List<Object[]> sortKeys(PagedTable<T> table, PageView view) {
+        List<Object[]> keys = new ArrayList<>();
+        scanKeys(table, null, key -> {
+            T row = rowAt(table, key);
+            if (view.getSearch().isEmpty() || table.matches(row, view.getSearch())) {
+                keys.add(table.keyOf(row, view));
+            }
+            return true;
+        });
+        keys.sort(view.isDescending() ? KEY_ORDER.reversed() : KEY_ORDER);
+        return keys;
+    }
+
+    // keys compare column by column; sort values are never null (see PagedTable)
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    private static final Comparator<Object[]> KEY_ORDER = (a, b) -> {
+        for (int i = 0; i < a.length; i++) {
+            int c = ((Comparable) a[i]).compareTo(b[i]);
+            if (c != 0) {
+                return c;
+            }
+        }
+        return 0;
+    };
+
+    // Visits keys >= from (null: all) in key order until the visitor returns false
+    private void scanKeys(PagedTable<?> table, Object[] from, Predicate<Object[]> visitor) {
+        if (table == PagedTable.ANIMALS) {
+            scanIds(animals, from, visitor);
+        } else if (table == PagedTable.RAW_FOOD_ORDERS) {
+            scanIds(rawFoodOrders, from, visitor);
+        } else if (table == PagedTable.COHABITATES_WITH) {
+            cohabitatesWith.scan(from, visitor);
+        } else if (table == PagedTable.MAINTAINS_HEALTH_OF) {
+            maintainsHealthOf.scan(from, visitor);
+        } else if (table == PagedTable.FEEDS) {
+            feeds.scan(from, visitor);
+        } else if (table == PagedTable.MADE_FROM) {
+            scanMadeFrom(from, visitor);
+        } else {
+            throw new IllegalArgumentException("Not a paged table: " + table);
+        }
+    }
+
+    private static void scanIds(TreeMap<Integer, ?> rows, Object[] from, Predicate<Object[]> visitor) {
+        for (Integer id : from == null ? rows.keySet() : rows.tailMap(integer(from[0]), true).keySet()) {
+            if (!visitor.test(new Object[] {id})) {
+                return;
+            }
+        }
+    }
+
+    private void scanMadeFrom(Object[] from, Predicate<Object[]> visitor) {
+        Integer fromAnimal = from == null ? null : integer(from[0]);
+        Map<Integer, TreeMap<String, TreeSet<Integer>>> animalsFrom =
+                fromAnimal == null ? madeFrom : madeFrom.tailMap(fromAnimal, true);
+        for (Map.Entry<Integer, TreeMap<String, TreeSet<Integer>>> byAnimal : animalsFrom.entrySet()) {
+            boolean first = fromAnimal != null && byAnimal.getKey().equals(fromAnimal);
+            Map<String, TreeSet<Integer>> names = first ? byAnimal.getValue().tailMap((String) from[1], true) : byAnimal.getValue();
+            for (Map.Entry<String, TreeSet<Integer>> byName : names.entrySet()) {
+                boolean firstName = first && byName.getKey().equals(from[1]);
+                Set<Integer> orders = firstName ? byName.getValue().tailSet(integer(from[2]), true) : byName.getValue();
+                for (int order : orders) {
+                    if (!visitor.test(new Object[] {byAnimal.getKey(), byName.getKey(), order})) {
+                        return;
+                    }
+                }
+            }
+        }
+    }
+
+    // the full row for a key that scanKeys produced
+    @SuppressWarnings("unchecked")
+    private <T> T rowAt(PagedTable<T> table, Object[] key) {
+        if (table == PagedTable.ANIMALS) {
+            Animal a = animals.get((Integer) key[0]);
+            return (T) new Animal(a.getA_id(), a.getP_id(), a.getName(), a.getSpecies(),
+                    a.getSpecies() == null ? null : genusBySpecies.get(a.getSpecies()));
+        }
+        if (table == PagedTable.RAW_FOOD_ORDERS) {
+            RawFoodOrder o = rawFoodOrders.get((Integer) key[0]);
+            return (T) new RawFoodOrder(o.getO_id(), o.getContents(), o.getWeight(), o.getDate_received(), o.getExpiry_date());
+        }
+        if (table == PagedTable.COHABITATES_WITH) {
+            return (T) new CohabitatesWith(String.valueOf(key[0]), String.valueOf(key[1]));
+        }
+        if (table == PagedTable.MAINTAINS_HEALTH_OF) {
+            return (T) new MaintainsHealthOf(String.valueOf(key[0]), String.valueOf(key[1]));
+        }
+        if (table == PagedTable.FEEDS) {
+            return (T) new Feeds(String.valueOf(key[0]), String.valueOf(key[1]));
+        }
+        return (T) new MadeFrom(String.valueOf(key[0]), (String) key[1], String.valueOf(key[2]));
+    }
+
+    // ------------------------------------------------------------
+    // Reports
+    // ------------------------------------------------------------
+
+    // feeds only ever holds live animals, so these compare set sizes like FeedingIndex does
+
+    public Zookeeper[] getSuperZookeepers() {
+        return read(() -> zookeepersWhere(z -> feeds.rights(z).size() == animals.size()));
+    }
+
+    public Zookeeper[] getZookeepersFeedingAllIn(String habitatId) {
+        int habitat;
+        try {
+            habitat = Integer.parseInt(habitatId.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Invalid habitat ID '" + habitatId + "': IDs must be whole numbers.");
+        }
+        // a habitat with no animals is fed entirely by everyone, as with NOT EXISTS in SQL
+        return read(() -> {
+            Set<Integer> inHabitat = animalsByHabitat.getOrDefault(habitat, Set.of());
+            return zookeepersWhere(z -> feeds.rights(z).containsAll(inHabitat));
+        });
+    }
+
+    public Zookeeper[] getZookeepersFeedingAtLeast(double percent) {
+        if (!(percent >= 0 && percent <= 100)) {
+            throw new IllegalArgumentException("Percentage must be between 0 and 100: " + percent);
+        }
+        return read(() -> zookeepersWhere(z -> feeds.rights(z).size() * 100.0 >= percent * animals.size()));
+    }
+
+    private Zookeeper[] zookeepersWhere(IntPredicate test) {
+        List<Zookeeper> rows = new ArrayList<>();
+        for (int z : zookeepers) {
+            if (test.test(z)) {
+                Worker w = workers.get(z);
+                rows.add(new Zookeeper(w.getW_id(), w.getName(), w.getPay_rate(), w.getAddress(), w.getEmail(), w.getPhone()));
+            }
+        }
+        return rows.toArray(new Zookeeper[0]);
+    }
+
+    // vets with no specialization have no average to exceed, so they are always included (as with <= ALL of nothing)
+    public Veterinarian[] getCheapVeterinarians() {
+        return read(() -> {
+            Map<String, double[]> payBySpecialization = new HashMap<>(); // {sum, count}
+            for (Map.Entry<Integer, String> e : veterinarians.entrySet()) {
+                if (e.getValue() != null) {
+                    double[] pay = payBySpecialization.computeIfAbsent(e.getValue(), s -> new double[2]);
+                    pay[0] += workers.get(e.getKey()).getPay_rate();
+                    pay[1]++;
+                }
+            }
+
+            List<Veterinarian> rows = new ArrayList<>();
+            for (Map.Entry<Integer, String> e : veterinarians.entrySet()) {
+                Worker w = workers.get(e.getKey());
+                double[] pay = e.getValue() == null ? null : payBySpecialization.get(e.getValue());
+                if (pay == null || w.getPay_rate() <= pay[0] / pay[1]) {
+                    rows.add(new Veterinarian(w.getW_id(), w.getName(), w.getPay_rate(), w.getAddress(),
+                            w.getEmail(), w.getPhone(), e.getValue()));
+                }
+            }
+            // ORDER BY specialization (nulls last), pay_rate::integer
+            rows.sort(Comparator.comparing(Veterinarian::getSpecialization, Comparator.nullsLast(Comparator.naturalOrder()))
+                    .thenComparingDouble(v -> Math.rint(v.getPay_rate()))
+                    .thenComparingInt(v -> Integer.parseInt(v.getW_id())));
+            return rows.toArray(new Veterinarian[0]);
+        });
+    }
+
+    public SumWeights[] getSumWeights() {
+        return read(() -> storageWeights(Integer.MAX_VALUE, true));
+    }
+
+    public SumWeights[] getFreeStorage(int maxWeight) {
+        return read(() -> storageWeights(maxWeight, false));
+    }
+
+    // every unit, or those holding less than maxWeight
+    private SumWeights[] storageWeights(int maxWeight, boolean all) {
+        List<SumWeights> rows = new ArrayList<>();
+        for (StorageUnit s : storageUnits.values()) {
+            int total = storageUsage.getOrDefault(Integer.valueOf(s.getP_id()), 0);
+            if (all || total < maxWeight) {
+                rows.add(new SumWeights(s.getP_id(), s.getName(), total));
+            }
+        }
+        return rows.toArray(new SumWeights[0]);
+    }
+
+    public int rebuildStorageUsage() throws SQLException {
+        return write(undo -> {
+            storageUsage = aggregateStorageUsage();
+            return storageUsage.size();
+        });
+    }
+
+    public SumWeights[] verifyStorageUsage() {
+        return read(() -> {
+            TreeMap<Integer, Integer> actual = aggregateStorageUsage();
+            List<SumWeights> drifted = new ArrayList<>();
+            for (StorageUnit s : storageUnits.values()) {
+                int id = Integer.parseInt(s.getP_id());
+                int total = actual.getOrDefault(id, 0);
+                if (total != storageUsage.getOrDefault(id, 0)) {
+                    drifted.add(new SumWeights(s.getP_id(), s.getName(), total));
+                }
+            }
+            return drifted.toArray(new SumWeights[0]);
+        });
+    }
+
+    // SUM(weight) of the orders located at each unit, for units with any
+    private TreeMap<Integer, Integer> aggregateStorageUsage() {
+        TreeMap<Integer, Integer> totals = new TreeMap<>();
+        for (Map.Entry<Integer, TreeSet<Integer>> e : locatedAt.byLeft.entrySet()) {
+            RawFoodOrder order = rawFoodOrders.get(e.getKey());
+            if (order == null || order.getWeight() == null) {
+                continue;
+            }
+            for (int unit : e.getValue()) {
+                totals.merge(unit, order.getWeight(), Integer::sum);
+            }
+        }
+        return totals;
+    }
+
+    // ------------------------------------------------------------
+    // Loading rows (init.sql or another database); the source's constraints are trusted
+    // ------------------------------------------------------------
+
+    private void clear() {
+        sortedKeys.clear();
+        animals.clear();
+        genusBySpecies.clear();
+        animalsByHabitat.clear();
+        habitats.clear();
+        climateByBiome.clear();
+        workers.clear();
+        workerByEmail.clear();
+        workerByPhone.clear();
+        zookeepers.clear();
+        veterinarians.clear();
+        shops.clear();
+        items.clear();
+        storageUnits.clear();
+        rawFoodOrders.clear();
+        locatedAt.clear();
+        computers.clear();
+        computerModels.clear();
+        preppedFood.clear();
+        feeds.clear();
+        maintainsHealthOf.clear();
+        cohabitatesWith.clear();
+        madeFrom.clear();
+        storageUsage = new TreeMap<>();
+        loaded = false;
+    }
+
+    // tables nothing reads are skipped
+    private void loadRow(String table, List<String> columns, List<Object> values) throws SQLException {
+        Map<String, Object> row = new LinkedHashMap<>();
+        for (int i = 0; i < columns.size(); i++) {
+            row.put(columns.get(i), values.get(i));
+        }
+
+        switch (table) {
+            case "workers": {
+                int id = intValue(table, row, "w_id");
+                Worker w = new Worker(String.valueOf(id), text(row.get("name")), floatValue(row.get("pay_rate")),
+                        text(row.get("address")), text(row.get("email")), text(row.get("phone")));
+                replaceWorker(id, workers.get(id), w);
+                break;
+            }
+            case "zookeepers":
+                zookeepers.add(intValue(table, row, "w_id"));
+                break;
+            case "veterinarians":
+                veterinarians.put(intValue(table, row, "w_id"), text(row.get("specialization")));
+                break;
+            case "habitats2":
+                climateByBiome.put(text(row.get("biome")),
+                        new int[] {intOrZero(row.get("temperature")), intOrZero(row.get("humidity"))});
+                break;
+            case "habitats1": {
+                int id = intValue(table, row, "p_id");
+                habitats.put(id, new Habitat(String.valueOf(id), text(row.get("name")), text(row.get("biome")),
+                        intOrZero(row.get("area")), 0, 0));
+                break;
+            }
+            case "shops": {
+                int id = intValue(table, row, "p_id");
+                shops.put(id, new Shop(String.valueOf(id), text(row.get("name")), text(row.get("type"))));
+                break;
+            }
+            case "items": {
+                int id = intValue(table, row, "i_id");
+                items.put(id, new Item(String.valueOf(id), idText(row.get("p_id")), text(row.get("name")),
+                        intOrZero(row.get("stock")), floatValue(row.get("price"))));
+                break;
+            }
+            case "storage_units": {
+                int id = intValue(table, row, "p_id");
+                storageUnits.put(id, new StorageUnit(String.valueOf(id), text(row.get("name")), intOrZero(row.get("temperature"))));
+                break;
+            }
+            case "raw_food_orders": {
+                int id = intValue(table, row, "o_id");
+                rawFoodOrders.put(id, new RawFoodOrder(String.valueOf(id), text(row.get("contents")),
+                        integer(row.get("weight")), date(row.get("date_received")), date(row.get("expiry_date"))));
+                break;
+            }
+            case "located_at":
+                locatedAt.add(intValue(table, row, "o_id"), intValue(table, row, "p_id"));
+                break;
+            case "computers2":
+                computerModels.put(text(row.get("model")),
+                        new String[] {text(row.get("manufacturer")), text(row.get("type"))});
+                break;
+            case "computers1": {
+                int id = intValue(table, row, "c_id");
+                computers.put(id, new Computer(String.valueOf(id), idText(row.get("w_id")), text(row.get("model")), null, null));
+                break;
+            }
+            case "animals2":
+                genusBySpecies.put(text(row.get("species")), text(row.get("genus")));
+                break;
+            case "animals1": {
+                int id = intValue(table, row, "a_id");
+                replaceAnimal(id, animals.get(id), new Animal(String.valueOf(id), idText(row.get("p_id")),
+                        text(row.get("name")), text(row.get("species")), null));
+                break;
+            }
+            case "prepped_food":
+                preppedFood.computeIfAbsent(intValue(table, row, "a_id"), a -> new java.util.HashSet<>())
+                        .add(text(row.get("name")));
+                break;
+            case "feeds":
+                feeds.add(intValue(table, row, "w_id"), intValue(table, row, "a_id"));
+                break;
+            case "maintains_health_of":
+                maintainsHealthOf.add(intValue(table, row, "w_id"), intValue(table, row, "a_id"));
+                break;
+            case "cohabitates_with":
+                cohabitatesWith.add(intValue(table, row, "a_id1"), intValue(table, row, "a_id2"));
+                break;
+            case "made_from":
+                madeFrom.computeIfAbsent(intValue(table, row, "a_id"), a -> new TreeMap<>())
+                        .computeIfAbsent(text(row.get("name")), n -> new TreeSet<>())
+                        .add(intValue(table, row, "o_id"));
+                break;
+            default:
+                break;
+        }
+    }
+
+    // values arrive as JDBC objects (Integer, Float, java.sql.Date) or script literals (String, BigDecimal, LocalDate)
+
+    private static int intValue(String table, Map<String, Object> row, String column) throws SQLException {
+        Integer value = integer(row.get(column));
+        if (value == null) {
+            throw notNull(table, column);
+        }
+        return value;
+    }
+
+    private static Integer integer(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof Number) {
+            return ((Number) value).intValue();
+        }
+        return Integer.valueOf(value.toString().trim());
+    }
+
+    private static int intOrZero(Object value) {
+        Integer i = integer(value);
+        return i == null ? 0 : i;
+    }
+
+    private static float floatValue(Object value) {
+        if (value == null) {
+            return 0;
+        }
+        return value instanceof Number ? ((Number) value).floatValue() : Float.parseFloat(value.toString().trim());
+    }
+
+    private static String text(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    // '007' and 7 both become "7", as the INTEGER ID columns return them
+    private static String idText(Object value) {
+        Integer i = integer(value);
+        return i == null ? null : String.valueOf(i);
+    }
+
+    // java.util.Date, as the generated mappers return
+    private static java.util.Date date(Object value) {
+        if (value == null) {
+            return null;
+        }
+        if (value instanceof java.util.Date) {
+            return new java.util.Date(((java.util.Date) value).getTime());
+        }
+        LocalDate day = value instanceof LocalDate ? (LocalDate) value : LocalDate.parse(value.toString().trim());
+        return new java.util.Date(java.sql.Date.valueOf(day).getTime());
+    }
+
+    // ------------------------------------------------------------
+    // Constraint checks, failing the way PostgreSQL does
+    // ------------------------------------------------------------
+
+    // IDs are INTEGER columns but stay Strings in the model classes
+    private static Integer optionalId(String id) throws SQLException {
+        if (id == null) {
+            return null;
+        }
+        try {
+            return Integer.valueOf(id.trim());
+        } catch (NumberFormatException e) {
+            throw new SQLException("Invalid ID '" + id + "': IDs must be whole numbers.", "22P02", e);
+        }
+    }
+
+    private static int requireId(String table, String column, String id) throws SQLException {
+        Integer value = optionalId(id);
+        if (value == null) {
+            throw notNull(table, column);
+        }
+        return value;
+    }
+
+    private int requireAnimal(String table, String column, String id) throws SQLException {
+        int value = requireId(table, column, id);
+        if (!animals.containsKey(value)) {
+            throw missingKey(table, column, value, "animals1");
+        }
+        return value;
+    }
+
+    private static void checkRequired(String table, String column, String value, int maxLength) throws SQLException {
+        if (value == null) {
+            throw notNull(table, column);
+        }
+        checkLength(table, column, value, maxLength);
+    }
+
+    private static void checkLength(String table, String column, String value, int maxLength) throws SQLException {
+        if (value != null && value.codePointCount(0, value.length()) > maxLength) {
+            throw new SQLException("value too long for type character varying(" + maxLength + ") in "
+                    + table + "." + column, "22001");
+        }
+    }
+
+    private static void checkUnique(Map<String, Integer> index, String value, int id, String constraint, String column)
+            throws SQLException {
+        Integer owner = index.get(value);
+        if (owner != null && owner != id) {
+            throw duplicate(constraint, column, value);
+        }
+    }
+
+    private static SQLException notNull(String table, String column) {
+        return new SQLException("null value in column \"" + column + "\" of relation \"" + table
+                + "\" violates not-null constraint", "23502");
+    }
+
+    private static SQLException duplicate(String constraint, String column, Object value) {
+        return new SQLException("duplicate key value violates unique constraint \"" + constraint + "\"\n  Detail: Key ("
+                + column + ")=(" + value + ") already exists.", "23505");
+    }
+
+    private static SQLException missingKey(String table, String column, Object value, String referenced) {
+        return new SQLException("insert or update on table \"" + table + "\" violates foreign key constraint\n  Detail: Key ("
+                + column + ")=(" + value + ") is not present in table \"" + referenced + "\".", "23503");
+    }
+
+    // ------------------------------------------------------------
+    // Two-column key tables
+    // ------------------------------------------------------------
+
+    @FunctionalInterface
+    private interface PairMapper<T> {
+        T map(int left, int right);
+    }
+
+    // rows in (left, right) order, plus the reverse index the cascades and reports need
+    private static final class Relation {
+        final TreeMap<Integer, TreeSet<Integer>> byLeft = new TreeMap<>();
+        final Map<Integer, Set<Integer>> byRight = new HashMap<>();
+        int size;
+
+        // false if the pair was already there
+        boolean add(int left, int right) {
+            if (!byLeft.computeIfAbsent(left, k -> new TreeSet<>()).add(right)) {
+                return false;
+            }
+            byRight.computeIfAbsent(right, k -> new java.util.HashSet<>()).add(left);
+            size++;
+            return true;
+        }
+
+        void remove(int left, int right) {
+            TreeSet<Integer> rights = byLeft.get(left);
+            if (rights == null || !rights.remove(right)) {
+                return;
+            }
+            if (rights.isEmpty()) {
+                byLeft.remove(left);
+            }
+            Set<Integer> lefts = byRight.get(right);
+            lefts.remove(left);
+            if (lefts.isEmpty()) {
+                byRight.remove(right);
+            }
+            size--;
+        }
+
+        void removeLeft(int left) {
+            for (int right : new ArrayList<>(rights(left))) {
+                remove(left, right);
+            }
+        }
+
+        void removeRight(int right) {
+            for (int left : new ArrayList<>(byRight.getOrDefault(right, Set.of()))) {
+                remove(left, right);
+            }
+        }
+
+        Set<Integer> rights(int left) {
+            TreeSet<Integer> rights = byLeft.get(left);
+            return rights == null ? Collections.emptySet() : rights;
+        }
+
+        <T> List<T> rows(PairMapper<T> mapper) {
+            List<T> rows = new ArrayList<>(size);
+            for (Map.Entry<Integer, TreeSet<Integer>> e : byLeft.entrySet()) {
+                for (int right : e.getValue()) {
+                    rows.add(mapper.map(e.getKey(), right));
+                }
+            }
+            return rows;
+        }
+
+        // pairs >= from (null: all) in (left, right) order until the visitor returns false
+        void scan(Object[] from, Predicate<Object[]> visitor) {
+            Integer fromLeft = from == null ? null : integer(from[0]);
+            Map<Integer, TreeSet<Integer>> lefts = fromLeft == null ? byLeft : byLeft.tailMap(fromLeft, true);
+            for (Map.Entry<Integer, TreeSet<Integer>> e : lefts.entrySet()) {
+                Set<Integer> rights = e.getKey().equals(fromLeft) ? e.getValue().tailSet(integer(from[1]), true) : e.getValue();
+                for (int right : rights) {
+                    if (!visitor.test(new Object[] {e.getKey(), right})) {
+                        return;
+                    }
+                }
+            }
+        }
+
+        void clear() {
+            byLeft.clear();
+            byRight.clear();
+            size = 0;
+        }
+    }
+}
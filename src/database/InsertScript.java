@@ -0,0 +1,339 @@
+package database;
+
+import java.math.BigDecimal;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Reads the rows out of the INSERT statements of a SQL script such as init.sql; everything else
+ * (DDL, functions, DO blocks) is skipped. Understands the literals init.sql uses: quoted strings,
+ * numbers, NULL, TRUE/FALSE, DATE '...' and TO_DATE('...', '...'). Every INSERT must name its
+ * columns.
+ *
+ * Strings come back as String, numbers as BigDecimal and dates as LocalDate; the consumer
+ * converts them to the column types.
+ */
+final class InsertScript {
+
+    @FunctionalInterface
+    interface RowConsumer {
+        // table and columns are lowercase, as PostgreSQL folds unquoted names
+        void row(String table, List<String> columns, List<Object> values) throws SQLException;
+    }
+
+    private enum Kind { WORD, STRING, NUMBER, SYMBOL }
+
+    private static final class Token {
+        final Kind kind;
+        final String text;
+        final int line;
+
+        Token(Kind kind, String text, int line) {
+            this.kind = kind;
+            this.text = text;
+            this.line = line;
+        }
+
+        boolean is(String s) {
+            return (kind == Kind.WORD || kind == Kind.SYMBOL) && text.equals(s);
+        }
+    }
+
+    private final String script;
+    private int pos;
+    private int line = 1;
+
+    private List<Token> statement = new ArrayList<>();
+    private int next;
+
+    private InsertScript(String script) {
+        this.script = script;
+    }
+
+    // returns the number of rows read
+    static int read(String script, RowConsumer consumer) throws SQLException {
+        return new InsertScript(script).readAll(consumer);
+    }
+
+    private int readAll(RowConsumer consumer) throws SQLException {
+        int rows = 0;
+        while (readStatement()) {
+            if (!statement.isEmpty() && statement.get(0).is("insert")) {
+                rows += insert(consumer);
+            }
+        }
+        return rows;
+    }
+
+    // ------------------------------------------------------------
+    // INSERT INTO table (columns) VALUES (...), (...)
+    // ------------------------------------------------------------
+
+    private int insert(RowConsumer consumer) throws SQLException {
+        next = 1;
+        expect("into");
+        String table = word();
+        while (peek() != null && peek().is(".")) { // schema-qualified: keep the table name
+            next++;
+            table = word();
+        }
+
+        if (peek() == null || !peek().is("(")) {
+            throw error("INSERT INTO " + table + " must list its columns");
+        }
+        List<String> columns = new ArrayList<>();
+        next++;
+        do {
+            columns.add(word());
+        } while (accept(","));
+        expect(")");
+        expect("values");
+
+        int rows = 0;
+        do {
+            expect("(");
+            List<Object> values = new ArrayList<>();
+            do {
+                values.add(value());
+            } while (accept(","));
+            expect(")");
+            if (values.size() != columns.size()) {
+                throw error("INSERT INTO " + table + " has " + columns.size() + " columns but "
+                        + values.size() + " values");
+            }
+            consumer.row(table, columns, values);
+            rows++;
+        } while (accept(","));
+
+        if (next < statement.size()) {
+            throw error("unsupported clause '" + statement.get(next).text + "' in INSERT INTO " + table);
+        }
+        return rows;
+    }
+
+    private Object value() throws SQLException {
+        Token t = take();
+        switch (t.kind) {
+            case STRING:
+                return t.text;
+            case NUMBER:
+                return new BigDecimal(t.text);
+            case SYMBOL:
+                if (t.is("-") || t.is("+")) {
+                    Token n = take();
+                    if (n.kind == Kind.NUMBER) {
+                        BigDecimal number = new BigDecimal(n.text);
+                        return t.is("-") ? number.negate() : number;
+                    }
+                }
+                break;
+            case WORD:
+                switch (t.text) {
+                    case "null":
+                        return null;
+                    case "true":
+                        return Boolean.TRUE;
+                    case "false":
+                        return Boolean.FALSE;
+                    case "date":
+                        return date(string(), "yyyy-mm-dd");
+                    case "to_date": {
+                        expect("(");
+                        String text = string();
+                        expect(",");
+                        String format = string();
+                        expect(")");
+                        return date(text, format);
+                    }
+                    default:
+                        break;
+                }
+                break;
+            default:
+                break;
+        }
+        throw error("unsupported value '" + t.text + "'");
+    }
+
+    // format in SQL notation (yyyy, mm, dd); only the fields dates need
+    private LocalDate date(String text, String format) throws SQLException {
+        String pattern = format.toLowerCase(Locale.ROOT)
+                .replace("yyyy", "uuuu")
+                .replace("mm", "MM");
+        try {
+            return LocalDate.parse(text.trim(), DateTimeFormatter.ofPattern(pattern, Locale.ROOT));
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            throw error("invalid date '" + text + "' for format '" + format + "'");
+        }
+    }
+
+    private Token peek() {
+        return next < statement.size() ? statement.get(next) : null;
+    }
+
+    private Token take() throws SQLException {
+        Token t = peek();
+        if (t == null) {
+            throw error("unexpected end of statement");
+        }
+        next++;
+        return t;
+    }
+
+    private boolean accept(String symbol) {
+        Token t = peek();
+        if (t != null && t.is(symbol)) {
+            next++;
+            return true;
+        }
+        return false;
+    }
+
+    private void expect(String symbol) throws SQLException {
+        Token t = take();
+        if (!t.is(symbol)) {
+            throw error("expected '" + symbol + "' but found '" + t.text + "'");
+        }
+    }
+
+    private String word() throws SQLException {
+        Token t = take();
+        if (t.kind != Kind.WORD) {
+            throw error("expected a name but found '" + t.text + "'");
+        }
+        return t.text;
+    }
+
+    private String string() throws SQLException {
+        Token t = take();
+        if (t.kind != Kind.STRING) {
+            throw error("expected a quoted string but found '" + t.text + "'");
+        }
+        return t.text;
+    }
+
+    private SQLException error(String message) {
+        int at = peek() != null ? peek().line : statement.isEmpty() ? line : statement.get(statement.size() - 1).line;
+        // the SQLState PostgreSQL uses for syntax errors
+        return new SQLException("Line " + at + ": " + message + ".", "42601");
+    }
+
+    // ------------------------------------------------------------
+    // Tokens, up to the next top-level semicolon
+    // ------------------------------------------------------------
+
+    // false at the end of the script
+    private boolean readStatement() throws SQLException {
+        statement = new ArrayList<>();
+        while (pos < script.length()) {
+            char c = script.charAt(pos);
+            if (c == '\n') {
+                line++;
+                pos++;
+            } else if (Character.isWhitespace(c)) {
+                pos++;
+            } else if (c == '-' && script.startsWith("--", pos)) {
+                while (pos < script.length() && script.charAt(pos) != '\n') {
+                    pos++;
+                }
+            } else if (c == '/' && script.startsWith("/*", pos)) {
+                skipTo("*/", pos + 2);
+            } else if (c == ';') {
+                pos++;
+                return true;
+            } else if (c == '\'') {
+                statement.add(new Token(Kind.STRING, quoted(), line));
+            } else if (c == '"') {
+                int end = script.indexOf('"', pos + 1);
+                if (end < 0) {
+                    throw error("unterminated quoted name");
+                }
+                statement.add(new Token(Kind.WORD, script.substring(pos + 1, end), line));
+                pos = end + 1;
+            } else if (c == '$' && dollarQuote() != null) {
+                // function bodies and DO blocks; only their extent matters
+                String tag = dollarQuote();
+                skipTo(tag, pos + tag.length());
+                statement.add(new Token(Kind.STRING, "", line));
+            } else if (Character.isDigit(c) || (c == '.' && pos + 1 < script.length() && Character.isDigit(script.charAt(pos + 1)))) {
+                int start = pos;
+                while (pos < script.length() && (Character.isDigit(script.charAt(pos)) || script.charAt(pos) == '.'
+                        || script.charAt(pos) == 'e' || script.charAt(pos) == 'E')) {
+                    pos++;
+                }
+                statement.add(new Token(Kind.NUMBER, script.substring(start, pos), line));
+            } else if (Character.isLetter(c) || c == '_') {
+                int start = pos;
+                while (pos < script.length() && (Character.isLetterOrDigit(script.charAt(pos))
+                        || script.charAt(pos) == '_' || script.charAt(pos) == '$')) {
+                    pos++;
+                }
+                statement.add(new Token(Kind.WORD, script.substring(start, pos).toLowerCase(Locale.ROOT), line));
+            } else {
+                statement.add(new Token(Kind.SYMBOL, String.valueOf(c), line));
+                pos++;
+            }
+        }
+        return !statement.isEmpty();
+    }
+
+    // 'it''s' -> it's
+    private String quoted() throws SQLException {
+        StringBuilder sb = new StringBuilder();
+        int i = pos + 1;
+        while (true) {
+            if (i >= script.length()) {
+                throw error("unterminated string");
+            }
+            char c = script.charAt(i);
+            if (c == '\'') {
+                if (i + 1 < script.length() && script.charAt(i + 1) == '\'') {
+                    sb.append('\'');
+                    i += 2;
+                    continue;
+                }
+                break;
+            }
+            if (c == '\n') {
+                line++;
+            }
+            sb.append(c);
+            i++;
+        }
+        pos = i + 1;
+        return sb.toString();
+    }
+
+    // $$ or $tag$ at pos, or null
+    private String dollarQuote() {
+        int end = script.indexOf('$', pos + 1);
+        if (end < 0) {
+            return null;
+        }
+        for (int i = pos + 1; i < end; i++) {
+            char c = script.charAt(i);
+            if (!Character.isLetterOrDigit(c) && c != '_') {
+                return null;
+            }
+        }
+        return script.substring(pos, end + 1);
+    }
+
+    private void skipTo(String terminator, int from) throws SQLException {
+        int end = script.indexOf(terminator, from);
+        if (end < 0) {
+            throw error("unterminated " + terminator);
+        }
+        for (int i = pos; i < end; i++) {
+            if (script.charAt(i) == '\n') {
+                line++;
+            }
+        }
+        pos = end + terminator.length();
+    }
+}
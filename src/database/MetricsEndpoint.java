@@ -0,0 +1,133 @@
+package database;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Plain-text view of a handler's metrics on http://127.0.0.1:port/metrics, one
+ * {@code name{labels} value} line per sample (the Prometheus text format), for curl or a
+ * local scraper. Bound to the loopback address only.
+ */
+final class MetricsEndpoint {
+
+    private static final String PATH = "/metrics";
+
+    private final DatabaseConnectionHandler db;
+    private final HttpServer server;
+
+    private MetricsEndpoint(DatabaseConnectionHandler db, HttpServer server) {
+        this.db = db;
+        this.server = server;
+    }
+
+    static MetricsEndpoint start(DatabaseConnectionHandler db, int port) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), port), 0);
+        MetricsEndpoint endpoint = new MetricsEndpoint(db, server);
+        server.createContext(PATH, endpoint::handle);
+        server.start(); // default executor: requests are served one at a time on the server's thread
+        return endpoint;
+    }
+
+    int port() {
+        return server.getAddress().getPort();
+    }
+
+    void stop() {
+        server.stop(0);
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+            byte[] body = render().getBytes(StandardCharsets.UTF_8);
+            exchange.getResponseHeaders().set("Content-Type", "text/plain; version=0.0.4; charset=utf-8");
+            exchange.sendResponseHeaders(200, body.length);
+            try (OutputStream out = exchange.getResponseBody()) {
+                out.write(body);
+            }
+        }
+    }
+
+    String render() {
+        StringBuilder sb = new StringBuilder();
+
+        type(sb, "zoo_db_calls_total", "counter");
+        type(sb, "zoo_db_errors_total", "counter");
+        type(sb, "zoo_db_rows_total", "counter");
+        type(sb, "zoo_db_bytes_total", "counter");
+        type(sb, "zoo_db_latency_ms", "summary");
+        type(sb, "zoo_db_latency_max_ms", "gauge");
+        for (QueryStats s : db.getQueryStats()) {
+            String method = "method=\"" + s.getName() + "\"";
+            sample(sb, "zoo_db_calls_total", method, s.getCalls());
+            sample(sb, "zoo_db_errors_total", method, s.getErrors());
+            sample(sb, "zoo_db_rows_total", method, s.getRows());
+            sample(sb, "zoo_db_bytes_total", method, s.getBytes());
+            summary(sb, "zoo_db_latency_ms", method, s);
+            sample(sb, "zoo_db_latency_max_ms", method, s.getMaxMillis());
+        }
+
+        QueryStats wait = db.getPoolWaitStats();
+        type(sb, "zoo_db_pool_wait_ms", "summary");
+        summary(sb, "zoo_db_pool_wait_ms", "", wait);
+        sample(sb, "zoo_db_pool_wait_max_ms", "", wait.getMaxMillis());
+        sample(sb, "zoo_db_pool_checkout_failures_total", "", wait.getErrors());
+
+        try {
+            PoolStats pool = db.getPoolStats();
+            sample(sb, "zoo_db_pool_active", "", pool.getActive());
+            sample(sb, "zoo_db_pool_idle", "", pool.getIdle());
+            sample(sb, "zoo_db_pool_waiting", "", pool.getWaiting());
+            sample(sb, "zoo_db_pool_max_size", "", pool.getMaxSize());
+        } catch (IllegalStateException e) {
+            // not logged in; there is no pool to report on
+        }
+
+        QueryCacheStats cache = db.getQueryCacheStats();
+        sample(sb, "zoo_db_query_cache_hits_total", "", cache.getHits());
+        sample(sb, "zoo_db_query_cache_misses_total", "", cache.getMisses());
+        sample(sb, "zoo_db_query_cache_entries", "", cache.getEntries());
+        sample(sb, "zoo_db_query_cache_bytes", "", cache.getBytes());
+        return sb.toString();
+    }
+
+    private static void type(StringBuilder sb, String name, String type) {
+        sb.append("# TYPE ").append(name).append(' ').append(type).append('\n');
+    }
+
+    // the quantiles plus the _sum and _count a summary must have, so rate(_sum) / rate(_count) works
+    private static void summary(StringBuilder sb, String name, String labels, QueryStats s) {
+        String prefix = labels.isEmpty() ? "" : labels + ",";
+        sample(sb, name, prefix + "quantile=\"0.5\"", s.getP50Millis());
+        sample(sb, name, prefix + "quantile=\"0.95\"", s.getP95Millis());
+        sample(sb, name, prefix + "quantile=\"0.99\"", s.getP99Millis());
+        sample(sb, name + "_sum", labels, s.getTotalMillis());
+        sample(sb, name + "_count", labels, s.getCalls());
+    }
+
+    private static void sample(StringBuilder sb, String name, String labels, long value) {
+        sb.append(name);
+        if (!labels.isEmpty()) {
+            sb.append('{').append(labels).append('}');
+        }
+        sb.append(' ').append(value).append('\n');
+    }
+
+    private static void sample(StringBuilder sb, String name, String labels, double value) {
+        sb.append(name);
+        if (!labels.isEmpty()) {
+            sb.append('{').append(labels).append('}');
+        }
+        sb.append(' ').append(String.format(Locale.ROOT, "%.3f", value)).append('\n');
+    }
+}
@@ -0,0 +1,33 @@
+package database;
+
+/**
+ * One versioned schema change, applied once per database by {@link SchemaMigrator}.
+ * The script may hold several statements; it runs in the migrator's transaction.
+ */
+final class Migration {
+
+    private final int version;
+    private final String description;
+    private final String script;
+
+    Migration(int version, String description, String script) {
+        if (version < 1) {
+            throw new IllegalArgumentException("Migration version must be positive: " + version);
+        }
+        this.version = version;
+        this.description = description;
+        this.script = script;
+    }
+
+    int version() {
+        return version;
+    }
+
+    String description() {
+        return description;
+    }
+
+    String script() {
+        return script;
+    }
+}
@@ -0,0 +1,42 @@
+package database;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Where the pages of a {@link PagedTable} start: the row count and the key of every
+ * pageSize-th row, in key order. Page n is {@code getPage(table, getPageStart(n), pageSize)}.
+ */
+public class PageIndex {
+    private final int rowCount;
+    private final int pageSize;
+    private final List<Object[]> pageStarts;
+
+    public PageIndex(int rowCount, int pageSize, List<Object[]> pageStarts) {
+        this.rowCount = rowCount;
+        this.pageSize = pageSize;
+        this.pageStarts = Collections.unmodifiableList(pageStarts);
+    }
+
+    public int getRowCount() {
+        return rowCount;
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int getPageCount() {
+        return pageStarts.size();
+    }
+
+    // key of the first row on the page
+    public Object[] getPageStart(int page) {
+        return pageStarts.get(page);
+    }
+
+    @Override
+    public String toString() {
+        return String.format("rows=%d pageSize=%d pages=%d", rowCount, pageSize, pageStarts.size());
+    }
+}
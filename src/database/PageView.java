@@ -0,0 +1,74 @@
+package database;
+
+import java.util.Objects;
+
+/**
+ * The rows of a {@link PagedTable} to page through and their order: every row or those whose
+ * searched columns (see {@link PagedTable#searchColumns()}) contain the search text, ignoring
+ * case; in key order, or by one of the table's columns (see {@link PagedTable#columns()})
+ * ascending or descending, ties broken by key. A sorted view's keys hold the sort value first,
+ * then the key columns; a null sort value is read as the column's lowest value, so missing
+ * values come first ascending and last descending.
+ */
+public final class PageView {
+
+    public static final PageView KEY_ORDER = new PageView(null, false, "");
+
+    private final String sortColumn;
+    private final boolean descending;
+    private final String search;
+
+    private PageView(String sortColumn, boolean descending, String search) {
+        this.sortColumn = sortColumn;
+        this.descending = descending;
+        this.search = search;
+    }
+
+    // sorting by the first key column is key order, run backwards if descending
+    public static PageView sortedBy(PagedTable<?> table, String column, boolean descending) {
+        if (!table.columns().contains(column)) {
+            throw new IllegalArgumentException("No column " + column + " in " + table);
+        }
+        return new PageView(column.equals(table.columns().get(0)) ? null : column, descending, "");
+    }
+
+    // this view narrowed to the rows containing text; blank for every row
+    public PageView searching(String text) {
+        return new PageView(sortColumn, descending, text.trim());
+    }
+
+    // null in key order
+    public String getSortColumn() {
+        return sortColumn;
+    }
+
+    public boolean isDescending() {
+        return descending;
+    }
+
+    // empty when not searching
+    public String getSearch() {
+        return search;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (!(o instanceof PageView)) {
+            return false;
+        }
+        PageView other = (PageView) o;
+        return Objects.equals(sortColumn, other.sortColumn) && descending == other.descending
+                && search.equals(other.search);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(sortColumn, descending, search);
+    }
+
+    @Override
+    public String toString() {
+        return (sortColumn == null ? "key" : sortColumn) + (descending ? " desc" : "")
+                + (search.isEmpty() ? "" : " containing '" + search + "'");
+    }
+}
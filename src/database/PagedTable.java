@@ -0,0 +1,150 @@
+package database;
+
+import model.*;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * A table that can be read a page at a time in primary key order, or sorted by one of its
+ * columns and narrowed by a search (see {@link PageView}), for tabs too large to load whole.
+ * Keys are Object[] holding the key columns in order (Integer for IDs, String for names).
+ *
+ * @see ZooRepository#getPageIndex(PagedTable, PageView, int)
+ * @see ZooRepository#getPage(PagedTable, PageView, Object[], int)
+ */
+public final class PagedTable<T> {
+
+    public static final PagedTable<Animal> ANIMALS = new PagedTable<Animal>("animals1",
+            a -> new Object[] {id(a.getA_id())})
+            .column("a_id", a -> id(a.getA_id()))
+            .column("p_id", a -> idOrLowest(a.getP_id()))
+            .column("name", a -> textOrEmpty(a.getName()))
+            .column("species", a -> textOrEmpty(a.getSpecies()))
+            .column("genus", a -> textOrEmpty(a.getGenus()))
+            .searching("name", "species", "genus");
+    public static final PagedTable<RawFoodOrder> RAW_FOOD_ORDERS = new PagedTable<RawFoodOrder>("raw_food_orders",
+            o -> new Object[] {id(o.getO_id())})
+            .column("o_id", o -> id(o.getO_id()))
+            .column("contents", RawFoodOrder::getContents)
+            .column("weight", RawFoodOrder::getWeight)
+            .column("date_received", RawFoodOrder::getDate_received)
+            .column("expiry_date", RawFoodOrder::getExpiry_date)
+            .searching("contents");
+    public static final PagedTable<CohabitatesWith> COHABITATES_WITH = new PagedTable<CohabitatesWith>("cohabitates_with",
+            r -> new Object[] {id(r.getA_id1()), id(r.getA_id2())})
+            .column("a_id1", r -> id(r.getA_id1()))
+            .column("a_id2", r -> id(r.getA_id2()))
+            .searching("a_id1", "a_id2");
+    public static final PagedTable<MaintainsHealthOf> MAINTAINS_HEALTH_OF = new PagedTable<MaintainsHealthOf>("maintains_health_of",
+            r -> new Object[] {id(r.getW_id()), id(r.getA_id())})
+            .column("w_id", r -> id(r.getW_id()))
+            .column("a_id", r -> id(r.getA_id()))
+            .searching("w_id", "a_id");
+    public static final PagedTable<Feeds> FEEDS = new PagedTable<Feeds>("feeds",
+            r -> new Object[] {id(r.getW_id()), id(r.getA_id())})
+            .column("w_id", r -> id(r.getW_id()))
+            .column("a_id", r -> id(r.getA_id()))
+            .searching("w_id", "a_id");
+    public static final PagedTable<MadeFrom> MADE_FROM = new PagedTable<MadeFrom>("made_from",
+            r -> new Object[] {id(r.getA_id()), r.getName(), id(r.getO_id())})
+            .column("a_id", r -> id(r.getA_id()))
+            .column("name", MadeFrom::getName)
+            .column("o_id", r -> id(r.getO_id()))
+            .searching("a_id", "name", "o_id");
+
+    private static final List<PagedTable<?>> VALUES = List.of(ANIMALS, RAW_FOOD_ORDERS, COHABITATES_WITH,
+            MAINTAINS_HEALTH_OF, FEEDS, MADE_FROM);
+
+    private final String table;
+    private final Function<T, Object[]> key;
+    // the row's columns in order, each to its sort value
+    private final Map<String, Function<T, Comparable<?>>> columns = new LinkedHashMap<>();
+    // the columns a search looks in: the text columns the tab shows, or every column if it has none
+    private List<String> searchColumns = List.of();
+
+    private PagedTable(String table, Function<T, Object[]> key) {
+        this.table = table;
+        this.key = key;
+    }
+
+    private PagedTable<T> column(String name, Function<T, Comparable<?>> sortValue) {
+        columns.put(name, sortValue);
+        return this;
+    }
+
+    private PagedTable<T> searching(String... names) {
+        searchColumns = List.of(names);
+        return this;
+    }
+
+    // every paged table
+    public static List<PagedTable<?>> values() {
+        return VALUES;
+    }
+
+    // the table the keys come from; change notifications name it
+    public String table() {
+        return table;
+    }
+
+    public Object[] keyOf(T row) {
+        return key.apply(row);
+    }
+
+    // the columns rows hold, in order, by their names in the schema; the first is the first key column
+    public List<String> columns() {
+        return Collections.unmodifiableList(new ArrayList<>(columns.keySet()));
+    }
+
+    public List<String> searchColumns() {
+        return searchColumns;
+    }
+
+    // true if one of the searched columns contains text, ignoring case; a missing value contains nothing
+    public boolean matches(T row, String text) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        for (String column : searchColumns) {
+            if (String.valueOf(columns.get(column).apply(row)).toLowerCase(Locale.ROOT).contains(lower)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // the row's key in the view's order: the sort value, if sorted, then the key columns
+    public Object[] keyOf(T row, PageView view) {
+        Object[] key = keyOf(row);
+        if (view.getSortColumn() == null) {
+            return key;
+        }
+        Object[] sorted = new Object[key.length + 1];
+        sorted[0] = columns.get(view.getSortColumn()).apply(row);
+        System.arraycopy(key, 0, sorted, 1, key.length);
+        return sorted;
+    }
+
+    private static Integer id(String id) {
+        return id == null ? null : Integer.valueOf(id.trim());
+    }
+
+    // the stand-ins for missing values sort first; DatabaseConnectionHandler's page queries
+    // COALESCE to the same values
+    private static Integer idOrLowest(String id) {
+        return id == null || id.trim().isEmpty() ? Integer.MIN_VALUE : id(id);
+    }
+
+    private static String textOrEmpty(String text) {
+        return text == null ? "" : text;
+    }
+
+    @Override
+    public String toString() {
+        return table;
+    }
+}
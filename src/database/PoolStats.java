@@ -0,0 +1,83 @@
+package database;
+
+/**
+ * Point-in-time snapshot of {@link ConnectionPool} counters.
+ */
+public class PoolStats {
+    private final int active;
+    private final int idle;
+    private final int maxSize;
+    private final int waiting;
+    private final long checkouts;
+    private final long totalWaitNanos;
+    private final long maxWaitNanos;
+    private final long created;
+    private final long destroyed;
+    private final long timeouts;
+
+    public PoolStats(int active, int idle, int maxSize, int waiting, long checkouts,
+                     long totalWaitNanos, long maxWaitNanos, long created, long destroyed, long timeouts) {
+        this.active = active;
+        this.idle = idle;
+        this.maxSize = maxSize;
+        this.waiting = waiting;
+        this.checkouts = checkouts;
+        this.totalWaitNanos = totalWaitNanos;
+        this.maxWaitNanos = maxWaitNanos;
+        this.created = created;
+        this.destroyed = destroyed;
+        this.timeouts = timeouts;
+    }
+
+    public int getActive() {
+        return active;
+    }
+
+    public int getIdle() {
+        return idle;
+    }
+
+    public int getMaxSize() {
+        return maxSize;
+    }
+
+    // threads currently blocked in borrow()
+    public int getWaiting() {
+        return waiting;
+    }
+
+    public long getCheckouts() {
+        return checkouts;
+    }
+
+    public long getTotalWaitNanos() {
+        return totalWaitNanos;
+    }
+
+    public long getMaxWaitNanos() {
+        return maxWaitNanos;
+    }
+
+    public double getAverageWaitMillis() {
+        return checkouts == 0 ? 0.0 : totalWaitNanos / 1_000_000.0 / checkouts;
+    }
+
+    public long getCreated() {
+        return created;
+    }
+
+    public long getDestroyed() {
+        return destroyed;
+    }
+
+    public long getTimeouts() {
+        return timeouts;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("active=%d idle=%d max=%d waiting=%d checkouts=%d avgWait=%.3fms maxWait=%.3fms created=%d destroyed=%d timeouts=%d",
+                active, idle, maxSize, waiting, checkouts, getAverageWaitMillis(), maxWaitNanos / 1_000_000.0,
+                created, destroyed, timeouts);
+    }
+}
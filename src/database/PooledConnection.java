@@ -0,0 +1,74 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+
+/**
+ * A physical connection owned by a {@link ConnectionPool}.
+ * Use it in try-with-resources; close() hands it back to the pool instead of closing it.
+ */
+public class PooledConnection implements AutoCloseable {
+
+    private final ConnectionPool pool;
+    private final Connection connection;
+    private final int backendPid;
+    private final StatementCache statements;
+
+    private boolean checkedOut;
+    private long lastReturnedAt;
+
+    PooledConnection(ConnectionPool pool, Connection connection, int backendPid, StatementCache statements) {
+        this.pool = pool;
+        this.connection = connection;
+        this.backendPid = backendPid;
+        this.statements = statements;
+        this.lastReturnedAt = System.currentTimeMillis();
+    }
+
+    public Connection get() {
+        if (!checkedOut) {
+            throw new IllegalStateException("Connection used after it was returned to the pool.");
+        }
+        return connection;
+    }
+
+    // Cached prepared statement for this SQL. Close the ResultSet, never the statement.
+    public PreparedStatement prepare(String sql) throws SQLException {
+        get();
+        return statements.prepare(sql);
+    }
+
+    @Override
+    public void close() {
+        if (!checkedOut) {
+            return;
+        }
+        checkedOut = false;
+        pool.release(this);
+    }
+
+    Connection physical() {
+        return connection;
+    }
+
+    int getBackendPid() {
+        return backendPid;
+    }
+
+    void closeStatements() {
+        statements.close();
+    }
+
+    long getLastReturnedAt() {
+        return lastReturnedAt;
+    }
+
+    void markCheckedOut() {
+        checkedOut = true;
+    }
+
+    void markReturned() {
+        lastReturnedAt = System.currentTimeMillis();
+    }
+}
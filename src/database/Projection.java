@@ -0,0 +1,32 @@
+package database;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * A resolved SELECT built by {@link SelectSpec}: the SQL text plus the columns it selects.
+ * Rows are mapped with the generated model mappers, which leave unselected columns
+ * null (or 0 for primitives).
+ */
+final class Projection {
+
+    private final String sql;
+    private final List<String> columns;
+
+    Projection(String sql, List<String> columns) {
+        this.sql = sql;
+        this.columns = Collections.unmodifiableList(columns);
+    }
+
+    String sql() {
+        return sql;
+    }
+
+    List<String> columns() {
+        return columns;
+    }
+
+    boolean has(String column) {
+        return columns.contains(column);
+    }
+}
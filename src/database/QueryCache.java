@@ -0,0 +1,211 @@
+package database;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Cache of query results keyed by SQL text plus parameter values, with each entry tagged by the
+ * tables it read.
+ *
+ * Writes call {@link #invalidate} with the tables they touch, which drops only the entries
+ * tagged with one of them. Entries also expire after a TTL, and the least recently used ones are
+ * evicted once the estimated size goes over {@code maxBytes}. The size is a rough estimate
+ * (a fixed cost per row and per cell), not a measurement.
+ *
+ * Cached lists are shared between callers, so they must not be modified; the handler only
+ * caches lists of immutable model objects and copies them into arrays before returning.
+ */
+final class QueryCache {
+
+    // rough heap cost of one row object and one mapped cell (reference + small String/boxed value)
+    private static final long ROW_OVERHEAD_BYTES = 32;
+    private static final long CELL_BYTES = 56;
+
+    static final class Key {
+        private final String sql;
+        private final Object[] params;
+        private final int hash;
+
+        Key(String sql, Object[] params) {
+            this.sql = sql;
+            this.params = params;
+            this.hash = 31 * sql.hashCode() + Arrays.hashCode(params);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) o;
+            return hash == other.hash && sql.equals(other.sql) && Arrays.equals(params, other.params);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Entry {
+        final List<?> rows;
+        final Set<String> tables;
+        final long expiresAt;
+        final long bytes;
+
+        Entry(List<?> rows, Set<String> tables, long expiresAt, long bytes) {
+            this.rows = rows;
+            this.tables = tables;
+            this.expiresAt = expiresAt;
+            this.bytes = bytes;
+        }
+    }
+
+    private final long ttlNanos;
+    private final long maxBytes;
+    private final QueryCacheStats stats = new QueryCacheStats();
+
+    private final Object lock = new Object();
+    private final LinkedHashMap<Key, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Map<String, Set<Key>> keysByTable = new HashMap<>();
+    private long bytes;
+
+    // bumped by every invalidation; a load that started before one must not be stored
+    private long generation;
+
+    QueryCache(long ttlMillis, long maxBytes) {
+        if (ttlMillis < 1 || maxBytes < 1) {
+            throw new IllegalArgumentException("Invalid query cache bounds: ttlMillis=" + ttlMillis
+                    + ", maxBytes=" + maxBytes);
+        }
+        this.ttlNanos = ttlMillis * 1_000_000L;
+        this.maxBytes = maxBytes;
+    }
+
+    QueryCacheStats getStats() {
+        return stats;
+    }
+
+    // returns the cached rows, or null on a miss
+    List<?> get(Key key) {
+        synchronized (lock) {
+            Entry e = entries.get(key);
+            if (e != null && e.expiresAt - System.nanoTime() <= 0) {
+                remove(key, e);
+                stats.recordExpiration();
+                e = null;
+            }
+            if (e == null) {
+                stats.recordMiss();
+                return null;
+            }
+            stats.recordHit();
+            return e.rows;
+        }
+    }
+
+    // read before running the query and pass to put()
+    long generation() {
+        synchronized (lock) {
+            return generation;
+        }
+    }
+
+    void put(Key key, Set<String> tables, List<?> rows, int columns, long loadedAtGeneration) {
+        long size = ROW_OVERHEAD_BYTES + rows.size() * (ROW_OVERHEAD_BYTES + columns * CELL_BYTES);
+        if (size > maxBytes) {
+            return;
+        }
+
+        synchronized (lock) {
+            if (loadedAtGeneration != generation) {
+                return; // a write happened while the query ran; the rows may be stale
+            }
+
+            Entry old = entries.get(key);
+            if (old != null) {
+                remove(key, old);
+            }
+
+            entries.put(key, new Entry(rows, tables, System.nanoTime() + ttlNanos, size));
+            for (String table : tables) {
+                keysByTable.computeIfAbsent(table, t -> new HashSet<>()).add(key);
+            }
+            bytes += size;
+
+            // LinkedHashMap in access order: the first entries are the least recently used
+            Iterator<Map.Entry<Key, Entry>> it = entries.entrySet().iterator();
+            while (bytes > maxBytes && it.hasNext()) {
+                Map.Entry<Key, Entry> eldest = it.next();
+                it.remove();
+                unlink(eldest.getKey(), eldest.getValue());
+                stats.recordEviction();
+            }
+            stats.setSize(entries.size(), bytes);
+        }
+    }
+
+    // Drops every entry that read one of the given tables
+    void invalidate(Collection<String> tables) {
+        synchronized (lock) {
+            generation++;
+
+            int dropped = 0;
+            for (String table : tables) {
+                Set<Key> keys = keysByTable.remove(table);
+                if (keys == null) {
+                    continue;
+                }
+                for (Key key : keys) {
+                    Entry e = entries.get(key);
+                    if (e != null) {
+                        remove(key, e);
+                        dropped++;
+                    }
+                }
+            }
+            stats.recordInvalidations(dropped);
+            stats.setSize(entries.size(), bytes);
+        }
+    }
+
+    void clear() {
+        synchronized (lock) {
+            generation++;
+            entries.clear();
+            keysByTable.clear();
+            bytes = 0;
+            stats.setSize(0, 0);
+        }
+    }
+
+    // caller holds the lock
+    private void remove(Key key, Entry e) {
+        entries.remove(key);
+        unlink(key, e);
+        stats.setSize(entries.size(), bytes);
+    }
+
+    private void unlink(Key key, Entry e) {
+        bytes -= e.bytes;
+        for (String table : e.tables) {
+            Set<Key> keys = keysByTable.get(table);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty()) {
+                    keysByTable.remove(table);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package database;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Hit/miss/eviction counters for the query result cache.
+ */
+public class QueryCacheStats {
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder expirations = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder invalidations = new LongAdder();
+
+    // current size, set by the cache under its lock
+    private volatile int entries;
+    private volatile long bytes;
+
+    void recordHit() {
+        hits.increment();
+    }
+
+    void recordMiss() {
+        misses.increment();
+    }
+
+    void recordExpiration() {
+        expirations.increment();
+    }
+
+    void recordEviction() {
+        evictions.increment();
+    }
+
+    void recordInvalidations(int count) {
+        invalidations.add(count);
+    }
+
+    void setSize(int entries, long bytes) {
+        this.entries = entries;
+        this.bytes = bytes;
+    }
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    // entries dropped because their TTL ran out
+    public long getExpirations() {
+        return expirations.sum();
+    }
+
+    // entries dropped to stay under the memory bound
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    // entries dropped because a write touched one of their tables
+    public long getInvalidations() {
+        return invalidations.sum();
+    }
+
+    public int getEntries() {
+        return entries;
+    }
+
+    // estimated, see QueryCache
+    public long getBytes() {
+        return bytes;
+    }
+
+    public double getHitRate() {
+        long h = getHits();
+        long total = h + getMisses();
+        return total == 0 ? 0.0 : (double) h / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("hits=%d misses=%d expirations=%d evictions=%d invalidations=%d " +
+                        "entries=%d bytes=%d hitRate=%.1f%%",
+                getHits(), getMisses(), getExpirations(), getEvictions(), getInvalidations(),
+                getEntries(), getBytes(), getHitRate() * 100);
+    }
+}
@@ -0,0 +1,154 @@
+package database;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Per-method {@link QueryStats} for one handler, plus pool checkout waits, all registered as
+ * MXBeans on the platform MBean server while the handler is open.
+ *
+ * Each public handler method opens a {@link Call} in try-with-resources and marks it ok before
+ * returning; the query helpers add rows and bytes to the innermost open call on their thread.
+ */
+final class QueryMetrics {
+
+    private static final String JMX_DOMAIN = "zoologica.database";
+    private static final AtomicInteger HANDLERS = new AtomicInteger();
+
+    private final String handlerId = String.valueOf(HANDLERS.incrementAndGet());
+    private final Map<String, QueryStats> methods = new ConcurrentSkipListMap<>();
+    private final QueryStats poolWait = new QueryStats("borrow");
+    private final ThreadLocal<Call> current = new ThreadLocal<>();
+    private boolean open; // guarded by this
+
+    QueryMetrics() {
+        open();
+    }
+
+    // Registers the MXBeans, again after close(); the numbers carry on from before
+    synchronized void open() {
+        if (open) {
+            return;
+        }
+        open = true;
+        register("Pool", poolWait);
+        for (QueryStats s : methods.values()) {
+            register("Query", s);
+        }
+    }
+
+    // Unregisters this handler's MXBeans, so handlers that are done with don't pile up on the
+    // MBean server. Calls still count and stay readable through the handler.
+    synchronized void close() {
+        if (!open) {
+            return;
+        }
+        open = false;
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            for (ObjectName name : server.queryNames(new ObjectName(JMX_DOMAIN + ":handler=" + handlerId + ",*"), null)) {
+                server.unregisterMBean(name);
+            }
+        } catch (JMException e) {
+            System.out.println("[EXCEPTION] Could not unregister metrics MBean: " + e.getMessage());
+        }
+    }
+
+    Call begin(String method) {
+        QueryStats stats = methods.get(method);
+        if (stats == null) {
+            stats = methods.computeIfAbsent(method, m -> {
+                QueryStats s = new QueryStats(m);
+                register("Query", s);
+                return s;
+            });
+        }
+        Call call = new Call(stats, current.get());
+        current.set(call);
+        return call;
+    }
+
+    void addRows(long rows, long bytes) {
+        Call call = current.get();
+        if (call != null) {
+            call.rows += rows;
+            call.bytes += bytes;
+        }
+    }
+
+    void recordPoolWait(long nanos, boolean failed) {
+        poolWait.record(nanos, 0, 0, failed);
+    }
+
+    // by method name
+    List<QueryStats> methods() {
+        return new ArrayList<>(methods.values());
+    }
+
+    QueryStats poolWait() {
+        return poolWait;
+    }
+
+    void reset() {
+        for (QueryStats s : methods.values()) {
+            s.reset();
+        }
+        poolWait.reset();
+    }
+
+    // a method first called while closed is registered by the next open()
+    private synchronized void register(String type, QueryStats stats) {
+        if (!open) {
+            return;
+        }
+        try {
+            ObjectName name = new ObjectName(JMX_DOMAIN + ":type=" + type + ",handler=" + handlerId
+                    + ",name=" + stats.getName());
+            ManagementFactory.getPlatformMBeanServer().registerMBean(stats, name);
+        } catch (JMException e) {
+            // still readable through the handler and the text endpoint
+            System.out.println("[EXCEPTION] Could not register metrics MBean: " + e.getMessage());
+        }
+    }
+
+    // One timed handler method call; close() records it, as an error unless ok() was called
+    final class Call implements AutoCloseable {
+        private final QueryStats stats;
+        private final Call parent;
+        private final long start = System.nanoTime();
+        private long rows;
+        private long bytes;
+        private boolean ok;
+
+        private Call(QueryStats stats, Call parent) {
+            this.stats = stats;
+            this.parent = parent;
+        }
+
+        <T> T ok(T result) {
+            ok = true;
+            return result;
+        }
+
+        void ok() {
+            ok = true;
+        }
+
+        @Override
+        public void close() {
+            if (parent == null) {
+                current.remove();
+            } else {
+                current.set(parent);
+            }
+            stats.record(System.nanoTime() - start, rows, bytes, !ok);
+        }
+    }
+}
@@ -0,0 +1,101 @@
+package database;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Live counters and latency percentiles for one {@link DatabaseConnectionHandler} method
+ * (or for pool checkouts, where a call is one borrow and the latency is the wait).
+ */
+public class QueryStats implements QueryStatsMXBean {
+    private final String name;
+    private final LongAdder errors = new LongAdder();
+    private final LongAdder rows = new LongAdder();
+    private final LongAdder bytes = new LongAdder();
+    private final LatencyHistogram latency = new LatencyHistogram();
+
+    QueryStats(String name) {
+        this.name = name;
+    }
+
+    void record(long nanos, long rowCount, long byteCount, boolean failed) {
+        latency.record(nanos);
+        rows.add(rowCount);
+        bytes.add(byteCount);
+        if (failed) {
+            errors.increment();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    @Override
+    public long getCalls() {
+        return latency.count();
+    }
+
+    // calls that threw, including NotExists and bad arguments
+    @Override
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    // rows returned to callers (cache hits included) or written
+    @Override
+    public long getRows() {
+        return rows.sum();
+    }
+
+    // encoded column values read from the server; cache hits fetch nothing
+    @Override
+    public long getBytes() {
+        return bytes.sum();
+    }
+
+    // every call's latency added up
+    @Override
+    public double getTotalMillis() {
+        return latency.totalMillis();
+    }
+
+    @Override
+    public double getMeanMillis() {
+        return latency.meanMillis();
+    }
+
+    @Override
+    public double getP50Millis() {
+        return latency.percentileMillis(0.50);
+    }
+
+    @Override
+    public double getP95Millis() {
+        return latency.percentileMillis(0.95);
+    }
+
+    @Override
+    public double getP99Millis() {
+        return latency.percentileMillis(0.99);
+    }
+
+    @Override
+    public double getMaxMillis() {
+        return latency.maxMillis();
+    }
+
+    @Override
+    public void reset() {
+        latency.reset();
+        errors.reset();
+        rows.reset();
+        bytes.reset();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s calls=%d errors=%d rows=%d bytes=%d p50=%.3fms p95=%.3fms p99=%.3fms max=%.3fms",
+                name, getCalls(), getErrors(), getRows(), getBytes(),
+                getP50Millis(), getP95Millis(), getP99Millis(), getMaxMillis());
+    }
+}
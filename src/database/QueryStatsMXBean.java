@@ -0,0 +1,31 @@
+package database;
+
+/**
+ * JMX view of one {@link QueryStats}, registered per handler method as
+ * {@code zoologica.database:type=Query,handler=N,name=<method>} and for pool checkouts as
+ * {@code zoologica.database:type=Pool,handler=N,name=borrow}.
+ */
+public interface QueryStatsMXBean {
+
+    long getCalls();
+
+    long getErrors();
+
+    long getRows();
+
+    long getBytes();
+
+    double getTotalMillis();
+
+    double getMeanMillis();
+
+    double getP50Millis();
+
+    double getP95Millis();
+
+    double getP99Millis();
+
+    double getMaxMillis();
+
+    void reset();
+}
@@ -0,0 +1,238 @@
+package database;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+
+/**
+ * Brings a database created by sql/init.sql up to the latest schema version.
+ *
+ * Applied versions are recorded in {@code schema_version}. Pending migrations run in version
+ * order inside one transaction, under an advisory lock so two clients starting at once don't
+ * both migrate; if any of them fails, none are applied.
+ */
+final class SchemaMigrator {
+
+    // arbitrary key for pg_advisory_xact_lock, shared by every client of this schema
+    private static final long MIGRATION_LOCK_KEY = 0x7A6F6F6C;
+
+    static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "Integer ID columns", """
+                    -- foreign keys must match the type of the keys they reference, so drop them all,
+                    -- convert every ID column, then put the same constraints back
+                    DO $$
+                    DECLARE
+                        fk RECORD;
+                        t RECORD;
+                    BEGIN
+                        CREATE TEMP TABLE id_migration_fks ON COMMIT DROP AS
+                            SELECT conrelid::regclass::text AS tbl, conname, pg_get_constraintdef(oid) AS def
+                            FROM pg_constraint
+                            WHERE contype = 'f' AND connamespace = 'public'::regnamespace;
+
+                        FOR fk IN SELECT * FROM id_migration_fks LOOP
+                            EXECUTE format('ALTER TABLE %s DROP CONSTRAINT %I', fk.tbl, fk.conname);
+                        END LOOP;
+
+                        -- one ALTER per table so each table is rewritten once
+                        FOR t IN
+                            SELECT table_name,
+                                   string_agg(format('ALTER COLUMN %I TYPE INTEGER USING %I::integer',
+                                                     column_name, column_name), ', ') AS changes
+                            FROM information_schema.columns
+                            WHERE table_schema = 'public'
+                              AND column_name IN ('a_id', 'a_id1', 'a_id2', 'c_id', 'i_id', 'o_id', 'p_id', 'w_id')
+                              AND data_type <> 'integer'
+                            GROUP BY table_name
+                        LOOP
+                            EXECUTE format('ALTER TABLE %I %s', t.table_name, t.changes);
+                        END LOOP;
+
+                        FOR fk IN SELECT * FROM id_migration_fks LOOP
+                            EXECUTE format('ALTER TABLE %s ADD CONSTRAINT %I %s', fk.tbl, fk.conname, fk.def);
+                        END LOOP;
+                    END;
+                    $$;
+                    """),
+
+            // running total of raw food weight per storage unit, so the storage reports don't
+            // re-aggregate located_at x raw_food_orders. Units with nothing stored may have no row.
+            new Migration(2, "Storage usage summary", """
+                    CREATE TABLE storage_usage(
+                        p_id INTEGER PRIMARY KEY,
+                        total_weight BIGINT NOT NULL DEFAULT 0,
+                        FOREIGN KEY (p_id) REFERENCES Storage_Units(p_id) ON DELETE CASCADE
+                    );
+
+                    INSERT INTO storage_usage (p_id, total_weight)
+                    SELECT l.p_id, SUM(o.weight)
+                    FROM located_at l JOIN raw_food_orders o ON o.o_id = l.o_id
+                    GROUP BY l.p_id;
+
+                    -- statement-level with transition tables, so a bulk load updates each unit once
+                    CREATE FUNCTION storage_usage_located_at() RETURNS trigger AS $$
+                    BEGIN
+                        IF TG_OP IN ('INSERT', 'UPDATE') THEN
+                            INSERT INTO storage_usage (p_id, total_weight)
+                            SELECT n.p_id, SUM(o.weight)
+                            FROM new_rows n JOIN raw_food_orders o ON o.o_id = n.o_id
+                            GROUP BY n.p_id
+                            ON CONFLICT (p_id) DO UPDATE SET total_weight = storage_usage.total_weight + EXCLUDED.total_weight;
+                        END IF;
+                        IF TG_OP IN ('DELETE', 'UPDATE') THEN
+                            UPDATE storage_usage u SET total_weight = u.total_weight - d.weight
+                            FROM (SELECT r.p_id, SUM(o.weight) AS weight
+                                  FROM old_rows r JOIN raw_food_orders o ON o.o_id = r.o_id
+                                  GROUP BY r.p_id) d
+                            WHERE u.p_id = d.p_id;
+                        END IF;
+                        RETURN NULL;
+                    END;
+                    $$ LANGUAGE plpgsql;
+
+                    -- located orders can't change o_id (located_at's foreign key), only their weight
+                    CREATE FUNCTION storage_usage_raw_food_orders() RETURNS trigger AS $$
+                    BEGIN
+                        INSERT INTO storage_usage (p_id, total_weight)
+                        SELECT l.p_id, SUM(n.weight - r.weight)
+                        FROM new_rows n
+                        JOIN old_rows r ON r.o_id = n.o_id
+                        JOIN located_at l ON l.o_id = n.o_id
+                        WHERE n.weight <> r.weight
+                        GROUP BY l.p_id
+                        ON CONFLICT (p_id) DO UPDATE SET total_weight = storage_usage.total_weight + EXCLUDED.total_weight;
+                        RETURN NULL;
+                    END;
+                    $$ LANGUAGE plpgsql;
+
+                    CREATE FUNCTION storage_usage_truncate() RETURNS trigger AS $$
+                    BEGIN
+                        DELETE FROM storage_usage;
+                        RETURN NULL;
+                    END;
+                    $$ LANGUAGE plpgsql;
+
+                    CREATE TRIGGER located_at_usage_insert AFTER INSERT ON located_at
+                        REFERENCING NEW TABLE AS new_rows
+                        FOR EACH STATEMENT EXECUTE FUNCTION storage_usage_located_at();
+                    CREATE TRIGGER located_at_usage_update AFTER UPDATE ON located_at
+                        REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+                        FOR EACH STATEMENT EXECUTE FUNCTION storage_usage_located_at();
+                    CREATE TRIGGER located_at_usage_delete AFTER DELETE ON located_at
+                        REFERENCING OLD TABLE AS old_rows
+                        FOR EACH STATEMENT EXECUTE FUNCTION storage_usage_located_at();
+                    CREATE TRIGGER located_at_usage_truncate AFTER TRUNCATE ON located_at
+                        FOR EACH STATEMENT EXECUTE FUNCTION storage_usage_truncate();
+                    CREATE TRIGGER raw_food_orders_usage_update AFTER UPDATE ON raw_food_orders
+                        REFERENCING OLD TABLE AS old_rows NEW TABLE AS new_rows
+                        FOR EACH STATEMENT EXECUTE FUNCTION storage_usage_raw_food_orders();
+                    """),
+
+            // Every write sends NOTIFY zoo_changes with the table name as payload, so open clients
+            // can reload just that table (see ChangeNotifier). Identical payloads within a
+            // transaction are delivered once, so bulk writes produce one event per table, and
+            // UPDATEs that leave a row unchanged send nothing.
+            new Migration(3, "Change notification triggers", """
+                    CREATE OR REPLACE FUNCTION notify_row_change() RETURNS trigger AS $$
+                    BEGIN
+                        IF TG_OP = 'UPDATE' AND OLD IS NOT DISTINCT FROM NEW THEN
+                            RETURN NULL;
+                        END IF;
+                        PERFORM pg_notify('zoo_changes', TG_TABLE_NAME);
+                        RETURN NULL;
+                    END;
+                    $$ LANGUAGE plpgsql;
+
+                    CREATE OR REPLACE FUNCTION notify_truncate() RETURNS trigger AS $$
+                    BEGIN
+                        PERFORM pg_notify('zoo_changes', TG_TABLE_NAME);
+                        RETURN NULL;
+                    END;
+                    $$ LANGUAGE plpgsql;
+
+                    DO $$
+                    DECLARE
+                        t TEXT;
+                    BEGIN
+                        FOREACH t IN ARRAY ARRAY[
+                            'computers1', 'computers2', 'workers', 'zookeepers', 'vendors', 'veterinarians',
+                            'habitats1', 'habitats2', 'shops', 'storage_units', 'items', 'animals1', 'animals2',
+                            'prepped_food', 'raw_food_orders', 'works_at', 'assigned_to', 'feeds',
+                            'maintains_health_of', 'cohabitates_with', 'made_from', 'stored_at', 'located_at']
+                        LOOP
+                            EXECUTE format('DROP TRIGGER IF EXISTS %I ON %I', t || '_notify', t);
+                            EXECUTE format('CREATE TRIGGER %I AFTER INSERT OR UPDATE OR DELETE ON %I '
+                                           'FOR EACH ROW EXECUTE FUNCTION notify_row_change()', t || '_notify', t);
+                            EXECUTE format('DROP TRIGGER IF EXISTS %I ON %I', t || '_notify_truncate', t);
+                            EXECUTE format('CREATE TRIGGER %I AFTER TRUNCATE ON %I '
+                                           'FOR EACH STATEMENT EXECUTE FUNCTION notify_truncate()', t || '_notify_truncate', t);
+                        END LOOP;
+                    END;
+                    $$;
+                    """));
+
+    private SchemaMigrator() {
+    }
+
+    // Returns the number of migrations applied
+    static int migrate(Connection connection) throws SQLException {
+        return migrate(connection, MIGRATIONS);
+    }
+
+    static int migrate(Connection connection, List<Migration> migrations) throws SQLException {
+        int latest = 0;
+        for (Migration m : migrations) {
+            if (m.version() <= latest) {
+                throw new IllegalStateException("Migrations must be in increasing version order: " + m.version());
+            }
+            latest = m.version();
+        }
+
+        boolean oldAutoCommit = connection.getAutoCommit();
+        connection.setAutoCommit(false);
+
+        try (Statement st = connection.createStatement()) {
+            st.execute("SELECT pg_advisory_xact_lock(" + MIGRATION_LOCK_KEY + ")");
+            st.execute("CREATE TABLE IF NOT EXISTS schema_version (" +
+                    "version INTEGER PRIMARY KEY, " +
+                    "description VARCHAR(100) NOT NULL, " +
+                    "applied_at TIMESTAMP NOT NULL DEFAULT now())");
+
+            int current;
+            try (ResultSet rs = st.executeQuery("SELECT COALESCE(MAX(version), 0) FROM schema_version")) {
+                rs.next();
+                current = rs.getInt(1);
+            }
+            if (current > latest) {
+                throw new SQLException("Database schema version " + current
+                        + " is newer than this application supports (" + latest + ").");
+            }
+
+            int applied = 0;
+            for (Migration m : migrations) {
+                if (m.version() <= current) {
+                    continue;
+                }
+                st.execute(m.script());
+                try (PreparedStatement ps = connection.prepareStatement(
+                        "INSERT INTO schema_version (version, description) VALUES (?, ?)")) {
+                    ps.setInt(1, m.version());
+                    ps.setString(2, m.description());
+                    ps.executeUpdate();
+                }
+                applied++;
+            }
+
+            connection.commit();
+            return applied;
+        } catch (SQLException | RuntimeException e) {
+            connection.rollback();
+            throw e;
+        } finally {
+            connection.setAutoCommit(oldAutoCommit);
+        }
+    }
+}
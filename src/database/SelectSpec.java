@@ -0,0 +1,116 @@
+package database;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Whitelist of the columns one getter may select, keyed by the names in {@link util.Constants}.
+ *
+ * Each column maps to a SQL expression and, optionally, the join it needs. {@link #project(List)}
+ * turns a caller's column list into a {@link Projection}: only the requested expressions end up
+ * in the SELECT list and only the joins they need end up in the FROM clause. Key columns are
+ * always selected so rows can still be ordered and identified.
+ */
+final class SelectSpec {
+
+    private static final class Column {
+        final String expression;
+        final String join; // null when the base FROM clause is enough
+        final boolean key;
+
+        Column(String expression, String join, boolean key) {
+            this.expression = expression;
+            this.join = join;
+            this.key = key;
+        }
+    }
+
+    private final String from;
+    private final Map<String, Column> columns = new LinkedHashMap<>();
+    private String orderBy;
+
+    private SelectSpec(String from) {
+        this.from = from;
+    }
+
+    static SelectSpec from(String from) {
+        return new SelectSpec(from);
+    }
+
+    SelectSpec key(String name, String expression) {
+        columns.put(name, new Column(expression, null, true));
+        return this;
+    }
+
+    SelectSpec column(String name, String expression) {
+        columns.put(name, new Column(expression, null, false));
+        return this;
+    }
+
+    // Joins should be LEFT JOINs onto a unique key, so leaving them out never changes the row set.
+    // Base rows with no match (a NULL foreign key) are kept, with NULL in the joined columns.
+    SelectSpec column(String name, String expression, String join) {
+        columns.put(name, new Column(expression, join, false));
+        return this;
+    }
+
+    SelectSpec orderBy(String orderBy) {
+        this.orderBy = orderBy;
+        return this;
+    }
+
+    // null or empty means every column
+    Projection project(List<String> requested) {
+        Set<String> wanted = new LinkedHashSet<>();
+        if (requested == null || requested.isEmpty()) {
+            wanted.addAll(columns.keySet());
+        } else {
+            for (Map.Entry<String, Column> e : columns.entrySet()) {
+                if (e.getValue().key) {
+                    wanted.add(e.getKey());
+                }
+            }
+            for (String name : requested) {
+                String normalized = name.toLowerCase(Locale.ROOT);
+                if (!columns.containsKey(normalized)) {
+                    throw new IllegalArgumentException("Unsupported column for " + from + ": " + name);
+                }
+                wanted.add(normalized);
+            }
+        }
+
+        // keep declaration order so the same column set always produces the same SQL text
+        List<String> selected = new ArrayList<>();
+        StringBuilder select = new StringBuilder("SELECT ");
+        Set<String> joins = new LinkedHashSet<>();
+        for (Map.Entry<String, Column> e : columns.entrySet()) {
+            if (!wanted.contains(e.getKey())) {
+                continue;
+            }
+            Column c = e.getValue();
+            if (!selected.isEmpty()) {
+                select.append(", ");
+            }
+            select.append(c.expression);
+            selected.add(e.getKey());
+            if (c.join != null) {
+                joins.add(c.join);
+            }
+        }
+
+        StringBuilder sql = select.append(" FROM ").append(from);
+        for (String join : joins) {
+            sql.append(' ').append(join);
+        }
+        if (orderBy != null) {
+            sql.append(" ORDER BY ").append(orderBy);
+        }
+
+        return new Projection(sql.toString(), selected);
+    }
+}
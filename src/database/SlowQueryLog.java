@@ -0,0 +1,203 @@
+package database;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.logging.FileHandler;
+import java.util.logging.Formatter;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+import java.util.logging.Logger;
+
+/**
+ * Writes statements that took longer than a threshold to a rotating log file, with their bound
+ * parameters, elapsed time, row count, the calling UI action and the first caller outside this
+ * package. Optionally appends each statement's plan, taken with a plain EXPLAIN (never ANALYZE,
+ * so writes are not re-run) on a background thread.
+ *
+ * Statements under the threshold cost one comparison. The file is opened on the first slow
+ * statement, so nothing is created while everything is fast.
+ */
+final class SlowQueryLog {
+
+    private static final long FILE_LIMIT_BYTES = 5L * 1024 * 1024;
+    private static final int FILE_COUNT = 5;
+
+    // the same statement is explained at most once per interval; later slow runs only get logged
+    private static final long EXPLAIN_INTERVAL_MS = 10 * 60_000;
+    private static final int EXPLAIN_QUEUE = 16;
+
+    private final String filePattern;
+    private final ConnectionSource connections;
+    private volatile long thresholdNanos;
+    private volatile boolean explain;
+    private volatile Supplier<String> actionContext;
+
+    // one per log rather than a shared named logger, so each handler's file gets only its own statements
+    private final Logger log = Logger.getAnonymousLogger();
+    private final Map<String, Long> lastExplained = new ConcurrentHashMap<>();
+    private ThreadPoolExecutor explainer;
+    private FileHandler handler;
+
+    // how the EXPLAIN thread gets a connection; the handler passes its pool checkout
+    interface ConnectionSource {
+        PooledConnection borrow() throws SQLException;
+    }
+
+    SlowQueryLog(String filePattern, long thresholdMs, boolean explain, ConnectionSource connections) {
+        this.filePattern = filePattern;
+        this.connections = connections;
+        this.explain = explain;
+        setThresholdMillis(thresholdMs);
+        log.setUseParentHandlers(false);
+    }
+
+    // 0 or less turns the log off
+    void setThresholdMillis(long thresholdMs) {
+        thresholdNanos = thresholdMs <= 0 ? Long.MAX_VALUE : TimeUnit.MILLISECONDS.toNanos(thresholdMs);
+    }
+
+    long getThresholdMillis() {
+        return thresholdNanos == Long.MAX_VALUE ? 0 : TimeUnit.NANOSECONDS.toMillis(thresholdNanos);
+    }
+
+    void setExplain(boolean explain) {
+        this.explain = explain;
+    }
+
+    // called on the querying thread, only for slow statements
+    void setActionContext(Supplier<String> actionContext) {
+        this.actionContext = actionContext;
+    }
+
+    // params is null for batches and multi-statement loads, which are logged but not explained
+    void record(String sql, Object[] params, long nanos, long rows) {
+        if (nanos < thresholdNanos) {
+            return;
+        }
+
+        String action = null;
+        Supplier<String> context = actionContext;
+        if (context != null) {
+            try {
+                action = context.get();
+            } catch (RuntimeException e) {
+                action = "? (" + e + ")";
+            }
+        }
+
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%.1f ms, %d rows", nanos / 1_000_000.0, rows));
+        sb.append(" | action: ").append(action == null ? "-" : action);
+        sb.append(" | caller: ").append(caller());
+        sb.append("\n  sql: ").append(sql);
+        sb.append("\n  params: ").append(params == null ? "n/a" : Arrays.toString(params));
+        write(Level.WARNING, sb.toString());
+
+        if (explain && params != null) {
+            scheduleExplain(sql, params);
+        }
+    }
+
+    // first frame outside the database package, e.g. UI.JWindow.loadAnimals:292
+    private static String caller() {
+        return StackWalker.getInstance().walk(frames -> frames
+                .filter(f -> !f.getClassName().startsWith("database."))
+                .findFirst()
+                .map(f -> f.getClassName() + "." + f.getMethodName() + ":" + f.getLineNumber())
+                .orElse("-"));
+    }
+
+    private synchronized void write(Level level, String message) {
+        if (handler == null) {
+            try {
+                Path dir = Path.of(filePattern).toAbsolutePath().getParent();
+                if (dir != null) {
+                    Files.createDirectories(dir);
+                }
+                handler = new FileHandler(filePattern, FILE_LIMIT_BYTES, FILE_COUNT, true);
+                handler.setFormatter(new LineFormatter());
+                handler.setEncoding("UTF-8");
+                log.addHandler(handler);
+            } catch (IOException e) {
+                // keep the query working; report on the console like the rest of the handler
+                System.out.println("[EXCEPTION] Could not open slow query log " + filePattern + ": " + e.getMessage());
+                setThresholdMillis(0);
+                return;
+            }
+        }
+        log.log(level, message);
+    }
+
+    private synchronized void scheduleExplain(String sql, Object[] params) {
+        long now = System.currentTimeMillis();
+        Long last = lastExplained.get(sql);
+        if (last != null && now - last < EXPLAIN_INTERVAL_MS) {
+            return;
+        }
+        lastExplained.put(sql, now);
+
+        if (explainer == null) {
+            // one daemon thread, a short queue, and drop work beyond it rather than pile up
+            explainer = new ThreadPoolExecutor(1, 1, 30, TimeUnit.SECONDS, new ArrayBlockingQueue<>(EXPLAIN_QUEUE), r -> {
+                Thread t = new Thread(r, "db-slow-query-explain");
+                t.setDaemon(true);
+                return t;
+            }, new ThreadPoolExecutor.DiscardPolicy());
+            explainer.allowCoreThreadTimeOut(true);
+        }
+        Object[] copy = params.clone();
+        explainer.execute(() -> write(Level.INFO, "plan for: " + sql + "\n" + explain(sql, copy)));
+    }
+
+    private String explain(String sql, Object[] params) {
+        try (PooledConnection pc = connections.borrow()) {
+            // not cached: EXPLAIN text is one-off
+            try (PreparedStatement ps = pc.get().prepareStatement("EXPLAIN " + sql)) {
+                for (int i = 0; i < params.length; i++) {
+                    ps.setObject(i + 1, params[i]);
+                }
+                StringBuilder plan = new StringBuilder();
+                try (ResultSet rs = ps.executeQuery()) {
+                    while (rs.next()) {
+                        plan.append("  ").append(rs.getString(1)).append('\n');
+                    }
+                }
+                return plan.toString();
+            }
+        } catch (SQLException | RuntimeException e) {
+            return "  (EXPLAIN failed: " + e.getMessage() + ")\n";
+        }
+    }
+
+    synchronized void close() {
+        if (explainer != null) {
+            explainer.shutdownNow();
+            explainer = null;
+        }
+        if (handler != null) {
+            log.removeHandler(handler);
+            handler.close();
+            handler = null;
+        }
+    }
+
+    // "2024-05-01 12:00:00.123 WARNING 812.4 ms, ..." then the indented detail lines
+    private static final class LineFormatter extends Formatter {
+        @Override
+        public String format(LogRecord record) {
+            return String.format("%1$tF %1$tT.%1$tL %2$s %3$s%n",
+                    record.getMillis(), record.getLevel(), record.getMessage());
+        }
+    }
+}
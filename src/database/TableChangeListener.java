@@ -0,0 +1,21 @@
+package database;
+
+import java.util.Set;
+
+/**
+ * Receives table change events from other sessions, see
+ * {@link DatabaseConnectionHandler#addTableChangeListener}.
+ *
+ * Called on the notification thread, never the Swing EDT; UI listeners must hand off with
+ * SwingUtilities.invokeLater.
+ */
+@FunctionalInterface
+public interface TableChangeListener {
+
+    // lowercase table names written by one or more committed transactions
+    void tablesChanged(Set<String> tables);
+
+    // Notifications may have been missed (e.g. the listener connection dropped); reload everything
+    default void resync() {
+    }
+}
@@ -0,0 +1,167 @@
+package database;
+
+import exceptions.NotExists;
+import model.*;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Every read, write and report the app uses, independent of where the data lives.
+ *
+ * {@link DatabaseConnectionHandler} runs them against PostgreSQL; {@link InMemoryZooRepository}
+ * keeps the tables in this process, for single-site kiosks, tests and benchmarks without a
+ * server. Both report constraint violations as SQLExceptions with PostgreSQL's SQLStates
+ * (23505 duplicate key, 23503 missing foreign key, 22P02 bad ID, ...).
+ *
+ * Column lists name columns from {@link util.Constants}; null or empty means all of them, and
+ * columns left out come back null (or 0 for primitives).
+ *
+ * The bulk upsert* and insert* methods return the number of rows submitted, not the number that
+ * changed: rows an insert* skips because the pair already exists are counted too.
+ */
+public interface ZooRepository extends AutoCloseable {
+
+    // ------------------------------------------------------------
+    // Lifecycle
+    // ------------------------------------------------------------
+
+    // Must be called before anything else; returns false (after printing why) if the store can't be opened
+    boolean login(String username, String password);
+
+    @Override
+    void close();
+
+    // Subscribes to writes made outside this repository (other windows, psql, ...)
+    void addTableChangeListener(TableChangeListener listener);
+
+    void removeTableChangeListener(TableChangeListener listener);
+
+    // ------------------------------------------------------------
+    // Animals
+    // ------------------------------------------------------------
+
+    Animal[] getAnimalInfo(ArrayList<String> columns) throws SQLException;
+
+    // hands each row to the consumer without building the whole array; returns the row count
+    int streamAnimals(ArrayList<String> columns, Consumer<? super Animal> consumer) throws SQLException;
+
+    // also removes the animal's prepped food and relationship rows; returns the deleted row
+    Animal deleteAnimal(String aId) throws SQLException, NotExists;
+
+    // unknown species are added to animals2 with the animal's genus
+    int upsertAnimals(List<Animal> animals) throws SQLException;
+
+    // ------------------------------------------------------------
+    // Habitats & workers
+    // ------------------------------------------------------------
+
+    Habitat[] getHabitatInfo(ArrayList<String> columns) throws SQLException;
+
+    Worker[] getWorkerInfo(ArrayList<String> columns) throws SQLException;
+
+    // column is one of address, email, phone or pay_rate; returns the row as updated
+    Worker updateWorker(String wId, String column, Object value) throws SQLException, NotExists;
+
+    int upsertWorkers(List<? extends Worker> workers) throws SQLException;
+
+    // upserts the workers rows and adds them to zookeepers
+    int upsertZookeepers(List<Zookeeper> zookeepers) throws SQLException;
+
+    Veterinarian[] getVeterinarianInfo(ArrayList<String> columns) throws SQLException;
+
+    // inserts the workers and veterinarians rows together, or neither; returns the new row
+    Veterinarian insertVeterinarian(String wId, String name, float payRate, String address,
+                            String email, String phone, String specialization) throws SQLException;
+
+    int upsertVeterinarians(List<Veterinarian> vets) throws SQLException;
+
+    // ------------------------------------------------------------
+    // Places, orders & computers
+    // ------------------------------------------------------------
+
+    Shop[] getShopInfo(ArrayList<String> columns) throws SQLException;
+
+    Item[] getItemInfo(ArrayList<String> columns) throws SQLException;
+
+    StorageUnit[] getStorageUnitInfo(ArrayList<String> columns) throws SQLException;
+
+    RawFoodOrder[] getRawFoodOrderInfo(ArrayList<String> columns) throws SQLException;
+
+    int streamRawFoodOrders(ArrayList<String> columns, Consumer<? super RawFoodOrder> consumer) throws SQLException;
+
+    Computer[] getComputerInfo(ArrayList<String> columns) throws SQLException;
+
+    // case-insensitive substring match on the manufacturer
+    Computer[] searchComputersByManufacturer(String manufacturer) throws SQLException;
+
+    // ------------------------------------------------------------
+    // Relationships (every column is always returned)
+    // ------------------------------------------------------------
+
+    CohabitatesWith[] getCohabitatesWithInfo(ArrayList<String> columns) throws SQLException;
+
+    int streamCohabitatesWith(Consumer<? super CohabitatesWith> consumer) throws SQLException;
+
+    MaintainsHealthOf[] getMaintainsHealthOfInfo(ArrayList<String> columns) throws SQLException;
+
+    int streamMaintainsHealthOf(Consumer<? super MaintainsHealthOf> consumer) throws SQLException;
+
+    Feeds[] getFeedsInfo(ArrayList<String> columns) throws SQLException;
+
+    int streamFeeds(Consumer<? super Feeds> consumer) throws SQLException;
+
+    MadeFrom[] getMadeFromInfo(ArrayList<String> columns) throws SQLException;
+
+    int streamMadeFrom(Consumer<? super MadeFrom> consumer) throws SQLException;
+
+    // pairs that already exist are skipped, so these are safe to re-run
+    int insertCohabitatesWith(List<CohabitatesWith> rows) throws SQLException;
+
+    int insertMaintainsHealthOf(List<MaintainsHealthOf> rows) throws SQLException;
+
+    int insertFeeds(List<Feeds> rows) throws SQLException;
+
+    int insertMadeFrom(List<MadeFrom> rows) throws SQLException;
+
+    // ------------------------------------------------------------
+    // Keyset paging, for tables too large to load whole
+    // ------------------------------------------------------------
+
+    // the row count and the key at the start of every page, in the view's order; read in one
+    // pass over the key index in key order, in one sorted pass otherwise
+    PageIndex getPageIndex(PagedTable<?> table, PageView view, int pageSize) throws SQLException;
+
+    // up to limit rows from fromKey (null for the first page) on, in the view's order, every column
+    <T> List<T> getPage(PagedTable<T> table, PageView view, Object[] fromKey, int limit) throws SQLException;
+
+    // ------------------------------------------------------------
+    // Reports
+    // ------------------------------------------------------------
+
+    // zookeepers who feed every animal in the zoo
+    Zookeeper[] getSuperZookeepers() throws SQLException;
+
+    // zookeepers who feed every animal living in the given habitat
+    Zookeeper[] getZookeepersFeedingAllIn(String habitatId) throws SQLException;
+
+    // zookeepers who feed at least the given percentage (0-100) of all animals
+    Zookeeper[] getZookeepersFeedingAtLeast(double percent) throws SQLException;
+
+    // vets paid at most the average for their specialization
+    Veterinarian[] getCheapVeterinarians() throws SQLException;
+
+    // total weight of raw food stored in each storage unit
+    SumWeights[] getSumWeights() throws SQLException;
+
+    // storage units holding less than maxWeight kg
+    SumWeights[] getFreeStorage(int maxWeight) throws SQLException;
+
+    // recomputes the storage totals from scratch; returns the number of units with a total
+    int rebuildStorageUsage() throws SQLException;
+
+    // units whose stored total is out of date, each with its correct total; empty when consistent
+    SumWeights[] verifyStorageUsage() throws SQLException;
+}
@@ -0,0 +1,16 @@
+package mapping;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Overrides the ResultSet column a constructor parameter is read from
+ * when it differs from the parameter name (e.g. a query alias).
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.PARAMETER)
+public @interface Column {
+    String value();
+}
@@ -0,0 +1,16 @@
+package mapping;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Marks a model class for which the mapper processor generates a {@code <Name>Mapper}
+ * in the same package. The generated mapper calls the class's public constructor with
+ * one ResultSet column per parameter; the column defaults to the parameter name.
+ */
+@Retention(RetentionPolicy.SOURCE)
+@Target(ElementType.TYPE)
+public @interface GenerateMapper {
+}
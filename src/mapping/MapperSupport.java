@@ -0,0 +1,62 @@
+package mapping;
+
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.Date;
+
+/**
+ * Helpers called from generated mappers. Column positions are 1-based;
+ * 0 means the column is not in the result and the field gets its default.
+ */
+public final class MapperSupport {
+
+    private MapperSupport() {
+    }
+
+    // one case-insensitive label match per column per ResultSet, not per cell
+    public static int[] resolve(ResultSetMetaData md, String[] columns) throws SQLException {
+        int[] positions = new int[columns.length];
+        int count = md.getColumnCount();
+        for (int i = 1; i <= count; i++) {
+            String label = md.getColumnLabel(i);
+            for (int c = 0; c < columns.length; c++) {
+                if (positions[c] == 0 && columns[c].equalsIgnoreCase(label)) {
+                    positions[c] = i;
+                    break;
+                }
+            }
+        }
+        return positions;
+    }
+
+    public static Integer getInteger(ResultSet rs, int column) throws SQLException {
+        int value = rs.getInt(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    public static Long getLongObject(ResultSet rs, int column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    public static Float getFloatObject(ResultSet rs, int column) throws SQLException {
+        float value = rs.getFloat(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    public static Double getDoubleObject(ResultSet rs, int column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    public static Boolean getBooleanObject(ResultSet rs, int column) throws SQLException {
+        boolean value = rs.getBoolean(column);
+        return rs.wasNull() ? null : value;
+    }
+
+    public static Date getUtilDate(ResultSet rs, int column) throws SQLException {
+        java.sql.Date value = rs.getDate(column);
+        return value == null ? null : new Date(value.getTime());
+    }
+}
@@ -0,0 +1,14 @@
+package mapping;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Maps ResultSet rows to a model type. Implementations are generated from
+ * {@link GenerateMapper}-annotated classes and are stateless singletons.
+ */
+public interface RowMapper<T> {
+
+    // Resolves column positions for this ResultSet once; the reader is only valid for it.
+    RowReader<T> bind(ResultSet rs) throws SQLException;
+}
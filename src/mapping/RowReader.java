@@ -0,0 +1,12 @@
+package mapping;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+
+/**
+ * Reads the current row of a ResultSet whose column positions were already resolved.
+ */
+@FunctionalInterface
+public interface RowReader<T> {
+    T read(ResultSet rs) throws SQLException;
+}
@@ -1,5 +1,8 @@
 package model;
 
+import mapping.GenerateMapper;
+
+@GenerateMapper
 public class Animal {
     private final String a_id;
     private final String p_id;
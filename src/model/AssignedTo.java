@@ -1,5 +1,8 @@
 package model;
 
+import mapping.GenerateMapper;
+
+@GenerateMapper
 public class AssignedTo {
     private final String w_id;
     private final String p_id;
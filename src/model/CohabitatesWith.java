@@ -1,5 +1,8 @@
 package model;
 
+import mapping.GenerateMapper;
+
+@GenerateMapper
 public class CohabitatesWith {
     private final String a_id1;
     private final String a_id2;
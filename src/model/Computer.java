@@ -1,5 +1,8 @@
 package model;
 
+import mapping.GenerateMapper;
+
+@GenerateMapper
 public class Computer {
     private final String c_id;
     private final String w_id;
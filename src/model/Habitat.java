@@ -1,5 +1,8 @@
 package model;
 
+import mapping.GenerateMapper;
+
+@GenerateMapper
 public class Habitat extends Place {
     private final String biome;
     private final int area;
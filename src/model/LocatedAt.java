@@ -1,5 +1,8 @@
 package model;
 
+import mapping.GenerateMapper;
+
+@GenerateMapper
 public class LocatedAt {
     private final String o_id;
     private final String p_id;
@@ -1,8 +1,11 @@
 package model;
 
+import mapping.Column;
+import mapping.GenerateMapper;
 
 import java.util.Date;
 
+@GenerateMapper
 public class RawFoodOrder {
     private final String o_id;
     private final String contents;
@@ -10,7 +13,7 @@ public class RawFoodOrder {
     private final Date date_received;
     private final Date expiry_date;
 
-    public RawFoodOrder(String o_id, String contents, Integer weight, Date date_recieved, Date expiry_date) {
+    public RawFoodOrder(String o_id, String contents, Integer weight, @Column("date_received") Date date_recieved, Date expiry_date) {
         this.o_id = o_id;
         this.contents = contents;
         this.weight = weight;
@@ -1,11 +1,15 @@
 package model;
 
+import mapping.Column;
+import mapping.GenerateMapper;
+
+@GenerateMapper
 public class SumWeights {
     private String p_id;
     private String name;
     private int sumWeight;
 
-    public SumWeights(String p_id, String name, int sumWeight) {
+    public SumWeights(String p_id, String name, @Column("total_weight") int sumWeight) {
         this.p_id = p_id;
         this.name = name;
         this.sumWeight = sumWeight;
@@ -1,5 +1,8 @@
 package model;
 
+import mapping.GenerateMapper;
+
+@GenerateMapper
 public class Vendor extends Worker {
     public Vendor(String w_id, String name, float pay_rate, String address, String email, String phone) {
         super(w_id, name, pay_rate, address, email, phone);
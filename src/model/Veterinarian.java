@@ -1,5 +1,8 @@
 package model;
 
+import mapping.GenerateMapper;
+
+@GenerateMapper
 public class Veterinarian extends Worker {
     private final String specialization;
     private final String PRIMARYKEY = "w-id";
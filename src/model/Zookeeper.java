@@ -1,5 +1,8 @@
 package model;
 
+import mapping.GenerateMapper;
+
+@GenerateMapper
 public class Zookeeper extends Worker {
 
     public Zookeeper(String w_id, String name, float pay_rate, String address, String email, String phone) {
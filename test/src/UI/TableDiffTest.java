@@ -0,0 +1,111 @@
+package UI;
+
+import org.junit.jupiter.api.Test;
+
+import javax.swing.event.TableModelEvent;
+import javax.swing.table.DefaultTableModel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class TableDiffTest {
+
+    private static final Object[] COLUMNS = {"id", "value"};
+
+    @Test
+    void unchangedReadFiresNothing() {
+        DefaultTableModel model = model(rows(0, 2, 4));
+        List<TableModelEvent> events = listen(model);
+        TableDiff.apply(model, rows(0, 2, 4));
+        assertTrue(events.isEmpty());
+    }
+
+    @Test
+    void oneChangedRowFiresOneUpdate() {
+        DefaultTableModel model = model(rows(0, 2, 4));
+        List<TableModelEvent> events = listen(model);
+        Object[][] fresh = rows(0, 2, 4);
+        fresh[1][1] = "changed";
+        TableDiff.apply(model, fresh);
+
+        assertEquals(1, events.size());
+        assertEquals(TableModelEvent.UPDATE, events.get(0).getType());
+        assertEquals(1, events.get(0).getFirstRow());
+        assertEquals(1, events.get(0).getLastRow());
+        assertModelEquals(fresh, model);
+    }
+
+    @Test
+    void reorderedReadReplacesEverything() {
+        DefaultTableModel model = model(rows(0, 2, 4));
+        List<TableModelEvent> events = listen(model);
+        Object[][] fresh = rows(4, 2, 0);
+        TableDiff.apply(model, fresh);
+
+        assertEquals(1, events.size());
+        assertEquals(Integer.MAX_VALUE, events.get(0).getLastRow());
+        assertModelEquals(fresh, model);
+    }
+
+    // Random deletes, inserts and updates, sparse and dense: the model must always end up equal to
+    // the fresh read, in at most MAX_EVENTS events
+    @Test
+    void randomChangesEndEqualToTheFreshRead() {
+        Random random = new Random(1);
+        for (int round = 0; round < 3000; round++) {
+            int n = random.nextInt(300);
+            List<Object[]> loaded = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                loaded.add(new Object[] {String.valueOf(i * 2), "v" + i});
+            }
+            // loaded rows hold the even IDs; odd ones (and those past the end) can be inserted
+            int odds = random.nextInt(4) == 0 ? 2 : 40;
+            List<Object[]> fresh = new ArrayList<>();
+            for (int i = 0; i < n * 2 + 10; i++) {
+                boolean wasLoaded = i % 2 == 0 && i / 2 < n;
+                if (wasLoaded && random.nextInt(odds) != 0) {
+                    fresh.add(new Object[] {String.valueOf(i), random.nextInt(odds) == 0 ? "x" : "v" + i / 2});
+                } else if (!wasLoaded && random.nextInt(odds) == 0) {
+                    fresh.add(new Object[] {String.valueOf(i), "new"});
+                }
+            }
+
+            DefaultTableModel model = model(loaded.toArray(new Object[0][]));
+            List<TableModelEvent> events = listen(model);
+            Object[][] rows = fresh.toArray(new Object[0][]);
+            TableDiff.apply(model, rows);
+
+            assertModelEquals(rows, model);
+            assertTrue(events.size() <= TableDiff.MAX_EVENTS, "round " + round + ": " + events.size() + " events");
+        }
+    }
+
+    private static Object[][] rows(int... ids) {
+        Object[][] rows = new Object[ids.length][];
+        for (int i = 0; i < ids.length; i++) {
+            rows[i] = new Object[] {String.valueOf(ids[i]), "v" + ids[i]};
+        }
+        return rows;
+    }
+
+    private static DefaultTableModel model(Object[][] rows) {
+        return new DefaultTableModel(rows, COLUMNS);
+    }
+
+    private static List<TableModelEvent> listen(DefaultTableModel model) {
+        List<TableModelEvent> events = new ArrayList<>();
+        model.addTableModelListener(events::add);
+        return events;
+    }
+
+    private static void assertModelEquals(Object[][] rows, DefaultTableModel model) {
+        assertEquals(rows.length, model.getRowCount());
+        for (int row = 0; row < rows.length; row++) {
+            for (int column = 0; column < COLUMNS.length; column++) {
+                assertEquals(rows[row][column], model.getValueAt(row, column), "row " + row + ", column " + column);
+            }
+        }
+    }
+}
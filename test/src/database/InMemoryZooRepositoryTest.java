@@ -0,0 +1,275 @@
+package database;
+
+import exceptions.NotExists;
+import model.*;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Pins the in-memory store to the behaviour DatabaseConnectionHandler gets from PostgreSQL, on the
+ * rows of src/sql/init.sql: the SQLStates constraint violations fail with, failed bulk writes
+ * leaving nothing behind, the deleteAnimal cascades, keyset paging and the report semantics.
+ */
+class InMemoryZooRepositoryTest {
+
+    private InMemoryZooRepository repository;
+
+    @BeforeEach
+    void seed() {
+        repository = new InMemoryZooRepository(Path.of("src/sql/init.sql"));
+        assertTrue(repository.login("zoo", "zoo"));
+    }
+
+    @AfterEach
+    void close() {
+        repository.close();
+    }
+
+    // ------------------------------------------------------------
+    // Constraint violations
+    // ------------------------------------------------------------
+
+    @Test
+    void duplicateKeyIs23505() {
+        assertState("23505", () -> repository.insertVeterinarian("1", "Someone Else", 15, "1 Road",
+                "someone@domain.com", "6040000000", "birds"));
+        assertState("23505", () -> repository.upsertWorkers(List.of(
+                new Worker("12", "New Worker", 15, "1 Road", "cliveyong@domain.com", "6040000000"))));
+    }
+
+    @Test
+    void missingForeignKeyIs23503() {
+        assertState("23503", () -> repository.upsertAnimals(List.of(
+                new Animal("1006", "999", "Nobody", "Tiger", null))));
+        // worker 7 is a vet, not a zookeeper
+        assertState("23503", () -> repository.insertFeeds(List.of(new Feeds("7", "1001"))));
+        assertState("23503", () -> repository.insertCohabitatesWith(List.of(new CohabitatesWith("1001", "9999"))));
+    }
+
+    @Test
+    void badIdIs22P02() {
+        assertState("22P02", () -> repository.upsertAnimals(List.of(new Animal("10x", "001", "Typo", "Tiger", null))));
+    }
+
+    @Test
+    void notNullIs23502() {
+        assertState("23502", () -> repository.upsertWorkers(List.of(
+                new Worker("12", null, 15, "1 Road", "new@domain.com", "6040000000"))));
+        assertState("23502", () -> repository.upsertAnimals(List.of(new Animal(null, "001", "Nameless", "Tiger", null))));
+    }
+
+    @Test
+    void tooLongIs22001() {
+        assertState("22001", () -> repository.upsertAnimals(List.of(
+                new Animal("1006", "001", "A name much longer than thirty characters", "Tiger", null))));
+    }
+
+    // ------------------------------------------------------------
+    // Failed writes
+    // ------------------------------------------------------------
+
+    @Test
+    void failedBulkUpsertUndoesEarlierRows() throws SQLException {
+        List<Animal> before = animals();
+        // the new species and the first two rows go in before the third fails
+        assertState("23503", () -> repository.upsertAnimals(List.of(
+                new Animal("1001", "002", "Renamed", "Tiger", null),
+                new Animal("1006", "001", "Newcomer", "Snow Leopard", "panthera"),
+                new Animal("1007", "999", "Lost", "Tiger", null))));
+        assertEquals(rows(before, this::animalRow), rows(animals(), this::animalRow));
+
+        // Snow Leopard was rolled back too, so it takes the genus given now
+        repository.upsertAnimals(List.of(new Animal("1006", "001", "Newcomer", "Snow Leopard", "Uncia")));
+        assertEquals("Uncia", animal("1006").getGenus());
+    }
+
+    @Test
+    void failedWorkerUpsertFreesEmailAndPhone() throws SQLException {
+        assertState("23505", () -> repository.upsertWorkers(List.of(
+                new Worker("12", "First", 15, "1 Road", "first@domain.com", "6040000001"),
+                new Worker("13", "Second", 15, "2 Road", "steve@domain.com", "6040000002"))));
+        assertEquals(11, repository.getWorkerInfo(null).length);
+
+        // worker 12's email and phone went with it
+        repository.upsertWorkers(List.of(new Worker("14", "Third", 15, "3 Road", "first@domain.com", "6040000001")));
+        assertEquals(12, repository.getWorkerInfo(null).length);
+    }
+
+    @Test
+    void failedVeterinarianInsertLeavesNoWorker() {
+        assertState("22001", () -> repository.insertVeterinarian("12", "New Vet", 15, "1 Road",
+                "newvet@domain.com", "6040000000", "a specialization far too long"));
+        assertEquals(11, repository.getWorkerInfo(null).length);
+        assertEquals(10, repository.getVeterinarianInfo(null).length);
+    }
+
+    // ------------------------------------------------------------
+    // deleteAnimal
+    // ------------------------------------------------------------
+
+    @Test
+    void deleteAnimalCascades() throws SQLException, NotExists {
+        Animal deleted = repository.deleteAnimal("1001");
+        assertEquals("Stripe", deleted.getName());
+        assertEquals("panthera", deleted.getGenus());
+
+        assertNull(animal("1001"));
+        assertFalse(rows(repository.getFeedsInfo(null), Feeds::getA_id).contains("1001"));
+        assertFalse(rows(repository.getMaintainsHealthOfInfo(null), MaintainsHealthOf::getA_id).contains("1001"));
+        assertEquals(List.of("1003 1004"), rows(repository.getCohabitatesWithInfo(null), r -> r.getA_id1() + " " + r.getA_id2()));
+        assertFalse(rows(repository.getMadeFromInfo(null), MadeFrom::getA_id).contains("1001"));
+
+        // its prepped food went too, so it can't be made from an order even once the animal is back
+        repository.upsertAnimals(List.of(new Animal("1001", "001", "Stripe", "Tiger", null)));
+        assertState("23503", () -> repository.insertMadeFrom(List.of(new MadeFrom("1001", "Deer meat", "1"))));
+    }
+
+    @Test
+    void deleteMissingAnimalThrowsNotExists() {
+        assertThrows(NotExists.class, () -> repository.deleteAnimal("9999"));
+        assertThrows(NotExists.class, () -> repository.deleteAnimal(null));
+    }
+
+    // ------------------------------------------------------------
+    // Keyset paging
+    // ------------------------------------------------------------
+
+    @Test
+    void pagesInKeyOrder() {
+        PageIndex index = repository.getPageIndex(PagedTable.ANIMALS, PageView.KEY_ORDER, 2);
+        assertEquals(5, index.getRowCount());
+        assertEquals(3, index.getPageCount());
+        assertArrayEquals(new Object[] {1003}, index.getPageStart(1));
+
+        List<Animal> page = repository.getPage(PagedTable.ANIMALS, PageView.KEY_ORDER, index.getPageStart(1), 2);
+        assertEquals(List.of("1003", "1004"), rows(page, Animal::getA_id));
+        assertEquals("Pinguinus", page.get(0).getGenus());
+        assertEquals(List.of("1005"), rows(repository.getPage(PagedTable.ANIMALS, PageView.KEY_ORDER,
+                index.getPageStart(2), 2), Animal::getA_id));
+    }
+
+    @Test
+    void pagesCompositeKeysFromTheMiddle() {
+        PageIndex index = repository.getPageIndex(PagedTable.MADE_FROM, PageView.KEY_ORDER, 2);
+        assertEquals(5, index.getRowCount());
+        assertArrayEquals(new Object[] {1003, "Mashed sardines", 2}, index.getPageStart(1));
+
+        // a key between rows starts at the next one
+        List<MadeFrom> page = repository.getPage(PagedTable.MADE_FROM, PageView.KEY_ORDER,
+                new Object[] {1002, "Raw beef", 5}, 10);
+        assertEquals(List.of("1003", "1004", "1005"), rows(page, MadeFrom::getA_id));
+    }
+
+    @Test
+    void pagesSortedAndSearchedViews() throws SQLException {
+        PageView byName = PageView.sortedBy(PagedTable.ANIMALS, "name", false);
+        PageIndex index = repository.getPageIndex(PagedTable.ANIMALS, byName, 2);
+        assertArrayEquals(new Object[] {"Slippy", 1003}, index.getPageStart(1));
+        assertEquals(List.of("Slippy", "Spots"), rows(repository.getPage(PagedTable.ANIMALS, byName,
+                index.getPageStart(1), 2), Animal::getName));
+
+        PageView descending = PageView.sortedBy(PagedTable.ANIMALS, "name", true);
+        assertEquals(List.of("Stripe", "Spots", "Slippy", "Fluffy", "Cuddles"),
+                rows(repository.getPage(PagedTable.ANIMALS, descending, null, 10), Animal::getName));
+
+        // case-insensitive, across name, species and genus
+        PageView searched = PageView.KEY_ORDER.searching("PANTHERA");
+        assertEquals(2, repository.getPageIndex(PagedTable.ANIMALS, searched, 10).getRowCount());
+        assertEquals(List.of("1001", "1002"), rows(repository.getPage(PagedTable.ANIMALS, searched, null, 10), Animal::getA_id));
+
+        // a write shows up in the next sorted read
+        repository.upsertAnimals(List.of(new Animal("1006", null, "Aardvark", null, null)));
+        assertEquals("1006", repository.getPage(PagedTable.ANIMALS, byName, null, 1).get(0).getA_id());
+    }
+
+    // ------------------------------------------------------------
+    // Reports
+    // ------------------------------------------------------------
+
+    @Test
+    void zookeeperReports() throws SQLException, NotExists {
+        assertEquals(List.of("6"), ids(repository.getSuperZookeepers()));
+        assertEquals(List.of("6"), ids(repository.getZookeepersFeedingAllIn("003")));
+        // nobody lives in habitat 005, so everyone feeds all of it
+        assertEquals(List.of("1", "2", "3", "4", "5", "6"), ids(repository.getZookeepersFeedingAllIn("005")));
+        // each zookeeper feeds 1 of 5 animals, exactly 20%
+        assertEquals(6, repository.getZookeepersFeedingAtLeast(20).length);
+        assertEquals(List.of("6"), ids(repository.getZookeepersFeedingAtLeast(20.5)));
+        assertThrows(IllegalArgumentException.class, () -> repository.getZookeepersFeedingAtLeast(101));
+
+        // with Stripe gone, zookeeper 1 feeds nobody and 6 still feeds everyone
+        repository.deleteAnimal("1001");
+        assertEquals(List.of("6"), ids(repository.getSuperZookeepers()));
+        assertEquals(List.of("2", "3", "4", "5", "6"), ids(repository.getZookeepersFeedingAtLeast(25)));
+    }
+
+    @Test
+    void cheapVeterinariansAreOrderedBySpecialization() throws SQLException {
+        Veterinarian[] cheap = repository.getCheapVeterinarians();
+        assertEquals(List.of("11 bears", "3 birds", "1 large felines", "10 reptiles", "2 small felines"),
+                rows(cheap, v -> v.getW_id() + " " + v.getSpecialization()));
+
+        // a vet with no specialization has no average to exceed
+        repository.upsertVeterinarians(List.of(new Veterinarian("12", "Generalist", 99, "1 Road",
+                "general@domain.com", "6040000000", null)));
+        assertEquals("12", repository.getCheapVeterinarians()[5].getW_id());
+    }
+
+    @Test
+    void storageReports() throws SQLException {
+        assertEquals(List.of("201 82", "202 0", "203 42", "204 200", "205 38"),
+                rows(repository.getSumWeights(), s -> s.getP_id() + " " + s.getSum()));
+        assertEquals(List.of("202", "203", "205"), rows(repository.getFreeStorage(50), SumWeights::getP_id));
+        assertEquals(0, repository.verifyStorageUsage().length);
+        assertEquals(4, repository.rebuildStorageUsage());
+    }
+
+    // ------------------------------------------------------------
+    // Helpers
+    // ------------------------------------------------------------
+
+    @FunctionalInterface
+    private interface Call {
+        void run() throws Exception;
+    }
+
+    private static void assertState(String sqlState, Call call) {
+        SQLException e = assertThrows(SQLException.class, call::run);
+        assertEquals(sqlState, e.getSQLState(), e.getMessage());
+    }
+
+    private List<Animal> animals() {
+        return Arrays.asList(repository.getAnimalInfo(new ArrayList<>()));
+    }
+
+    private Animal animal(String id) {
+        return animals().stream().filter(a -> a.getA_id().equals(id)).findFirst().orElse(null);
+    }
+
+    private String animalRow(Animal a) {
+        return a.getA_id() + " " + a.getP_id() + " " + a.getName() + " " + a.getSpecies() + " " + a.getGenus();
+    }
+
+    private static <T> List<String> rows(T[] rows, Function<T, String> column) {
+        return rows(Arrays.asList(rows), column);
+    }
+
+    private static <T> List<String> rows(List<T> rows, Function<T, String> column) {
+        return rows.stream().map(column).collect(Collectors.toList());
+    }
+
+    private static List<String> ids(Worker[] workers) {
+        return rows(workers, Worker::getW_id);
+    }
+}